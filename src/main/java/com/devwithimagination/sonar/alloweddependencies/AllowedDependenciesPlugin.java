@@ -1,6 +1,8 @@
 
 package com.devwithimagination.sonar.alloweddependencies;
 
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.AllowListRegistry;
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.ScannerProperties;
 import com.devwithimagination.sonar.alloweddependencies.plugin.maven.rules.MavenRulesDefinition;
 import com.devwithimagination.sonar.alloweddependencies.plugin.maven.sensors.CreateIssuesOnMavenArtifactsSensor;
 import com.devwithimagination.sonar.alloweddependencies.plugin.npm.rules.NpmRulesDefinition;
@@ -27,8 +29,13 @@ public class AllowedDependenciesPlugin implements Plugin {
         // Sensors for the checks
         CreateIssuesOnMavenArtifactsSensor.class,
         CreateIssuesOnNPMDependenciesSensor.class,
-        CreateIssuesOnPythonDependenciesSensor.class
+        CreateIssuesOnPythonDependenciesSensor.class,
+        // Compiled allow-lists shared between the sensors
+        AllowListRegistry.class
         );
 
+    // Scanner settings
+    context.addExtensions(ScannerProperties.definitions());
+
   }
 }
@@ -0,0 +1,203 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.common;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.AllowList;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.api.config.Configuration;
+
+/**
+ * Allow-list overlay files, which extend the allow-lists of active rules for
+ * the descriptor files in and below the directory holding them.
+ *
+ * An overlay file is named {@value #FILE_NAME} and holds allow-list rows in
+ * the same form as the rule parameters. Rows following a {@code [npm]},
+ * {@code [maven]} or {@code [python]} heading only apply to that ecosystem,
+ * rows before any heading apply to every ecosystem. The rows of every overlay
+ * between the project base directory and a descriptor are added to the rows
+ * of the rule, outermost overlay first.
+ *
+ * The rows for a directory are resolved once and kept, and directories
+ * without an overlay of their own share the rows of their parent, so the
+ * descriptors of thousands of modules resolve to the few distinct overlay
+ * chains actually present.
+ *
+ * Overlays let anyone who can commit to a project allow dependencies, so
+ * sensors only read them when {@link ScannerProperties#OVERLAYS_KEY} is set.
+ */
+public final class AllowListOverlays {
+
+    /**
+     * The name of an overlay file.
+     */
+    public static final String FILE_NAME = ".allowed-dependencies";
+
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(AllowListOverlays.class);
+
+    private static final AllowListOverlays NONE = new AllowListOverlays((Path) null, "");
+
+    /**
+     * Supplies the project base directory, which is only looked up once a
+     * descriptor is scanned.
+     */
+    private final Supplier<Path> baseDirSupplier;
+
+    private Path baseDir;
+
+    private final String ecosystem;
+
+    /**
+     * The overlay rows applying to each directory resolved so far, empty for
+     * directories without any overlay.
+     */
+    private final Map<Path, String> rowsByDirectory = new HashMap<>();
+
+    /**
+     * Create overlays for a project.
+     *
+     * @param baseDir   the project base directory, overlays are not looked for
+     *                  above it
+     * @param ecosystem the ecosystem whose heading selects rows, such as
+     *                  {@code npm}
+     */
+    public AllowListOverlays(final Path baseDir, final String ecosystem) {
+        this(() -> baseDir, ecosystem);
+    }
+
+    private AllowListOverlays(final Supplier<Path> baseDirSupplier, final String ecosystem) {
+        this.baseDirSupplier = baseDirSupplier;
+        this.ecosystem = ecosystem;
+    }
+
+    /**
+     * Create overlays for the project a sensor is analysing.
+     *
+     * @param context   the sensor context
+     * @param config    the scanner configuration, may be null
+     * @param ecosystem the ecosystem whose heading selects rows
+     * @return the overlays, or {@link #none()} if overlays are not enabled.
+     */
+    public static AllowListOverlays of(final SensorContext context, final Configuration config,
+            final String ecosystem) {
+        if (!ScannerProperties.overlaysEnabled(config)) {
+            return NONE;
+        }
+        return new AllowListOverlays(() -> context.fileSystem().baseDir().toPath(), ecosystem);
+    }
+
+    /**
+     * Get overlays which never add any rows.
+     *
+     * @return the overlays.
+     */
+    public static AllowListOverlays none() {
+        return NONE;
+    }
+
+    /**
+     * Get the overlay rows applying to a descriptor file.
+     *
+     * @param file the descriptor file
+     * @return the newline separated rows, empty if no overlay applies. Files
+     *         under the same overlays get the same instance.
+     */
+    public String rowsFor(final InputFile file) {
+        if (baseDir == null) {
+            final Path supplied = baseDirSupplier.get();
+            if (supplied == null) {
+                return "";
+            }
+            baseDir = supplied.toAbsolutePath().normalize();
+        }
+        final Path path;
+        try {
+            path = Paths.get(file.uri()).toAbsolutePath().normalize();
+        } catch (IllegalArgumentException | UnsupportedOperationException e) {
+            return "";
+        }
+        return rowsFor(path.getParent());
+    }
+
+    private String rowsFor(final Path directory) {
+        if (directory == null || !directory.startsWith(baseDir)) {
+            return "";
+        }
+
+        final String existing = rowsByDirectory.get(directory);
+        if (existing != null) {
+            return existing;
+        }
+
+        final String parentRows = directory.equals(baseDir) ? "" : rowsFor(directory.getParent());
+        final List<String> ownRows = read(directory.resolve(FILE_NAME));
+        final String rows;
+        if (ownRows.isEmpty()) {
+            rows = parentRows;
+        } else {
+            rows = parentRows.isEmpty() ? String.join("\n", ownRows)
+                : parentRows + "\n" + String.join("\n", ownRows);
+        }
+        rowsByDirectory.put(directory, rows);
+        return rows;
+    }
+
+    /**
+     * Read the rows of an overlay file applying to this ecosystem.
+     */
+    private List<String> read(final Path file) {
+        final List<String> rows = new ArrayList<>();
+        if (!Files.isRegularFile(file)) {
+            return rows;
+        }
+
+        final String content;
+        try {
+            content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            LOG.warn("Unable to read allow-list overlay {}", file, e);
+            return rows;
+        }
+
+        boolean applies = true;
+        for (String row : AllowList.rows(content)) {
+            if (row.startsWith("[") && row.endsWith("]")) {
+                applies = row.substring(1, row.length() - 1).trim().toLowerCase(Locale.ROOT).equals(ecosystem);
+            } else if (applies) {
+                rows.add(row);
+            }
+        }
+        LOG.info("Allow-list overlay {} adds {} {} rows", file, rows.size(), ecosystem);
+        return rows;
+    }
+
+    /**
+     * Add overlay rows to the rows configured on a rule.
+     *
+     * @param deps        the newline separated rows of the rule, may be null
+     * @param overlayRows the overlay rows, see {@link #rowsFor(InputFile)}
+     * @return the merged rows.
+     */
+    public static String merge(final String deps, final String overlayRows) {
+        if (overlayRows.isEmpty()) {
+            return deps;
+        }
+        return deps == null ? overlayRows : deps + "\n" + overlayRows;
+    }
+}
@@ -0,0 +1,348 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.common;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.AllowList;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.PredicateFactory;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.SnapshotCodec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.config.Configuration;
+import org.sonar.api.scanner.ScannerSide;
+
+/**
+ * Scanner wide registry of compiled allow-lists.
+ *
+ * Quality profiles commonly paste the same allow-list into several rules. The
+ * registry fingerprints each list by its meaningful rows together with the way
+ * it is compiled, and hands out a single shared matcher for every rule with the
+ * same fingerprint. Compiled matchers are safe to share between threads, but
+ * they are not immutable: each counts the hits of its rows for the
+ * {@link UnusedRowReport}, so rules sharing a list also share those counts.
+ * The registry also carries the scanner settings which control how
+ * allow-lists are compiled.
+ *
+ * Each sensor takes a view of the registry for its analysis with
+ * {@link #forAnalysis(AllowListSnapshots, Supplier)}, which shares the compiled
+ * lists but carries its own snapshots and base directory, so no sensor changes
+ * what another sees. Lists requested with a {@link SnapshotCodec} are also
+ * restored from, and written to, the snapshots of the view, so they are only
+ * compiled again when the rule parameters, the settings or the plugin change.
+ */
+@ScannerSide
+public class AllowListRegistry {
+
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(AllowListRegistry.class);
+
+    /**
+     * Separates the allow rows from the deny rows in a fingerprint. Trimming
+     * removes NUL characters from the ends of rows, so no row can be mistaken
+     * for it.
+     */
+    private static final String DENIED_ROWS_SEPARATOR = "\n\u0000\n";
+
+    private final Map<Fingerprint, Object> compiled;
+
+    private final long regexStepBudget;
+
+    private final AllowList.MatcherEngine matcherEngine;
+
+    private final AllowListSnapshots snapshots;
+
+    private final Supplier<Path> baseDir;
+
+    /**
+     * Create a new registry.
+     *
+     * This is expected to be called using IoC to inject the configuration.
+     *
+     * @param config the scanner configuration, may be null to use the default
+     *               settings.
+     */
+    public AllowListRegistry(final Configuration config) {
+        this.compiled = new ConcurrentHashMap<>();
+        this.regexStepBudget = ScannerProperties.regexStepBudget(config);
+        this.matcherEngine = ScannerProperties.matcherEngine(config);
+        this.snapshots = AllowListSnapshots.none();
+        this.baseDir = () -> null;
+    }
+
+    private AllowListRegistry(final AllowListRegistry registry, final AllowListSnapshots snapshots,
+            final Supplier<Path> baseDir) {
+        this.compiled = registry.compiled;
+        this.regexStepBudget = registry.regexStepBudget;
+        this.matcherEngine = registry.matcherEngine;
+        this.snapshots = Objects.requireNonNull(snapshots);
+        this.baseDir = Objects.requireNonNull(baseDir);
+    }
+
+    /**
+     * Create a registry using the default settings.
+     *
+     * @return the registry.
+     */
+    public static AllowListRegistry withDefaults() {
+        return new AllowListRegistry(null);
+    }
+
+    /**
+     * Get the step budget for evaluating regex rows.
+     *
+     * @return the maximum number of characters read per regex evaluation.
+     */
+    public long regexStepBudget() {
+        return regexStepBudget;
+    }
+
+    /**
+     * Get how the exact index of each allow-list is evaluated. Every list in
+     * the registry is compiled with the same engine.
+     *
+     * @return the matcher engine.
+     */
+    public AllowList.MatcherEngine matcherEngine() {
+        return matcherEngine;
+    }
+
+    /**
+     * Get a view of the registry for the analysis a sensor is running in,
+     * sharing the lists compiled so far. Sensors build their checks with the
+     * view, as the snapshots and base directory depend on the sensor context.
+     *
+     * @param snapshots where compiled allow-lists are kept between analyses
+     * @param baseDir   supplies the directory relative
+     *                  {@value PredicateFactory#INDEX_PREFIX} rows are
+     *                  resolved against, typically the project base directory.
+     *                  It is only looked up when a list with an index row is
+     *                  compiled.
+     * @return the view.
+     */
+    public AllowListRegistry forAnalysis(final AllowListSnapshots snapshots, final Supplier<Path> baseDir) {
+        return new AllowListRegistry(this, snapshots, baseDir);
+    }
+
+    /**
+     * Get the directory relative {@value PredicateFactory#INDEX_PREFIX} rows
+     * are resolved against.
+     *
+     * @return the directory, or null to resolve them against the directory
+     *         the scanner was started in.
+     */
+    public Path baseDir() {
+        return baseDir.get();
+    }
+
+    /**
+     * Get the compiler identifier for a rule, reflecting whether its regex rows
+     * must match the whole dependency name.
+     *
+     * @param compiler       the base compiler identifier
+     * @param regexFullMatch if regex rows must match the whole dependency name
+     * @return the compiler identifier.
+     */
+    public static String compiler(final String compiler, final boolean regexFullMatch) {
+        return regexFullMatch ? compiler + ":full-match" : compiler;
+    }
+
+    /**
+     * Get the compiled matcher for an allow-list, compiling it if no rule has
+     * requested the same list before.
+     *
+     * @param <T>      the type of the compiled matcher
+     * @param type     the type of the compiled matcher
+     * @param compiler identifies how the list is compiled, such as the
+     *                 ecosystem and normalizer. Lists are only shared between
+     *                 requests using the same compiler identifier.
+     * @param deps     the newline separated allow-list, may be null
+     * @param compile  function compiling the allow-list, only invoked when the
+     *                 list has not been compiled before
+     * @return the compiled matcher.
+     */
+    public <T> T get(final Class<T> type, final String compiler, final String deps,
+            final Function<String, T> compile) {
+        return get(type, compiler, deps, compile, null);
+    }
+
+    /**
+     * Get the compiled matcher for an allow-list, restoring it from its
+     * snapshot or compiling it if no rule has requested the same list before.
+     *
+     * @param <T>      the type of the compiled matcher
+     * @param type     the type of the compiled matcher
+     * @param compiler identifies how the list is compiled, see
+     *                 {@link #get(Class, String, String, Function)}
+     * @param deps     the newline separated allow-list, may be null
+     * @param compile  function compiling the allow-list, only invoked when the
+     *                 list has not been compiled before and has no snapshot
+     * @param codec    writes and restores snapshots of the compiled matcher,
+     *                 may be null to always compile
+     * @return the compiled matcher.
+     */
+    public <T> T get(final Class<T> type, final String compiler, final String deps,
+            final Function<String, T> compile, final SnapshotCodec<T> codec) {
+
+        /* Blank and comment rows do not change the result, so leave them out of the fingerprint */
+        final String rows = String.join("\n", AllowList.rows(deps));
+        final Fingerprint fingerprint = new Fingerprint(type, scoped(compiler, rows), rows);
+
+        final Object existing = compiled.get(fingerprint);
+        if (existing != null) {
+            LOG.debug("Reusing compiled {} allow-list", compiler);
+            return type.cast(existing);
+        }
+        return type.cast(compiled.computeIfAbsent(fingerprint,
+            key -> loadOrCompile(key, codec, () -> compile.apply(deps))));
+    }
+
+    /**
+     * Get the compiled matcher for an allow-list together with the deny-list
+     * compiled into it, compiling them if no rule has requested the same pair
+     * of lists before.
+     *
+     * @param <T>        the type of the compiled matcher
+     * @param type       the type of the compiled matcher
+     * @param compiler   identifies how the lists are compiled, see
+     *                   {@link #get(Class, String, String, Function)}
+     * @param deps       the newline separated allow-list, may be null
+     * @param deniedDeps the newline separated deny-list, may be null
+     * @param compile    function compiling the allow-list and deny-list, only
+     *                   invoked when the pair has not been compiled before
+     * @return the compiled matcher.
+     */
+    public <T> T get(final Class<T> type, final String compiler, final String deps, final String deniedDeps,
+            final BiFunction<String, String, T> compile) {
+        return get(type, compiler, deps, deniedDeps, compile, null);
+    }
+
+    /**
+     * Get the compiled matcher for an allow-list together with the deny-list
+     * compiled into it, restoring them from their snapshot or compiling them
+     * if no rule has requested the same pair of lists before.
+     *
+     * @param <T>        the type of the compiled matcher
+     * @param type       the type of the compiled matcher
+     * @param compiler   identifies how the lists are compiled, see
+     *                   {@link #get(Class, String, String, Function)}
+     * @param deps       the newline separated allow-list, may be null
+     * @param deniedDeps the newline separated deny-list, may be null
+     * @param compile    function compiling the allow-list and deny-list, only
+     *                   invoked when the pair has not been compiled before and
+     *                   has no snapshot
+     * @param codec      writes and restores snapshots of the compiled matcher,
+     *                   may be null to always compile
+     * @return the compiled matcher.
+     */
+    public <T> T get(final Class<T> type, final String compiler, final String deps, final String deniedDeps,
+            final BiFunction<String, String, T> compile, final SnapshotCodec<T> codec) {
+        final List<String> deniedRows = AllowList.rows(deniedDeps);
+        if (deniedRows.isEmpty()) {
+            return get(type, compiler, deps, list -> compile.apply(list, null), codec);
+        }
+
+        /* Deny rows are kept apart from the allow rows, so the same rows on either side never collide */
+        final String rows = String.join("\n", AllowList.rows(deps)) + DENIED_ROWS_SEPARATOR
+            + String.join("\n", deniedRows);
+        final Fingerprint fingerprint = new Fingerprint(type, scoped(compiler, rows), rows);
+
+        final Object existing = compiled.get(fingerprint);
+        if (existing != null) {
+            LOG.debug("Reusing compiled {} allow-list with deny rows", compiler);
+            return type.cast(existing);
+        }
+        return type.cast(compiled.computeIfAbsent(fingerprint,
+            key -> loadOrCompile(key, codec, () -> compile.apply(deps, deniedDeps))));
+    }
+
+    /**
+     * Relative index rows name a different file in each project, so lists
+     * holding them are only shared within the same base directory.
+     */
+    private String scoped(final String compiler, final String rows) {
+        return rows.contains(PredicateFactory.INDEX_PREFIX) ? compiler + " in " + baseDir() : compiler;
+    }
+
+    /**
+     * Restore a list from its snapshot, or compile it and write its snapshot
+     * for the next analysis.
+     */
+    private <T> T loadOrCompile(final Fingerprint fingerprint, final SnapshotCodec<T> codec,
+            final Supplier<T> compile) {
+        if (codec == null || !snapshots.isEnabled()) {
+            return compile.get();
+        }
+
+        /* The settings are part of the key, as they change what is compiled */
+        final String key = AllowListSnapshots.key(fingerprint.type.getName(), fingerprint.compiler,
+            fingerprint.rows, String.valueOf(regexStepBudget), matcherEngine.name());
+        final T restored = snapshots.load(key, codec);
+        if (restored != null) {
+            LOG.debug("Restored compiled {} allow-list from its snapshot", fingerprint.compiler);
+            return restored;
+        }
+
+        final T built = compile.get();
+        snapshots.save(key, built, codec);
+        return built;
+    }
+
+    /**
+     * Get the number of distinct allow-lists which have been compiled.
+     *
+     * @return the compiled allow-list count.
+     */
+    public int size() {
+        return compiled.size();
+    }
+
+    /**
+     * Key identifying a distinct compiled allow-list.
+     */
+    private static final class Fingerprint {
+
+        private final Class<?> type;
+
+        private final String compiler;
+
+        private final String rows;
+
+        private final int hashCode;
+
+        private Fingerprint(final Class<?> type, final String compiler, final String rows) {
+            this.type = type;
+            this.compiler = compiler;
+            this.rows = rows;
+            this.hashCode = Objects.hash(type, compiler, rows);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Fingerprint)) {
+                return false;
+            }
+            final Fingerprint other = (Fingerprint) obj;
+            return hashCode == other.hashCode
+                && type.equals(other.type)
+                && compiler.equals(other.compiler)
+                && rows.equals(other.rows);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
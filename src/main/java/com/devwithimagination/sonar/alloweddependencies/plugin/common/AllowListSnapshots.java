@@ -0,0 +1,458 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.common;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.SnapshotCodec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.api.batch.sensor.cache.ReadCache;
+import org.sonar.api.batch.sensor.cache.WriteCache;
+import org.sonar.api.config.Configuration;
+
+/**
+ * Snapshots of compiled allow-lists kept between analyses.
+ *
+ * Quality profiles rarely change between analyses, so rather than compiling
+ * every allow-list from the rule parameters on each run, the
+ * {@link AllowListRegistry} writes each compiled list out once and restores it
+ * on the next run. Snapshots are keyed by a hash of everything the compiled
+ * list depends on, being the rows, how they are compiled, the scanner settings
+ * and the plugin version, so a changed profile or an upgraded plugin simply
+ * misses and compiles afresh.
+ *
+ * Snapshots are kept in the Sonar analysis cache, which only the scanner
+ * writes, when that is enabled. The scanner working directory is cleaned
+ * before each analysis, and a directory the project could name would let
+ * anyone able to commit to it plant a snapshot, so neither is used. Without
+ * the analysis cache, every list is compiled.
+ *
+ * Each snapshot carries the length of its payload and an HMAC-SHA256 of its
+ * header, key and payload, which are checked before anything is decoded. The
+ * HMAC key is created on first use in the SonarScanner user home, outside the
+ * project, so a snapshot which was not written by a scanner holding that key,
+ * or which was written for another list, is never restored. A snapshot which
+ * cannot be read or verified is ignored and the list compiled as if there were
+ * none.
+ */
+public final class AllowListSnapshots {
+
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(AllowListSnapshots.class);
+
+    /**
+     * Identifies a snapshot, followed by {@link #FORMAT_VERSION}.
+     */
+    private static final int MAGIC = 0x41444c53;
+
+    /**
+     * The version of the snapshot format, to be raised whenever the way a
+     * compiled list is written changes.
+     */
+    static final int FORMAT_VERSION = 5;
+
+    /**
+     * The offset of the HMAC in the header, after the magic, format version
+     * and payload length it covers.
+     */
+    private static final int MAC_OFFSET = 12;
+
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+
+    private static final int MAC_BYTES = 32;
+
+    /**
+     * The bytes before the payload: magic, format version, payload length and
+     * HMAC.
+     */
+    private static final int HEADER_BYTES = MAC_OFFSET + MAC_BYTES;
+
+    /**
+     * The length of the HMAC key.
+     */
+    static final int KEY_BYTES = 32;
+
+    private static final String CACHE_KEY_PREFIX = "allowed-dependencies:allow-list-snapshot:";
+
+    private static final String FILE_SUFFIX = ".bin";
+
+    private static final AllowListSnapshots NONE = new AllowListSnapshots(null, null, null, null);
+
+    private static final String PLUGIN_VERSION = pluginVersion();
+
+    private final Path directory;
+
+    private final ReadCache previousCache;
+
+    private final WriteCache nextCache;
+
+    private final byte[] secret;
+
+    /**
+     * The keys already written to the next analysis cache, which does not
+     * accept a key twice.
+     */
+    private final Set<String> cachedKeys = ConcurrentHashMap.newKeySet();
+
+    private AllowListSnapshots(final Path directory, final ReadCache previousCache, final WriteCache nextCache,
+            final byte[] secret) {
+        this.directory = directory;
+        this.previousCache = previousCache;
+        this.nextCache = nextCache;
+        this.secret = secret;
+    }
+
+    /**
+     * Get the snapshots for the analysis a sensor is running in.
+     *
+     * @param context the sensor context
+     * @param config  the scanner configuration, may be null to use the
+     *                default settings
+     * @return the snapshots, which keep nothing if snapshots are disabled,
+     *         there is no analysis cache or there is no usable HMAC key.
+     */
+    public static AllowListSnapshots of(final SensorContext context, final Configuration config) {
+        return of(context, config, defaultKeyFile());
+    }
+
+    /**
+     * Get the snapshots for the analysis a sensor is running in.
+     *
+     * @param context the sensor context
+     * @param config  the scanner configuration, may be null to use the
+     *                default settings
+     * @param keyFile the file holding the HMAC key, created if missing
+     * @return the snapshots.
+     */
+    static AllowListSnapshots of(final SensorContext context, final Configuration config, final Path keyFile) {
+        if (!ScannerProperties.snapshotsEnabled(config)) {
+            return NONE;
+        }
+        if (!context.isCacheEnabled()) {
+            LOG.debug("Allow-list snapshots need the analysis cache");
+            return NONE;
+        }
+
+        final Path baseDir = context.fileSystem().baseDir().toPath().toAbsolutePath().normalize();
+        if (keyFile.toAbsolutePath().normalize().startsWith(baseDir)) {
+            LOG.warn("Not keeping allow-list snapshots, as their key {} would be inside the project", keyFile);
+            return NONE;
+        }
+        try {
+            return new AllowListSnapshots(null, context.previousCache(), context.nextCache(), readKey(keyFile));
+        } catch (IOException | RuntimeException e) {
+            LOG.debug("Not keeping allow-list snapshots, as their key {} cannot be read", keyFile, e);
+            return NONE;
+        }
+    }
+
+    /**
+     * Get snapshots kept as files in a directory.
+     *
+     * @param directory the directory, created when the first snapshot is
+     *                  written
+     * @param secret    the HMAC key, of {@value #KEY_BYTES} bytes
+     * @return the snapshots.
+     */
+    static AllowListSnapshots inDirectory(final Path directory, final byte[] secret) {
+        return new AllowListSnapshots(directory, null, null, secret.clone());
+    }
+
+    /**
+     * Get snapshots which keep nothing, so every list is compiled.
+     *
+     * @return the snapshots.
+     */
+    public static AllowListSnapshots none() {
+        return NONE;
+    }
+
+    /**
+     * Check if snapshots are kept anywhere.
+     *
+     * @return true if snapshots are kept.
+     */
+    public boolean isEnabled() {
+        return directory != null || nextCache != null;
+    }
+
+    /**
+     * Create the key of a snapshot. The plugin version and snapshot format
+     * are always part of the key.
+     *
+     * @param parts everything the compiled list depends on
+     * @return the key.
+     */
+    public static String key(final String... parts) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        digest.update((PLUGIN_VERSION + '\u0000' + FORMAT_VERSION).getBytes(StandardCharsets.UTF_8));
+        for (String part : parts) {
+            digest.update((byte) 0);
+            digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+        }
+
+        final StringBuilder key = new StringBuilder();
+        for (byte value : digest.digest()) {
+            key.append(String.format("%02x", value));
+        }
+        return key.toString();
+    }
+
+    /**
+     * Restore a compiled list from its snapshot.
+     *
+     * @param <T>   the type of the compiled matcher
+     * @param key   the snapshot key, see {@link #key(String...)}
+     * @param codec the codec restoring the list
+     * @return the compiled list, or null if there is no usable snapshot.
+     */
+    public <T> T load(final String key, final SnapshotCodec<T> codec) {
+        final byte[] data = read(key);
+        if (data == null) {
+            return null;
+        }
+        if (data.length < HEADER_BYTES) {
+            LOG.debug("Ignoring truncated allow-list snapshot {}", key);
+            return null;
+        }
+
+        final ByteBuffer header = ByteBuffer.wrap(data, 0, HEADER_BYTES);
+        if (header.getInt() != MAGIC || header.getInt() != FORMAT_VERSION) {
+            LOG.debug("Ignoring allow-list snapshot {} written in another format", key);
+            return null;
+        }
+        if (header.getInt() != data.length - HEADER_BYTES || !MessageDigest.isEqual(mac(key, data),
+                Arrays.copyOfRange(data, MAC_OFFSET, HEADER_BYTES))) {
+            LOG.debug("Ignoring damaged or unauthenticated allow-list snapshot {}", key);
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(
+                new ByteArrayInputStream(data, HEADER_BYTES, data.length - HEADER_BYTES))) {
+            final T compiled = codec.read(in);
+            keepCached(key);
+            return compiled;
+        } catch (IOException | RuntimeException e) {
+            LOG.debug("Ignoring unusable allow-list snapshot {}", key, e);
+            return null;
+        }
+    }
+
+    /**
+     * Write the snapshot of a compiled list. Failing to write a snapshot does
+     * not fail the analysis.
+     *
+     * @param <T>      the type of the compiled matcher
+     * @param key      the snapshot key, see {@link #key(String...)}
+     * @param compiled the compiled list
+     * @param codec    the codec writing the list
+     */
+    public <T> void save(final String key, final T compiled, final SnapshotCodec<T> codec) {
+        if (!isEnabled() || !codec.supports(compiled)) {
+            return;
+        }
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.write(new byte[HEADER_BYTES]);
+            codec.write(compiled, out);
+        } catch (IOException | RuntimeException e) {
+            LOG.debug("Unable to write allow-list snapshot {}", key, e);
+            return;
+        }
+
+        final byte[] data = bytes.toByteArray();
+        ByteBuffer.wrap(data, 0, HEADER_BYTES)
+            .putInt(MAGIC)
+            .putInt(FORMAT_VERSION)
+            .putInt(data.length - HEADER_BYTES)
+            .put(mac(key, data));
+        write(key, data);
+    }
+
+    /**
+     * Compute the HMAC of a snapshot over its key, so a snapshot cannot be
+     * moved to another list, the header before the HMAC and the payload.
+     */
+    private byte[] mac(final String key, final byte[] data) {
+        try {
+            final Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(new SecretKeySpec(secret, MAC_ALGORITHM));
+            mac.update(key.getBytes(StandardCharsets.UTF_8));
+            mac.update(data, 0, MAC_OFFSET);
+            mac.update(data, HEADER_BYTES, data.length - HEADER_BYTES);
+            return mac.doFinal();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(MAC_ALGORITHM + " is not available", e);
+        }
+    }
+
+    /**
+     * Get the file holding the HMAC key, in the SonarScanner user home named by
+     * the {@code SONAR_USER_HOME} environment variable, or {@code ~/.sonar}.
+     * The {@code sonar.userHome} setting is not used, as the project can set it.
+     */
+    private static Path defaultKeyFile() {
+        final String sonarUserHome = System.getenv("SONAR_USER_HOME");
+        final Path home = sonarUserHome != null && !sonarUserHome.trim().isEmpty()
+            ? Paths.get(sonarUserHome.trim())
+            : Paths.get(System.getProperty("user.home"), ".sonar");
+        return home.resolve("allowed-dependencies").resolve("snapshot.key");
+    }
+
+    /**
+     * Read the HMAC key, creating a random one if there is none yet.
+     *
+     * @param keyFile the file holding the key
+     * @return the key.
+     * @throws IOException if the key cannot be read or created.
+     */
+    static byte[] readKey(final Path keyFile) throws IOException {
+        if (!Files.exists(keyFile)) {
+            final byte[] key = new byte[KEY_BYTES];
+            new SecureRandom().nextBytes(key);
+
+            /* Temporary files are only readable by their owner, and moved into place whole */
+            final Path directory = Files.createDirectories(keyFile.toAbsolutePath().getParent());
+            final Path partial = Files.createTempFile(directory, "snapshot", ".tmp");
+            try {
+                Files.write(partial, key);
+                Files.move(partial, keyFile, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                LOG.debug("Allow-list snapshot key {} was created by another analysis", keyFile);
+            } finally {
+                Files.deleteIfExists(partial);
+            }
+        }
+
+        final byte[] key = Files.readAllBytes(keyFile);
+        if (key.length != KEY_BYTES) {
+            throw new IOException("Allow-list snapshot key " + keyFile + " is not " + KEY_BYTES + " bytes");
+        }
+        return key;
+    }
+
+    private byte[] read(final String key) {
+        if (directory != null) {
+            final Path file = directory.resolve(key + FILE_SUFFIX);
+            if (!Files.isRegularFile(file)) {
+                return null;
+            }
+            try {
+                return Files.readAllBytes(file);
+            } catch (IOException e) {
+                LOG.debug("Unable to read allow-list snapshot {}", file, e);
+                return null;
+            }
+        }
+        if (previousCache == null || !previousCache.contains(CACHE_KEY_PREFIX + key)) {
+            return null;
+        }
+        try (InputStream in = previousCache.read(CACHE_KEY_PREFIX + key)) {
+            return in.readAllBytes();
+        } catch (IOException | RuntimeException e) {
+            LOG.debug("Unable to read allow-list snapshot {} from the analysis cache", key, e);
+            return null;
+        }
+    }
+
+    private void write(final String key, final byte[] data) {
+        if (directory != null) {
+            final Path file = directory.resolve(key + FILE_SUFFIX);
+            try {
+                Files.createDirectories(directory);
+
+                /* Written aside and moved into place, so a concurrent analysis never reads half a snapshot */
+                final Path partial = Files.createTempFile(directory, key, ".tmp");
+                Files.write(partial, data);
+                Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException | UnsupportedOperationException e) {
+                LOG.debug("Unable to write allow-list snapshot {}", file, e);
+            }
+            return;
+        }
+        if (cachedKeys.add(key)) {
+            try {
+                nextCache.write(CACHE_KEY_PREFIX + key, data);
+            } catch (RuntimeException e) {
+                LOG.debug("Unable to write allow-list snapshot {} to the analysis cache", key, e);
+            }
+        }
+    }
+
+    /**
+     * Carry a snapshot restored from the analysis cache over to the next
+     * analysis, as the cache only keeps the entries written by each analysis.
+     */
+    private void keepCached(final String key) {
+        if (directory == null && nextCache != null && cachedKeys.add(key)) {
+            try {
+                nextCache.copyFromPrevious(CACHE_KEY_PREFIX + key);
+            } catch (RuntimeException e) {
+                LOG.debug("Unable to keep allow-list snapshot {} in the analysis cache", key, e);
+            }
+        }
+    }
+
+    /**
+     * Get the version of the plugin from the manifest of its jar, so that
+     * snapshots written by another version are never restored.
+     */
+    private static String pluginVersion() {
+        try {
+            final CodeSource source = AllowListSnapshots.class.getProtectionDomain().getCodeSource();
+            if (source != null && source.getLocation() != null
+                    && source.getLocation().getPath().endsWith(".jar")) {
+                try (JarFile jar = new JarFile(new File(source.getLocation().toURI()))) {
+                    final Manifest manifest = jar.getManifest();
+                    final String version = manifest != null
+                        ? manifest.getMainAttributes().getValue("Plugin-Version")
+                        : null;
+                    if (version != null) {
+                        return version;
+                    }
+                }
+            }
+        } catch (IOException | URISyntaxException | RuntimeException e) {
+            LOG.debug("Unable to read the plugin version", e);
+        }
+
+        final String version = AllowListSnapshots.class.getPackage().getImplementationVersion();
+        return version != null ? version : "development";
+    }
+}
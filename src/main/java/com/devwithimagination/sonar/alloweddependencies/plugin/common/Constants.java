@@ -15,4 +15,42 @@ public final class Constants {
      */
     public static final String ISSUE_MESSAGE = "Remove this forbidden dependency: %s.";
 
+    /**
+     * The message to use for issues created for dependencies matching a deny
+     * row. This contains a string placeholder for inserting the name of the
+     * dependency.
+     */
+    public static final String DENIED_ISSUE_MESSAGE = "Remove this denied dependency: %s.";
+
+    /**
+     * The display name for the deny-list parameter of each rule.
+     */
+    public static final String DENY_LIST_PARAM_NAME = "Denied Dependencies";
+
+    /**
+     * The description for the deny-list parameter of each rule.
+     */
+    public static final String DENY_LIST_PARAM_DESCRIPTION =
+        "Newline separated list of dependencies which are never allowed, in the same format as the allow list. "
+            + "A dependency matching a deny row is reported even if an allow row also matches it. "
+            + "Exact rows with a version range deny the dependency when any declared version is in the range.";
+
+    /**
+     * The rule parameter key controlling whether regex: rows must match the
+     * whole dependency name.
+     */
+    public static final String REGEX_FULL_MATCH_PARAM_KEY = "regexFullMatch";
+
+    /**
+     * The display name for {@link #REGEX_FULL_MATCH_PARAM_KEY}.
+     */
+    public static final String REGEX_FULL_MATCH_PARAM_NAME = "Full match regex rows";
+
+    /**
+     * The description for {@link #REGEX_FULL_MATCH_PARAM_KEY}.
+     */
+    public static final String REGEX_FULL_MATCH_PARAM_DESCRIPTION =
+        "If true, regex: rows must match the whole dependency name in the same way as match: rows, "
+            + "rather than being found anywhere within it.";
+
 }
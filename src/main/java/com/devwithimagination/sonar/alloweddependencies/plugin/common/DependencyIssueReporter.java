@@ -18,6 +18,11 @@ public final class DependencyIssueReporter {
 
     public static void reportIssue(final SensorContext sensorContext, final RuleKey ruleKey,
             final InputFile inputFile, final int lineNumber, final String dependency) {
+        reportIssue(sensorContext, ruleKey, inputFile, lineNumber, dependency, ISSUE_MESSAGE);
+    }
+
+    public static void reportIssue(final SensorContext sensorContext, final RuleKey ruleKey,
+            final InputFile inputFile, final int lineNumber, final String dependency, final String message) {
 
         NewIssue issue = sensorContext.newIssue();
         issue
@@ -26,7 +31,7 @@ public final class DependencyIssueReporter {
                 issue.newLocation()
                     .on(inputFile)
                     .at(inputFile.selectLine(lineNumber))
-                    .message(String.format(ISSUE_MESSAGE, dependency)))
+                    .message(String.format(message, dependency)))
             .save();
     }
 }
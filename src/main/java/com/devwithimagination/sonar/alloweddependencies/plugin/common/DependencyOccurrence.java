@@ -1,9 +1,18 @@
 package com.devwithimagination.sonar.alloweddependencies.plugin.common;
 
+import java.util.function.Function;
+
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.DependencyKey;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.VersionRange;
+
 import org.sonar.api.batch.fs.InputFile;
 
 /**
  * A dependency found in a source descriptor file.
+ *
+ * The key and declared versions of an occurrence are computed the first time
+ * a rule asks for them and kept, so every rule evaluating the same occurrence
+ * shares them.
  */
 public class DependencyOccurrence {
 
@@ -13,10 +22,28 @@ public class DependencyOccurrence {
 
     private final int lineNumber;
 
+    /**
+     * The versions the declaration asks for, in the notation of its ecosystem,
+     * null if they are not known.
+     */
+    private final String versionSpec;
+
+    private DependencyKey key;
+
+    private boolean declaredVersionsParsed;
+
+    private VersionRange declaredVersions;
+
     public DependencyOccurrence(final String name, final InputFile inputFile, final int lineNumber) {
+        this(name, inputFile, lineNumber, null);
+    }
+
+    public DependencyOccurrence(final String name, final InputFile inputFile, final int lineNumber,
+            final String versionSpec) {
         this.name = name;
         this.inputFile = inputFile;
         this.lineNumber = lineNumber;
+        this.versionSpec = versionSpec;
     }
 
     public String getName() {
@@ -30,5 +57,37 @@ public class DependencyOccurrence {
     public int getLineNumber() {
         return lineNumber;
     }
+
+    public String getVersionSpec() {
+        return versionSpec;
+    }
+
+    /**
+     * Get the key allow-lists evaluate the dependency name with.
+     *
+     * @return the key.
+     */
+    public DependencyKey getKey() {
+        if (key == null) {
+            key = DependencyKey.of(name);
+        }
+        return key;
+    }
+
+    /**
+     * Get the versions the declaration admits, parsing the version spec on the
+     * first call.
+     *
+     * @param parser the parser for the notation of the ecosystem, returning
+     *               null for specs it does not understand
+     * @return the versions, or null if they are not known.
+     */
+    public VersionRange getDeclaredVersions(final Function<String, VersionRange> parser) {
+        if (!declaredVersionsParsed) {
+            declaredVersions = parser.apply(versionSpec);
+            declaredVersionsParsed = true;
+        }
+        return declaredVersions;
+    }
 }
 
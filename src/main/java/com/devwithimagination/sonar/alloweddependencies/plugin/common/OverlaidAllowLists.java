@@ -0,0 +1,127 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.common;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.RowUsage;
+
+import org.sonar.api.batch.fs.InputFile;
+
+/**
+ * The compiled allow-lists of a rule, one for each distinct chain of
+ * {@link AllowListOverlays overlays} found over the files it scans.
+ *
+ * Files without an overlay use the rule's own list. Lists extended by an
+ * overlay are compiled through the {@link AllowListRegistry} the first time a
+ * chain is seen, so rules and chains with the same rows share one compiled
+ * list, and are then kept by chain.
+ *
+ * @param <T> the type of the compiled matcher
+ */
+public final class OverlaidAllowLists<T extends RowUsage> {
+
+    private final T base;
+
+    private final AllowListOverlays overlays;
+
+    private final Function<String, T> compileWithOverlay;
+
+    /**
+     * The lists compiled so far, keyed by the overlay rows, which are the same
+     * instance for every directory under the same chain.
+     */
+    private final Map<String, T> overlaid = new IdentityHashMap<>();
+
+    /**
+     * Create the allow-lists of a rule.
+     *
+     * @param base               the list compiled from the rule alone
+     * @param overlays           the overlays to extend the list with
+     * @param compileWithOverlay function compiling the list of the rule
+     *                           extended with overlay rows
+     */
+    public OverlaidAllowLists(final T base, final AllowListOverlays overlays,
+            final Function<String, T> compileWithOverlay) {
+        this.base = base;
+        this.overlays = overlays;
+        this.compileWithOverlay = compileWithOverlay;
+    }
+
+    /**
+     * Get the list from the rule alone.
+     *
+     * @return the list.
+     */
+    public T base() {
+        return base;
+    }
+
+    /**
+     * Get the list to evaluate the dependencies of a descriptor file against.
+     *
+     * @param file the descriptor file
+     * @return the list, which is {@link #base()} if no overlay applies.
+     */
+    public T forFile(final InputFile file) {
+        final String overlayRows = overlays.rowsFor(file);
+        if (overlayRows.isEmpty()) {
+            return base;
+        }
+        return overlaid.computeIfAbsent(overlayRows, compileWithOverlay);
+    }
+
+    /**
+     * Get the lists compiled for overlay chains so far.
+     *
+     * @return the lists, in no particular order.
+     */
+    public Collection<T> overlaid() {
+        return overlaid.values();
+    }
+
+    /**
+     * Get the number of lists compiled for overlay chains.
+     *
+     * @return the list count.
+     */
+    public int overlaidCount() {
+        return overlaid.size();
+    }
+
+    /**
+     * Get the usage of the rows of the rule across every list. A row is only
+     * unused if it matched nothing in the rule's own list nor in any list an
+     * overlay extended. Rows from overlays are not reported.
+     *
+     * @return the row usage.
+     */
+    public RowUsage rowUsage() {
+        if (overlaid.isEmpty()) {
+            return base;
+        }
+
+        return new RowUsage() {
+
+            @Override
+            public int rowCount() {
+                return base.rowCount();
+            }
+
+            @Override
+            public List<String> unusedRows() {
+                final List<String> unused = new ArrayList<>(base.unusedRows());
+                for (T list : overlaid.values()) {
+                    final Set<String> unusedInList = new HashSet<>(list.unusedRows());
+                    unused.removeIf(row -> !unusedInList.contains(row));
+                }
+                return unused;
+            }
+        };
+    }
+}
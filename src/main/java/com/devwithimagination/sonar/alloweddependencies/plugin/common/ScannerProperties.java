@@ -0,0 +1,189 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.common;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.AllowList;
+
+import org.sonar.api.PropertyType;
+import org.sonar.api.config.Configuration;
+import org.sonar.api.config.PropertyDefinition;
+
+/**
+ * Scanner side settings which tune how allow-lists are evaluated.
+ */
+public final class ScannerProperties {
+
+    private static final String CATEGORY = "Allowed Dependencies";
+
+    /**
+     * The setting key for the maximum number of verdicts cached per rule.
+     */
+    public static final String VERDICT_CACHE_SIZE_KEY = "sonar.allowedDependencies.verdictCacheSize";
+
+    /**
+     * The default maximum number of verdicts cached per rule.
+     */
+    public static final int DEFAULT_VERDICT_CACHE_SIZE = 10_000;
+
+    /**
+     * The setting key for the maximum number of characters the regex engine
+     * may read when evaluating a regex row against a dependency.
+     */
+    public static final String REGEX_STEP_BUDGET_KEY = "sonar.allowedDependencies.regexStepBudget";
+
+    /**
+     * The setting key for how the exact rows of allow-lists are evaluated.
+     */
+    public static final String MATCHER_ENGINE_KEY = "sonar.allowedDependencies.matcherEngine";
+
+    /**
+     * The setting key for whether compiled allow-lists are kept between
+     * analyses.
+     */
+    public static final String SNAPSHOTS_KEY = "sonar.allowedDependencies.snapshots";
+
+    /**
+     * The setting key for whether allow-list overlay files in the project are
+     * read. Only defined globally, as enabling it lets anyone able to commit to
+     * a project allow a dependency.
+     */
+    public static final String OVERLAYS_KEY = "sonar.allowedDependencies.overlays";
+
+    private static final String INTERPRETED_ENGINE = "interpreted";
+
+    private static final String GENERATED_ENGINE = "generated";
+
+    private ScannerProperties() {
+
+    }
+
+    /**
+     * Get the property definitions for the settings in this class.
+     *
+     * @return the property definitions.
+     */
+    public static List<PropertyDefinition> definitions() {
+        return Arrays.asList(
+            PropertyDefinition.builder(VERDICT_CACHE_SIZE_KEY)
+                .name("Verdict cache size")
+                .description("Maximum number of allow-list verdicts cached per rule during an analysis. "
+                    + "Set to 0 to disable the cache.")
+                .category(CATEGORY)
+                .type(PropertyType.INTEGER)
+                .defaultValue(String.valueOf(DEFAULT_VERDICT_CACHE_SIZE))
+                .onConfigScopes(PropertyDefinition.ConfigScope.PROJECT)
+                .build(),
+            PropertyDefinition.builder(REGEX_STEP_BUDGET_KEY)
+                .name("Regex step budget")
+                .description("Maximum number of characters the regular expression engine may read when "
+                    + "evaluating a regex: allow-list row against a dependency. Rows exceeding the budget are "
+                    + "reported in the scanner log and treated as not matching, or as matching for deny rows. "
+                    + "Set to 0 to disable the limit.")
+                .category(CATEGORY)
+                .type(PropertyType.INTEGER)
+                .defaultValue(String.valueOf(AllowList.DEFAULT_REGEX_STEP_BUDGET))
+                .onConfigScopes(PropertyDefinition.ConfigScope.PROJECT)
+                .build(),
+            PropertyDefinition.builder(MATCHER_ENGINE_KEY)
+                .name("Allow-list matcher engine")
+                .description("How exact allow-list rows are evaluated. 'interpreted' looks them up in a hash "
+                    + "index. 'generated' compiles the exact rows of each allow-list of up to 256 rows into a "
+                    + "class when the analysis starts, falling back to the hash index where that is not possible.")
+                .category(CATEGORY)
+                .type(PropertyType.SINGLE_SELECT_LIST)
+                .options(INTERPRETED_ENGINE, GENERATED_ENGINE)
+                .defaultValue(INTERPRETED_ENGINE)
+                .onConfigScopes(PropertyDefinition.ConfigScope.PROJECT)
+                .build(),
+            PropertyDefinition.builder(SNAPSHOTS_KEY)
+                .name("Allow-list snapshots")
+                .description("Keep compiled allow-lists between analyses and restore them instead of compiling "
+                    + "the rule parameters again. Snapshots are kept in the analysis cache when it is enabled, and "
+                    + "authenticated with a key kept in the SonarScanner user home.")
+                .category(CATEGORY)
+                .type(PropertyType.BOOLEAN)
+                .defaultValue(String.valueOf(true))
+                .onConfigScopes(PropertyDefinition.ConfigScope.PROJECT)
+                .build(),
+            PropertyDefinition.builder(OVERLAYS_KEY)
+                .name("Allow-list overlays")
+                .description("Extend the allow-lists of the active rules with the rows of .allowed-dependencies "
+                    + "files in the project. Anyone able to commit to the project can then allow a dependency, "
+                    + "so only enable this where those files are reviewed. This is a global setting, so a "
+                    + "project cannot enable it for itself.")
+                .category(CATEGORY)
+                .type(PropertyType.BOOLEAN)
+                .defaultValue(String.valueOf(false))
+                .build());
+    }
+
+    /**
+     * Get the configured verdict cache size.
+     *
+     * @param config the scanner configuration, may be null.
+     * @return the maximum number of verdicts to cache per rule.
+     */
+    public static int verdictCacheSize(final Configuration config) {
+        if (config == null) {
+            return DEFAULT_VERDICT_CACHE_SIZE;
+        }
+        return config.getInt(VERDICT_CACHE_SIZE_KEY).orElse(DEFAULT_VERDICT_CACHE_SIZE);
+    }
+
+    /**
+     * Get the configured regex step budget.
+     *
+     * @param config the scanner configuration, may be null.
+     * @return the maximum number of characters read per regex evaluation.
+     */
+    public static long regexStepBudget(final Configuration config) {
+        if (config == null) {
+            return AllowList.DEFAULT_REGEX_STEP_BUDGET;
+        }
+        return config.getLong(REGEX_STEP_BUDGET_KEY).orElse(AllowList.DEFAULT_REGEX_STEP_BUDGET);
+    }
+
+    /**
+     * Get the configured matcher engine. Values other than
+     * {@value #GENERATED_ENGINE} select the interpreted engine.
+     *
+     * @param config the scanner configuration, may be null.
+     * @return the matcher engine.
+     */
+    public static AllowList.MatcherEngine matcherEngine(final Configuration config) {
+        if (config == null) {
+            return AllowList.MatcherEngine.INTERPRETED;
+        }
+        return config.get(MATCHER_ENGINE_KEY)
+            .filter(value -> GENERATED_ENGINE.equalsIgnoreCase(value.trim()))
+            .map(value -> AllowList.MatcherEngine.GENERATED)
+            .orElse(AllowList.MatcherEngine.INTERPRETED);
+    }
+
+    /**
+     * Check if compiled allow-lists are kept between analyses.
+     *
+     * @param config the scanner configuration, may be null.
+     * @return true if snapshots are enabled.
+     */
+    public static boolean snapshotsEnabled(final Configuration config) {
+        if (config == null) {
+            return true;
+        }
+        return config.getBoolean(SNAPSHOTS_KEY).orElse(true);
+    }
+
+    /**
+     * Check if allow-list overlay files in the project are read.
+     *
+     * @param config the scanner configuration, may be null.
+     * @return true if overlays are enabled.
+     */
+    public static boolean overlaysEnabled(final Configuration config) {
+        if (config == null) {
+            return false;
+        }
+        return config.getBoolean(OVERLAYS_KEY).orElse(false);
+    }
+}
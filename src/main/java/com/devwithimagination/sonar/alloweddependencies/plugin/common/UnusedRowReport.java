@@ -0,0 +1,120 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.common;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.RowUsage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.api.rule.RuleKey;
+
+/**
+ * Report of the allow-list rows which did not match any dependency during a
+ * sensor run.
+ *
+ * Each sensor adds the compiled allow-list of every rule it ran and writes the
+ * report once it has scanned its files. The report is written to the scanner
+ * working directory, with the unused rows of each rule listed under a comment
+ * naming the rule, so candidates for pruning can be copied straight out of it.
+ * Rules sharing a compiled allow-list share its hits, so a row is only listed
+ * if it matched nothing for any of those rules.
+ */
+public final class UnusedRowReport {
+
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(UnusedRowReport.class);
+
+    private static final String FILE_NAME_PREFIX = "unused-allow-list-rows-";
+
+    private final String name;
+
+    private final Map<RuleKey, RowUsage> rules = new LinkedHashMap<>();
+
+    /**
+     * Create a new report.
+     *
+     * @param name the name identifying the sensor in the report file name,
+     *             such as {@code npm}
+     */
+    public UnusedRowReport(final String name) {
+        this.name = name;
+    }
+
+    /**
+     * Add the allow-list of a rule to the report.
+     *
+     * @param ruleKey the rule key
+     * @param rows    the compiled allow-list the rule matched against
+     * @return this report.
+     */
+    public UnusedRowReport add(final RuleKey ruleKey, final RowUsage rows) {
+        rules.put(ruleKey, rows);
+        return this;
+    }
+
+    /**
+     * Get the name of the report file.
+     *
+     * @param name the name identifying the sensor
+     * @return the file name.
+     */
+    static String fileName(final String name) {
+        return FILE_NAME_PREFIX + name + ".txt";
+    }
+
+    /**
+     * Log a summary of the unused rows of each rule and write the report to the
+     * working directory. Failing to write the report does not fail the
+     * analysis.
+     *
+     * @param context the sensor context
+     * @return the report file, or null if it was not written.
+     */
+    public Path write(final SensorContext context) {
+        if (rules.isEmpty()) {
+            return null;
+        }
+
+        final List<String> lines = new ArrayList<>();
+        lines.add("# Allow-list rows which did not match any dependency in this analysis");
+        rules.forEach((ruleKey, rows) -> {
+            final List<String> unusedRows = rows.unusedRows();
+            LOG.info("{} of {} allow-list rows for {} did not match any dependency", unusedRows.size(),
+                rows.rowCount(), ruleKey);
+            lines.add("");
+            lines.add("# " + ruleKey + ": " + unusedRows.size() + " of " + rows.rowCount() + " rows unused");
+            lines.addAll(unusedRows);
+        });
+
+        final File workDir;
+        try {
+            workDir = context.fileSystem().workDir();
+        } catch (RuntimeException e) {
+            /* Not every runtime provides a working directory */
+            LOG.debug("No working directory for the unused allow-list row report", e);
+            return null;
+        }
+
+        final Path report = workDir.toPath().resolve(fileName(name));
+        try {
+            Files.createDirectories(report.getParent());
+            Files.write(report, lines, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            LOG.warn("Unable to write the unused allow-list row report {}", report, e);
+            return null;
+        }
+        LOG.info("Unused allow-list rows written to {}", report);
+        return report;
+    }
+}
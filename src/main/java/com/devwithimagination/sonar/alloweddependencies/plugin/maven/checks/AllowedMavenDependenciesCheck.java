@@ -1,48 +1,37 @@
 package com.devwithimagination.sonar.alloweddependencies.plugin.maven.checks;
 
+import static com.devwithimagination.sonar.alloweddependencies.plugin.common.Constants.DENIED_ISSUE_MESSAGE;
 import static com.devwithimagination.sonar.alloweddependencies.plugin.common.Constants.ISSUE_MESSAGE;
 
-import java.util.Arrays;
-import java.util.List;
-
 import javax.annotation.Nonnull;
-import javax.xml.xpath.XPathExpression;
+
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.DependencyIssueReporter;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.Decision;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.sonarsource.analyzer.commons.xml.XmlFile;
-import org.sonarsource.analyzer.commons.xml.checks.SimpleXPathBasedCheck;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.api.rule.RuleKey;
 
 /**
- * Implementation of {@link SimpleXPathBasedCheck} which compares declared Maven
- * dependencies in a pom.xml file against a list of approved dependencies,
- * raising issues for any which are not found.
+ * Check which compares the Maven dependencies declared in a pom.xml file
+ * against a list of approved dependencies, raising issues for any which are
+ * not found.
  */
 
-public class AllowedMavenDependenciesCheck extends SimpleXPathBasedCheck {
+public class AllowedMavenDependenciesCheck {
 
     /**
      * The default scope to assign to a dependency if it is not defined in the pom.
      */
-    private static final String DEFAULT_MAVEN_SCOPE = "compile";
+    static final String DEFAULT_MAVEN_SCOPE = "compile";
 
     /**
      * Logger
      */
     private static final Logger LOG = LoggerFactory.getLogger(AllowedMavenDependenciesCheck.class);
 
-    private static final List<String> ALLOWED_FILE_NAMES = Arrays.asList(
-        "pom.xml",
-        ".flattened-pom.xml"
-    );
-
-    /**
-     * The XPath Expression used to find maven dependency nodes in a pom file.
-     */
-    private final XPathExpression dependencyExpression = getXPathExpression("//dependencies/dependency");
-
     /**
      * The configuration for this check.
      */
@@ -60,32 +49,32 @@ public class AllowedMavenDependenciesCheck extends SimpleXPathBasedCheck {
 
     }
 
-    @Override
-    public void scanFile(final XmlFile xmlFile) {
-
-        /* Only scan pom.xml files */
-        if (ALLOWED_FILE_NAMES.contains(xmlFile.getInputFile().filename().toLowerCase())) {
-
-            /*
-             * Iterate through matches for the XPath expression and compare with the list of
-             * approved dependencies
-             */
-            evaluateAsList(dependencyExpression, xmlFile.getNamespaceUnawareDocument()).forEach(dependency -> {
-
-                final String groupId = getChildElementText("groupId", dependency, null);
-                final String artifactId = getChildElementText("artifactId", dependency, null);
-                final String scope = getChildElementText("scope", dependency, DEFAULT_MAVEN_SCOPE);
-
-                final String listKey = groupId + ":" + artifactId;
-
-                if ((config.getScopes().isEmpty() || config.getScopes().contains(scope))
-                        && !config.getAllowedDependenciesPredicate().test(listKey)) {
-
-                    LOG.info("Forbidden dependency: {}", listKey);
-
-                    reportIssue(dependency, String.format(ISSUE_MESSAGE, listKey));
-                }
-            });
+    /**
+     * Compare one declared dependency with the list of approved dependencies.
+     * The {@link MavenDependencyRoutes} only pass dependencies in a scope this
+     * check applies to.
+     *
+     * @param context    the sensor context
+     * @param ruleKey    the key of the rule issues are raised for
+     * @param inputFile  the file the dependency is declared in
+     * @param matcher    the matcher for the file
+     * @param dependency the declared dependency
+     */
+    void scanDependency(final SensorContext context, final RuleKey ruleKey, final InputFile inputFile,
+            final MavenCoordinateMatcher matcher, final MavenDeclaration dependency) {
+
+        final MavenCoordinates coordinates = dependency.getCoordinates();
+        final Decision decision = matcher.decide(coordinates);
+        final String listKey = coordinates.key().name();
+
+        if (decision == Decision.DENIED) {
+            LOG.info("Denied dependency: {}", listKey);
+            DependencyIssueReporter.reportIssue(context, ruleKey, inputFile, dependency.getLineNumber(),
+                listKey, DENIED_ISSUE_MESSAGE);
+        } else if (decision == Decision.NOT_ALLOWED) {
+            LOG.info("Forbidden dependency: {}", listKey);
+            DependencyIssueReporter.reportIssue(context, ruleKey, inputFile, dependency.getLineNumber(),
+                listKey, ISSUE_MESSAGE);
         }
     }
 
@@ -97,23 +86,4 @@ public class AllowedMavenDependenciesCheck extends SimpleXPathBasedCheck {
     public AllowedMavenDependenciesCheckConfig getConfig() {
         return config;
     }
-
-    /**
-     * Get the text node content from a child element of a parent.
-     *
-     * @param childElementName the name of the element to find
-     * @param parent           the node to look for children of
-     * @param defaultValue     the default value to return if a match is not found.
-     */
-    private static String getChildElementText(final String childElementName, final Node parent,
-            final String defaultValue) {
-
-        for (Node node : XmlFile.children(parent)) {
-            if (node.getNodeType() == Node.ELEMENT_NODE && ((Element) node).getTagName().equals(childElementName)) {
-                return node.getTextContent();
-            }
-        }
-
-        return defaultValue;
-    }
 }
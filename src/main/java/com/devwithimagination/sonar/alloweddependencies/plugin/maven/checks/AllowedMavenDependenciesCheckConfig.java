@@ -1,14 +1,26 @@
 package com.devwithimagination.sonar.alloweddependencies.plugin.maven.checks;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
 import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.AllowListOverlays;
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.AllowListRegistry;
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.Constants;
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.OverlaidAllowLists;
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.ScannerProperties;
 import com.devwithimagination.sonar.alloweddependencies.plugin.maven.rules.MavenRulesDefinition;
 import com.devwithimagination.sonar.alloweddependencies.plugin.util.PredicateFactory;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.RowUsage;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.VerdictCache;
 
+import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.rule.ActiveRule;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,15 +36,28 @@ public class AllowedMavenDependenciesCheckConfig {
      */
     private static final Logger LOG = LoggerFactory.getLogger(AllowedMavenDependenciesCheckConfig.class);
 
+    private static final String DEPENDENCY_ERROR_PREFIX = "Invalid dependency allow-list ";
+
+    /**
+     * Identifies allow-lists compiled with the identity normalizer in the
+     * {@link AllowListRegistry}.
+     */
+    static final String ALLOW_LIST_COMPILER = "maven";
+
     /**
      * The rule this configuration was created for.
      */
     private final ActiveRule rule;
 
     /**
-     * Predicate created which can be used for matching dependencies against the configured the allowed dependency list.
+     * Matcher created which can be used for matching dependencies against the configured the allowed dependency list.
+     */
+    private final MavenCoordinateMatcher allowedDependenciesMatcher;
+
+    /**
+     * The matcher extended by the overlays over each file.
      */
-    private final Predicate<String> allowedDependenciesPredicate;
+    private final OverlaidAllowLists<MavenCoordinateMatcher> allowedDependenciesMatchers;
 
     /**
      * If a non-empty value is set for this, restrict to only dependencies with the
@@ -46,14 +71,61 @@ public class AllowedMavenDependenciesCheckConfig {
      * @param activeRuleDefinition the rule containing the parameter configuration.
      */
     public AllowedMavenDependenciesCheckConfig(final ActiveRule activeRuleDefinition) {
+        this(activeRuleDefinition, AllowListRegistry.withDefaults(), ScannerProperties.DEFAULT_VERDICT_CACHE_SIZE);
+    }
+
+    /**
+     * Create a new {@link AllowedMavenDependenciesCheck} based on an active rule.
+     *
+     * @param activeRuleDefinition the rule containing the parameter configuration.
+     * @param registry             the registry supplying the compiled allow-list
+     * @param verdictCacheSize     the maximum number of verdicts to cache for the
+     *                             rule, zero to disable caching.
+     */
+    public AllowedMavenDependenciesCheckConfig(final ActiveRule activeRuleDefinition,
+            final AllowListRegistry registry, final int verdictCacheSize) {
+        this(activeRuleDefinition, registry, verdictCacheSize, AllowListOverlays.none());
+    }
+
+    /**
+     * Create a new {@link AllowedMavenDependenciesCheck} based on an active rule.
+     *
+     * @param activeRuleDefinition the rule containing the parameter configuration.
+     * @param registry             the registry supplying the compiled allow-list
+     * @param verdictCacheSize     the maximum number of verdicts to cache for the
+     *                             rule, zero to disable caching.
+     * @param overlays             the overlays extending the allow-list for the
+     *                             files below them
+     */
+    public AllowedMavenDependenciesCheckConfig(final ActiveRule activeRuleDefinition,
+            final AllowListRegistry registry, final int verdictCacheSize, final AllowListOverlays overlays) {
 
         LOG.info("Creating AllowedMavenDependenciesCheck for {}", activeRuleDefinition.ruleKey());
         this.rule = activeRuleDefinition;
 
         /* Configure the allowed dependency predicate */
         final String deps = activeRuleDefinition.param(MavenRulesDefinition.DEPS_PARAM_KEY);
-        final PredicateFactory predicateFactory = new PredicateFactory();
-        this.allowedDependenciesPredicate = predicateFactory.createPredicateForDependencyListString(deps);
+        final boolean regexFullMatch = Boolean.parseBoolean(
+            activeRuleDefinition.param(Constants.REGEX_FULL_MATCH_PARAM_KEY));
+        final String deniedDeps = activeRuleDefinition.param(MavenRulesDefinition.DENIED_DEPS_PARAM_KEY);
+        final String compiler = AllowListRegistry.compiler(ALLOW_LIST_COMPILER, regexFullMatch);
+        final String cacheName = activeRuleDefinition.ruleKey().toString();
+        final BiFunction<String, String, MavenCoordinateMatcher> compile = (list, deniedList) ->
+            new MavenCoordinatePredicateFactory(DEPENDENCY_ERROR_PREFIX,
+                    PredicateFactory.options().regexStepBudget(registry.regexStepBudget())
+                        .regexFullMatch(regexFullMatch).matcherEngine(registry.matcherEngine())
+                        .indexBaseDir(registry.baseDir()))
+                .create(list, deniedList, UnaryOperator.identity());
+        this.allowedDependenciesMatcher = registry.get(MavenCoordinateMatcher.class, compiler, deps, deniedDeps,
+                compile, MavenCoordinateMatcher.snapshotCodec())
+            .withVerdictCache(cacheName, verdictCacheSize);
+        /* Each overlay chain caches its own verdicts, named apart so their statistics can be told apart */
+        final AtomicInteger chains = new AtomicInteger();
+        this.allowedDependenciesMatchers = new OverlaidAllowLists<>(allowedDependenciesMatcher, overlays,
+            overlayRows -> registry.get(MavenCoordinateMatcher.class, compiler,
+                    AllowListOverlays.merge(deps, overlayRows), deniedDeps, compile,
+                    MavenCoordinateMatcher.snapshotCodec())
+                .withVerdictCache(cacheName + " overlay " + chains.incrementAndGet(), verdictCacheSize));
 
         /* Configure the check scope */
         this.restrictToScopes = getScopeConfiguration(activeRuleDefinition);
@@ -99,7 +171,61 @@ public class AllowedMavenDependenciesCheckConfig {
      * @return created predicate.
      */
     public Predicate<String> getAllowedDependenciesPredicate() {
-        return allowedDependenciesPredicate;
+        return allowedDependenciesMatcher;
+    }
+
+    /**
+     * Get the structured matcher for the allowed dependencies included in this
+     * configuration.
+     *
+     * @return created matcher.
+     */
+    public MavenCoordinateMatcher getAllowedDependenciesMatcher() {
+        return allowedDependenciesMatcher;
+    }
+
+    /**
+     * Get the structured matcher for the allowed dependencies of a descriptor
+     * file, extended by any overlays over it.
+     *
+     * @param file the descriptor file
+     * @return the matcher, which is {@link #getAllowedDependenciesMatcher()} if
+     *         no overlay applies.
+     */
+    public MavenCoordinateMatcher getAllowedDependenciesMatcher(final InputFile file) {
+        return allowedDependenciesMatchers.forFile(file);
+    }
+
+    /**
+     * Get the usage of the rule's rows, across the matcher and every matcher an
+     * overlay extended.
+     *
+     * @return the row usage.
+     */
+    public RowUsage getRowUsage() {
+        return allowedDependenciesMatchers.rowUsage();
+    }
+
+    /**
+     * Get the verdict cache in front of the allowed dependencies.
+     *
+     * @return the cache.
+     */
+    public VerdictCache getVerdictCache() {
+        return allowedDependenciesMatcher.getVerdictCache();
+    }
+
+    /**
+     * Get the verdict caches in front of the allowed dependencies and in
+     * front of each matcher an overlay extended.
+     *
+     * @return the caches, {@link #getVerdictCache()} first.
+     */
+    public List<VerdictCache> getVerdictCaches() {
+        final List<VerdictCache> caches = new ArrayList<>();
+        caches.add(allowedDependenciesMatcher.getVerdictCache());
+        allowedDependenciesMatchers.overlaid().forEach(matcher -> caches.add(matcher.getVerdictCache()));
+        return caches;
     }
 
     /**
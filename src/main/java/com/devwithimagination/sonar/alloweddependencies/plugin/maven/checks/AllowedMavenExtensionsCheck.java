@@ -1,40 +1,35 @@
 package com.devwithimagination.sonar.alloweddependencies.plugin.maven.checks;
 
-import java.util.Arrays;
-import java.util.List;
 import javax.annotation.Nonnull;
-import javax.xml.xpath.XPathExpression;
 
-import org.sonarsource.analyzer.commons.xml.XmlFile;
-import org.sonarsource.analyzer.commons.xml.checks.SimpleXPathBasedCheck;
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.DependencyIssueReporter;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.Decision;
+
+import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.api.rule.RuleKey;
 
 /** Reports Maven build and core extensions which are absent from the configured allow list. */
-public class AllowedMavenExtensionsCheck extends SimpleXPathBasedCheck {
+public class AllowedMavenExtensionsCheck {
 
-    private static final List<String> ALLOWED_FILE_NAMES =
-        Arrays.asList("pom.xml", ".flattened-pom.xml", "extensions.xml");
     private static final String ISSUE_MESSAGE = "Remove this forbidden Maven extension: %s.";
 
-    private final XPathExpression extensionExpression =
-        getXPathExpression("/project/build/extensions/extension | /extensions/extension");
     private final AllowedMavenExtensionsCheckConfig config;
 
     public AllowedMavenExtensionsCheck(@Nonnull final AllowedMavenExtensionsCheckConfig config) {
         this.config = config;
     }
 
-    @Override
-    public void scanFile(final XmlFile xmlFile) {
-        if (!ALLOWED_FILE_NAMES.contains(xmlFile.getInputFile().filename().toLowerCase())) {
+    public void scanFile(final SensorContext context, final RuleKey ruleKey, final PomModel pom) {
+        if (!pom.isPom() && !pom.isExtensionsDescriptor()) {
             return;
         }
 
-        evaluateAsList(extensionExpression, xmlFile.getNamespaceUnawareDocument()).forEach(extension -> {
-            final String coordinate = MavenXmlCoordinates.extensionCoordinate(extension);
-            if (!config.getAllowedExtensionsPredicate().test(coordinate)) {
-                reportIssue(extension, String.format(ISSUE_MESSAGE, coordinate));
+        for (MavenDeclaration extension : pom.getExtensions()) {
+            if (config.getAllowedExtensionsMatcher().decide(extension.getCoordinates()) != Decision.ALLOWED) {
+                DependencyIssueReporter.reportIssue(context, ruleKey, pom.getInputFile(), extension.getLineNumber(),
+                    extension.getCoordinates().key().name(), ISSUE_MESSAGE);
             }
-        });
+        }
     }
 
     public AllowedMavenExtensionsCheckConfig getConfig() {
@@ -3,22 +3,37 @@ package com.devwithimagination.sonar.alloweddependencies.plugin.maven.checks;
 import java.util.function.Predicate;
 import java.util.function.UnaryOperator;
 
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.AllowListRegistry;
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.Constants;
 import com.devwithimagination.sonar.alloweddependencies.plugin.maven.rules.MavenRulesDefinition;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.PredicateFactory;
 import org.sonar.api.batch.rule.ActiveRule;
 
 /** Configuration for {@link AllowedMavenExtensionsCheck}. */
 public class AllowedMavenExtensionsCheckConfig {
 
     private final ActiveRule rule;
-    private final Predicate<String> allowedExtensionsPredicate;
+    private final MavenCoordinateMatcher allowedExtensionsMatcher;
 
     public AllowedMavenExtensionsCheckConfig(final ActiveRule rule) {
+        this(rule, AllowListRegistry.withDefaults());
+    }
+
+    public AllowedMavenExtensionsCheckConfig(final ActiveRule rule, final AllowListRegistry registry) {
         if (!MavenRulesDefinition.RULE_MAVEN_ALLOWED_EXTENSIONS.equals(rule.ruleKey())) {
             throw new IllegalArgumentException("Unsupported Maven extension rule: " + rule.ruleKey());
         }
         this.rule = rule;
-        this.allowedExtensionsPredicate = new MavenCoordinatePredicateFactory().create(
-            rule.param(MavenRulesDefinition.EXTENSIONS_PARAM_KEY), UnaryOperator.identity());
+        /* Extension rows are normalized the same way as dependency rows, so identical lists are shared */
+        final boolean regexFullMatch = Boolean.parseBoolean(rule.param(Constants.REGEX_FULL_MATCH_PARAM_KEY));
+        this.allowedExtensionsMatcher = registry.get(MavenCoordinateMatcher.class,
+            AllowListRegistry.compiler(AllowedMavenDependenciesCheckConfig.ALLOW_LIST_COMPILER, regexFullMatch),
+            rule.param(MavenRulesDefinition.EXTENSIONS_PARAM_KEY),
+            list -> new MavenCoordinatePredicateFactory(MavenCoordinatePredicateFactory.DEFAULT_ERROR_PREFIX,
+                PredicateFactory.options().regexStepBudget(registry.regexStepBudget()).regexFullMatch(regexFullMatch)
+                    .matcherEngine(registry.matcherEngine()).indexBaseDir(registry.baseDir()))
+                .create(list, UnaryOperator.identity()),
+            MavenCoordinateMatcher.snapshotCodec());
     }
 
     public ActiveRule getRule() {
@@ -26,6 +41,10 @@ public class AllowedMavenExtensionsCheckConfig {
     }
 
     public Predicate<String> getAllowedExtensionsPredicate() {
-        return allowedExtensionsPredicate;
+        return allowedExtensionsMatcher;
+    }
+
+    public MavenCoordinateMatcher getAllowedExtensionsMatcher() {
+        return allowedExtensionsMatcher;
     }
 }
@@ -1,42 +1,35 @@
 package com.devwithimagination.sonar.alloweddependencies.plugin.maven.checks;
 
-import java.util.Arrays;
-import java.util.List;
 import javax.annotation.Nonnull;
-import javax.xml.xpath.XPathExpression;
 
-import org.sonarsource.analyzer.commons.xml.XmlFile;
-import org.sonarsource.analyzer.commons.xml.checks.SimpleXPathBasedCheck;
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.DependencyIssueReporter;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.Decision;
+
+import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.api.rule.RuleKey;
 
 /** Reports activated Maven plugins which are absent from the configured allow list. */
-public class AllowedMavenPluginsCheck extends SimpleXPathBasedCheck {
+public class AllowedMavenPluginsCheck {
 
-    private static final List<String> POM_FILE_NAMES = Arrays.asList("pom.xml", ".flattened-pom.xml");
     private static final String ISSUE_MESSAGE = "Remove this forbidden Maven plugin: %s.";
 
-    private final XPathExpression pluginExpression = getXPathExpression(
-        "/project/build/plugins/plugin"
-            + " | /project/profiles/profile/build/plugins/plugin"
-            + " | /project/reporting/plugins/plugin"
-            + " | /project/profiles/profile/reporting/plugins/plugin");
     private final AllowedMavenPluginsCheckConfig config;
 
     public AllowedMavenPluginsCheck(@Nonnull final AllowedMavenPluginsCheckConfig config) {
         this.config = config;
     }
 
-    @Override
-    public void scanFile(final XmlFile xmlFile) {
-        if (!POM_FILE_NAMES.contains(xmlFile.getInputFile().filename().toLowerCase())) {
+    public void scanFile(final SensorContext context, final RuleKey ruleKey, final PomModel pom) {
+        if (!pom.isPom()) {
             return;
         }
 
-        evaluateAsList(pluginExpression, xmlFile.getNamespaceUnawareDocument()).forEach(plugin -> {
-            final String coordinate = MavenXmlCoordinates.pluginCoordinate(plugin);
-            if (!config.getAllowedPluginsPredicate().test(coordinate)) {
-                reportIssue(plugin, String.format(ISSUE_MESSAGE, coordinate));
+        for (MavenDeclaration plugin : pom.getPlugins()) {
+            if (config.getAllowedPluginsMatcher().decide(plugin.getCoordinates()) != Decision.ALLOWED) {
+                DependencyIssueReporter.reportIssue(context, ruleKey, pom.getInputFile(), plugin.getLineNumber(),
+                    plugin.getCoordinates().key().name(), ISSUE_MESSAGE);
             }
-        });
+        }
     }
 
     public AllowedMavenPluginsCheckConfig getConfig() {
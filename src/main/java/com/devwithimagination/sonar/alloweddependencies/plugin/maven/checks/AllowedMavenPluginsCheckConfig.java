@@ -2,22 +2,42 @@ package com.devwithimagination.sonar.alloweddependencies.plugin.maven.checks;
 
 import java.util.function.Predicate;
 
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.AllowListRegistry;
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.Constants;
 import com.devwithimagination.sonar.alloweddependencies.plugin.maven.rules.MavenRulesDefinition;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.PredicateFactory;
 import org.sonar.api.batch.rule.ActiveRule;
 
 /** Configuration for {@link AllowedMavenPluginsCheck}. */
 public class AllowedMavenPluginsCheckConfig {
 
+    /**
+     * Identifies allow-lists compiled with the plugin row normalizer in the
+     * {@link AllowListRegistry}.
+     */
+    private static final String ALLOW_LIST_COMPILER = "maven-plugin";
+
     private final ActiveRule rule;
-    private final Predicate<String> allowedPluginsPredicate;
+    private final MavenCoordinateMatcher allowedPluginsMatcher;
 
     public AllowedMavenPluginsCheckConfig(final ActiveRule rule) {
+        this(rule, AllowListRegistry.withDefaults());
+    }
+
+    public AllowedMavenPluginsCheckConfig(final ActiveRule rule, final AllowListRegistry registry) {
         if (!MavenRulesDefinition.RULE_MAVEN_ALLOWED_PLUGINS.equals(rule.ruleKey())) {
             throw new IllegalArgumentException("Unsupported Maven plugin rule: " + rule.ruleKey());
         }
         this.rule = rule;
-        this.allowedPluginsPredicate = new MavenCoordinatePredicateFactory().create(
-            rule.param(MavenRulesDefinition.PLUGINS_PARAM_KEY), MavenXmlCoordinates::normalizePluginAllowListRow);
+        final boolean regexFullMatch = Boolean.parseBoolean(rule.param(Constants.REGEX_FULL_MATCH_PARAM_KEY));
+        this.allowedPluginsMatcher = registry.get(MavenCoordinateMatcher.class,
+            AllowListRegistry.compiler(ALLOW_LIST_COMPILER, regexFullMatch),
+            rule.param(MavenRulesDefinition.PLUGINS_PARAM_KEY),
+            list -> new MavenCoordinatePredicateFactory(MavenCoordinatePredicateFactory.DEFAULT_ERROR_PREFIX,
+                PredicateFactory.options().regexStepBudget(registry.regexStepBudget()).regexFullMatch(regexFullMatch)
+                    .matcherEngine(registry.matcherEngine()).indexBaseDir(registry.baseDir()))
+                .create(list, MavenXmlCoordinates::normalizePluginAllowListRow),
+            MavenCoordinateMatcher.snapshotCodec());
     }
 
     public ActiveRule getRule() {
@@ -25,6 +45,10 @@ public class AllowedMavenPluginsCheckConfig {
     }
 
     public Predicate<String> getAllowedPluginsPredicate() {
-        return allowedPluginsPredicate;
+        return allowedPluginsMatcher;
+    }
+
+    public MavenCoordinateMatcher getAllowedPluginsMatcher() {
+        return allowedPluginsMatcher;
     }
 }
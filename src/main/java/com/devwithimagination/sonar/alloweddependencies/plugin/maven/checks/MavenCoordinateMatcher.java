@@ -0,0 +1,809 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.maven.checks;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.AllowList;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.Decision;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.FoldedKeyMap;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.GlobTrie;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.KeyFolder;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.PredicateFactory;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.RowHitCounters;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.RowUsage;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.SnapshotCodec;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.VerdictCache;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.VersionRange;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Allow-list matcher keyed on the (groupId, artifactId) pair of a Maven
+ * coordinate.
+ *
+ * Exact {@code groupId:artifactId} rows and {@code groupId:*} wildcard rows
+ * resolve through nested hash lookups on the two components, which fold case as
+ * they probe, so no coordinate or lower-cased string is built for them. Glob
+ * rows are walked over the two components as if they were joined. Any other
+ * rows, such as regex rows, are held in a fallback {@link AllowList} which is
+ * only consulted when it is non-empty and the structured lookup missed.
+ * Fallback verdicts can be cached, as that is the only path expensive enough
+ * to benefit from it.
+ *
+ * Exact rows already allowed by a {@code groupId:*} row, a glob row or a
+ * fallback row are dropped as the matcher is built.
+ *
+ * Hits are counted for every row, see {@link AllowList}, so rows which never
+ * match can be reported.
+ *
+ * Deny rows, see {@link Builder#denied(MavenCoordinateMatcher)}, take
+ * precedence over every allow row. Exact and wildcard deny rows are merged into
+ * the same nested lookups, and each exact allow row is resolved against the
+ * deny rows as the matcher is built, so an exact coordinate is classified by
+ * {@link #decide(String, String)} in a single probe.
+ *
+ * A built matcher can be written out with {@link #writeSnapshot(DataOutput)}
+ * and restored with {@link #readSnapshot(DataInput)}, without its rows being
+ * optimized or resolved against the deny rows again.
+ */
+public final class MavenCoordinateMatcher implements Predicate<String>, RowUsage {
+
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(MavenCoordinateMatcher.class);
+
+    /**
+     * The artifact wildcard used in {@code groupId:*} rows.
+     */
+    static final String ANY_ARTIFACT = "*";
+
+    private static final char SEPARATOR = ':';
+
+    /**
+     * The position held for a key which a deny row matches. Exact rows which
+     * the deny rows only match in some case variants are held as
+     * {@code -2 - position}, and checked against the deny rows when found.
+     */
+    private static final int DENIED_ROW = -1;
+
+    /**
+     * Allowed artifactIds keyed by groupId, both case folded, mapped to the
+     * position of their row.
+     */
+    private final FoldedKeyMap<FoldedKeyMap<Integer>> artifactsByGroup;
+
+    /**
+     * The case folded groupIds for which every artifact is allowed, mapped to
+     * the position of their row.
+     */
+    private final FoldedKeyMap<Integer> wildcardGroups;
+
+    /**
+     * The glob rows.
+     */
+    private final GlobTrie globs;
+
+    /**
+     * Each glob row on its own, used to find the row to credit once the shared
+     * trie has matched. These follow the exact rows in the row labels.
+     */
+    private final List<GlobTrie> globRows;
+
+    /**
+     * The structured rows in the form they were compiled in, wildcard and
+     * exact rows first. Hits are counted against the same positions.
+     */
+    private final List<String> rowLabels;
+
+    private final RowHitCounters rowHits;
+
+    /**
+     * The rows which could not be expressed structurally.
+     */
+    private final AllowList fallbackRows;
+
+    /**
+     * If there are any rows which could not be expressed structurally.
+     */
+    private final boolean hasFallback;
+
+    /**
+     * The rows which could not be expressed structurally, behind a verdict
+     * cache.
+     */
+    private final VerdictCache fallback;
+
+    /**
+     * The number of exact and wildcard rows held structurally.
+     */
+    private final int exactRowCount;
+
+    /**
+     * The deny rows, null if there are none.
+     */
+    private final MavenCoordinateMatcher denied;
+
+    private static final SnapshotCodec<MavenCoordinateMatcher> SNAPSHOT_CODEC =
+        new SnapshotCodec<MavenCoordinateMatcher>() {
+
+            @Override
+            public boolean supports(final MavenCoordinateMatcher compiled) {
+                return compiled.supportsSnapshot();
+            }
+
+            @Override
+            public void write(final MavenCoordinateMatcher compiled, final DataOutput out) throws IOException {
+                compiled.writeSnapshot(out);
+            }
+
+            @Override
+            public MavenCoordinateMatcher read(final DataInput in) throws IOException {
+                return readSnapshot(in);
+            }
+        };
+
+    private MavenCoordinateMatcher(final FoldedKeyMap<FoldedKeyMap<Integer>> artifactsByGroup,
+            final FoldedKeyMap<Integer> wildcardGroups, final GlobTrie globs, final List<GlobTrie> globRows,
+            final List<String> rowLabels, final AllowList fallbackRows, final int exactRowCount,
+            final MavenCoordinateMatcher denied) {
+        this.exactRowCount = exactRowCount;
+        this.denied = denied;
+        this.artifactsByGroup = artifactsByGroup;
+        this.wildcardGroups = wildcardGroups;
+        this.globs = globs;
+        this.globRows = globRows;
+        this.rowLabels = rowLabels;
+        this.rowHits = new RowHitCounters(rowLabels.size());
+        this.fallbackRows = fallbackRows;
+        this.hasFallback = fallbackRows != AllowList.empty();
+        this.fallback = new VerdictCache("fallback", fallbackRows, 0);
+    }
+
+    /**
+     * Create a copy of a matcher with a different cache in front of its
+     * fallback rows. Hits are shared with the original.
+     */
+    private MavenCoordinateMatcher(final MavenCoordinateMatcher matcher, final VerdictCache fallback) {
+        this.exactRowCount = matcher.exactRowCount;
+        this.denied = matcher.denied;
+        this.artifactsByGroup = matcher.artifactsByGroup;
+        this.wildcardGroups = matcher.wildcardGroups;
+        this.globs = matcher.globs;
+        this.globRows = matcher.globRows;
+        this.rowLabels = matcher.rowLabels;
+        this.rowHits = matcher.rowHits;
+        this.fallbackRows = matcher.fallbackRows;
+        this.hasFallback = matcher.hasFallback;
+        this.fallback = fallback;
+    }
+
+    /**
+     * Create a new builder for a matcher.
+     *
+     * @return the builder.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Test a coordinate supplied as its two components.
+     *
+     * @param groupId    the groupId, may be null if it was not declared
+     * @param artifactId the artifactId, may be null if it was not declared
+     * @return true if the coordinate is allowed.
+     */
+    public boolean test(final String groupId, final String artifactId) {
+        return decide(groupId, artifactId) == Decision.ALLOWED;
+    }
+
+    /**
+     * Classify a coordinate supplied as its two components against the allow
+     * rows and the deny rows compiled into the matcher.
+     *
+     * @param groupId    the groupId, may be null if it was not declared
+     * @param artifactId the artifactId, may be null if it was not declared
+     * @return the decision.
+     */
+    public Decision decide(final String groupId, final String artifactId) {
+        return decideCoordinate(MavenCoordinates.of(groupId, artifactId));
+    }
+
+    /**
+     * Classify coordinates read from a declaration, taking the versions it
+     * declares into account, see {@link #decide(String, String, VersionRange)}.
+     * The joined key of the coordinates is shared between the allow rows, the
+     * deny rows and every other matcher the coordinates are passed to.
+     *
+     * @param coordinates the coordinates
+     * @return the decision.
+     */
+    Decision decide(final MavenCoordinates coordinates) {
+        return decide(coordinates, coordinates.declaredVersions());
+    }
+
+    private Decision decideCoordinate(final MavenCoordinates coordinates) {
+        final String groupId = coordinates.groupId();
+        final String artifactId = coordinates.artifactId();
+        if (groupId == null || artifactId == null) {
+            /* Undeclared components are compared in their literal "null" form */
+            return decide(coordinates.key().name());
+        }
+
+        final FoldedKeyMap<Integer> artifacts = artifactsByGroup.get(groupId);
+        final Integer exactRow = artifacts != null ? artifacts.get(artifactId) : null;
+        if (exactRow != null) {
+            return decideExactRow(coordinates, exactRow);
+        }
+
+        final Integer wildcardRow = wildcardGroups.get(groupId);
+        if (wildcardRow != null && wildcardRow == DENIED_ROW) {
+            return Decision.DENIED;
+        }
+        if (denied != null && denied.decideCoordinate(coordinates) == Decision.ALLOWED) {
+            return Decision.DENIED;
+        }
+        if (wildcardRow != null) {
+            rowHits.hit(wildcardRow);
+            return Decision.ALLOWED;
+        }
+
+        if ((globs.size() > 0 && testGlobs(new CoordinateSequence(groupId, artifactId)))
+                || (hasFallback && fallback.test(coordinates.key()))) {
+            return Decision.ALLOWED;
+        }
+        return Decision.NOT_ALLOWED;
+    }
+
+    /**
+     * Classify a coordinate found in the exact lookup.
+     */
+    private Decision decideExactRow(final MavenCoordinates coordinates, final int exactRow) {
+        if (exactRow == DENIED_ROW) {
+            return Decision.DENIED;
+        }
+        if (exactRow >= 0) {
+            rowHits.hit(exactRow);
+            return Decision.ALLOWED;
+        }
+
+        /* The deny rows only match some case variants of this row */
+        if (denied.decideCoordinate(coordinates) == Decision.ALLOWED) {
+            return Decision.DENIED;
+        }
+        rowHits.hit(-2 - exactRow);
+        return Decision.ALLOWED;
+    }
+
+    /**
+     * Classify a declaration of a coordinate, taking the versions it declares
+     * into account. Versioned deny rows are checked first, then the rows
+     * matching the coordinate itself, and finally the versioned allow rows.
+     *
+     * @param groupId    the groupId, may be null if it was not declared
+     * @param artifactId the artifactId, may be null if it was not declared
+     * @param declared   the versions the declaration admits, null if they are
+     *                   not known
+     * @return the decision.
+     */
+    public Decision decide(final String groupId, final String artifactId, final VersionRange declared) {
+        return decide(MavenCoordinates.of(groupId, artifactId), declared);
+    }
+
+    private Decision decide(final MavenCoordinates coordinates, final VersionRange declared) {
+        if (declared != null && denied != null && denied.fallbackRows.overlapsVersion(coordinates.key(), declared)) {
+            return Decision.DENIED;
+        }
+        final Decision decision = decideCoordinate(coordinates);
+        return decision == Decision.NOT_ALLOWED && declared != null
+                && fallbackRows.allowsVersion(coordinates.key(), declared)
+            ? Decision.ALLOWED
+            : decision;
+    }
+
+    /**
+     * Check if a versioned deny row names a coordinate and denies any version
+     * a declaration of it admits.
+     *
+     * @param groupId    the groupId
+     * @param artifactId the artifactId
+     * @param declared   the versions the declaration admits, null if they are
+     *                   not known
+     * @return true if a versioned deny row overlaps the declared versions.
+     */
+    public boolean deniesVersion(final String groupId, final String artifactId, final VersionRange declared) {
+        return denied != null && denied.fallbackRows.overlapsVersion(groupId + SEPARATOR + artifactId, declared);
+    }
+
+    /**
+     * Check if a versioned row allows every version a declaration of a
+     * coordinate admits. Only consulted when {@link #test(String, String)}
+     * rejected the coordinate.
+     *
+     * @param groupId    the groupId
+     * @param artifactId the artifactId
+     * @param declared   the versions the declaration admits, null if they are
+     *                   not known
+     * @return true if a versioned row allows the declared versions.
+     */
+    public boolean allowsVersion(final String groupId, final String artifactId, final VersionRange declared) {
+        return fallbackRows.allowsVersion(groupId + SEPARATOR + artifactId, declared);
+    }
+
+    /**
+     * Test a coordinate in its canonical {@code groupId:artifactId} form.
+     *
+     * @param coordinate the coordinate
+     * @return true if the coordinate is allowed.
+     */
+    @Override
+    public boolean test(final String coordinate) {
+        return decide(coordinate) == Decision.ALLOWED;
+    }
+
+    /**
+     * Classify a coordinate in its canonical {@code groupId:artifactId} form.
+     *
+     * @param coordinate the coordinate
+     * @return the decision.
+     */
+    public Decision decide(final String coordinate) {
+        if (coordinate == null) {
+            return Decision.NOT_ALLOWED;
+        }
+
+        final int separator = coordinate.indexOf(SEPARATOR);
+        if (separator < 0 || coordinate.indexOf(SEPARATOR, separator + 1) >= 0) {
+            if (denied != null && denied.test(coordinate)) {
+                return Decision.DENIED;
+            }
+            return testGlobs(coordinate) || fallback.test(coordinate) ? Decision.ALLOWED : Decision.NOT_ALLOWED;
+        }
+        return decide(coordinate.substring(0, separator), coordinate.substring(separator + 1));
+    }
+
+    /**
+     * Check if the wildcard, exact or glob rows match a coordinate, without
+     * crediting any row. These rows fold case, so match every case variant of
+     * a coordinate they match.
+     */
+    private boolean matchesStructurally(final String groupId, final String artifactId) {
+        final FoldedKeyMap<Integer> artifacts = artifactsByGroup.get(groupId);
+        return wildcardGroups.get(groupId) != null || (artifacts != null && artifacts.get(artifactId) != null)
+            || (globs.size() > 0 && globs.test(new CoordinateSequence(groupId, artifactId)));
+    }
+
+    private boolean testGlobs(final CharSequence coordinate) {
+        if (!globs.test(coordinate)) {
+            return false;
+        }
+
+        final int firstRow = rowLabels.size() - globRows.size();
+        for (int index = 0; index < globRows.size(); index++) {
+            if (globRows.get(index).test(coordinate)) {
+                rowHits.hit(firstRow + index);
+                break;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc} Deny rows are not counted.
+     */
+    @Override
+    public int rowCount() {
+        return rowLabels.size() + fallbackRows.rowCount();
+    }
+
+    /**
+     * {@inheritDoc} Allow rows which a deny row overrides are never credited,
+     * so are listed here. Deny rows are not reported.
+     */
+    @Override
+    public List<String> unusedRows() {
+        final List<String> unused = new ArrayList<>();
+        for (int row = 0; row < rowLabels.size(); row++) {
+            if (rowHits.hits(row) == 0) {
+                unused.add(rowLabels.get(row));
+            }
+        }
+        unused.addAll(fallbackRows.unusedRows());
+        return unused;
+    }
+
+    /**
+     * Create a copy of this matcher which caches the verdicts of its fallback
+     * rows.
+     *
+     * @param name    the name used when logging cache statistics
+     * @param maxSize the maximum number of verdicts to cache, zero to disable
+     * @return the new matcher.
+     */
+    public MavenCoordinateMatcher withVerdictCache(final String name, final int maxSize) {
+        return new MavenCoordinateMatcher(this, new VerdictCache(name, fallbackRows, maxSize));
+    }
+
+    /**
+     * Get the number of {@code groupId:artifactId} and {@code groupId:*} rows
+     * held structurally, after redundant rows were dropped.
+     *
+     * @return the row count.
+     */
+    public int exactRowCount() {
+        return exactRowCount;
+    }
+
+    /**
+     * Get the verdict cache in front of the fallback rows.
+     *
+     * @return the cache.
+     */
+    public VerdictCache getVerdictCache() {
+        return fallback;
+    }
+
+    /**
+     * Get the codec writing matchers out with
+     * {@link #writeSnapshot(DataOutput)} and restoring them with
+     * {@link #readSnapshot(DataInput)}.
+     *
+     * @return the codec.
+     */
+    public static SnapshotCodec<MavenCoordinateMatcher> snapshotCodec() {
+        return SNAPSHOT_CODEC;
+    }
+
+    /**
+     * Check if the matcher can be written out with
+     * {@link #writeSnapshot(DataOutput)}, see
+     * {@link AllowList#supportsSnapshot()}.
+     *
+     * @return true if the matcher can be written.
+     */
+    public boolean supportsSnapshot() {
+        return fallbackRows.supportsSnapshot() && (denied == null || denied.supportsSnapshot());
+    }
+
+    /**
+     * Write the compiled rows of the matcher, so it can be restored by
+     * {@link #readSnapshot(DataInput)} without being built again. Row hits and
+     * verdict caches are not written.
+     *
+     * @param out the output
+     * @throws IOException if the matcher cannot be written.
+     */
+    public void writeSnapshot(final DataOutput out) throws IOException {
+        fallbackRows.writeSnapshot(out);
+
+        final Map<String, Integer> wildcardRows = new LinkedHashMap<>();
+        wildcardGroups.forEach(wildcardRows::put);
+        writePositions(out, wildcardRows);
+        final Map<String, Map<String, Integer>> artifactRows = new LinkedHashMap<>();
+        artifactsByGroup.forEach((group, artifacts) -> {
+            final Map<String, Integer> groupArtifacts = new LinkedHashMap<>();
+            artifacts.forEach(groupArtifacts::put);
+            artifactRows.put(group, groupArtifacts);
+        });
+        out.writeInt(artifactRows.size());
+        for (Map.Entry<String, Map<String, Integer>> entry : artifactRows.entrySet()) {
+            out.writeUTF(entry.getKey());
+            writePositions(out, entry.getValue());
+        }
+
+        out.writeInt(rowLabels.size());
+        for (String label : rowLabels) {
+            out.writeUTF(label);
+        }
+        out.writeInt(globRows.size());
+        out.writeInt(exactRowCount);
+
+        out.writeBoolean(denied != null);
+        if (denied != null) {
+            denied.writeSnapshot(out);
+        }
+    }
+
+    /**
+     * Restore a matcher written by {@link #writeSnapshot(DataOutput)}.
+     *
+     * @param in the input
+     * @return the matcher.
+     * @throws IOException if the matcher cannot be read.
+     */
+    public static MavenCoordinateMatcher readSnapshot(final DataInput in) throws IOException {
+        final AllowList fallbackRows = AllowList.readSnapshot(in);
+
+        final Map<String, Integer> wildcardRows = readPositions(in);
+        final int groupCount = in.readInt();
+        final Map<String, FoldedKeyMap<Integer>> artifacts = new HashMap<>();
+        for (int index = 0; index < groupCount; index++) {
+            final String group = in.readUTF();
+            artifacts.put(group, FoldedKeyMap.of(KeyFolder.CASE_INSENSITIVE, readPositions(in)));
+        }
+
+        final int labelCount = in.readInt();
+        final List<String> rowLabels = new ArrayList<>(labelCount);
+        for (int index = 0; index < labelCount; index++) {
+            rowLabels.add(in.readUTF());
+        }
+
+        /* Glob rows are the last row labels */
+        final int globCount = in.readInt();
+        final GlobTrie.Builder globs = GlobTrie.builder();
+        final List<GlobTrie> singleGlobs = new ArrayList<>(globCount);
+        for (String label : rowLabels.subList(labelCount - globCount, labelCount)) {
+            final String glob = label.substring(PredicateFactory.GLOB_PREFIX.length());
+            globs.add(glob);
+            singleGlobs.add(GlobTrie.builder().add(glob).build());
+        }
+        final int exactRowCount = in.readInt();
+
+        final MavenCoordinateMatcher denied = in.readBoolean() ? readSnapshot(in) : null;
+        return new MavenCoordinateMatcher(FoldedKeyMap.of(KeyFolder.CASE_INSENSITIVE, artifacts),
+            FoldedKeyMap.of(KeyFolder.CASE_INSENSITIVE, wildcardRows), globs.build(), singleGlobs, rowLabels,
+            fallbackRows, exactRowCount, denied);
+    }
+
+    private static void writePositions(final DataOutput out, final Map<String, Integer> positions)
+            throws IOException {
+        out.writeInt(positions.size());
+        for (Map.Entry<String, Integer> entry : positions.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeInt(entry.getValue());
+        }
+    }
+
+    private static Map<String, Integer> readPositions(final DataInput in) throws IOException {
+        final int count = in.readInt();
+        final Map<String, Integer> positions = new LinkedHashMap<>();
+        for (int index = 0; index < count; index++) {
+            positions.put(in.readUTF(), in.readInt());
+        }
+        return positions;
+    }
+
+    private static String fold(final String value) {
+        return KeyFolder.CASE_INSENSITIVE.fold(value);
+    }
+
+    /**
+     * A view of a coordinate as its joined form, without copying the components.
+     */
+    private static final class CoordinateSequence implements CharSequence {
+
+        private final String groupId;
+
+        private final String artifactId;
+
+        private CoordinateSequence(final String groupId, final String artifactId) {
+            this.groupId = groupId;
+            this.artifactId = artifactId;
+        }
+
+        @Override
+        public int length() {
+            return groupId.length() + 1 + artifactId.length();
+        }
+
+        @Override
+        public char charAt(final int index) {
+            if (index < groupId.length()) {
+                return groupId.charAt(index);
+            }
+            return index == groupId.length() ? SEPARATOR : artifactId.charAt(index - groupId.length() - 1);
+        }
+
+        @Override
+        public CharSequence subSequence(final int start, final int end) {
+            return toString().subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return groupId + SEPARATOR + artifactId;
+        }
+    }
+
+    /**
+     * Builder for {@link MavenCoordinateMatcher} instances.
+     */
+    public static final class Builder {
+
+        /**
+         * Allowed artifactIds keyed by groupId, both case folded, mapped to the
+         * first row declaring them.
+         */
+        private final Map<String, Map<String, String>> artifactsByGroup = new LinkedHashMap<>();
+
+        /**
+         * Case folded groupIds for which every artifact is allowed, mapped to
+         * the first row declaring them.
+         */
+        private final Map<String, String> wildcardGroups = new LinkedHashMap<>();
+
+        private final GlobTrie.Builder globs = GlobTrie.builder();
+
+        private final Set<String> globRows = new LinkedHashSet<>();
+
+        private final AllowList.Builder fallback = AllowList.builder();
+
+        private int exactRowCount;
+
+        private int duplicateGlobCount;
+
+        private MavenCoordinateMatcher denied;
+
+        private Builder() {
+        }
+
+        /**
+         * Add a glob row, matched against the coordinate in its
+         * {@code groupId:artifactId} form.
+         *
+         * @param glob the glob
+         * @return this builder.
+         * @throws IllegalArgumentException if the glob is not supported.
+         */
+        public Builder addGlob(final String glob) {
+            if (globRows.contains(glob)) {
+                duplicateGlobCount++;
+                return this;
+            }
+            globs.add(glob);
+            globRows.add(glob);
+            return this;
+        }
+
+        /**
+         * Add an exact coordinate row. Rows in {@code groupId:artifactId} form are
+         * indexed structurally, with {@value MavenCoordinateMatcher#ANY_ARTIFACT}
+         * as the artifactId allowing every artifact in the group. Any other row is
+         * kept as an exact fallback row.
+         *
+         * @param row the exact row
+         * @return this builder.
+         */
+        public Builder addExact(final String row) {
+            final int separator = row.indexOf(SEPARATOR);
+            if (separator <= 0 || separator == row.length() - 1 || row.indexOf(SEPARATOR, separator + 1) >= 0) {
+                fallback.addExact(row);
+                return this;
+            }
+
+            exactRowCount++;
+            final String group = fold(row.substring(0, separator).trim());
+            final String artifact = fold(row.substring(separator + 1).trim());
+            if (ANY_ARTIFACT.equals(artifact)) {
+                wildcardGroups.putIfAbsent(group, row);
+            } else {
+                artifactsByGroup.computeIfAbsent(group, key -> new LinkedHashMap<>()).putIfAbsent(artifact, row);
+            }
+            return this;
+        }
+
+        /**
+         * Set the deny rows, which take precedence over every row of this
+         * matcher. Their exact and wildcard rows are merged into the lookups of
+         * this matcher, and each exact row is resolved against them as the
+         * matcher is built.
+         *
+         * @param rows the deny rows
+         * @return this builder.
+         */
+        public Builder denied(final MavenCoordinateMatcher rows) {
+            this.denied = rows;
+            return this;
+        }
+
+        /**
+         * Get the builder for rows which are matched against the canonical
+         * coordinate string.
+         *
+         * @return the fallback builder.
+         */
+        public AllowList.Builder fallback() {
+            return fallback;
+        }
+
+        /**
+         * Create the matcher.
+         *
+         * @return the matcher.
+         */
+        public MavenCoordinateMatcher build() {
+            final AllowList fallbackRows = fallback.build();
+            final GlobTrie globTrie = globs.build();
+
+            /* Wildcard rows take the first positions, followed by exact rows and then globs */
+            final List<String> rowLabels = new ArrayList<>();
+            final Map<String, Integer> wildcardRows = new LinkedHashMap<>();
+            wildcardGroups.forEach((group, row) -> {
+                wildcardRows.put(group, rowLabels.size());
+                rowLabels.add(row);
+            });
+
+            /* Drop exact rows which another row already allows */
+            int distinctRowCount = wildcardGroups.size();
+            int coveredRowCount = 0;
+            int overriddenRowCount = 0;
+            final Map<String, Map<String, Integer>> artifactRows = new HashMap<>();
+            for (Map.Entry<String, Map<String, String>> entry : artifactsByGroup.entrySet()) {
+                final String group = entry.getKey();
+                final Map<String, Integer> groupArtifacts = new LinkedHashMap<>();
+                for (Map.Entry<String, String> artifact : entry.getValue().entrySet()) {
+                    final String coordinate = group + SEPARATOR + artifact.getKey();
+                    if (!wildcardGroups.containsKey(group) && !globTrie.test(coordinate)
+                            && !fallbackRows.covers(coordinate)) {
+                        final int position = resolveDenied(group, artifact.getKey(), rowLabels.size());
+                        groupArtifacts.put(artifact.getKey(), position);
+                        overriddenRowCount += position == DENIED_ROW ? 1 : 0;
+                        rowLabels.add(artifact.getValue());
+                    } else {
+                        coveredRowCount++;
+                    }
+                }
+                distinctRowCount += entry.getValue().size();
+                if (!groupArtifacts.isEmpty()) {
+                    artifactRows.put(group, groupArtifacts);
+                }
+            }
+            final int keptRowCount = rowLabels.size();
+            final int duplicateRowCount = exactRowCount - distinctRowCount + duplicateGlobCount;
+            if (duplicateRowCount > 0 || coveredRowCount > 0) {
+                LOG.info("Optimized Maven coordinate allow-list: removed {} duplicate rows and {} exact rows "
+                    + "covered by other rows", duplicateRowCount, coveredRowCount);
+            }
+            if (overriddenRowCount > 0) {
+                LOG.info("Deny rows override {} exact Maven coordinate allow-list rows", overriddenRowCount);
+            }
+
+            /* Exact and wildcard deny rows share the lookups, taking precedence over allow rows */
+            if (denied != null) {
+                denied.artifactsByGroup.forEach((group, deniedArtifacts) -> deniedArtifacts.forEach(
+                    (artifact, row) -> artifactRows.computeIfAbsent(group, key -> new LinkedHashMap<>())
+                        .put(artifact, DENIED_ROW)));
+                denied.wildcardGroups.forEach((group, row) -> wildcardRows.put(group, DENIED_ROW));
+            }
+            final Map<String, FoldedKeyMap<Integer>> artifacts = new HashMap<>();
+            artifactRows.forEach((group, groupArtifacts) -> artifacts.put(group,
+                FoldedKeyMap.of(KeyFolder.CASE_INSENSITIVE, groupArtifacts)));
+
+            final List<GlobTrie> singleGlobs = new ArrayList<>();
+            for (String glob : globRows) {
+                singleGlobs.add(GlobTrie.builder().add(glob).build());
+                rowLabels.add(PredicateFactory.GLOB_PREFIX + glob);
+            }
+
+            return new MavenCoordinateMatcher(FoldedKeyMap.of(KeyFolder.CASE_INSENSITIVE, artifacts),
+                FoldedKeyMap.of(KeyFolder.CASE_INSENSITIVE, wildcardRows), globTrie, singleGlobs, rowLabels,
+                fallbackRows, keptRowCount, denied);
+        }
+
+        /**
+         * Get the position to hold for an exact row, once the deny rows have
+         * been taken into account.
+         */
+        private int resolveDenied(final String group, final String artifact, final int position) {
+            if (denied == null) {
+                return position;
+            }
+            final String coordinate = group + SEPARATOR + artifact;
+            if (denied.matchesStructurally(group, artifact) || denied.fallbackRows.covers(coordinate)) {
+                return DENIED_ROW;
+            }
+            return denied.fallbackRows.isCaseStable(coordinate) ? position : -2 - position;
+        }
+    }
+}
@@ -1,40 +1,115 @@
 package com.devwithimagination.sonar.alloweddependencies.plugin.maven.checks;
 
-import java.util.Arrays;
-import java.util.function.Predicate;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.function.UnaryOperator;
 import java.util.regex.Pattern;
-import java.util.regex.PatternSyntaxException;
 
-/** Builds allow-list predicates for canonical Maven coordinates. */
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.AllowList;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.PredicateFactory;
+
+/** Builds allow-list matchers for canonical Maven coordinates. */
 final class MavenCoordinatePredicateFactory {
 
-    private static final String REGEX_PREFIX = "regex:";
+    private static final char VERSION_SEPARATOR = ':';
 
-    Predicate<String> create(final String configuredCoordinates, final UnaryOperator<String> exactNormalizer) {
-        if (configuredCoordinates == null) {
-            return coordinate -> false;
-        }
+    static final String DEFAULT_ERROR_PREFIX = "Invalid Maven coordinate allow-list ";
+
+    private final String errorPrefix;
+
+    private final long regexStepBudget;
+
+    private final boolean regexFullMatch;
+
+    private final AllowList.MatcherEngine matcherEngine;
+
+    /**
+     * The directory relative index rows are resolved against, may be null.
+     */
+    private final Path indexBaseDir;
+
+    MavenCoordinatePredicateFactory() {
+        this(DEFAULT_ERROR_PREFIX, PredicateFactory.options());
+    }
+
+    /**
+     * Create a new factory.
+     *
+     * @param errorPrefix the start of the message for an invalid row
+     * @param options     the options for the matchers it creates
+     */
+    MavenCoordinatePredicateFactory(final String errorPrefix, final PredicateFactory.Options options) {
+        this.errorPrefix = errorPrefix;
+        this.regexStepBudget = options.getRegexStepBudget();
+        this.regexFullMatch = options.isRegexFullMatch();
+        this.matcherEngine = options.getMatcherEngine();
+        this.indexBaseDir = options.getIndexBaseDir();
+    }
+
+    MavenCoordinateMatcher create(final String configuredCoordinates, final UnaryOperator<String> exactNormalizer) {
+        return create(configuredCoordinates, null, exactNormalizer);
+    }
+
+    MavenCoordinateMatcher create(final String configuredCoordinates, final String deniedCoordinates,
+            final UnaryOperator<String> exactNormalizer) {
+        final MavenCoordinateMatcher.Builder builder = MavenCoordinateMatcher.builder();
+        builder.fallback().regexStepBudget(regexStepBudget).matcherEngine(matcherEngine);
+        AllowList.rows(configuredCoordinates).forEach(row -> addRow(builder, row, exactNormalizer));
 
-        return Arrays.stream(configuredCoordinates.split("\\r?\\n"))
-            .map(String::trim)
-            .filter(row -> !row.isEmpty())
-            .filter(row -> !row.startsWith("#"))
-            .map(row -> createRowPredicate(row, exactNormalizer))
-            .reduce(coordinate -> false, Predicate::or);
+        final List<String> deniedRows = AllowList.rows(deniedCoordinates);
+        if (!deniedRows.isEmpty()) {
+            final MavenCoordinateMatcher.Builder deniedBuilder = MavenCoordinateMatcher.builder();
+            deniedBuilder.fallback().regexStepBudget(regexStepBudget).exceededRegexRowsMatch(true)
+                .matcherEngine(matcherEngine);
+            deniedRows.forEach(row -> addRow(deniedBuilder, row, exactNormalizer));
+            builder.denied(deniedBuilder.build());
+        }
+        return builder.build();
     }
 
-    private Predicate<String> createRowPredicate(final String row, final UnaryOperator<String> exactNormalizer) {
-        if (row.startsWith(REGEX_PREFIX)) {
-            final String expression = row.substring(REGEX_PREFIX.length());
+    private void addRow(final MavenCoordinateMatcher.Builder builder, final String row,
+            final UnaryOperator<String> exactNormalizer) {
+        if (row.startsWith(PredicateFactory.REGEX_PREFIX)) {
+            final String expression = row.substring(PredicateFactory.REGEX_PREFIX.length());
+            final Pattern pattern = PredicateFactory.compileRegex(expression, errorPrefix + "regex: ");
+            if (regexFullMatch) {
+                builder.fallback().addFullMatchRegex(pattern);
+            } else {
+                builder.fallback().addRegex(pattern);
+            }
+            return;
+        }
+
+        if (row.startsWith(PredicateFactory.MATCH_PREFIX)) {
+            final String expression = row.substring(PredicateFactory.MATCH_PREFIX.length());
+            builder.fallback().addFullMatchRegex(PredicateFactory.compileRegex(expression, errorPrefix + "regex: "));
+            return;
+        }
+
+        if (row.startsWith(PredicateFactory.GLOB_PREFIX)) {
+            final String glob = row.substring(PredicateFactory.GLOB_PREFIX.length());
             try {
-                return Pattern.compile(expression, Pattern.CASE_INSENSITIVE).asPredicate();
-            } catch (PatternSyntaxException exception) {
-                throw new IllegalArgumentException("Invalid Maven coordinate allow-list regex: " + expression, exception);
+                builder.addGlob(exactNormalizer.apply(glob));
+                return;
+            } catch (IllegalArgumentException exception) {
+                throw new IllegalArgumentException(errorPrefix + "glob: " + glob, exception);
             }
         }
 
-        final String normalized = exactNormalizer.apply(row);
-        return normalized::equalsIgnoreCase;
+        if (row.startsWith(PredicateFactory.INDEX_PREFIX)) {
+            final String path = row.substring(PredicateFactory.INDEX_PREFIX.length()).trim();
+            builder.fallback().addIndex(PredicateFactory.openIndex(path, indexBaseDir, errorPrefix + "index: "));
+            return;
+        }
+
+        final int rangeStart = PredicateFactory.versionRangeStart(row, VERSION_SEPARATOR);
+        if (rangeStart > 0) {
+            builder.fallback().addVersioned(exactNormalizer.apply(row.substring(0, rangeStart)),
+                PredicateFactory.parseVersionRange(row.substring(rangeStart + 1), errorPrefix + "version range: "),
+                row);
+            return;
+        }
+
+        builder.addExact(exactNormalizer.apply(row));
     }
 }
@@ -0,0 +1,187 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.maven.checks;
+
+import java.util.Objects;
+import java.util.function.UnaryOperator;
+
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.DependencyKey;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.VersionRange;
+
+/**
+ * The coordinate of a declared Maven artifact, with the forms matchers
+ * evaluate it in.
+ *
+ * Coordinates are read once per declaration by the {@link MavenPomExtractor},
+ * and every check scanning the same file shares them, so the
+ * {@code groupId:artifactId} key is built and the version parsed once. Like
+ * the declarations they belong to, coordinates are confined to the thread
+ * analysing the file.
+ */
+final class MavenCoordinates {
+
+    private final String groupId;
+
+    private final String artifactId;
+
+    /**
+     * The declared version, null if none was declared.
+     */
+    private final String version;
+
+    /**
+     * The declared scope, null if none was declared.
+     */
+    private final String scope;
+
+    private DependencyKey key;
+
+    private boolean declaredVersionsRead;
+
+    private VersionRange declaredVersions;
+
+    private MavenCoordinates(final String groupId, final String artifactId, final String version,
+            final String scope) {
+        this.groupId = groupId;
+        this.artifactId = artifactId;
+        this.version = version;
+        this.scope = scope;
+    }
+
+    /**
+     * Create coordinates which were not read from a declaration, so declare no
+     * versions.
+     *
+     * @param groupId    the groupId, may be null if it was not declared
+     * @param artifactId the artifactId, may be null if it was not declared
+     * @return the coordinates.
+     */
+    static MavenCoordinates of(final String groupId, final String artifactId) {
+        return new MavenCoordinates(groupId, artifactId, null, null);
+    }
+
+    /**
+     * Create the coordinates of a declaration.
+     *
+     * @param groupId    the groupId, may be null if it was not declared
+     * @param artifactId the artifactId, may be null if it was not declared
+     * @param version    the version, may be null if it was not declared
+     * @param scope      the scope, may be null if it was not declared
+     * @return the coordinates.
+     */
+    static MavenCoordinates declared(final String groupId, final String artifactId, final String version,
+            final String scope) {
+        return new MavenCoordinates(groupId, artifactId, version, scope);
+    }
+
+    /**
+     * Create the coordinates with the placeholders in each declared component
+     * resolved.
+     *
+     * @param resolver resolves the placeholders in a component
+     * @return the coordinates, which are these if no component changed.
+     */
+    MavenCoordinates interpolate(final UnaryOperator<String> resolver) {
+        final String resolvedGroupId = resolve(groupId, resolver);
+        final String resolvedArtifactId = resolve(artifactId, resolver);
+        final String resolvedVersion = resolve(version, resolver);
+        final String resolvedScope = resolve(scope, resolver);
+        if (Objects.equals(groupId, resolvedGroupId) && Objects.equals(artifactId, resolvedArtifactId)
+                && Objects.equals(version, resolvedVersion) && Objects.equals(scope, resolvedScope)) {
+            return this;
+        }
+        return new MavenCoordinates(resolvedGroupId, resolvedArtifactId, resolvedVersion, resolvedScope);
+    }
+
+    /**
+     * Check if any declared component has a {@code ${...}} placeholder.
+     */
+    boolean hasPlaceholders() {
+        return hasPlaceholder(groupId) || hasPlaceholder(artifactId) || hasPlaceholder(version)
+            || hasPlaceholder(scope);
+    }
+
+    /**
+     * Check if both the version and the scope are declared, so nothing can be
+     * taken from dependency management.
+     */
+    boolean isComplete() {
+        return version != null && scope != null;
+    }
+
+    private static boolean hasPlaceholder(final String component) {
+        return component != null && component.contains("${");
+    }
+
+    private static String resolve(final String component, final UnaryOperator<String> resolver) {
+        return component == null ? null : resolver.apply(component);
+    }
+
+    /**
+     * Create the coordinates with the version and scope of a dependency
+     * management entry for any the declaration does not declare itself.
+     *
+     * @param managed the management entry
+     * @return the coordinates, which are these if nothing was taken from the
+     *         entry.
+     */
+    MavenCoordinates managedBy(final MavenCoordinates managed) {
+        if ((version != null || managed.version == null) && (scope != null || managed.scope == null)) {
+            return this;
+        }
+        return new MavenCoordinates(groupId, artifactId, version != null ? version : managed.version,
+            scope != null ? scope : managed.scope);
+    }
+
+    /**
+     * Get the {@code groupId:artifactId} a dependency is managed by.
+     */
+    String managementKey() {
+        return groupId + ":" + artifactId;
+    }
+
+    String groupId() {
+        return groupId;
+    }
+
+    String artifactId() {
+        return artifactId;
+    }
+
+    String version() {
+        return version;
+    }
+
+    /**
+     * Get the key for the {@code groupId:artifactId} form of the coordinate,
+     * with undeclared components in their literal "null" form.
+     */
+    DependencyKey key() {
+        if (key == null) {
+            key = DependencyKey.of(groupId + ":" + artifactId);
+        }
+        return key;
+    }
+
+    /**
+     * Get the versions the declaration admits, see
+     * {@link MavenXmlCoordinates#declaredVersions(String)}.
+     */
+    VersionRange declaredVersions() {
+        if (!declaredVersionsRead) {
+            declaredVersions = MavenXmlCoordinates.declaredVersions(version);
+            declaredVersionsRead = true;
+        }
+        return declaredVersions;
+    }
+
+    /**
+     * Get the scope of a dependency declaration.
+     */
+    String scope(final String defaultScope) {
+        return scope != null ? scope : defaultScope;
+    }
+
+    @Override
+    public String toString() {
+        return key().name();
+    }
+}
@@ -0,0 +1,136 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.maven.checks;
+
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * A dependency, plugin or extension declared in a Maven POM or core
+ * extensions descriptor, as recorded by the {@link MavenPomExtractor}.
+ */
+public final class MavenDeclaration {
+
+    /**
+     * The kinds of declaration the Maven checks govern.
+     */
+    public enum Kind {
+
+        /**
+         * A {@code dependency} in any {@code dependencies} element.
+         */
+        DEPENDENCY,
+
+        /**
+         * A plugin of the build or reporting section of the project or of one
+         * of its profiles. Managed plugins are not included.
+         */
+        PLUGIN,
+
+        /**
+         * A build extension, or a core extension in {@code .mvn/extensions.xml}.
+         */
+        EXTENSION
+    }
+
+    private final Kind kind;
+
+    private final MavenCoordinates coordinates;
+
+    private final int lineNumber;
+
+    /**
+     * Whether the declaration is a dependency of the project or of one of its
+     * profiles, rather than of a plugin or in the dependency management.
+     */
+    private final boolean projectDependency;
+
+    MavenDeclaration(final Kind kind, final MavenCoordinates coordinates, final int lineNumber,
+            final boolean projectDependency) {
+        this.kind = kind;
+        this.coordinates = coordinates;
+        this.lineNumber = lineNumber;
+        this.projectDependency = projectDependency;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    MavenCoordinates getCoordinates() {
+        return coordinates;
+    }
+
+    /**
+     * Create the declaration with the placeholders in its coordinates resolved.
+     *
+     * @param resolver resolves the placeholders in a coordinate
+     * @return the declaration, which is this one if no coordinate changed.
+     */
+    MavenDeclaration interpolate(final UnaryOperator<String> resolver) {
+        final MavenCoordinates interpolated = coordinates.interpolate(resolver);
+        return interpolated == coordinates
+            ? this
+            : new MavenDeclaration(kind, interpolated, lineNumber, projectDependency);
+    }
+
+    /**
+     * Check if the declaration is a dependency of the project or of one of its
+     * profiles, the only dependencies dependency management applies to.
+     *
+     * @return true for a project dependency.
+     */
+    boolean isProjectDependency() {
+        return projectDependency;
+    }
+
+    /**
+     * Create the declaration with the version and scope of its dependency
+     * management entry for any it does not declare itself.
+     *
+     * @param managed the management entries, by {@code groupId:artifactId}
+     * @return the declaration, which is this one if it has no entry or takes
+     *         nothing from it.
+     */
+    MavenDeclaration managedBy(final Map<String, MavenCoordinates> managed) {
+        final MavenCoordinates entry = managed.get(coordinates.managementKey());
+        if (entry == null) {
+            return this;
+        }
+        final MavenCoordinates effective = coordinates.managedBy(entry);
+        return effective == coordinates
+            ? this
+            : new MavenDeclaration(kind, effective, lineNumber, projectDependency);
+    }
+
+    /**
+     * Get the declared version.
+     *
+     * @return the version, or null if none was declared or managed.
+     */
+    public String getVersion() {
+        return coordinates.version();
+    }
+
+    /**
+     * Get the scope of a dependency.
+     *
+     * @param defaultScope the scope if none was declared or managed
+     * @return the scope.
+     */
+    public String getScope(final String defaultScope) {
+        return coordinates.scope(defaultScope);
+    }
+
+    /**
+     * Get the line the declaration starts on.
+     *
+     * @return the line number, starting at 1.
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public String toString() {
+        return kind + " " + coordinates + " at line " + lineNumber;
+    }
+}
@@ -0,0 +1,144 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.maven.checks;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.sensor.SensorContext;
+
+/**
+ * The active Maven dependency rules, compiled into a table routing each scope
+ * to the rules which apply to it.
+ *
+ * Each scope a rule is restricted to is given a bit, and each rule a mask of
+ * the scopes it applies to, with no mask for a rule without a scope
+ * restriction, which applies to every scope. The masks are bit sets, so rules
+ * may name any number of distinct scopes. The masks are combined once, when the table is built, into the
+ * list of rules for each scope. A single pass over the dependencies of a POM
+ * then looks up the rules for each dependency's scope and tests only those,
+ * rather than every rule testing every dependency against its list of scopes.
+ * A scope no rule names is routed to the rules without a restriction.
+ */
+public final class MavenDependencyRoutes {
+
+    private final List<AllowedMavenDependenciesCheck> checks;
+
+    /**
+     * The bit of each scope named by a rule.
+     */
+    private final Map<String, Integer> scopeBits;
+
+    /**
+     * The positions of the checks for each scope bit, in rule order.
+     */
+    private final int[][] routes;
+
+    /**
+     * The positions of the checks without a scope restriction.
+     */
+    private final int[] unrestricted;
+
+    private MavenDependencyRoutes(final List<AllowedMavenDependenciesCheck> checks,
+            final Map<String, Integer> scopeBits, final BitSet[] masks) {
+        this.checks = checks;
+        this.scopeBits = scopeBits;
+        this.routes = new int[scopeBits.size()][];
+        for (int bit = 0; bit < routes.length; bit++) {
+            routes[bit] = positions(masks, bit);
+        }
+        this.unrestricted = positions(masks, -1);
+    }
+
+    /**
+     * Compile the routing table for a set of dependency checks.
+     *
+     * @param checks the checks, in the order issues should be raised
+     * @return the routing table.
+     */
+    public static MavenDependencyRoutes of(final List<AllowedMavenDependenciesCheck> checks) {
+        final Map<String, Integer> scopeBits = new HashMap<>();
+        final BitSet[] masks = new BitSet[checks.size()];
+        for (int i = 0; i < masks.length; i++) {
+            final List<String> scopes = checks.get(i).getConfig().getScopes();
+            if (scopes.isEmpty()) {
+                continue;
+            }
+            masks[i] = new BitSet();
+            for (String scope : scopes) {
+                masks[i].set(scopeBits.computeIfAbsent(scope, named -> scopeBits.size()));
+            }
+        }
+        return new MavenDependencyRoutes(new ArrayList<>(checks), scopeBits, masks);
+    }
+
+    /**
+     * Scan the dependencies declared in a file for issues, against every rule
+     * which applies to each dependency's scope.
+     *
+     * @param context the sensor context
+     * @param pom     the model of the file, shared by every check
+     */
+    public void scanFile(final SensorContext context, final PomModel pom) {
+
+        /* Only scan pom.xml files */
+        if (!pom.isPom() || checks.isEmpty()) {
+            return;
+        }
+
+        /* Looked up when a check first applies to a dependency of the file */
+        final InputFile inputFile = pom.getInputFile();
+        final MavenCoordinateMatcher[] matchers = new MavenCoordinateMatcher[checks.size()];
+
+        for (MavenDeclaration dependency : pom.getDependencies()) {
+            final Integer bit = scopeBits.get(
+                dependency.getCoordinates().scope(AllowedMavenDependenciesCheck.DEFAULT_MAVEN_SCOPE));
+            for (int position : bit == null ? unrestricted : routes[bit]) {
+                final AllowedMavenDependenciesCheck check = checks.get(position);
+                if (matchers[position] == null) {
+                    matchers[position] = check.getConfig().getAllowedDependenciesMatcher(inputFile);
+                }
+                check.scanDependency(context, check.getConfig().getRule().ruleKey(), inputFile,
+                    matchers[position], dependency);
+            }
+        }
+    }
+
+    /**
+     * Get the checks which apply to a scope.
+     *
+     * @param scope the scope of a dependency
+     * @return the checks, in rule order.
+     */
+    public List<AllowedMavenDependenciesCheck> route(final String scope) {
+        final Integer bit = scopeBits.get(scope);
+        final List<AllowedMavenDependenciesCheck> routed = new ArrayList<>();
+        for (int position : bit == null ? unrestricted : routes[bit]) {
+            routed.add(checks.get(position));
+        }
+        return routed;
+    }
+
+    /**
+     * Get the positions of the rules applying to a scope bit, or of the rules
+     * without a scope restriction for a negative bit.
+     */
+    private static int[] positions(final BitSet[] masks, final int bit) {
+        int count = 0;
+        for (BitSet mask : masks) {
+            if (mask == null || bit >= 0 && mask.get(bit)) {
+                count++;
+            }
+        }
+        final int[] positions = new int[count];
+        int next = 0;
+        for (int i = 0; i < masks.length; i++) {
+            if (masks[i] == null || bit >= 0 && masks[i].get(bit)) {
+                positions[next++] = i;
+            }
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,458 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.maven.checks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.sonar.api.batch.fs.InputFile;
+
+/**
+ * Reads the dependencies, plugins and extensions declared in a Maven POM or
+ * core extensions descriptor in a single forward pass with a StAX reader.
+ *
+ * Only the declarations themselves are kept. The rest of the document is
+ * skipped as it is read, so the memory used is bounded by the nesting depth of
+ * the document and the number of declarations, rather than by the size of the
+ * file as it would be for a DOM.
+ *
+ * The declarations recorded are the same as those the Maven checks have
+ * always governed:
+ * <ul>
+ * <li>a {@code dependency} in any {@code dependencies} element,</li>
+ * <li>a {@code plugin} in the build or reporting plugins of the project or of
+ * one of its profiles, but not in {@code pluginManagement},</li>
+ * <li>an {@code extension} in the build extensions of the project or in a
+ * core extensions descriptor.</li>
+ * </ul>
+ * Each coordinate is the trimmed text of the first child element of that name,
+ * and plugins without a groupId are in the default Maven plugin group.
+ *
+ * The same pass records the project level declarations of a POM: its
+ * coordinates, parent, properties, modules and managed dependencies, which are
+ * what the POMs below it in the project inherit.
+ */
+public final class MavenPomExtractor {
+
+    private static final List<List<String>> PLUGIN_PATHS = Arrays.asList(
+        Arrays.asList("project", "build", "plugins", "plugin"),
+        Arrays.asList("project", "profiles", "profile", "build", "plugins", "plugin"),
+        Arrays.asList("project", "reporting", "plugins", "plugin"),
+        Arrays.asList("project", "profiles", "profile", "reporting", "plugins", "plugin"));
+
+    private static final List<List<String>> EXTENSION_PATHS = Arrays.asList(
+        Arrays.asList("project", "build", "extensions", "extension"),
+        Arrays.asList("extensions", "extension"));
+
+    private static final List<String> MANAGED_DEPENDENCY_PATH = Arrays.asList(
+        "project", "dependencyManagement", "dependencies", "dependency");
+
+    private static final List<List<String>> PROJECT_DEPENDENCY_PATHS = Arrays.asList(
+        Arrays.asList("project", "dependencies", "dependency"),
+        Arrays.asList("project", "profiles", "profile", "dependencies", "dependency"));
+
+    private static final XMLInputFactory FACTORY = createFactory();
+
+    private MavenPomExtractor() {
+
+    }
+
+    /**
+     * Read the declarations in a file.
+     *
+     * @param inputFile the POM or extensions descriptor
+     * @return the declarations, in the order they start in the file.
+     * @throws IOException        if the file cannot be read.
+     * @throws XMLStreamException if the file is not well formed XML.
+     */
+    public static List<MavenDeclaration> extract(final InputFile inputFile) throws IOException, XMLStreamException {
+        return read(inputFile).declarations;
+    }
+
+    /**
+     * Read the model of a file.
+     *
+     * @param inputFile the POM or extensions descriptor
+     * @return the model.
+     * @throws IOException        if the file cannot be read.
+     * @throws XMLStreamException if the file is not well formed XML.
+     */
+    static PomModel readModel(final InputFile inputFile) throws IOException, XMLStreamException {
+        return read(inputFile).toModel(inputFile);
+    }
+
+    /**
+     * Read a POM which is not indexed, such as the parent of one which is. The
+     * encoding is read from the XML declaration.
+     *
+     * @param path the POM
+     * @return everything read from the file.
+     * @throws IOException        if the file cannot be read.
+     * @throws XMLStreamException if the file is not well formed XML.
+     */
+    static Extraction read(final Path path) throws IOException, XMLStreamException {
+        try (InputStream in = Files.newInputStream(path)) {
+            return extract(FACTORY.createXMLStreamReader(in));
+        }
+    }
+
+    /**
+     * Read a file.
+     *
+     * @param inputFile the POM or extensions descriptor
+     * @return everything read from the file.
+     * @throws IOException        if the file cannot be read.
+     * @throws XMLStreamException if the file is not well formed XML.
+     */
+    static Extraction read(final InputFile inputFile) throws IOException, XMLStreamException {
+        try (InputStream in = inputFile.inputStream()) {
+            return extract(FACTORY.createXMLStreamReader(in, inputFile.charset().name()));
+        }
+    }
+
+    private static Extraction extract(final XMLStreamReader reader) throws XMLStreamException {
+        try {
+            return extractFrom(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static Extraction extractFrom(final XMLStreamReader reader) throws XMLStreamException {
+        final List<MavenDeclaration> declarations = new ArrayList<>();
+        final List<String> path = new ArrayList<>();
+        final Deque<OpenDeclaration> open = new ArrayDeque<>();
+        final ProjectFields project = new ProjectFields();
+
+        /* The child element of the innermost open declaration, or the project field, whose text is being read */
+        String field = null;
+        int fieldDepth = 0;
+        boolean projectField = false;
+        final StringBuilder text = new StringBuilder();
+
+        while (reader.hasNext()) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    path.add(reader.getLocalName());
+                    final MavenDeclaration.Kind kind = kindOf(path);
+                    if (kind != null) {
+
+                        /* Hold the place of the declaration, so they are listed in document order */
+                        open.push(new OpenDeclaration(kind, path.size(), declarations.size(),
+                            reader.getLocation().getLineNumber(), MANAGED_DEPENDENCY_PATH.equals(path),
+                            PROJECT_DEPENDENCY_PATHS.contains(path)));
+                        declarations.add(null);
+                    } else if (field == null && !open.isEmpty() && open.peek().depth == path.size() - 1
+                            && open.peek().wants(reader.getLocalName())) {
+                        field = reader.getLocalName();
+                        fieldDepth = path.size();
+                        projectField = false;
+                        text.setLength(0);
+                    } else if (field == null && open.isEmpty() && ProjectFields.isField(path)) {
+                        field = reader.getLocalName();
+                        fieldDepth = path.size();
+                        projectField = true;
+                        text.setLength(0);
+                    }
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    if (field != null) {
+                        text.append(reader.getText());
+                    }
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    if (field != null && path.size() == fieldDepth) {
+                        if (projectField) {
+                            project.set(path, text.toString().trim());
+                        } else {
+                            open.peek().set(field, text.toString().trim());
+                        }
+                        field = null;
+                    } else if (!open.isEmpty() && open.peek().depth == path.size()) {
+                        final OpenDeclaration declaration = open.pop();
+                        final MavenDeclaration closed = declaration.close();
+                        declarations.set(declaration.position, closed);
+                        if (declaration.managed) {
+                            project.manage(closed);
+                        }
+                    }
+                    path.remove(path.size() - 1);
+                    break;
+                default:
+                    break;
+            }
+        }
+        return new Extraction(Collections.unmodifiableList(declarations), project.close());
+    }
+
+    private static MavenDeclaration.Kind kindOf(final List<String> path) {
+        final int depth = path.size();
+        final String name = path.get(depth - 1);
+        if ("dependency".equals(name)) {
+            return depth > 1 && "dependencies".equals(path.get(depth - 2)) ? MavenDeclaration.Kind.DEPENDENCY : null;
+        }
+        if ("plugin".equals(name)) {
+            return PLUGIN_PATHS.contains(path) ? MavenDeclaration.Kind.PLUGIN : null;
+        }
+        if ("extension".equals(name)) {
+            return EXTENSION_PATHS.contains(path) ? MavenDeclaration.Kind.EXTENSION : null;
+        }
+        return null;
+    }
+
+    private static XMLInputFactory createFactory() {
+        final XMLInputFactory factory = XMLInputFactory.newInstance();
+
+        /* POMs never need a DTD, and resolving external entities would let a file read others */
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+
+    /**
+     * Everything read from a file.
+     */
+    static final class Extraction {
+
+        private final List<MavenDeclaration> declarations;
+
+        private final PomProject project;
+
+        private Extraction(final List<MavenDeclaration> declarations, final PomProject project) {
+            this.declarations = declarations;
+            this.project = project;
+        }
+
+        PomProject getProject() {
+            return project;
+        }
+
+        /**
+         * Create the model of the file this was read from.
+         *
+         * @param inputFile the file
+         * @return the model.
+         */
+        PomModel toModel(final InputFile inputFile) {
+            return PomModel.of(inputFile, declarations, project);
+        }
+    }
+
+    /**
+     * The project level declarations read so far.
+     */
+    private static final class ProjectFields {
+
+        private boolean project;
+
+        private String groupId;
+
+        private String artifactId;
+
+        private String version;
+
+        private boolean parent;
+
+        private String parentGroupId;
+
+        private String parentArtifactId;
+
+        private String parentVersion;
+
+        private String parentRelativePath;
+
+        private final Map<String, String> properties = new LinkedHashMap<>();
+
+        private final List<String> modules = new ArrayList<>();
+
+        private final List<MavenDeclaration> managedDependencies = new ArrayList<>();
+
+        /**
+         * Check if an element is a project level declaration: a coordinate of
+         * the project or of its parent, a property or a module.
+         */
+        private static boolean isField(final List<String> path) {
+            if (!"project".equals(path.get(0))) {
+                return false;
+            }
+            if (path.size() == 2) {
+                return isCoordinate(path.get(1));
+            }
+            if (path.size() == 3 && "parent".equals(path.get(1))) {
+                return isCoordinate(path.get(2)) || "relativePath".equals(path.get(2));
+            }
+            return path.size() == 3 && "properties".equals(path.get(1)) || isModule(path);
+        }
+
+        /**
+         * Check if an element is a module of the project or of one of its
+         * profiles.
+         */
+        private static boolean isModule(final List<String> path) {
+            final int depth = path.size();
+            return depth >= 3 && "module".equals(path.get(depth - 1)) && "modules".equals(path.get(depth - 2))
+                && (depth == 3 || depth == 5 && "profiles".equals(path.get(1)) && "profile".equals(path.get(2)));
+        }
+
+        private static boolean isCoordinate(final String name) {
+            return "groupId".equals(name) || "artifactId".equals(name) || "version".equals(name);
+        }
+
+        private void set(final List<String> path, final String value) {
+            project = true;
+            final String name = path.get(path.size() - 1);
+            if (isModule(path)) {
+                modules.add(value);
+            } else if (path.size() == 2) {
+                if ("groupId".equals(name) && groupId == null) {
+                    groupId = value;
+                } else if ("artifactId".equals(name) && artifactId == null) {
+                    artifactId = value;
+                } else if ("version".equals(name) && version == null) {
+                    version = value;
+                }
+            } else if ("parent".equals(path.get(1))) {
+                parent = true;
+                if ("groupId".equals(name) && parentGroupId == null) {
+                    parentGroupId = value;
+                } else if ("artifactId".equals(name) && parentArtifactId == null) {
+                    parentArtifactId = value;
+                } else if ("version".equals(name) && parentVersion == null) {
+                    parentVersion = value;
+                } else if ("relativePath".equals(name) && parentRelativePath == null) {
+                    parentRelativePath = value;
+                }
+            } else {
+
+                /* As for Maven, a property declared twice has the later value */
+                properties.put(name, value);
+            }
+        }
+
+        private void manage(final MavenDeclaration dependency) {
+            project = true;
+            managedDependencies.add(dependency);
+        }
+
+        private PomProject close() {
+            if (!project) {
+                return PomProject.NONE;
+            }
+            final PomProject.Parent declaredParent = parent
+                ? new PomProject.Parent(parentGroupId, parentArtifactId, parentVersion, parentRelativePath)
+                : null;
+            return new PomProject(groupId, artifactId, version, declaredParent, properties, modules,
+                managedDependencies);
+        }
+    }
+
+    /**
+     * A declaration whose end has not been read yet.
+     */
+    private static final class OpenDeclaration {
+
+        private final MavenDeclaration.Kind kind;
+
+        /**
+         * The depth of the declaration element.
+         */
+        private final int depth;
+
+        /**
+         * The position held for the declaration in the list.
+         */
+        private final int position;
+
+        private final int lineNumber;
+
+        /**
+         * Whether the declaration is in the dependency management of the
+         * project.
+         */
+        private final boolean managed;
+
+        /**
+         * Whether the declaration is a dependency of the project or of one of
+         * its profiles.
+         */
+        private final boolean projectDependency;
+
+        private String groupId;
+
+        private String artifactId;
+
+        private String version;
+
+        private String scope;
+
+        private OpenDeclaration(final MavenDeclaration.Kind kind, final int depth, final int position,
+                final int lineNumber, final boolean managed, final boolean projectDependency) {
+            this.kind = kind;
+            this.depth = depth;
+            this.position = position;
+            this.lineNumber = lineNumber;
+            this.managed = managed;
+            this.projectDependency = projectDependency;
+        }
+
+        /**
+         * Check if a child element is a coordinate which has not been read
+         * yet. The first child of each name is used.
+         */
+        private boolean wants(final String name) {
+            switch (name) {
+                case "groupId":
+                    return groupId == null;
+                case "artifactId":
+                    return artifactId == null;
+                case "version":
+                    return version == null;
+                case "scope":
+                    return kind == MavenDeclaration.Kind.DEPENDENCY && scope == null;
+                default:
+                    return false;
+            }
+        }
+
+        private void set(final String name, final String value) {
+            switch (name) {
+                case "groupId":
+                    groupId = value;
+                    break;
+                case "artifactId":
+                    artifactId = value;
+                    break;
+                case "version":
+                    version = value;
+                    break;
+                default:
+                    scope = value;
+                    break;
+            }
+        }
+
+        private MavenDeclaration close() {
+            final String group = groupId == null && kind == MavenDeclaration.Kind.PLUGIN
+                ? MavenXmlCoordinates.DEFAULT_PLUGIN_GROUP
+                : groupId;
+            return new MavenDeclaration(kind, MavenCoordinates.declared(group, artifactId, version, scope),
+                lineNumber, projectDependency);
+        }
+    }
+}
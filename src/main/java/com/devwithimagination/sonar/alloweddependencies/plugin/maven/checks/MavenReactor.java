@@ -0,0 +1,490 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.maven.checks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.batch.fs.InputFile;
+
+/**
+ * The graph of the POMs in a project, which the Maven checks read their
+ * effective declarations from.
+ *
+ * The graph links each POM to its parent in the project. A parent is in the
+ * project when the POM at its {@code relativePath} has the coordinates the
+ * child declares for it, which is the same test Maven makes before it looks in
+ * a repository instead. Failing that, the parent is looked for among the
+ * modules of the project: the indexed POMs, and the {@code <modules>} they
+ * list, by {@code groupId:artifactId}.
+ *
+ * What a POM inherits is worked out once, from what its parent inherits, and
+ * kept, so the work for a whole project grows with the number of POMs rather
+ * than with the number of POMs times the depth of the hierarchy. Each POM is
+ * read once, whether it is first met as a file being analysed, as a parent or
+ * as a module. The effective declarations of a POM have:
+ * <ul>
+ * <li>the {@code ${...}} placeholders in their coordinates resolved from the
+ * well-known project properties of the POM ({@code project.groupId},
+ * {@code project.artifactId}, {@code project.version} and those of
+ * {@code project.parent}), then from the properties declared in the POM
+ * itself, then from those of its parents,</li>
+ * <li>the version and scope of a dependency which declares none taken from the
+ * dependency management of the POM or its parents.</li>
+ * </ul>
+ * A placeholder which cannot be resolved is left as written, so it is checked
+ * literally as it was before. So is one which refers back to itself, is nested
+ * more than {@value #MAX_DEPTH} deep, or would make a value longer than
+ * {@value #MAX_LENGTH} characters. Each property is resolved once per POM, so
+ * properties which repeat each other cannot make the work grow exponentially.
+ *
+ * A reactor lasts for one analysis, and is confined to the thread running it.
+ */
+public final class MavenReactor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MavenReactor.class);
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\$\\{([^}]+)}");
+
+    private static final String PLACEHOLDER_START = "${";
+
+    private static final String IMPORT_SCOPE = "import";
+
+    /**
+     * The deepest a placeholder is followed through the properties it names.
+     */
+    private static final int MAX_DEPTH = 32;
+
+    /**
+     * The longest a placeholder may make a value. Longer values are only
+     * built by properties which repeat each other, as a "billion laughs" does.
+     */
+    private static final int MAX_LENGTH = 4096;
+
+    /**
+     * The properties every POM has, which are not inherited from the parent.
+     */
+    private static final List<String> PROJECT_PROPERTIES = Arrays.asList(
+        "project.groupId", "project.artifactId", "project.version",
+        "project.parent.groupId", "project.parent.artifactId", "project.parent.version");
+
+    /**
+     * The indexed files, by normalised absolute path, which are read with the
+     * encoding they are indexed with rather than from disk.
+     */
+    private final Map<Path, InputFile> inputFiles = new HashMap<>();
+
+    /**
+     * Each POM read, by normalised absolute path.
+     */
+    private final Map<Path, Pom> poms = new HashMap<>();
+
+    /**
+     * The POMs of the project by {@code groupId:artifactId}, found from the
+     * indexed POMs and their modules the first time a parent is looked up by
+     * its coordinates.
+     */
+    private Map<String, Pom> modules;
+
+    /**
+     * Add the files which are part of the project, which parents are looked
+     * for among.
+     *
+     * @param files the indexed POMs and extensions descriptors
+     */
+    public void index(final Iterable<InputFile> files) {
+        for (InputFile file : files) {
+            inputFiles.put(normalise(file.path()), file);
+        }
+        modules = null;
+    }
+
+    /**
+     * Read the model of a file, with its effective declarations.
+     *
+     * @param inputFile the POM or extensions descriptor
+     * @return the model.
+     * @throws IOException        if the file cannot be read.
+     * @throws XMLStreamException if the file is not well formed XML.
+     */
+    public PomModel read(final InputFile inputFile) throws IOException, XMLStreamException {
+        final Path path = normalise(inputFile.path());
+        Pom pom = poms.get(path);
+        if (pom == null) {
+            pom = new Pom(path, MavenPomExtractor.read(inputFile));
+            poms.put(path, pom);
+        } else if (pom.extraction == null) {
+
+            /* Read again only to report why it could not be read */
+            return PomModel.read(inputFile);
+        }
+
+        final PomModel model = pom.extraction.toModel(inputFile);
+        if (!model.isPom() || !needsInheritance(model)) {
+            return model;
+        }
+
+        final Map<String, String> properties = resolvedProperties(pom);
+        return model.interpolate(value -> interpolate(value, properties::get))
+            .manage(managedDependencies(pom));
+    }
+
+    /**
+     * Get the properties a POM sees, with their placeholders resolved.
+     */
+    private Map<String, String> resolvedProperties(final Pom pom) {
+        if (pom.resolvedProperties == null) {
+            pom.resolvedProperties = new PropertyResolver(declaredProperties(pom)).resolveAll();
+        }
+        return pom.resolvedProperties;
+    }
+
+    /**
+     * Get the properties a POM sees, before their own placeholders are
+     * resolved.
+     */
+    private Map<String, String> declaredProperties(final Pom pom) {
+        if (pom.declaredProperties == null) {
+            final PomProject project = pom.project();
+            final PomProject.Parent parent = project.getParent();
+            final Pom parentPom = parent(pom);
+
+            /* Inherited first, so the POM's own declarations take precedence */
+            final Map<String, String> properties = parentPom == null
+                ? new HashMap<>()
+                : new HashMap<>(declaredProperties(parentPom));
+            PROJECT_PROPERTIES.forEach(properties::remove);
+            properties.putAll(project.getProperties());
+
+            /* Maven resolves the project's own coordinates before any property of the same name */
+            put(properties, "project.groupId", project.effectiveGroupId());
+            put(properties, "project.artifactId", project.getArtifactId());
+            put(properties, "project.version", project.effectiveVersion());
+            if (parent != null) {
+                put(properties, "project.parent.groupId", parent.getGroupId());
+                put(properties, "project.parent.artifactId", parent.getArtifactId());
+                put(properties, "project.parent.version", parent.getVersion());
+            }
+            pom.declaredProperties = properties;
+        }
+        return pom.declaredProperties;
+    }
+
+    /**
+     * Get the dependency management a POM sees, by {@code groupId:artifactId}.
+     * The entries a POM declares are resolved with its own properties.
+     */
+    private Map<String, MavenCoordinates> managedDependencies(final Pom pom) {
+        if (pom.managedDependencies == null) {
+            final Pom parentPom = parent(pom);
+            final List<MavenDeclaration> declared = pom.project().getManagedDependencies();
+            if (declared.isEmpty()) {
+                pom.managedDependencies = parentPom == null
+                    ? Collections.emptyMap()
+                    : managedDependencies(parentPom);
+            } else {
+                final Map<String, MavenCoordinates> managed = parentPom == null
+                    ? new HashMap<>()
+                    : new HashMap<>(managedDependencies(parentPom));
+                final Map<String, String> properties = resolvedProperties(pom);
+                for (MavenDeclaration dependency : declared) {
+                    final MavenCoordinates coordinates = dependency.getCoordinates()
+                        .interpolate(value -> interpolate(value, properties::get));
+
+                    /* Imported boms are not in the project, so are not followed */
+                    if (!IMPORT_SCOPE.equals(coordinates.scope(null))) {
+                        managed.put(coordinates.managementKey(), coordinates);
+                    }
+                }
+                pom.managedDependencies = managed;
+            }
+        }
+        return pom.managedDependencies;
+    }
+
+    /**
+     * Find the parent of a POM in the project.
+     *
+     * @return the parent, or null if it is not in the project.
+     */
+    private Pom parent(final Pom pom) {
+        if (!pom.parentResolved) {
+            pom.parentResolved = true;
+            final PomProject.Parent parent = pom.project().getParent();
+            if (parent != null) {
+
+                /* Mark the link before following it, so a POM which is its own ancestor stops here */
+                pom.parent = null;
+                final Pom found = findParent(pom.path, parent);
+                if (found != null && isAncestor(pom, found)) {
+                    LOG.debug("'{}' is its own ancestor", pom.path);
+                } else {
+                    pom.parent = found;
+                }
+            }
+        }
+        return pom.parent;
+    }
+
+    private Pom findParent(final Path child, final PomProject.Parent parent) {
+        final String relativePath = parent.getRelativePath();
+        if (!relativePath.isEmpty() && child.getParent() != null) {
+            final Pom candidate = pomAt(child.getParent().resolve(relativePath));
+            if (candidate != null && isDeclaredParent(candidate, parent)) {
+                return candidate;
+            }
+        }
+
+        final Pom module = modules().get(parent.getGroupId() + ":" + parent.getArtifactId());
+        if (module == null) {
+            LOG.debug("The parent {}:{} of '{}' is not in the project", parent.getGroupId(),
+                parent.getArtifactId(), child);
+        }
+        return module;
+    }
+
+    private boolean isAncestor(final Pom pom, final Pom candidate) {
+        for (Pom ancestor = candidate; ancestor != null; ancestor = parent(ancestor)) {
+            if (ancestor == pom) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isDeclaredParent(final Pom candidate, final PomProject.Parent parent) {
+        final PomProject project = candidate.project();
+        return Objects.equals(parent.getGroupId(), project.effectiveGroupId())
+            && Objects.equals(parent.getArtifactId(), project.getArtifactId());
+    }
+
+    /**
+     * Get the POMs of the project by {@code groupId:artifactId}: the indexed
+     * POMs, and the modules they list, followed to any depth.
+     */
+    private Map<String, Pom> modules() {
+        if (modules == null) {
+            modules = new LinkedHashMap<>();
+            final Set<Path> seen = new HashSet<>(inputFiles.keySet());
+            final Deque<Path> pending = new ArrayDeque<>(inputFiles.keySet());
+            while (!pending.isEmpty()) {
+                final Pom pom = pom(pending.pop());
+                if (pom == null) {
+                    continue;
+                }
+                final PomProject project = pom.project();
+                if (project.getArtifactId() != null) {
+                    modules.putIfAbsent(project.effectiveGroupId() + ":" + project.getArtifactId(), pom);
+                }
+                for (String module : project.getModules()) {
+                    final Path modulePath = pomPath(pom.path.resolveSibling(module));
+                    if (seen.add(modulePath)) {
+                        pending.add(modulePath);
+                    }
+                }
+            }
+        }
+        return modules;
+    }
+
+    /**
+     * Get the POM at a path, or in a directory.
+     *
+     * @return the POM, or null if there is no file there.
+     */
+    private Pom pomAt(final Path path) {
+        final Path pomPath = pomPath(path);
+        return Files.isRegularFile(pomPath) || inputFiles.containsKey(pomPath) ? pom(pomPath) : null;
+    }
+
+    /**
+     * Get a POM, reading it the first time it is asked for.
+     *
+     * @return the POM, or null if it cannot be read.
+     */
+    private Pom pom(final Path path) {
+        Pom pom = poms.get(path);
+        if (pom == null) {
+            MavenPomExtractor.Extraction extraction;
+            try {
+                final InputFile inputFile = inputFiles.get(path);
+                extraction = inputFile != null ? MavenPomExtractor.read(inputFile) : MavenPomExtractor.read(path);
+            } catch (IOException | XMLStreamException exception) {
+                LOG.debug("Unable to read POM '{}'", path);
+                extraction = null;
+            }
+            pom = new Pom(path, extraction);
+            poms.put(path, pom);
+        }
+        return pom.extraction == null ? null : pom;
+    }
+
+    /**
+     * Replace each placeholder in a value which names a property, in a single
+     * pass: the replacements are not themselves searched for placeholders.
+     *
+     * @param value  the value
+     * @param lookup the resolved value of a property, or null if it has none
+     * @return the value with its placeholders replaced, leaving any whose
+     *         replacement would make it longer than {@link #MAX_LENGTH} as
+     *         written.
+     */
+    private static String interpolate(final String value, final Function<String, String> lookup) {
+        if (!value.contains(PLACEHOLDER_START)) {
+            return value;
+        }
+        final Matcher matcher = PLACEHOLDER.matcher(value);
+        final StringBuilder interpolated = new StringBuilder();
+        int end = 0;
+        while (matcher.find()) {
+            interpolated.append(value, end, matcher.start());
+            final String replacement = lookup.apply(matcher.group(1));
+            if (replacement == null || interpolated.length() + replacement.length() > MAX_LENGTH) {
+                interpolated.append(matcher.group());
+            } else {
+                interpolated.append(replacement);
+            }
+            end = matcher.end();
+        }
+        return interpolated.append(value, end, value.length()).toString();
+    }
+
+    /**
+     * Check if any declaration of a POM depends on what it inherits: it has a
+     * placeholder, or it is a project dependency without a version or scope.
+     */
+    private static boolean needsInheritance(final PomModel pom) {
+        for (MavenDeclaration dependency : pom.getDependencies()) {
+            if (dependency.getCoordinates().hasPlaceholders()
+                    || dependency.isProjectDependency() && !dependency.getCoordinates().isComplete()) {
+                return true;
+            }
+        }
+        return hasPlaceholders(pom.getPlugins()) || hasPlaceholders(pom.getExtensions());
+    }
+
+    private static boolean hasPlaceholders(final List<MavenDeclaration> declarations) {
+        for (MavenDeclaration declaration : declarations) {
+            if (declaration.getCoordinates().hasPlaceholders()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void put(final Map<String, String> properties, final String name, final String value) {
+        if (value != null) {
+            properties.put(name, value);
+        }
+    }
+
+    private static Path pomPath(final Path path) {
+        final Path normalised = normalise(path);
+        return Files.isDirectory(normalised) ? normalised.resolve("pom.xml") : normalised;
+    }
+
+    private static Path normalise(final Path path) {
+        return path.toAbsolutePath().normalize();
+    }
+
+    /**
+     * Resolves the placeholders in the properties a POM sees. Each property is
+     * resolved once, and its resolved value reused wherever it is named.
+     */
+    private static final class PropertyResolver {
+
+        private final Map<String, String> declared;
+
+        private final Map<String, String> resolved;
+
+        /**
+         * The properties being resolved, which are left as written if they
+         * are met again.
+         */
+        private final Set<String> resolving = new HashSet<>();
+
+        private PropertyResolver(final Map<String, String> declared) {
+            this.declared = declared;
+            this.resolved = new HashMap<>(declared.size());
+        }
+
+        private Map<String, String> resolveAll() {
+            for (String name : declared.keySet()) {
+                resolve(name, 0);
+            }
+            return resolved;
+        }
+
+        /**
+         * Resolve a property.
+         *
+         * @param name  the name of the property
+         * @param depth the number of placeholders followed to reach it
+         * @return the resolved value, or null if the property is not declared,
+         *         is being resolved, or is nested too deep.
+         */
+        private String resolve(final String name, final int depth) {
+            final String known = resolved.get(name);
+            if (known != null) {
+                return known;
+            }
+            final String value = declared.get(name);
+            if (value == null || depth >= MAX_DEPTH || !resolving.add(name)) {
+                return null;
+            }
+            final String interpolated = interpolate(value, nested -> resolve(nested, depth + 1));
+            resolving.remove(name);
+            resolved.put(name, interpolated);
+            return interpolated;
+        }
+    }
+
+    /**
+     * A POM in the graph, with what it inherits once it has been worked out.
+     */
+    private static final class Pom {
+
+        private final Path path;
+
+        /**
+         * Everything read from the file, null if it could not be read.
+         */
+        private final MavenPomExtractor.Extraction extraction;
+
+        private boolean parentResolved;
+
+        private Pom parent;
+
+        private Map<String, String> declaredProperties;
+
+        private Map<String, String> resolvedProperties;
+
+        private Map<String, MavenCoordinates> managedDependencies;
+
+        private Pom(final Path path, final MavenPomExtractor.Extraction extraction) {
+            this.path = path;
+            this.extraction = extraction;
+        }
+
+        private PomProject project() {
+            return extraction.getProject();
+        }
+    }
+}
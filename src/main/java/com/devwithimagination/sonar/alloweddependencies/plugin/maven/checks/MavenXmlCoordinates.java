@@ -1,10 +1,9 @@
 package com.devwithimagination.sonar.alloweddependencies.plugin.maven.checks;
 
-import org.sonarsource.analyzer.commons.xml.XmlFile;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.Version;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.VersionRange;
 
-/** Maven XML coordinate extraction and normalization helpers. */
+/** Maven XML coordinate normalization helpers. */
 final class MavenXmlCoordinates {
 
     static final String DEFAULT_PLUGIN_GROUP = "org.apache.maven.plugins";
@@ -12,30 +11,26 @@ final class MavenXmlCoordinates {
     private MavenXmlCoordinates() {
     }
 
-    static String pluginCoordinate(final Node declaration) {
-        return coordinate(declaration, DEFAULT_PLUGIN_GROUP);
-    }
-
-    static String extensionCoordinate(final Node declaration) {
-        return coordinate(declaration, null);
+    /**
+     * Get the versions a declared version admits: a single version, or a range
+     * in Maven notation.
+     *
+     * @return the versions, or null if no version is declared or it refers to
+     *         a property.
+     */
+    static VersionRange declaredVersions(final String version) {
+        if (version == null || version.isEmpty() || version.contains("${")) {
+            return null;
+        }
+        try {
+            return version.startsWith("[") || version.startsWith("(") ? VersionRange.parse(version)
+                : VersionRange.exactly(Version.parse(version));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
     }
 
     static String normalizePluginAllowListRow(final String row) {
         return row.indexOf(':') < 0 ? DEFAULT_PLUGIN_GROUP + ":" + row : row;
     }
-
-    private static String coordinate(final Node declaration, final String defaultGroup) {
-        final String groupId = childText(declaration, "groupId", defaultGroup);
-        final String artifactId = childText(declaration, "artifactId", null);
-        return groupId + ":" + artifactId;
-    }
-
-    private static String childText(final Node parent, final String name, final String defaultValue) {
-        for (Node child : XmlFile.children(parent)) {
-            if (child.getNodeType() == Node.ELEMENT_NODE && ((Element) child).getTagName().equals(name)) {
-                return child.getTextContent().trim();
-            }
-        }
-        return defaultValue;
-    }
 }
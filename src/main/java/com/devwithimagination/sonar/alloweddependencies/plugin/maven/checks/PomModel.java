@@ -0,0 +1,214 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.maven.checks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.sonar.api.batch.fs.InputFile;
+
+/**
+ * The declarations of a Maven POM or core extensions descriptor, read once per
+ * file and shared by every Maven check.
+ *
+ * The declarations are split by kind when the model is built, so each check
+ * only visits the declarations it governs, and the cost of reading a file is
+ * paid once however many rules are active. The model cannot be changed once
+ * built. The coordinates it holds keep the forms matchers evaluate them in the
+ * first time they are asked for, so like them the model is confined to the
+ * thread analysing the file.
+ */
+public final class PomModel {
+
+    private final InputFile inputFile;
+
+    private final boolean pom;
+
+    private final boolean extensionsDescriptor;
+
+    private final List<MavenDeclaration> dependencies;
+
+    private final List<MavenDeclaration> plugins;
+
+    private final List<MavenDeclaration> extensions;
+
+    private final PomProject project;
+
+    private PomModel(final InputFile inputFile, final List<MavenDeclaration> dependencies,
+            final List<MavenDeclaration> plugins, final List<MavenDeclaration> extensions,
+            final PomProject project) {
+        this.inputFile = inputFile;
+        final String filename = inputFile.filename().toLowerCase(Locale.ROOT);
+        this.pom = "pom.xml".equals(filename) || ".flattened-pom.xml".equals(filename);
+        this.extensionsDescriptor = "extensions.xml".equals(filename);
+        this.dependencies = dependencies;
+        this.plugins = plugins;
+        this.extensions = extensions;
+        this.project = project;
+    }
+
+    /**
+     * Read the model of a file.
+     *
+     * @param inputFile the POM or extensions descriptor
+     * @return the model.
+     * @throws IOException        if the file cannot be read.
+     * @throws XMLStreamException if the file is not well formed XML.
+     */
+    public static PomModel read(final InputFile inputFile) throws IOException, XMLStreamException {
+        return MavenPomExtractor.readModel(inputFile);
+    }
+
+    /**
+     * Create the model of a file from the declarations read from it.
+     *
+     * @param inputFile    the file
+     * @param declarations the declarations, in document order
+     * @return the model.
+     */
+    public static PomModel of(final InputFile inputFile, final List<MavenDeclaration> declarations) {
+        return of(inputFile, declarations, PomProject.NONE);
+    }
+
+    /**
+     * Create the model of a file from the declarations read from it.
+     *
+     * @param inputFile    the file
+     * @param declarations the declarations, in document order
+     * @param project      the project level declarations of the file
+     * @return the model.
+     */
+    static PomModel of(final InputFile inputFile, final List<MavenDeclaration> declarations,
+            final PomProject project) {
+        final List<MavenDeclaration> dependencies = new ArrayList<>();
+        final List<MavenDeclaration> plugins = new ArrayList<>();
+        final List<MavenDeclaration> extensions = new ArrayList<>();
+        for (MavenDeclaration declaration : declarations) {
+            switch (declaration.getKind()) {
+                case DEPENDENCY:
+                    dependencies.add(declaration);
+                    break;
+                case PLUGIN:
+                    plugins.add(declaration);
+                    break;
+                default:
+                    extensions.add(declaration);
+                    break;
+            }
+        }
+        return new PomModel(inputFile, freeze(dependencies), freeze(plugins), freeze(extensions), project);
+    }
+
+    /**
+     * Create a model with the placeholders in the coordinates of each
+     * declaration resolved.
+     *
+     * @param resolver resolves the placeholders in a coordinate
+     * @return the model with resolved declarations.
+     */
+    PomModel interpolate(final UnaryOperator<String> resolver) {
+        return new PomModel(inputFile, interpolate(dependencies, resolver), interpolate(plugins, resolver),
+            interpolate(extensions, resolver), project);
+    }
+
+    public InputFile getInputFile() {
+        return inputFile;
+    }
+
+    /**
+     * Create a model with the version and scope of each project dependency
+     * taken from its dependency management entry, where the dependency does
+     * not declare them itself. Plugin dependencies are not managed, as in
+     * Maven.
+     *
+     * @param managed the management entries, by {@code groupId:artifactId}
+     * @return the model with managed dependencies.
+     */
+    PomModel manage(final Map<String, MavenCoordinates> managed) {
+        if (managed.isEmpty()) {
+            return this;
+        }
+        final List<MavenDeclaration> managedDependencies = new ArrayList<>(dependencies.size());
+        for (MavenDeclaration dependency : dependencies) {
+            managedDependencies.add(dependency.isProjectDependency() ? dependency.managedBy(managed) : dependency);
+        }
+        return new PomModel(inputFile, freeze(managedDependencies), plugins, extensions, project);
+    }
+
+    /**
+     * Get the project level declarations of the file, as written.
+     *
+     * @return the project declarations, which are empty for a file which is not
+     *         a POM.
+     */
+    public PomProject getProject() {
+        return project;
+    }
+
+    /**
+     * Check if the file is a POM, either a {@code pom.xml} or the
+     * {@code .flattened-pom.xml} written by the flatten plugin.
+     *
+     * @return true if the file is a POM.
+     */
+    public boolean isPom() {
+        return pom;
+    }
+
+    /**
+     * Check if the file is a core extensions descriptor.
+     *
+     * @return true if the file is an {@code extensions.xml}.
+     */
+    public boolean isExtensionsDescriptor() {
+        return extensionsDescriptor;
+    }
+
+    /**
+     * Get the declared dependencies, in document order.
+     *
+     * @return the dependencies.
+     */
+    public List<MavenDeclaration> getDependencies() {
+        return dependencies;
+    }
+
+    /**
+     * Get the declared plugins, in document order.
+     *
+     * @return the plugins.
+     */
+    public List<MavenDeclaration> getPlugins() {
+        return plugins;
+    }
+
+    /**
+     * Get the declared extensions, in document order.
+     *
+     * @return the extensions.
+     */
+    public List<MavenDeclaration> getExtensions() {
+        return extensions;
+    }
+
+    private static List<MavenDeclaration> interpolate(final List<MavenDeclaration> declarations,
+            final UnaryOperator<String> resolver) {
+        final List<MavenDeclaration> interpolated = new ArrayList<>(declarations.size());
+        for (MavenDeclaration declaration : declarations) {
+            interpolated.add(declaration.interpolate(resolver));
+        }
+        return freeze(interpolated);
+    }
+
+    private static List<MavenDeclaration> freeze(final List<MavenDeclaration> declarations) {
+        if (declarations.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(declarations);
+    }
+}
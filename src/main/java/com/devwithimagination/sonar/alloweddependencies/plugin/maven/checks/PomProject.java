@@ -0,0 +1,171 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.maven.checks;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The project level declarations of a Maven POM: its own coordinates, its
+ * parent, properties, modules and managed dependencies, as written in the
+ * file, before anything is inherited or interpolated.
+ */
+public final class PomProject {
+
+    /**
+     * A project without any project level declarations, such as a core
+     * extensions descriptor.
+     */
+    static final PomProject NONE = new PomProject(null, null, null, null, Collections.emptyMap(),
+        Collections.emptyList(), Collections.emptyList());
+
+    /**
+     * The groupId, null if it is inherited from the parent.
+     */
+    private final String groupId;
+
+    private final String artifactId;
+
+    /**
+     * The version, null if it is inherited from the parent.
+     */
+    private final String version;
+
+    private final Parent parent;
+
+    private final Map<String, String> properties;
+
+    private final List<String> modules;
+
+    private final List<MavenDeclaration> managedDependencies;
+
+    PomProject(final String groupId, final String artifactId, final String version, final Parent parent,
+            final Map<String, String> properties, final List<String> modules,
+            final List<MavenDeclaration> managedDependencies) {
+        this.groupId = groupId;
+        this.artifactId = artifactId;
+        this.version = version;
+        this.parent = parent;
+        this.properties = properties.isEmpty()
+            ? Collections.emptyMap()
+            : Collections.unmodifiableMap(properties);
+        this.modules = modules.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(modules);
+        this.managedDependencies = managedDependencies.isEmpty()
+            ? Collections.emptyList()
+            : Collections.unmodifiableList(managedDependencies);
+    }
+
+    public String getGroupId() {
+        return groupId;
+    }
+
+    public String getArtifactId() {
+        return artifactId;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * Get the parent the POM declares.
+     *
+     * @return the parent, or null if there is none.
+     */
+    public Parent getParent() {
+        return parent;
+    }
+
+    /**
+     * Get the properties declared in the POM itself, in document order.
+     *
+     * @return the properties.
+     */
+    public Map<String, String> getProperties() {
+        return properties;
+    }
+
+    /**
+     * Get the modules of the project and its profiles, as paths relative to
+     * the directory of the POM.
+     *
+     * @return the modules.
+     */
+    public List<String> getModules() {
+        return modules;
+    }
+
+    /**
+     * Get the dependencies in the dependency management of the project.
+     *
+     * @return the managed dependencies, in document order.
+     */
+    public List<MavenDeclaration> getManagedDependencies() {
+        return managedDependencies;
+    }
+
+    /**
+     * Get the groupId the project has, declared or inherited from its parent.
+     *
+     * @return the groupId, or null if there is none.
+     */
+    String effectiveGroupId() {
+        return groupId != null || parent == null ? groupId : parent.getGroupId();
+    }
+
+    /**
+     * Get the version the project has, declared or inherited from its parent.
+     *
+     * @return the version, or null if there is none.
+     */
+    String effectiveVersion() {
+        return version != null || parent == null ? version : parent.getVersion();
+    }
+
+    /**
+     * The {@code parent} element of a POM.
+     */
+    public static final class Parent {
+
+        /**
+         * The path Maven looks for the parent at when none is declared.
+         */
+        static final String DEFAULT_RELATIVE_PATH = "../pom.xml";
+
+        private final String groupId;
+
+        private final String artifactId;
+
+        private final String version;
+
+        private final String relativePath;
+
+        Parent(final String groupId, final String artifactId, final String version, final String relativePath) {
+            this.groupId = groupId;
+            this.artifactId = artifactId;
+            this.version = version;
+            this.relativePath = relativePath;
+        }
+
+        public String getGroupId() {
+            return groupId;
+        }
+
+        public String getArtifactId() {
+            return artifactId;
+        }
+
+        public String getVersion() {
+            return version;
+        }
+
+        /**
+         * Get the path of the parent relative to the directory of the child.
+         *
+         * @return the path, {@code ../pom.xml} if none is declared, or empty
+         *         if the parent is not looked up in the project.
+         */
+        public String getRelativePath() {
+            return relativePath == null ? DEFAULT_RELATIVE_PATH : relativePath;
+        }
+    }
+}
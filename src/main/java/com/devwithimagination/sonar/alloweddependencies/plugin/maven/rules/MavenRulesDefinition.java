@@ -1,5 +1,7 @@
 package com.devwithimagination.sonar.alloweddependencies.plugin.maven.rules;
 
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.Constants;
+
 import org.sonar.api.rule.RuleKey;
 import org.sonar.api.rule.RuleStatus;
 import org.sonar.api.rule.Severity;
@@ -14,7 +16,11 @@ public class MavenRulesDefinition implements RulesDefinition {
 
     private static final String ALLOW_LIST_PARAM_DESCRIPTION =
         "Newline separated list of <groupId>:<artifactId> dependency names. Exact matches are case-insensitive. " +
-        "Prefix a row with regex: to allow dependencies matching a regular expression. " +
+        "Use <groupId>:* to allow every artifact in a group. " +
+        "Prefix a row with glob: to use * and a trailing ** as wildcards, " +
+        "or with regex: to allow dependencies matching a regular expression. " +
+        "Prefix a row with match: for a regular expression which must match the whole name. " +
+        "Use index:<path> to load exact rows from a precompiled allow-list index file. " +
         "Blank lines and rows starting with # are ignored.";
 
     /**
@@ -59,6 +65,11 @@ public class MavenRulesDefinition implements RulesDefinition {
      */
     public static final String DEPS_PARAM_KEY = "mavenDependencies";
 
+    /**
+     * The setting key for the maven denied dependency list.
+     */
+    public static final String DENIED_DEPS_PARAM_KEY = "mavenDeniedDependencies";
+
     /**
      * The setting parameter for the maven rule scope.
      */
@@ -142,9 +153,13 @@ public class MavenRulesDefinition implements RulesDefinition {
         createdRule.createParam(definition.parameter.key)
             .setName(definition.parameter.name)
             .setDescription(definition.parameter.description
-                + " Exact matches are case-insensitive. Prefix a row with regex: "
-                + "to use a regular expression. Blank lines and rows starting with # are ignored.")
+                + " Exact matches are case-insensitive. Use <groupId>:* to allow every artifact in a group. "
+                + "Prefix a row with glob: to use * and a trailing ** as wildcards, or with regex: "
+                + "to use a regular expression, or with match: for a regular expression which must match the whole "
+                + "coordinate. Use index:<path> to load exact rows from a precompiled allow-list "
+                + "index file. Blank lines and rows starting with # are ignored.")
             .setType(RuleParamType.TEXT);
+        createRegexFullMatchParam(createdRule);
         return createdRule;
     }
 
@@ -225,9 +240,20 @@ public class MavenRulesDefinition implements RulesDefinition {
         /* Configure the parameters we want to configure in our rule template */
         createdRule.createParam(DEPS_PARAM_KEY).setName("Allowed Maven Dependencies")
                 .setDescription(ALLOW_LIST_PARAM_DESCRIPTION).setType(RuleParamType.TEXT);
+        createdRule.createParam(DENIED_DEPS_PARAM_KEY).setName(Constants.DENY_LIST_PARAM_NAME)
+                .setDescription(Constants.DENY_LIST_PARAM_DESCRIPTION).setType(RuleParamType.TEXT);
+        createRegexFullMatchParam(createdRule);
 
         return createdRule;
 
     }
 
+    private static void createRegexFullMatchParam(final NewRule rule) {
+        rule.createParam(Constants.REGEX_FULL_MATCH_PARAM_KEY)
+            .setName(Constants.REGEX_FULL_MATCH_PARAM_NAME)
+            .setDescription(Constants.REGEX_FULL_MATCH_PARAM_DESCRIPTION)
+            .setType(RuleParamType.BOOLEAN)
+            .setDefaultValue("false");
+    }
+
 }
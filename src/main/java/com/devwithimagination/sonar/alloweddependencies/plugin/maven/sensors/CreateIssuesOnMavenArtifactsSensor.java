@@ -8,13 +8,24 @@ import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import javax.xml.stream.XMLStreamException;
+
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.AllowListOverlays;
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.AllowListRegistry;
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.AllowListSnapshots;
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.ScannerProperties;
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.UnusedRowReport;
 import com.devwithimagination.sonar.alloweddependencies.plugin.maven.checks.AllowedMavenDependenciesCheck;
 import com.devwithimagination.sonar.alloweddependencies.plugin.maven.checks.AllowedMavenDependenciesCheckConfig;
 import com.devwithimagination.sonar.alloweddependencies.plugin.maven.checks.AllowedMavenExtensionsCheck;
 import com.devwithimagination.sonar.alloweddependencies.plugin.maven.checks.AllowedMavenExtensionsCheckConfig;
 import com.devwithimagination.sonar.alloweddependencies.plugin.maven.checks.AllowedMavenPluginsCheck;
 import com.devwithimagination.sonar.alloweddependencies.plugin.maven.checks.AllowedMavenPluginsCheckConfig;
+import com.devwithimagination.sonar.alloweddependencies.plugin.maven.checks.MavenDependencyRoutes;
+import com.devwithimagination.sonar.alloweddependencies.plugin.maven.checks.MavenReactor;
+import com.devwithimagination.sonar.alloweddependencies.plugin.maven.checks.PomModel;
 import com.devwithimagination.sonar.alloweddependencies.plugin.maven.rules.MavenRulesDefinition;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.VerdictCache;
 
 import org.sonar.api.batch.fs.FileSystem;
 import org.sonar.api.batch.fs.InputFile;
@@ -25,8 +36,6 @@ import org.sonar.api.batch.sensor.SensorDescriptor;
 import org.sonar.api.config.Configuration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.sonarsource.analyzer.commons.xml.ParseException;
-import org.sonarsource.analyzer.commons.xml.XmlFile;
 
 /** Creates issues for governed Maven coordinates declared in indexed XML files. */
 public class CreateIssuesOnMavenArtifactsSensor implements Sensor {
@@ -41,8 +50,11 @@ public class CreateIssuesOnMavenArtifactsSensor implements Sensor {
 
     protected final Configuration config;
 
-    public CreateIssuesOnMavenArtifactsSensor(final Configuration config) {
+    private final AllowListRegistry registry;
+
+    public CreateIssuesOnMavenArtifactsSensor(final Configuration config, final AllowListRegistry registry) {
         this.config = config;
+        this.registry = registry;
     }
 
     @Override
@@ -57,19 +69,23 @@ public class CreateIssuesOnMavenArtifactsSensor implements Sensor {
         final Collection<ActiveRule> rules = context.activeRules()
             .findByRepository(MavenRulesDefinition.REPOSITORY_MAVEN);
 
+        final int verdictCacheSize = ScannerProperties.verdictCacheSize(config);
+        final AllowListRegistry analysisRegistry = registry.forAnalysis(AllowListSnapshots.of(context, config),
+            () -> context.fileSystem().baseDir().toPath());
+        final AllowListOverlays overlays = AllowListOverlays.of(context, config, "maven");
         final List<AllowedMavenDependenciesCheck> dependencyChecks = rules.stream()
             .filter(CreateIssuesOnMavenArtifactsSensor::isDependencyRule)
-            .map(AllowedMavenDependenciesCheckConfig::new)
+            .map(rule -> new AllowedMavenDependenciesCheckConfig(rule, analysisRegistry, verdictCacheSize, overlays))
             .map(AllowedMavenDependenciesCheck::new)
             .collect(Collectors.toList());
         final List<AllowedMavenPluginsCheck> pluginChecks = rules.stream()
             .filter(rule -> MavenRulesDefinition.RULE_MAVEN_ALLOWED_PLUGINS.equals(rule.ruleKey()))
-            .map(AllowedMavenPluginsCheckConfig::new)
+            .map(rule -> new AllowedMavenPluginsCheckConfig(rule, analysisRegistry))
             .map(AllowedMavenPluginsCheck::new)
             .collect(Collectors.toList());
         final List<AllowedMavenExtensionsCheck> extensionChecks = rules.stream()
             .filter(rule -> MavenRulesDefinition.RULE_MAVEN_ALLOWED_EXTENSIONS.equals(rule.ruleKey()))
-            .map(AllowedMavenExtensionsCheckConfig::new)
+            .map(rule -> new AllowedMavenExtensionsCheckConfig(rule, analysisRegistry))
             .map(AllowedMavenExtensionsCheck::new)
             .collect(Collectors.toList());
 
@@ -84,25 +100,40 @@ public class CreateIssuesOnMavenArtifactsSensor implements Sensor {
             return;
         }
 
+        /* Each dependency is tested only against the rules for its scope */
+        final MavenDependencyRoutes dependencyRoutes = MavenDependencyRoutes.of(dependencyChecks);
+
         final FileSystem fileSystem = context.fileSystem();
         final Set<InputFile> inputFiles = new LinkedHashSet<>();
         MAVEN_FILE_PATTERNS.forEach(pattern ->
             fileSystem.inputFiles(fileSystem.predicates().matchesPathPattern(pattern))
                 .forEach(inputFiles::add));
 
+        /* What each POM inherits is worked out once, and shared by every POM below it */
+        final MavenReactor reactor = new MavenReactor();
+        reactor.index(inputFiles);
         for (InputFile inputFile : inputFiles) {
-            final XmlFile xmlFile = parse(inputFile);
-            if (xmlFile == null) {
+            /* Read once, and shared by every check */
+            final PomModel pom = parse(reactor, inputFile);
+            if (pom == null) {
                 continue;
             }
 
-            dependencyChecks.forEach(check -> check.scanFile(
-                context, check.getConfig().getRule().ruleKey(), xmlFile));
-            pluginChecks.forEach(check -> check.scanFile(
-                context, check.getConfig().getRule().ruleKey(), xmlFile));
-            extensionChecks.forEach(check -> check.scanFile(
-                context, check.getConfig().getRule().ruleKey(), xmlFile));
+            dependencyRoutes.scanFile(context, pom);
+            pluginChecks.forEach(check -> check.scanFile(context, check.getConfig().getRule().ruleKey(), pom));
+            extensionChecks.forEach(check -> check.scanFile(context, check.getConfig().getRule().ruleKey(), pom));
         }
+
+        dependencyChecks.forEach(check -> check.getConfig().getVerdictCaches().forEach(VerdictCache::logStatistics));
+
+        final UnusedRowReport report = new UnusedRowReport("maven");
+        dependencyChecks.forEach(check -> report.add(check.getConfig().getRule().ruleKey(),
+            check.getConfig().getRowUsage()));
+        pluginChecks.forEach(check -> report.add(check.getConfig().getRule().ruleKey(),
+            check.getConfig().getAllowedPluginsMatcher()));
+        extensionChecks.forEach(check -> report.add(check.getConfig().getRule().ruleKey(),
+            check.getConfig().getAllowedExtensionsMatcher()));
+        report.write(context);
     }
 
     private static boolean isSupportedRule(final ActiveRule rule) {
@@ -117,11 +148,11 @@ public class CreateIssuesOnMavenArtifactsSensor implements Sensor {
             || MavenRulesDefinition.RULE_MAVEN_ALLOWED.rule().equals(rule.templateRuleKey());
     }
 
-    private static XmlFile parse(final InputFile inputFile) {
+    private static PomModel parse(final MavenReactor reactor, final InputFile inputFile) {
         LOG.info("Maven input file {}", inputFile);
         try {
-            return XmlFile.create(inputFile);
-        } catch (IOException | ParseException exception) {
+            return reactor.read(inputFile);
+        } catch (IOException | XMLStreamException exception) {
             LOG.debug("Skipped '{}' due to parsing error", inputFile);
             return null;
         } catch (Exception exception) {
@@ -5,16 +5,32 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
-import java.util.function.Predicate;
+import java.util.function.BiFunction;
+import java.util.function.UnaryOperator;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.AllowListOverlays;
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.AllowListRegistry;
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.Constants;
 import com.devwithimagination.sonar.alloweddependencies.plugin.common.DependencyIssueReporter;
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.DependencyOccurrence;
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.OverlaidAllowLists;
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.ScannerProperties;
 import com.devwithimagination.sonar.alloweddependencies.plugin.npm.rules.NpmRulesDefinition;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.AllowList;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.Decision;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.DependencyKey;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.KeyFolder;
 import com.devwithimagination.sonar.alloweddependencies.plugin.util.PredicateFactory;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.RowUsage;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.VerdictCache;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.VersionRange;
 
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.rule.ActiveRule;
@@ -35,11 +51,38 @@ public class AllowedNpmDependenciesCheck {
      */
     private static final Logger LOG = LoggerFactory.getLogger(AllowedNpmDependenciesCheck.class);
 
+    /**
+     * Identifies NPM allow-lists in the {@link AllowListRegistry}.
+     */
+    private static final String ALLOW_LIST_COMPILER = "npm";
+
+    /**
+     * Pattern for the version of a dependency entry, on the line as written.
+     */
+    private static final Pattern VERSION_PATTERN = Pattern.compile("^\\s*\"[^\"]+\"\\s*:\\s*\"([^\"]*)\"");
+
     /**
      * Predicate for matching against the names for dependencies which are
      * allowed.
      */
-    private final Predicate<String> allowedDependenciesPredicate;
+    private final VerdictCache allowedDependenciesPredicate;
+
+    /**
+     * The compiled allow-list behind the verdict cache.
+     */
+    private final AllowList allowList;
+
+    /**
+     * The allow-list extended by the overlays over each file.
+     */
+    private final OverlaidAllowLists<AllowList> allowLists;
+
+    /**
+     * The verdict caches in front of each list an overlay extended.
+     */
+    private final Map<AllowList, VerdictCache> overlaidVerdictCaches = new IdentityHashMap<>();
+
+    private final int verdictCacheSize;
 
     /**
      * Enum holding the type of dependencies we are checking.
@@ -57,6 +100,34 @@ public class AllowedNpmDependenciesCheck {
      * @param activeRuleDefinition the rule containing the parameter configuration.
      */
     public AllowedNpmDependenciesCheck(final ActiveRule activeRuleDefinition) {
+        this(activeRuleDefinition, AllowListRegistry.withDefaults(), ScannerProperties.DEFAULT_VERDICT_CACHE_SIZE);
+    }
+
+    /**
+     * Create a new {@link AllowedNpmDependenciesCheck} based on an active rule.
+     *
+     * @param activeRuleDefinition the rule containing the parameter configuration.
+     * @param registry             the registry supplying the compiled allow-list
+     * @param verdictCacheSize     the maximum number of verdicts to cache for the
+     *                             rule, zero to disable caching.
+     */
+    public AllowedNpmDependenciesCheck(final ActiveRule activeRuleDefinition, final AllowListRegistry registry,
+            final int verdictCacheSize) {
+        this(activeRuleDefinition, registry, verdictCacheSize, AllowListOverlays.none());
+    }
+
+    /**
+     * Create a new {@link AllowedNpmDependenciesCheck} based on an active rule.
+     *
+     * @param activeRuleDefinition the rule containing the parameter configuration.
+     * @param registry             the registry supplying the compiled allow-list
+     * @param verdictCacheSize     the maximum number of verdicts to cache for the
+     *                             rule, zero to disable caching.
+     * @param overlays             the overlays extending the allow-list for the
+     *                             files below them
+     */
+    public AllowedNpmDependenciesCheck(final ActiveRule activeRuleDefinition, final AllowListRegistry registry,
+            final int verdictCacheSize, final AllowListOverlays overlays) {
 
         LOG.info("Creating AllowedNpmDependenciesCheck for {}", activeRuleDefinition.ruleKey());
         this.ruleKey = activeRuleDefinition.ruleKey();
@@ -70,8 +141,82 @@ public class AllowedNpmDependenciesCheck {
 
         /* Configure the allowed dependency names */
         final String deps = activeRuleDefinition.param(NpmRulesDefinition.DEPS_PARAM_KEY);
-        final PredicateFactory predicateFactory = new PredicateFactory();
-        this.allowedDependenciesPredicate = predicateFactory.createPredicateForDependencyListString(deps);
+        final boolean regexFullMatch = Boolean.parseBoolean(
+            activeRuleDefinition.param(Constants.REGEX_FULL_MATCH_PARAM_KEY));
+        final String deniedDeps = activeRuleDefinition.param(NpmRulesDefinition.DENIED_DEPS_PARAM_KEY);
+        final String compiler = AllowListRegistry.compiler(ALLOW_LIST_COMPILER, regexFullMatch);
+        final BiFunction<String, String, AllowList> compile = (list, deniedList) -> new PredicateFactory(
+                PredicateFactory.options().regexStepBudget(registry.regexStepBudget()).regexFullMatch(regexFullMatch)
+                    .matcherEngine(registry.matcherEngine()).indexBaseDir(registry.baseDir()))
+            .createAllowList(list, deniedList, UnaryOperator.identity(), KeyFolder.CASE_INSENSITIVE);
+        this.allowList = registry.get(AllowList.class, compiler, deps, deniedDeps, compile,
+            AllowList.snapshotCodec());
+        this.allowLists = new OverlaidAllowLists<>(allowList, overlays, overlayRows -> registry.get(
+            AllowList.class, compiler, AllowListOverlays.merge(deps, overlayRows), deniedDeps, compile,
+            AllowList.snapshotCodec()));
+        this.allowedDependenciesPredicate = new VerdictCache(ruleKey.toString(), allowList, verdictCacheSize);
+        this.verdictCacheSize = verdictCacheSize;
+    }
+
+    /**
+     * Get the key for the rule this check was created for.
+     *
+     * @return the rule key.
+     */
+    public RuleKey getRuleKey() {
+        return ruleKey;
+    }
+
+    /**
+     * Get the compiled allow-list, which records the rows that matched.
+     *
+     * @return the allow-list.
+     */
+    public AllowList getAllowList() {
+        return allowList;
+    }
+
+    /**
+     * Get the usage of the rule's rows, across the allow-list and every list
+     * an overlay extended.
+     *
+     * @return the row usage.
+     */
+    public RowUsage getRowUsage() {
+        return allowLists.rowUsage();
+    }
+
+    /**
+     * Get the verdict cache in front of the allowed dependencies.
+     *
+     * @return the cache.
+     */
+    public VerdictCache getVerdictCache() {
+        return allowedDependenciesPredicate;
+    }
+
+    /**
+     * Get the verdict caches in front of the allowed dependencies and in
+     * front of each list an overlay extended.
+     *
+     * @return the caches, {@link #getVerdictCache()} first.
+     */
+    public List<VerdictCache> getVerdictCaches() {
+        final List<VerdictCache> caches = new ArrayList<>();
+        caches.add(allowedDependenciesPredicate);
+        caches.addAll(overlaidVerdictCaches.values());
+        return caches;
+    }
+
+    /**
+     * Get the verdict cache in front of a list the rule evaluates.
+     */
+    private VerdictCache verdictCacheFor(final AllowList list) {
+        if (list == allowList) {
+            return allowedDependenciesPredicate;
+        }
+        return overlaidVerdictCaches.computeIfAbsent(list, overlaid -> new VerdictCache(
+            ruleKey + " overlay " + (overlaidVerdictCaches.size() + 1), overlaid, verdictCacheSize));
     }
 
     /**
@@ -81,6 +226,18 @@ public class AllowedNpmDependenciesCheck {
      */
     List<String> readFileLines(final InputFile packageJsonFile) {
 
+        return readRawFileLines(packageJsonFile).stream()
+            .map(line -> line.replaceAll("\\s", ""))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Create a list of strings for the lines in the file, as they were written.
+     * @param packageJsonFile the file to parse
+     * @return list of strings
+     */
+    private static List<String> readRawFileLines(final InputFile packageJsonFile) {
+
         List<String> lines = new ArrayList<>();
         try (InputStream in = packageJsonFile.inputStream();
                 InputStreamReader ir = new InputStreamReader(in);
@@ -88,7 +245,7 @@ public class AllowedNpmDependenciesCheck {
 
             String line;
             while ((line=r.readLine()) != null) {
-                lines.add(line.replaceAll("\\s", ""));
+                lines.add(line);
             }
         } catch (IOException e) {
             LOG.error("Error reading package.json for lines", e);
@@ -107,11 +264,30 @@ public class AllowedNpmDependenciesCheck {
      */
     Map<String, Integer> parseDependencies(final InputFile packageJsonFile) {
 
-        final String jsonObjectName = this.dependencyType.getJsonObjectName();
         final Map<String, Integer> dependencies = new TreeMap<>();
+        parseOccurrences(packageJsonFile).forEach((name, dependency) -> dependencies.put(name,
+            dependency.getLineNumber()));
+        return dependencies;
+    }
+
+    /**
+     * Parse out the dependencies held in the given input file, with the version
+     * range each declares.
+     *
+     * @param packageJsonFile the input file
+     * @return map of the dependency names to their occurrence. This will always
+     *         return a non-null value.
+     */
+    Map<String, DependencyOccurrence> parseOccurrences(final InputFile packageJsonFile) {
+
+        final String jsonObjectName = this.dependencyType.getJsonObjectName();
+        final Map<String, DependencyOccurrence> dependencies = new TreeMap<>();
 
         /* Read in the file first as a list of strings so we can do line number detection later on */
-        final List<String> lines = readFileLines(packageJsonFile);
+        final List<String> rawLines = readRawFileLines(packageJsonFile);
+        final List<String> lines = rawLines.stream()
+            .map(line -> line.replaceAll("\\s", ""))
+            .collect(Collectors.toList());
 
         /* Find the expected start range for the area we are looking for */
         int startLine = lines.indexOf("\"" + jsonObjectName + "\":{");
@@ -132,7 +308,10 @@ public class AllowedNpmDependenciesCheck {
                     Matcher m = pattern.matcher(lines.get(index));
 
                     if (m.find()) {
-                        dependencies.put(m.group(1), index + 1);
+                        /* The version is read from the line as written, as whitespace separates comparators */
+                        final Matcher version = VERSION_PATTERN.matcher(rawLines.get(index));
+                        dependencies.put(m.group(1), new DependencyOccurrence(m.group(1), packageJsonFile,
+                            index + 1, version.find() ? version.group(1) : null));
                     }
                 }
             }
@@ -149,17 +328,26 @@ public class AllowedNpmDependenciesCheck {
     public void scanFile(final InputFile inputFile, final SensorContext sensorContext) {
 
         /* Need to read the file and extract the dependencies */
-        final Map<String, Integer> dependencies = parseDependencies(inputFile);
+        final Map<String, DependencyOccurrence> dependencies = parseOccurrences(inputFile);
 
         /*
-         * Iterate through the dependencies and create issues for any not on the allow
-         * list
+         * Iterate through the dependencies and create issues for any which are denied
+         * or not on the allow list, either by name or for the versions they declare
          */
-        dependencies.entrySet().forEach(dep -> {
-            if (!allowedDependenciesPredicate.test(dep.getKey())) {
-                LOG.info("Dependency {} is not on the allowed list", dep.getKey());
+        final VerdictCache verdicts = verdictCacheFor(allowLists.forFile(inputFile));
+        dependencies.values().forEach(dep -> {
+            final DependencyKey key = dep.getKey();
+            final VersionRange declared = dep.getDeclaredVersions(NpmVersionRanges::toRange);
+            final Decision decision = verdicts.decide(key, declared);
+
+            if (decision == Decision.DENIED) {
+                LOG.info("Dependency {} is on the denied list", dep.getName());
+                DependencyIssueReporter.reportIssue(sensorContext, ruleKey, inputFile, dep.getLineNumber(),
+                    dep.getName(), Constants.DENIED_ISSUE_MESSAGE);
+            } else if (decision == Decision.NOT_ALLOWED) {
+                LOG.info("Dependency {} is not on the allowed list", dep.getName());
                 DependencyIssueReporter.reportIssue(
-                    sensorContext, ruleKey, inputFile, dep.getValue(), dep.getKey());
+                    sensorContext, ruleKey, inputFile, dep.getLineNumber(), dep.getName());
             }
         });
     }
@@ -0,0 +1,223 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.npm.checks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.Version;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.VersionRange;
+
+/**
+ * Converts npm semver ranges, such as {@code ^4.17.21} or
+ * {@code >=1.2.0 <2 || 3.x}, into the {@link VersionRange} they admit.
+ *
+ * Pre-release versions are ordered as {@link Version} orders them rather than
+ * being excluded from ranges which do not name them.
+ */
+final class NpmVersionRanges {
+
+    /**
+     * An operator separated from its version by whitespace.
+     */
+    private static final Pattern SPACED_OPERATOR = Pattern.compile("(<=|>=|<|>|=|~>|~|\\^)\\s+");
+
+    private static final Pattern HYPHEN_RANGE = Pattern.compile("^(\\S+)\\s+-\\s+(\\S+)$");
+
+    private static final Pattern COMPARATOR = Pattern.compile("^(<=|>=|<|>|=|~>|~|\\^)?v?(.*)$");
+
+    private NpmVersionRanges() {
+    }
+
+    /**
+     * Convert a range.
+     *
+     * @param spec the range as declared in package.json
+     * @return the range, or null if the range is not known, not valid, or is
+     *         not a range at all such as a URL, path or tag.
+     */
+    static VersionRange toRange(final String spec) {
+        if (spec == null) {
+            return null;
+        }
+
+        final List<VersionRange> sets = new ArrayList<>();
+        for (String set : spec.trim().split("\\|\\|", -1)) {
+            final VersionRange range = setRange(set.trim());
+            if (range == null) {
+                return null;
+            }
+            sets.add(range);
+        }
+        return VersionRange.anyOf(sets);
+    }
+
+    private static VersionRange setRange(final String set) {
+        if (set.isEmpty()) {
+            return VersionRange.ANY;
+        }
+
+        try {
+            final Matcher hyphen = HYPHEN_RANGE.matcher(set);
+            if (hyphen.matches()) {
+                final VersionRange lower = comparatorRange(">=", hyphen.group(1));
+                final VersionRange upper = comparatorRange("<=", hyphen.group(2));
+                return lower == null || upper == null ? null : lower.intersect(upper);
+            }
+
+            VersionRange range = VersionRange.ANY;
+            for (String comparator : SPACED_OPERATOR.matcher(set).replaceAll("$1").split("\\s+")) {
+                final Matcher parts = COMPARATOR.matcher(comparator);
+                final VersionRange comparatorRange = parts.matches()
+                    ? comparatorRange(parts.group(1) == null ? "=" : parts.group(1), parts.group(2)) : null;
+                if (comparatorRange == null) {
+                    return null;
+                }
+                range = range.intersect(comparatorRange);
+            }
+            return range;
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            /* Segments which are too large to hold or to bump */
+            return null;
+        }
+    }
+
+    private static VersionRange comparatorRange(final String operator, final String version) {
+        final PartialVersion partial = PartialVersion.parse(version);
+        if (partial == null) {
+            return null;
+        }
+
+        switch (operator) {
+            case "=":
+                return partial.specified == 0 ? VersionRange.ANY : partial.prefixRange();
+            case "^":
+                return caretRange(partial);
+            case "~":
+            case "~>":
+                if (partial.specified < 2) {
+                    return partial.specified == 0 ? VersionRange.ANY : partial.prefixRange();
+                }
+                return VersionRange.between(partial.lower(), true, partial.bump(1), false);
+            case ">":
+                if (partial.specified == 0) {
+                    return null;
+                }
+                return partial.specified == 3 ? VersionRange.between(partial.lower(), false, null, false)
+                    : VersionRange.between(partial.bump(partial.specified - 1), true, null, false);
+            case ">=":
+                return VersionRange.between(partial.specified == 0 ? null : partial.lower(), true, null, false);
+            case "<":
+                return partial.specified == 0 ? null : VersionRange.between(null, false, partial.lower(), false);
+            default:
+                /* <= */
+                if (partial.specified == 0) {
+                    return VersionRange.ANY;
+                }
+                return partial.specified == 3 ? VersionRange.between(null, false, partial.lower(), true)
+                    : VersionRange.between(null, false, partial.bump(partial.specified - 1), false);
+        }
+    }
+
+    /**
+     * Allow changes which do not modify the left-most non-zero segment.
+     */
+    private static VersionRange caretRange(final PartialVersion partial) {
+        if (partial.specified == 0) {
+            return VersionRange.ANY;
+        }
+
+        int segment = 0;
+        while (segment < partial.specified - 1 && partial.segments[segment] == 0) {
+            segment++;
+        }
+        if (segment == 2) {
+            /* ^0.0.3 only allows 0.0.3 */
+            return partial.prefixRange();
+        }
+        return VersionRange.between(partial.lower(), true, partial.bump(segment), false);
+    }
+
+    /**
+     * A version with up to three numeric segments, where trailing segments may
+     * be missing or wildcards.
+     */
+    private static final class PartialVersion {
+
+        private final long[] segments;
+
+        /**
+         * The number of leading segments which are given.
+         */
+        private final int specified;
+
+        /**
+         * The version as written, if all three segments are given.
+         */
+        private final String full;
+
+        private PartialVersion(final long[] segments, final int specified, final String full) {
+            this.segments = segments;
+            this.specified = specified;
+            this.full = full;
+        }
+
+        private static PartialVersion parse(final String version) {
+            int mainEnd = version.length();
+            for (int index = 0; index < version.length(); index++) {
+                if (version.charAt(index) == '-' || version.charAt(index) == '+') {
+                    mainEnd = index;
+                    break;
+                }
+            }
+
+            final String[] parts = version.substring(0, mainEnd).split("\\.", -1);
+            if (parts.length > 3) {
+                return null;
+            }
+
+            final long[] segments = new long[3];
+            int specified = 0;
+            for (String part : parts) {
+                if ("x".equalsIgnoreCase(part) || "*".equals(part)) {
+                    break;
+                }
+                if (part.isEmpty() || !part.chars().allMatch(Character::isDigit)) {
+                    return null;
+                }
+                segments[specified++] = Long.parseLong(part);
+            }
+            if (specified < 3 && mainEnd < version.length()) {
+                /* A pre-release on a partial version */
+                return null;
+            }
+            return new PartialVersion(segments, specified, specified == 3 ? version : null);
+        }
+
+        /**
+         * Get the lowest version matching the given segments.
+         */
+        private Version lower() {
+            return Version.parse(full != null ? full : segments[0] + "." + segments[1] + "." + segments[2]);
+        }
+
+        /**
+         * Get the version after every version sharing the segments before, and
+         * including, the given segment.
+         */
+        private Version bump(final int segment) {
+            final long[] next = new long[3];
+            System.arraycopy(segments, 0, next, 0, segment);
+            next[segment] = Math.addExact(segments[segment], 1);
+            return Version.parse(next[0] + "." + next[1] + "." + next[2]);
+        }
+
+        /**
+         * Get the range of versions matching the given segments.
+         */
+        private VersionRange prefixRange() {
+            return specified == 3 ? VersionRange.exactly(lower())
+                : VersionRange.between(lower(), true, bump(specified - 1), false);
+        }
+    }
+}
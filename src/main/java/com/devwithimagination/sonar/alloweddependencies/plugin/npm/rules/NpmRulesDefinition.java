@@ -1,5 +1,7 @@
 package com.devwithimagination.sonar.alloweddependencies.plugin.npm.rules;
 
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.Constants;
+
 import org.sonar.api.rule.RuleKey;
 import org.sonar.api.rule.RuleStatus;
 import org.sonar.api.rule.Severity;
@@ -14,7 +16,10 @@ public class NpmRulesDefinition implements RulesDefinition {
 
     private static final String ALLOW_LIST_PARAM_DESCRIPTION =
         "Newline separated list of dependency names. Exact matches are case-insensitive. " +
-        "Prefix a row with regex: to allow dependencies matching a regular expression. " +
+        "Prefix a row with glob: to use * and a trailing ** as wildcards, " +
+        "or with regex: to allow dependencies matching a regular expression. " +
+        "Prefix a row with match: for a regular expression which must match the whole name. " +
+        "Use index:<path> to load exact rows from a precompiled allow-list index file. " +
         "Blank lines and rows starting with # are ignored.";
 
     /**
@@ -46,6 +51,11 @@ public class NpmRulesDefinition implements RulesDefinition {
      */
     public static final String DEPS_PARAM_KEY = "npmDependencies";
 
+    /**
+     * The setting key for the NPM denied dependency list.
+     */
+    public static final String DENIED_DEPS_PARAM_KEY = "npmDeniedDependencies";
+
     @Override
     public void define(Context context) {
 
@@ -109,6 +119,17 @@ public class NpmRulesDefinition implements RulesDefinition {
             .setDescription(ALLOW_LIST_PARAM_DESCRIPTION)
             .setType(RuleParamType.TEXT);
 
+        npmAllowedRule.createParam(DENIED_DEPS_PARAM_KEY)
+            .setName(Constants.DENY_LIST_PARAM_NAME)
+            .setDescription(Constants.DENY_LIST_PARAM_DESCRIPTION)
+            .setType(RuleParamType.TEXT);
+
+        npmAllowedRule.createParam(Constants.REGEX_FULL_MATCH_PARAM_KEY)
+            .setName(Constants.REGEX_FULL_MATCH_PARAM_NAME)
+            .setDescription(Constants.REGEX_FULL_MATCH_PARAM_DESCRIPTION)
+            .setType(RuleParamType.BOOLEAN)
+            .setDefaultValue("false");
+
     }
 
 }
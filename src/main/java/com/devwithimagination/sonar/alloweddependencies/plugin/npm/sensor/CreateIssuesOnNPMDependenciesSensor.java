@@ -4,8 +4,14 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.AllowListOverlays;
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.AllowListRegistry;
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.AllowListSnapshots;
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.ScannerProperties;
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.UnusedRowReport;
 import com.devwithimagination.sonar.alloweddependencies.plugin.npm.checks.AllowedNpmDependenciesCheck;
 import com.devwithimagination.sonar.alloweddependencies.plugin.npm.rules.NpmRulesDefinition;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.VerdictCache;
 
 import org.sonar.api.batch.fs.FileSystem;
 import org.sonar.api.batch.fs.InputFile;
@@ -37,15 +43,22 @@ public class CreateIssuesOnNPMDependenciesSensor implements Sensor {
 
     protected final Configuration config;
 
+    /**
+     * The registry supplying compiled allow-lists.
+     */
+    private final AllowListRegistry registry;
+
     /**
      * Create a new instance of this sensor.
      *
      * This is expected to be called using IoC to inject the configuration.
      *
-     * @param config the plugin configuration.
+     * @param config   the plugin configuration.
+     * @param registry the registry supplying compiled allow-lists.
      */
-    public CreateIssuesOnNPMDependenciesSensor(final Configuration config) {
+    public CreateIssuesOnNPMDependenciesSensor(final Configuration config, final AllowListRegistry registry) {
         this.config = config;
+        this.registry = registry;
     }
 
     @Override
@@ -64,11 +77,15 @@ public class CreateIssuesOnNPMDependenciesSensor implements Sensor {
     public void execute(final SensorContext context) {
 
         /* Create our rule checkers, one per active template rule */
+        final int verdictCacheSize = ScannerProperties.verdictCacheSize(config);
+        final AllowListRegistry analysisRegistry = registry.forAnalysis(AllowListSnapshots.of(context, config),
+            () -> context.fileSystem().baseDir().toPath());
+        final AllowListOverlays overlays = AllowListOverlays.of(context, config, "npm");
         final List<AllowedNpmDependenciesCheck> checks = context.activeRules()
                 .findByRepository(NpmRulesDefinition.REPOSITORY_NPM)
                 .stream()
                 .filter(rule -> SUPPORTED_KEYS.contains(rule.ruleKey()))
-                .map(AllowedNpmDependenciesCheck::new)
+                .map(rule -> new AllowedNpmDependenciesCheck(rule, analysisRegistry, verdictCacheSize, overlays))
                 .collect(Collectors.toList());
 
         /* Only scan files if we have an enabled rule */
@@ -93,6 +110,12 @@ public class CreateIssuesOnNPMDependenciesSensor implements Sensor {
                 /* Scan using our checks */
                 checks.forEach(check -> check.scanFile(inputFile, context));
             }
+
+            checks.forEach(check -> check.getVerdictCaches().forEach(VerdictCache::logStatistics));
+
+            final UnusedRowReport report = new UnusedRowReport("npm");
+            checks.forEach(check -> report.add(check.getRuleKey(), check.getRowUsage()));
+            report.write(context);
         }
     }
 }
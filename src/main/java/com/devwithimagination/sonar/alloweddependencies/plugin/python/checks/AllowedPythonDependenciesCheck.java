@@ -1,14 +1,28 @@
 package com.devwithimagination.sonar.alloweddependencies.plugin.python.checks;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.function.Predicate;
+import java.util.Map;
 import java.util.stream.Collectors;
 
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.AllowListOverlays;
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.AllowListRegistry;
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.Constants;
 import com.devwithimagination.sonar.alloweddependencies.plugin.common.DependencyIssueReporter;
 import com.devwithimagination.sonar.alloweddependencies.plugin.common.DependencyOccurrence;
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.OverlaidAllowLists;
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.ScannerProperties;
 import com.devwithimagination.sonar.alloweddependencies.plugin.python.rules.PythonRulesDefinition;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.AllowList;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.Decision;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.DependencyKey;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.PredicateFactory;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.RowUsage;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.VerdictCache;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.VersionRange;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,9 +37,19 @@ public class AllowedPythonDependenciesCheck {
 
     private static final Logger LOG = LoggerFactory.getLogger(AllowedPythonDependenciesCheck.class);
 
+    private static final String ALLOW_LIST_COMPILER = "python";
+
     private final RuleKey ruleKey;
 
-    private final Predicate<String> allowedDependenciesPredicate;
+    private final VerdictCache allowedDependenciesPredicate;
+
+    private final AllowList allowList;
+
+    private final OverlaidAllowLists<AllowList> allowLists;
+
+    private final Map<AllowList, VerdictCache> overlaidVerdictCaches = new IdentityHashMap<>();
+
+    private final int verdictCacheSize;
 
     private final PythonDependencyGroupType groupType;
 
@@ -34,20 +58,50 @@ public class AllowedPythonDependenciesCheck {
     private final List<String> requirementsFiles;
 
     public AllowedPythonDependenciesCheck(final ActiveRule activeRule) {
+        this(activeRule, AllowListRegistry.withDefaults(), ScannerProperties.DEFAULT_VERDICT_CACHE_SIZE);
+    }
+
+    public AllowedPythonDependenciesCheck(final ActiveRule activeRule, final AllowListRegistry registry,
+            final int verdictCacheSize) {
+        this(activeRule, registry, verdictCacheSize, AllowListOverlays.none());
+    }
+
+    public AllowedPythonDependenciesCheck(final ActiveRule activeRule, final AllowListRegistry registry,
+            final int verdictCacheSize, final AllowListOverlays overlays) {
         LOG.info("Creating AllowedPythonDependenciesCheck for {}", activeRule.ruleKey());
         this.ruleKey = activeRule.ruleKey();
         this.groupType = PythonDependencyGroupType.forRule(activeRule);
         this.groups = resolveGroups(activeRule, groupType);
         this.requirementsFiles = resolveRequirementsFiles(activeRule, groupType);
-        this.allowedDependenciesPredicate = new PythonAllowedDependenciesPredicateFactory()
-            .createPredicate(activeRule.param(PythonRulesDefinition.DEPS_PARAM_KEY));
+        final boolean regexFullMatch = Boolean.parseBoolean(activeRule.param(Constants.REGEX_FULL_MATCH_PARAM_KEY));
+        final PythonAllowedDependenciesPredicateFactory predicateFactory = new PythonAllowedDependenciesPredicateFactory(
+            PredicateFactory.options().regexStepBudget(registry.regexStepBudget()).regexFullMatch(regexFullMatch)
+                .matcherEngine(registry.matcherEngine()).indexBaseDir(registry.baseDir()));
+        final String compiler = AllowListRegistry.compiler(ALLOW_LIST_COMPILER, regexFullMatch);
+        final String deps = activeRule.param(PythonRulesDefinition.DEPS_PARAM_KEY);
+        final String deniedDeps = activeRule.param(PythonRulesDefinition.DENIED_DEPS_PARAM_KEY);
+        this.allowList = registry.get(AllowList.class, compiler, deps, deniedDeps, predicateFactory::createAllowList,
+            AllowList.snapshotCodec());
+        this.allowLists = new OverlaidAllowLists<>(allowList, overlays, overlayRows -> registry.get(AllowList.class,
+            compiler, AllowListOverlays.merge(deps, overlayRows), deniedDeps, predicateFactory::createAllowList,
+            AllowList.snapshotCodec()));
+        this.allowedDependenciesPredicate = new VerdictCache(ruleKey.toString(), allowList, verdictCacheSize);
+        this.verdictCacheSize = verdictCacheSize;
     }
 
     public void scanDependency(final DependencyOccurrence dependency, final SensorContext sensorContext) {
-        if (!allowedDependenciesPredicate.test(dependency.getName())) {
-            LOG.info("Forbidden Python dependency: {}", dependency.getName());
-            DependencyIssueReporter.reportIssue(sensorContext, ruleKey,
-                dependency.getInputFile(), dependency.getLineNumber(), dependency.getName());
+        final String name = dependency.getName();
+        final DependencyKey key = dependency.getKey();
+        final VersionRange declared = dependency.getDeclaredVersions(PythonVersionSpecifiers::toRange);
+
+        /* Decisions for names are cached, but a versioned row can still change them */
+        final Decision decision = verdictCacheFor(allowLists.forFile(dependency.getInputFile()))
+            .decide(key, declared);
+        if (decision != Decision.ALLOWED) {
+            LOG.info("{} Python dependency: {}", decision == Decision.DENIED ? "Denied" : "Forbidden", name);
+            DependencyIssueReporter.reportIssue(sensorContext, ruleKey, dependency.getInputFile(),
+                dependency.getLineNumber(), name,
+                decision == Decision.DENIED ? Constants.DENIED_ISSUE_MESSAGE : Constants.ISSUE_MESSAGE);
         }
     }
 
@@ -81,6 +135,37 @@ public class AllowedPythonDependenciesCheck {
             .collect(Collectors.toList());
     }
 
+    public VerdictCache getVerdictCache() {
+        return allowedDependenciesPredicate;
+    }
+
+    public List<VerdictCache> getVerdictCaches() {
+        final List<VerdictCache> caches = new ArrayList<>();
+        caches.add(allowedDependenciesPredicate);
+        caches.addAll(overlaidVerdictCaches.values());
+        return caches;
+    }
+
+    private VerdictCache verdictCacheFor(final AllowList list) {
+        if (list == allowList) {
+            return allowedDependenciesPredicate;
+        }
+        return overlaidVerdictCaches.computeIfAbsent(list, overlaid -> new VerdictCache(
+            ruleKey + " overlay " + (overlaidVerdictCaches.size() + 1), overlaid, verdictCacheSize));
+    }
+
+    public RuleKey getRuleKey() {
+        return ruleKey;
+    }
+
+    public AllowList getAllowList() {
+        return allowList;
+    }
+
+    public RowUsage getRowUsage() {
+        return allowLists.rowUsage();
+    }
+
     public PythonDependencyGroupType getGroupType() {
         return groupType;
     }
@@ -1,8 +1,9 @@
 package com.devwithimagination.sonar.alloweddependencies.plugin.python.checks;
 
-import java.util.Arrays;
 import java.util.function.Predicate;
 
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.AllowList;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.KeyFolder;
 import com.devwithimagination.sonar.alloweddependencies.plugin.util.PredicateFactory;
 
 /**
@@ -10,34 +11,46 @@ import com.devwithimagination.sonar.alloweddependencies.plugin.util.PredicateFac
  */
 public class PythonAllowedDependenciesPredicateFactory {
 
-    private static final String REGEX_PREFIX = "regex:";
+    private final PredicateFactory factory;
 
-    public Predicate<String> createPredicate(final String deps) {
-        final String normalizedAllowList = normalizeExactRows(deps);
-        final Predicate<String> predicate = new PredicateFactory()
-            .createPredicateForDependencyListString(normalizedAllowList);
+    public PythonAllowedDependenciesPredicateFactory() {
+        this(PredicateFactory.options());
+    }
 
-        return dependency -> predicate.test(PythonDependencyNameNormalizer.normalize(dependency));
+    /**
+     * Create a new factory.
+     *
+     * @param options the options for the allow-lists it creates
+     */
+    public PythonAllowedDependenciesPredicateFactory(final PredicateFactory.Options options) {
+        this.factory = new PredicateFactory(options);
     }
 
-    private static String normalizeExactRows(final String deps) {
-        if (deps == null) {
-            return null;
-        }
+    public Predicate<String> createPredicate(final String deps) {
+        return createAllowList(deps);
+    }
 
-        return String.join("\n",
-            Arrays.asList(deps.split("\\r?\\n"))
-                .stream()
-                .map(PythonAllowedDependenciesPredicateFactory::normalizeExactRow)
-                .toArray(String[]::new));
+    /**
+     * Create an allow-list which normalizes candidates as Python package names
+     * itself, so exact rows are matched without building the normalized name.
+     *
+     * @param deps the newline separated allow-list
+     * @return the allow-list.
+     */
+    public AllowList createAllowList(final String deps) {
+        return createAllowList(deps, null);
     }
 
-    private static String normalizeExactRow(final String row) {
-        final String trimmed = row.trim();
-        if (trimmed.startsWith(REGEX_PREFIX) || trimmed.startsWith("#") || trimmed.isEmpty()) {
-            return row;
-        }
-        return PythonDependencyNameNormalizer.normalize(trimmed);
+    /**
+     * Create an allow-list with deny rows which take precedence over it, both
+     * normalized as Python package names.
+     *
+     * @param deps       the newline separated allow-list
+     * @param deniedDeps the newline separated deny-list, may be null
+     * @return the allow-list.
+     */
+    public AllowList createAllowList(final String deps, final String deniedDeps) {
+        return factory.createAllowList(deps, deniedDeps, PythonDependencyNameNormalizer::normalize,
+            KeyFolder.PYTHON_PACKAGE_NAME);
     }
 }
-
@@ -1,6 +1,6 @@
 package com.devwithimagination.sonar.alloweddependencies.plugin.python.checks;
 
-import java.util.Locale;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.KeyFolder;
 
 /**
  * Normalizes Python package names using the PEP 503 normalization shape.
@@ -15,9 +15,7 @@ public final class PythonDependencyNameNormalizer {
         if (dependencyName == null) {
             return "";
         }
-        return dependencyName.trim()
-            .toLowerCase(Locale.ROOT)
-            .replaceAll("[-_.]+", "-");
+        return KeyFolder.PYTHON_PACKAGE_NAME.fold(dependencyName);
     }
 }
 
@@ -0,0 +1,159 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.python.checks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.Version;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.VersionRange;
+
+/**
+ * Converts PEP 440 version specifiers, such as {@code >=2.0,<3}, into the
+ * {@link VersionRange} they admit.
+ */
+final class PythonVersionSpecifiers {
+
+    private static final Pattern RELEASE = Pattern.compile("\\d+(\\.\\d+)*");
+
+    private static final String[] OPERATORS = {"===", "~=", "==", "!=", "<=", ">=", "<", ">"};
+
+    private PythonVersionSpecifiers() {
+    }
+
+    /**
+     * Convert version specifiers.
+     *
+     * @param spec the comma separated specifiers, empty if any version is
+     *             accepted
+     * @return the range, or null if the specifiers are not known or not valid.
+     */
+    static VersionRange toRange(final String spec) {
+        if (spec == null) {
+            return null;
+        }
+
+        VersionRange range = VersionRange.ANY;
+        if (spec.trim().isEmpty()) {
+            return range;
+        }
+        for (String clause : spec.split(",")) {
+            final VersionRange clauseRange = clauseRange(clause.trim());
+            if (clauseRange == null) {
+                return null;
+            }
+            range = range.intersect(clauseRange);
+        }
+        return range;
+    }
+
+    private static VersionRange clauseRange(final String clause) {
+        for (String operator : OPERATORS) {
+            if (clause.startsWith(operator)) {
+                final String version = clause.substring(operator.length()).trim();
+                try {
+                    return version.isEmpty() ? null : operatorRange(operator, version);
+                } catch (IllegalArgumentException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static VersionRange operatorRange(final String operator, final String version) {
+        if (version.endsWith(".*")) {
+            /* Prefix matching, only valid for equality on release segments */
+            final String prefix = version.substring(0, version.length() - 2);
+            final List<Long> release = RELEASE.matcher(prefix).matches() ? release(prefix) : null;
+            if (release == null) {
+                return null;
+            }
+            final VersionRange matching = VersionRange.between(join(release), true, next(release), false);
+            if ("==".equals(operator)) {
+                return matching;
+            }
+            return "!=".equals(operator) ? complement(matching, join(release), next(release)) : null;
+        }
+
+        final Version parsed = Version.parse(version);
+        switch (operator) {
+            case "===":
+            case "==":
+                return VersionRange.exactly(parsed);
+            case "!=":
+                return complement(VersionRange.exactly(parsed), parsed, parsed);
+            case "<":
+                return VersionRange.between(null, false, parsed, false);
+            case "<=":
+                return VersionRange.between(null, false, parsed, true);
+            case ">":
+                return VersionRange.between(parsed, false, null, false);
+            case ">=":
+                return VersionRange.between(parsed, true, null, false);
+            default:
+                /* Compatible release, ~=1.4.2 is >=1.4.2,==1.4.* */
+                final List<Long> release = release(version);
+                if (release == null || release.size() < 2) {
+                    return null;
+                }
+                final List<Long> prefix = release.subList(0, release.size() - 1);
+                return VersionRange.between(parsed, true, next(prefix), false);
+        }
+    }
+
+    /**
+     * Create the range of every version outside of a single interval.
+     */
+    private static VersionRange complement(final VersionRange excluded, final Version lower, final Version upper) {
+        final boolean upperExcluded = excluded.contains(upper);
+        return VersionRange.between(null, false, lower, false)
+            .union(VersionRange.between(upper, !upperExcluded, null, false));
+    }
+
+    /**
+     * Get the release segments at the start of a version, such as 1, 4 and 2
+     * for {@code 1.4.2rc1}.
+     */
+    private static List<Long> release(final String version) {
+        final List<Long> segments = new ArrayList<>();
+        for (String segment : version.split("\\.")) {
+            int end = 0;
+            while (end < segment.length() && Character.isDigit(segment.charAt(end))) {
+                end++;
+            }
+            if (end == 0) {
+                break;
+            }
+            try {
+                segments.add(Long.parseLong(segment.substring(0, end)));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            if (end < segment.length()) {
+                break;
+            }
+        }
+        return segments.isEmpty() ? null : segments;
+    }
+
+    private static Version join(final List<Long> release) {
+        final StringBuilder version = new StringBuilder();
+        for (Long segment : release) {
+            if (version.length() > 0) {
+                version.append('.');
+            }
+            version.append(segment);
+        }
+        return Version.parse(version.toString());
+    }
+
+    /**
+     * Get the first version after every version starting with a release
+     * prefix, such as 1.5 for 1.4.
+     */
+    private static Version next(final List<Long> release) {
+        final List<Long> next = new ArrayList<>(release);
+        next.set(next.size() - 1, next.get(next.size() - 1) + 1);
+        return join(next);
+    }
+}
@@ -37,8 +37,7 @@ public final class PythonRequirementNameParser {
             return Optional.of(eggMatcher.group(1));
         }
 
-        if (line.startsWith("-") || line.startsWith("git+") || line.startsWith("http://") || line.startsWith("https://")
-                || line.startsWith(".") || line.startsWith("/")) {
+        if (isReference(line)) {
             return Optional.empty();
         }
 
@@ -50,6 +49,64 @@ public final class PythonRequirementNameParser {
         return parseLeadingName(line);
     }
 
+    /**
+     * Extract the version specifiers from a requirement, such as
+     * {@code >=2.0,<3} from {@code requests[socks]>=2.0,<3; python_version>"3.8"}.
+     *
+     * @param requirement the requirement
+     * @return the specifiers, empty text if the requirement accepts any version,
+     *         or empty if the requirement has no name or refers to a URL or path.
+     */
+    public static Optional<String> parseVersionSpec(final String requirement) {
+        if (requirement == null) {
+            return Optional.empty();
+        }
+
+        final String line = stripInlineComment(requirement).trim();
+        if (line.isEmpty() || isReference(line) || EGG_FRAGMENT_PATTERN.matcher(line).find()) {
+            return Optional.empty();
+        }
+
+        final Optional<String> name = parseLeadingName(line);
+        if (!name.isPresent()) {
+            return Optional.empty();
+        }
+
+        String spec = line.substring(name.get().length()).trim();
+        if (spec.startsWith("[")) {
+            /* Extras */
+            final int extrasEnd = spec.indexOf(']');
+            if (extrasEnd < 0) {
+                return Optional.empty();
+            }
+            spec = spec.substring(extrasEnd + 1).trim();
+        }
+
+        final int optionIndex = spec.indexOf(" --");
+        if (optionIndex >= 0) {
+            /* Per-requirement options such as --hash */
+            spec = spec.substring(0, optionIndex).trim();
+        }
+
+        final int markerIndex = spec.indexOf(';');
+        if (markerIndex >= 0) {
+            spec = spec.substring(0, markerIndex).trim();
+        }
+        if (spec.startsWith("@")) {
+            /* Direct reference */
+            return Optional.empty();
+        }
+        if (spec.startsWith("(") && spec.endsWith(")")) {
+            spec = spec.substring(1, spec.length() - 1).trim();
+        }
+        return Optional.of(spec);
+    }
+
+    private static boolean isReference(final String line) {
+        return line.startsWith("-") || line.startsWith("git+") || line.startsWith("http://")
+            || line.startsWith("https://") || line.startsWith(".") || line.startsWith("/");
+    }
+
     private static Optional<String> parseLeadingName(final String line) {
         if (!isNameStart(line.charAt(0))) {
             return Optional.empty();
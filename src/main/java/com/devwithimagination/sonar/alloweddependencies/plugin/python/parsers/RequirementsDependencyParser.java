@@ -219,7 +219,8 @@ public class RequirementsDependencyParser {
 
         final Optional<String> dependencyName = PythonRequirementNameParser.parseName(requirement);
         if (dependencyName.isPresent()) {
-            dependencies.add(new DependencyOccurrence(dependencyName.get(), inputFile, lineNumber));
+            dependencies.add(new DependencyOccurrence(dependencyName.get(), inputFile, lineNumber,
+                PythonRequirementNameParser.parseVersionSpec(requirement).orElse(null)));
         }
     }
 
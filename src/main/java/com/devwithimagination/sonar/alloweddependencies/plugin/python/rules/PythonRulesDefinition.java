@@ -1,5 +1,7 @@
 package com.devwithimagination.sonar.alloweddependencies.plugin.python.rules;
 
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.Constants;
+
 import org.sonar.api.rule.RuleKey;
 import org.sonar.api.rule.RuleStatus;
 import org.sonar.api.rule.Severity;
@@ -13,8 +15,11 @@ public class PythonRulesDefinition implements RulesDefinition {
 
     private static final String ALLOW_LIST_PARAM_DESCRIPTION =
         "Newline separated list of Python package names. Exact matches are normalized using Python package " +
-        "name normalization and are case-insensitive. Prefix a row with regex: to allow dependencies matching " +
-        "a regular expression. Blank lines and rows starting with # are ignored.";
+        "name normalization and are case-insensitive. Prefix a row with glob: to use * and a trailing ** as " +
+        "wildcards, or with regex: to allow dependencies matching a regular expression. " +
+        "Prefix a row with match: for a regular expression which must match the whole name. " +
+        "Use index:<path> to load exact rows from a precompiled allow-list index file. " +
+        "Blank lines and rows starting with # are ignored.";
 
     public static final String REPOSITORY_PYTHON = "allowed-dependencies-python";
 
@@ -31,6 +36,8 @@ public class PythonRulesDefinition implements RulesDefinition {
 
     public static final String DEPS_PARAM_KEY = "pythonDependencies";
 
+    public static final String DENIED_DEPS_PARAM_KEY = "pythonDeniedDependencies";
+
     public static final String GROUPS_PARAM_KEY = "pythonDependencyGroups";
 
     public static final String REQUIREMENTS_FILES_PARAM_KEY = "pythonRequirementsFiles";
@@ -90,6 +97,17 @@ public class PythonRulesDefinition implements RulesDefinition {
             .setDescription(ALLOW_LIST_PARAM_DESCRIPTION)
             .setType(RuleParamType.TEXT);
 
+        rule.createParam(DENIED_DEPS_PARAM_KEY)
+            .setName(Constants.DENY_LIST_PARAM_NAME)
+            .setDescription(Constants.DENY_LIST_PARAM_DESCRIPTION)
+            .setType(RuleParamType.TEXT);
+
+        rule.createParam(Constants.REGEX_FULL_MATCH_PARAM_KEY)
+            .setName(Constants.REGEX_FULL_MATCH_PARAM_NAME)
+            .setDescription(Constants.REGEX_FULL_MATCH_PARAM_DESCRIPTION)
+            .setType(RuleParamType.BOOLEAN)
+            .setDefaultValue("false");
+
         return rule;
     }
 }
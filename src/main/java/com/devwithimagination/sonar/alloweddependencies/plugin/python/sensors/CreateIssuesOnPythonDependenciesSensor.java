@@ -1,16 +1,24 @@
 package com.devwithimagination.sonar.alloweddependencies.plugin.python.sensors;
 
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.AllowListOverlays;
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.AllowListRegistry;
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.AllowListSnapshots;
 import com.devwithimagination.sonar.alloweddependencies.plugin.common.DependencyOccurrence;
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.ScannerProperties;
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.UnusedRowReport;
 import com.devwithimagination.sonar.alloweddependencies.plugin.python.checks.AllowedPythonDependenciesCheck;
 import com.devwithimagination.sonar.alloweddependencies.plugin.python.parsers.PyprojectTomlDependencyParser;
 import com.devwithimagination.sonar.alloweddependencies.plugin.python.parsers.RequirementsDependencyParser;
 import com.devwithimagination.sonar.alloweddependencies.plugin.python.rules.PythonRulesDefinition;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.VerdictCache;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,8 +43,11 @@ public class CreateIssuesOnPythonDependenciesSensor implements Sensor {
 
     protected final Configuration config;
 
-    public CreateIssuesOnPythonDependenciesSensor(final Configuration config) {
+    private final AllowListRegistry registry;
+
+    public CreateIssuesOnPythonDependenciesSensor(final Configuration config, final AllowListRegistry registry) {
         this.config = config;
+        this.registry = registry;
     }
 
     @Override
@@ -48,11 +59,15 @@ public class CreateIssuesOnPythonDependenciesSensor implements Sensor {
 
     @Override
     public void execute(final SensorContext context) {
+        final int verdictCacheSize = ScannerProperties.verdictCacheSize(config);
+        final AllowListRegistry analysisRegistry = registry.forAnalysis(AllowListSnapshots.of(context, config),
+            () -> context.fileSystem().baseDir().toPath());
+        final AllowListOverlays overlays = AllowListOverlays.of(context, config, "python");
         final List<AllowedPythonDependenciesCheck> checks = context.activeRules()
             .findByRepository(PythonRulesDefinition.REPOSITORY_PYTHON)
             .stream()
             .filter(CreateIssuesOnPythonDependenciesSensor::isSupportedRule)
-            .map(AllowedPythonDependenciesCheck::new)
+            .map(rule -> new AllowedPythonDependenciesCheck(rule, analysisRegistry, verdictCacheSize, overlays))
             .collect(Collectors.toList());
 
         if (checks.isEmpty()) {
@@ -68,21 +83,32 @@ public class CreateIssuesOnPythonDependenciesSensor implements Sensor {
             fs.inputFiles(fs.predicates().matchesPathPattern(pattern))
                 .forEach(pyprojectFiles::add));
 
+        final UnusedRowReport report = new UnusedRowReport("python");
         final PyprojectTomlDependencyParser tomlParser = new PyprojectTomlDependencyParser();
         final RequirementsDependencyParser requirementsParser = new RequirementsDependencyParser(allInputFiles);
 
+        /*
+         * Rules reading the same groups share the occurrences parsed for them, and
+         * with them the keys and versions computed for each occurrence
+         */
+        final Map<List<Object>, List<DependencyOccurrence>> parsed = new HashMap<>();
         for (AllowedPythonDependenciesCheck check : checks) {
             for (InputFile pyprojectFile : pyprojectFiles) {
                 LOG.info("Python dependency input file {}", pyprojectFile);
-                final List<DependencyOccurrence> dependencies = tomlParser.parse(pyprojectFile,
-                    check.getGroupType(), check.getGroups());
+                final List<DependencyOccurrence> dependencies = parsed.computeIfAbsent(
+                    Arrays.asList(pyprojectFile, check.getGroupType(), check.getGroups()),
+                    key -> tomlParser.parse(pyprojectFile, check.getGroupType(), check.getGroups()));
                 dependencies.forEach(dependency -> check.scanDependency(dependency, context));
             }
 
-            final List<DependencyOccurrence> requirementsDependencies = requirementsParser.parse(
-                check.getGroupType(), check.getRequirementsFiles());
+            final List<DependencyOccurrence> requirementsDependencies = parsed.computeIfAbsent(
+                Arrays.asList(check.getGroupType(), check.getRequirementsFiles()),
+                key -> requirementsParser.parse(check.getGroupType(), check.getRequirementsFiles()));
             requirementsDependencies.forEach(dependency -> check.scanDependency(dependency, context));
+            check.getVerdictCaches().forEach(VerdictCache::logStatistics);
+            report.add(check.getRuleKey(), check.getRowUsage());
         }
+        report.write(context);
     }
 
     private static boolean isSupportedRule(final ActiveRule rule) {
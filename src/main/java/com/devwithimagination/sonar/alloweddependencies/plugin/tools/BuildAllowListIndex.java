@@ -0,0 +1,61 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.tools;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.function.UnaryOperator;
+
+import com.devwithimagination.sonar.alloweddependencies.plugin.python.checks.PythonDependencyNameNormalizer;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.BinaryAllowListIndex;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.BinaryAllowListIndexBuilder;
+
+/**
+ * Command line tool compiling an allow-list into a
+ * {@link BinaryAllowListIndex} file, run outside of any analysis. Usage:
+ *
+ * <pre>
+ * java -cp sonar-alloweddependencies-plugin.jar \
+ *     com.devwithimagination.sonar.alloweddependencies.plugin.tools.BuildAllowListIndex \
+ *     [--python] &lt;allow-list.txt&gt; &lt;allow-list.idx&gt;
+ * </pre>
+ *
+ * The {@code --python} option applies Python package name normalization to
+ * each row, which is required for indexes used by the Python rules.
+ */
+public final class BuildAllowListIndex {
+
+    private static final String PYTHON_OPTION = "--python";
+
+    private BuildAllowListIndex() {
+
+    }
+
+    /**
+     * Command line entry point.
+     *
+     * @param args the command line arguments
+     * @throws IOException if the allow-list cannot be read or the index cannot
+     *                     be written.
+     */
+    public static void main(final String[] args) throws IOException {
+        final boolean python = args.length == 3 && PYTHON_OPTION.equals(args[0]);
+        if (args.length != 2 && !python) {
+            System.err.println("Usage: BuildAllowListIndex [" + PYTHON_OPTION + "] <allow-list.txt> <allow-list.idx>");
+            System.exit(2);
+            return;
+        }
+
+        final int first = python ? 1 : 0;
+        final Path source = Paths.get(args[first]);
+        final Path target = Paths.get(args[first + 1]);
+        final UnaryOperator<String> normalizer = python
+            ? PythonDependencyNameNormalizer::normalize
+            : UnaryOperator.identity();
+
+        BinaryAllowListIndexBuilder.build(new String(Files.readAllBytes(source), StandardCharsets.UTF_8), normalizer,
+            target);
+        System.out.println("Wrote " + BinaryAllowListIndex.open(target).size() + " rows to " + target);
+    }
+}
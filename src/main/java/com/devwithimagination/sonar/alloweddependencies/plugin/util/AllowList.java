@@ -0,0 +1,1278 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A compiled allow-list.
+ *
+ * Exact rows are held in a hash index of folded keys, see {@link KeyFolder},
+ * so a lookup costs a single probe which allocates nothing, regardless of how
+ * many rows the list contains. Very large lists of
+ * exact rows are instead held in a {@link ExactRowDawg}, trading a little
+ * lookup speed for a much smaller footprint. Glob rows share a trie,
+ * and pattern rows are only evaluated when neither the exact index nor the
+ * glob trie matches the candidate. Regex
+ * rows are only run when the candidate contains the literal they require.
+ *
+ * Lists grown by copy and paste are reduced to their meaning as they are
+ * built: duplicate rows are dropped, as are exact rows already allowed by a
+ * glob, index or regex row and regex rows which can only match where a plain
+ * literal regex row already does. Regex rows requiring the same literal are
+ * merged into one alternation.
+ *
+ * Every row which survives compilation has a hit counter, so rows which never
+ * match can be reported. Exact rows are credited as they are found. Glob and
+ * pattern rows share matchers, so once one of those matches the candidate the
+ * rows are evaluated one by one to find the row to credit; that only happens
+ * for candidates which are allowed.
+ *
+ * A list may carry deny rows, see {@link Builder#deny(AllowList)}, which take
+ * precedence over every allow row. Each allow exact row is resolved against
+ * the deny rows as the list is built, and the hash index marks the rows a deny
+ * row overrides, so {@link #decide(String)} classifies an allow exact row in a
+ * single probe. Candidates missing the index are checked against the deny
+ * list itself, which probes its own exact rows, or the automaton of a very
+ * large deny list, so the deny rows are never copied into this list.
+ *
+ * A compiled list can be written out with {@link #writeSnapshot(DataOutput)}
+ * and restored with {@link #readSnapshot(DataInput)}, which skips optimizing
+ * the rows and building the automaton of a very large list.
+ */
+public final class AllowList implements Predicate<String>, RowUsage {
+
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(AllowList.class);
+
+    private static final String COMMENT_LINE_PREFIX = "#";
+
+    /**
+     * Matches inline flags, which may turn case insensitive matching off for
+     * part of an expression.
+     */
+    private static final Pattern INLINE_FLAGS = Pattern.compile("\\(\\?[a-zA-Z-]+[:)]");
+
+    /**
+     * The default number of exact rows above which they are held in a compact
+     * automaton rather than a hash set.
+     */
+    public static final int DEFAULT_COMPACT_EXACT_ROW_THRESHOLD = 10_000;
+
+    /**
+     * The default maximum number of characters the regex engine may read when
+     * evaluating a regex row against a candidate.
+     */
+    public static final long DEFAULT_REGEX_STEP_BUDGET = 1_000_000L;
+
+    /**
+     * The position held in the exact index for an allow row which a deny row
+     * matches. Allow rows which a deny row only matches in some case variants
+     * are held as {@code -2 - position}, and checked against the deny rows
+     * when found.
+     */
+    private static final int DENIED_ROW = -1;
+
+    /**
+     * An allow-list which does not allow anything.
+     */
+    private static final AllowList EMPTY = new AllowList(KeyFolder.CASE_INSENSITIVE,
+        FoldedKeyMap.of(KeyFolder.CASE_INSENSITIVE, Collections.emptyMap()), null, GlobTrie.builder().build(),
+        Collections.emptyList(), Collections.emptyList(), Collections.emptyList(), Collections.emptyList(),
+        VersionedRows.empty(), null, null, null);
+
+    private static final SnapshotCodec<AllowList> SNAPSHOT_CODEC = new SnapshotCodec<AllowList>() {
+
+        @Override
+        public boolean supports(final AllowList compiled) {
+            return compiled.supportsSnapshot();
+        }
+
+        @Override
+        public void write(final AllowList compiled, final DataOutput out) throws IOException {
+            compiled.writeSnapshot(out);
+        }
+
+        @Override
+        public AllowList read(final DataInput in) throws IOException {
+            return readSnapshot(in);
+        }
+    };
+
+    /**
+     * Folds candidates into the keys exact rows are held under.
+     */
+    private final KeyFolder keyFolder;
+
+    /**
+     * The folded exact rows, mapped to their positions in the row labels.
+     */
+    private final FoldedKeyMap<Integer> exactRows;
+
+    /**
+     * The exact index compiled into a class, used for ASCII candidates in
+     * place of the hash index when set.
+     */
+    private final GeneratedExactRows generatedExactRows;
+
+    /**
+     * The exact rows of a very large list, used in place of the hash index when
+     * set.
+     */
+    private final ExactRowDawg compactExactRows;
+
+    /**
+     * The glob rows, evaluated after the exact index.
+     */
+    private final GlobTrie globRows;
+
+    /**
+     * The pattern rows, evaluated in order after the glob rows.
+     */
+    private final List<Predicate<String>> patternRows;
+
+    /**
+     * The pattern rows which match every case variant of a folded key, so can
+     * be used to tell if an exact row is redundant.
+     */
+    private final List<Predicate<String>> coveringRows;
+
+    /**
+     * The rows other than compact exact rows in the form they were compiled
+     * in, exact rows first. Hits are counted against the same positions.
+     */
+    private final List<String> rowLabels;
+
+    /**
+     * The glob and pattern rows each evaluated on its own, used to find the
+     * row to credit once the glob trie or a compiled pattern has matched. These
+     * follow the exact rows in the row labels.
+     */
+    private final List<Predicate<String>> attributionRows;
+
+    private final RowHitCounters rowHits;
+
+    /**
+     * Hits for compact exact rows, by their position in the automaton.
+     */
+    private final RowHitCounters compactRowHits;
+
+    /**
+     * The exact rows which only allow some versions of a dependency.
+     */
+    private final VersionedRows versionedRows;
+
+    /**
+     * The deny rows, null if there are none.
+     */
+    private final AllowList denied;
+
+    /**
+     * The rows the list was assembled from, null for the empty list.
+     */
+    private final CompiledRows compiledRows;
+
+    private AllowList(final KeyFolder keyFolder, final FoldedKeyMap<Integer> exactRows,
+            final ExactRowDawg compactExactRows, final GlobTrie globRows, final List<Predicate<String>> patternRows,
+            final List<Predicate<String>> coveringRows, final List<String> rowLabels,
+            final List<Predicate<String>> attributionRows, final VersionedRows versionedRows,
+            final AllowList denied, final GeneratedExactRows generatedExactRows, final CompiledRows compiledRows) {
+        this.compiledRows = compiledRows;
+        this.coveringRows = coveringRows;
+        this.keyFolder = keyFolder;
+        this.exactRows = exactRows;
+        this.generatedExactRows = generatedExactRows;
+        this.compactExactRows = compactExactRows;
+        this.globRows = globRows;
+        this.patternRows = patternRows;
+        this.rowLabels = rowLabels;
+        this.attributionRows = attributionRows;
+        this.rowHits = new RowHitCounters(rowLabels.size());
+        this.compactRowHits = new RowHitCounters(compactExactRows != null ? compactExactRows.size() : 0);
+        this.versionedRows = versionedRows;
+        this.denied = denied;
+    }
+
+    /**
+     * Get an allow-list which rejects every candidate.
+     *
+     * @return the empty allow-list.
+     */
+    public static AllowList empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Create a new builder for an allow-list.
+     *
+     * @return the builder.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Split a newline separated allow-list parameter into its meaningful rows.
+     * Rows are trimmed, and blank rows or rows starting with '#' are dropped.
+     *
+     * @param deps the configured allow-list, may be null.
+     * @return the rows, never null.
+     */
+    public static List<String> rows(final String deps) {
+        if (deps == null) {
+            return Collections.emptyList();
+        }
+
+        return Arrays.stream(deps.split("\\r?\\n"))
+            .map(String::trim)
+            .filter(row -> !row.isEmpty())
+            .filter(row -> !row.startsWith(COMMENT_LINE_PREFIX))
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    public boolean test(final String candidate) {
+        return decide(candidate) == Decision.ALLOWED;
+    }
+
+    /**
+     * Get the folder the list evaluates candidates with.
+     */
+    KeyFolder keyFolder() {
+        return keyFolder;
+    }
+
+    /**
+     * Test a dependency key, see {@link #decide(DependencyKey)}.
+     *
+     * @param candidate the dependency key, may be null
+     * @return true if the dependency is allowed.
+     */
+    public boolean test(final DependencyKey candidate) {
+        return decide(candidate) == Decision.ALLOWED;
+    }
+
+    /**
+     * Classify a candidate against the allow rows and the deny rows compiled
+     * into the list. A candidate matching a deny row is denied, whichever allow
+     * rows it matches.
+     *
+     * @param candidate the dependency name
+     * @return the decision.
+     */
+    public Decision decide(final String candidate) {
+        return decide(candidate == null ? null : DependencyKey.of(candidate));
+    }
+
+    /**
+     * Classify a dependency key, as {@link #decide(String)} does for its name.
+     * The forms of the name the list evaluates are taken from the key, so are
+     * only computed once however many lists the key is passed to.
+     *
+     * @param candidate the dependency key, may be null
+     * @return the decision.
+     */
+    public Decision decide(final DependencyKey candidate) {
+        if (candidate == null) {
+            return Decision.NOT_ALLOWED;
+        }
+
+        /* A single probe, folding the candidate as it is hashed */
+        final int exactRow = exactRowOf(candidate);
+        if (exactRow != GeneratedExactRows.NO_ROW) {
+            return decideExactRow(candidate, exactRow);
+        }
+        if (denied != null && denied.test(candidate)) {
+            return Decision.DENIED;
+        }
+
+        final String key = candidate.canonical(keyFolder);
+        if (compactExactRows != null) {
+            final int compactRow = compactExactRows.indexOf(key);
+            if (compactRow >= 0) {
+                compactRowHits.hit(compactRow);
+                return Decision.ALLOWED;
+            }
+        }
+
+        if (globRows.test(key) || matchesPatternRow(key)) {
+            creditMatchingRow(key);
+            return Decision.ALLOWED;
+        }
+        return Decision.NOT_ALLOWED;
+    }
+
+    /**
+     * Get the value held in the exact index for a candidate.
+     */
+    private int exactRowOf(final DependencyKey candidate) {
+        if (generatedExactRows != null) {
+            final long hash = candidate.foldedHash(keyFolder);
+            if (hash != KeyFolder.NOT_ASCII) {
+                return generatedExactRows.rowOf(candidate.name(), (int) hash);
+            }
+        }
+        final Integer exactRow = exactRows.get(candidate);
+        return exactRow != null ? exactRow : GeneratedExactRows.NO_ROW;
+    }
+
+    /**
+     * Classify a candidate found in the exact index.
+     */
+    private Decision decideExactRow(final DependencyKey candidate, final int exactRow) {
+        if (exactRow == DENIED_ROW) {
+            return Decision.DENIED;
+        }
+        if (exactRow >= 0) {
+            rowHits.hit(exactRow);
+            return Decision.ALLOWED;
+        }
+
+        /* The deny rows only match some case variants of this row */
+        if (denied.test(candidate)) {
+            return Decision.DENIED;
+        }
+        rowHits.hit(-2 - exactRow);
+        return Decision.ALLOWED;
+    }
+
+    private boolean matchesPatternRow(final String key) {
+        for (Predicate<String> patternRow : patternRows) {
+            if (patternRow.test(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Credit the first glob or pattern row which matches a candidate the list
+     * has allowed.
+     */
+    private void creditMatchingRow(final String key) {
+        final int firstRow = rowLabels.size() - attributionRows.size();
+        if (attributionRows.size() == 1) {
+            rowHits.hit(firstRow);
+            return;
+        }
+        for (int index = 0; index < attributionRows.size(); index++) {
+            if (attributionRows.get(index).test(key)) {
+                rowHits.hit(firstRow + index);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Check if the versioned rows allow every version a declaration of a
+     * dependency admits. Only consulted when {@link #test(String)} rejected
+     * the dependency by name.
+     *
+     * @param candidate the dependency name
+     * @param declared  the versions the declaration admits, null if they are
+     *                  not known
+     * @return true if a versioned row allows the declared versions.
+     */
+    public boolean allowsVersion(final String candidate, final VersionRange declared) {
+        return candidate != null && allowsVersion(DependencyKey.of(candidate), declared);
+    }
+
+    /**
+     * Check if the versioned rows allow every version a declaration of a
+     * dependency key admits, see {@link #allowsVersion(String, VersionRange)}.
+     *
+     * @param candidate the dependency key
+     * @param declared  the versions the declaration admits, null if they are
+     *                  not known
+     * @return true if a versioned row allows the declared versions.
+     */
+    public boolean allowsVersion(final DependencyKey candidate, final VersionRange declared) {
+        return candidate != null && !versionedRows.isEmpty()
+            && versionedRows.allows(candidate, declared);
+    }
+
+    /**
+     * Check if a versioned row names a dependency with a range sharing any
+     * version with a declaration of it.
+     *
+     * @param candidate the dependency name
+     * @param declared  the versions the declaration admits, null if they are
+     *                  not known
+     * @return true if a versioned row overlaps the declared versions.
+     */
+    public boolean overlapsVersion(final String candidate, final VersionRange declared) {
+        return candidate != null && overlapsVersion(DependencyKey.of(candidate), declared);
+    }
+
+    /**
+     * Check if a versioned row names a dependency key with a range sharing any
+     * version with a declaration of it.
+     *
+     * @param candidate the dependency key
+     * @param declared  the versions the declaration admits, null if they are
+     *                  not known
+     * @return true if a versioned row overlaps the declared versions.
+     */
+    public boolean overlapsVersion(final DependencyKey candidate, final VersionRange declared) {
+        return candidate != null && !versionedRows.isEmpty() && versionedRows.overlaps(candidate, declared);
+    }
+
+    /**
+     * Check if a deny row names a dependency and denies any version a
+     * declaration of it admits.
+     *
+     * @param candidate the dependency name
+     * @param declared  the versions the declaration admits, null if they are
+     *                  not known
+     * @return true if a versioned deny row overlaps the declared versions.
+     */
+    public boolean deniesVersion(final String candidate, final VersionRange declared) {
+        return candidate != null && deniesVersion(DependencyKey.of(candidate), declared);
+    }
+
+    /**
+     * Check if a deny row names a dependency key and denies any version a
+     * declaration of it admits.
+     *
+     * @param candidate the dependency key
+     * @param declared  the versions the declaration admits, null if they are
+     *                  not known
+     * @return true if a versioned deny row overlaps the declared versions.
+     */
+    public boolean deniesVersion(final DependencyKey candidate, final VersionRange declared) {
+        return candidate != null && denied != null && denied.overlapsVersion(candidate, declared);
+    }
+
+    /**
+     * Classify a declaration of a dependency, taking the versions it declares
+     * into account. Versioned deny rows are checked first, then the rows
+     * matching the dependency by name, and finally the versioned allow rows.
+     *
+     * @param candidate the dependency name
+     * @param declared  the versions the declaration admits, null if they are
+     *                  not known
+     * @return the decision.
+     */
+    public Decision decide(final String candidate, final VersionRange declared) {
+        return decide(candidate == null ? null : DependencyKey.of(candidate), declared);
+    }
+
+    /**
+     * Classify a declaration of a dependency key, taking the versions it
+     * declares into account, see {@link #decide(String, VersionRange)}.
+     *
+     * @param candidate the dependency key, may be null
+     * @param declared  the versions the declaration admits, null if they are
+     *                  not known
+     * @return the decision.
+     */
+    public Decision decide(final DependencyKey candidate, final VersionRange declared) {
+        return decide(candidate, declared, this::decide);
+    }
+
+    /**
+     * Classify a declaration of a dependency key, taking the decision for its
+     * name from elsewhere, such as a {@link VerdictCache}.
+     *
+     * @param candidate the dependency key, may be null
+     * @param declared  the versions the declaration admits, null if they are
+     *                  not known
+     * @param byName    gives the decision for the name, as
+     *                  {@link #decide(DependencyKey)} does
+     * @return the decision.
+     */
+    Decision decide(final DependencyKey candidate, final VersionRange declared,
+            final Function<DependencyKey, Decision> byName) {
+        if (deniesVersion(candidate, declared)) {
+            return Decision.DENIED;
+        }
+        final Decision decision = byName.apply(candidate);
+        return decision == Decision.NOT_ALLOWED && allowsVersion(candidate, declared) ? Decision.ALLOWED : decision;
+    }
+
+    /**
+     * {@inheritDoc} Deny rows are not counted.
+     */
+    @Override
+    public int rowCount() {
+        return rowLabels.size() + (compactExactRows != null ? compactExactRows.size() : 0)
+            + versionedRows.rowCount();
+    }
+
+    /**
+     * {@inheritDoc} Compact exact rows are listed in their folded form. Allow
+     * rows which a deny row overrides are never credited, so are listed here.
+     * Deny rows are not reported.
+     */
+    @Override
+    public List<String> unusedRows() {
+        final List<String> unused = new ArrayList<>();
+        if (compactExactRows != null) {
+            final int[] row = {0};
+            compactExactRows.forEachRow(label -> {
+                if (compactRowHits.hits(row[0]++) == 0) {
+                    unused.add(label);
+                }
+            });
+        }
+        for (int row = 0; row < rowLabels.size(); row++) {
+            if (rowHits.hits(row) == 0) {
+                unused.add(rowLabels.get(row));
+            }
+        }
+        unused.addAll(versionedRows.unusedRows());
+        return unused;
+    }
+
+    /**
+     * Check if every candidate an exact row would allow is already allowed by
+     * the glob, index or regex rows of this list.
+     *
+     * @param row the exact row
+     * @return true if the row is redundant, false if it is or may be needed.
+     */
+    public boolean covers(final String row) {
+        return covers(keyFolder, globRows, coveringRows, keyFolder.fold(row));
+    }
+
+    private static boolean covers(final KeyFolder keyFolder, final GlobTrie globRows,
+            final List<Predicate<String>> coveringRows, final String foldedRow) {
+        if (KeyFolder.CASE_INSENSITIVE.equals(keyFolder) && keyFolder.foldedHash(foldedRow) == KeyFolder.NOT_ASCII) {
+            /* Case variants outside ASCII are not folded by the regex rows */
+            return false;
+        }
+        final String key = keyFolder.canonical(foldedRow);
+        if (globRows.size() > 0 && globRows.test(key)) {
+            return true;
+        }
+        for (Predicate<String> coveringRow : coveringRows) {
+            if (coveringRow.test(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check if a folded key is one of the exact rows of this list.
+     */
+    private boolean containsExactRow(final String foldedRow) {
+        return exactRows.get(foldedRow) != null
+            || (compactExactRows != null && compactExactRows.contains(foldedRow));
+    }
+
+    /**
+     * Check if the rows of this list match either every case variant of an
+     * exact row or none of them, so a verdict on the row holds for every
+     * candidate folding to it.
+     *
+     * @param row the exact row
+     * @return true if the verdict does not depend on the case of a candidate.
+     */
+    public boolean isCaseStable(final String row) {
+        final String foldedRow = keyFolder.fold(row);
+        return coveringRows.size() == patternRows.size()
+            && !(KeyFolder.CASE_INSENSITIVE.equals(keyFolder)
+                && keyFolder.foldedHash(foldedRow) == KeyFolder.NOT_ASCII);
+    }
+
+    /**
+     * Get the number of distinct allow exact rows held in the index.
+     *
+     * @return the exact row count.
+     */
+    public int exactRowCount() {
+        return compactExactRows != null ? compactExactRows.size() : rowLabels.size() - attributionRows.size();
+    }
+
+    /**
+     * Check if the list carries deny rows.
+     *
+     * @return true if there are deny rows.
+     */
+    public boolean hasDenyRows() {
+        return denied != null;
+    }
+
+    /**
+     * Check if the exact rows are held in a compact automaton rather than a
+     * hash index.
+     *
+     * @return true if the exact rows are compacted.
+     */
+    public boolean hasCompactExactRows() {
+        return compactExactRows != null;
+    }
+
+    /**
+     * Check if the exact index has been compiled into a generated class, see
+     * {@link MatcherEngine#GENERATED}.
+     *
+     * @return true if the exact index is generated.
+     */
+    public boolean hasGeneratedExactRows() {
+        return generatedExactRows != null;
+    }
+
+    /**
+     * Get the number of glob rows held in the trie.
+     *
+     * @return the glob row count.
+     */
+    public int globRowCount() {
+        return globRows.size();
+    }
+
+    /**
+     * Get the number of compiled pattern matchers which are evaluated as a
+     * fallback. Combined regex rows count as a single matcher.
+     *
+     * @return the pattern matcher count.
+     */
+    public int patternRowCount() {
+        return patternRows.size();
+    }
+
+    /**
+     * Get the codec writing lists out with {@link #writeSnapshot(DataOutput)}
+     * and restoring them with {@link #readSnapshot(DataInput)}.
+     *
+     * @return the codec.
+     */
+    public static SnapshotCodec<AllowList> snapshotCodec() {
+        return SNAPSHOT_CODEC;
+    }
+
+    /**
+     * Check if the list can be written out with
+     * {@link #writeSnapshot(DataOutput)}. Lists holding rows added through
+     * {@link Builder#addPattern(Predicate)} cannot be.
+     *
+     * @return true if the list can be written.
+     */
+    public boolean supportsSnapshot() {
+        return compiledRows == null || compiledRows.isWritable();
+    }
+
+    /**
+     * Write the compiled rows of the list, so it can be restored by
+     * {@link #readSnapshot(DataInput)} without being compiled again. Row hits
+     * are not written.
+     *
+     * @param out the output
+     * @throws IOException if the list cannot be written.
+     * @throws IllegalStateException if the list does not
+     *                               {@link #supportsSnapshot() support}
+     *                               snapshots.
+     */
+    public void writeSnapshot(final DataOutput out) throws IOException {
+        out.writeBoolean(compiledRows != null);
+        if (compiledRows != null) {
+            compiledRows.write(out);
+        }
+    }
+
+    /**
+     * Restore a list written by {@link #writeSnapshot(DataOutput)}. The
+     * expressions of regex rows are compiled again, but the rows are not
+     * optimized again.
+     *
+     * @param in the input
+     * @return the allow-list.
+     * @throws IOException if the list cannot be read, or an index file it
+     *                     names has changed since it was written.
+     */
+    public static AllowList readSnapshot(final DataInput in) throws IOException {
+        if (!in.readBoolean()) {
+            return EMPTY;
+        }
+        final CompiledRows rows = CompiledRows.read(in);
+        return builder().keyFolder(rows.keyFolder()).regexMode(rows.regexMode())
+            .matcherEngine(rows.matcherEngine()).regexStepBudget(rows.regexStepBudget())
+            .exceededRegexRowsMatch(rows.exceededRegexRowsMatch()).assemble(rows);
+    }
+
+    /**
+     * How regex rows are evaluated.
+     */
+    public enum RegexMode {
+
+        /**
+         * Each regex row is evaluated with its own matcher.
+         */
+        INDIVIDUAL,
+
+        /**
+         * Regex rows with a required literal are placed behind a literal
+         * prefilter, and the remaining rows sharing the same flags are compiled
+         * into a single alternation, so a candidate is checked in one matcher
+         * pass.
+         */
+        COMBINED
+    }
+
+    /**
+     * How the exact index is evaluated.
+     */
+    public enum MatcherEngine {
+
+        /**
+         * Exact rows are looked up in a hash index.
+         */
+        INTERPRETED,
+
+        /**
+         * Exact rows are compiled into a class of their own, switching on the
+         * hash of the candidate and comparing it against the rows as constants.
+         * Lists too large to generate, or which cannot be generated on the
+         * running JVM, use the hash index instead.
+         */
+        GENERATED
+    }
+
+    /**
+     * Builder for {@link AllowList} instances.
+     */
+    public static final class Builder {
+
+        private final List<String> exactRows = new ArrayList<>();
+
+        private final GlobTrie.Builder globRows = GlobTrie.builder();
+
+        private final Set<String> globRowSet = new LinkedHashSet<>();
+
+        private int globRowCount;
+
+        private int duplicateRowCount;
+
+        private int mergedRowCount;
+
+        private final List<Predicate<String>> patternRows = new ArrayList<>();
+
+        private final List<Pattern> regexRows = new ArrayList<>();
+
+        private final List<BinaryAllowListIndex> indexRows = new ArrayList<>();
+
+        private final List<Pattern> fullMatchRegexRows = new ArrayList<>();
+
+        private final VersionedRows.Builder versionedRows = VersionedRows.builder();
+
+        private RegexMode regexMode = RegexMode.COMBINED;
+
+        private MatcherEngine matcherEngine = MatcherEngine.INTERPRETED;
+
+        private int compactExactRowThreshold = DEFAULT_COMPACT_EXACT_ROW_THRESHOLD;
+
+        private long regexStepBudget = DEFAULT_REGEX_STEP_BUDGET;
+
+        private boolean exceededRegexRowsMatch;
+
+        private KeyFolder keyFolder = KeyFolder.CASE_INSENSITIVE;
+
+        private AllowList denied;
+
+        private Builder() {
+        }
+
+        /**
+         * Add a row which must match a candidate exactly, once both are folded.
+         *
+         * @param row the row
+         * @return this builder.
+         */
+        public Builder addExact(final String row) {
+            exactRows.add(row);
+            return this;
+        }
+
+        /**
+         * Add an exact row which only allows some versions of the dependency.
+         * Versioned rows are consulted through
+         * {@link AllowList#allowsVersion(String, VersionRange)}.
+         *
+         * @param row      the row, without its version range
+         * @param versions the versions allowed
+         * @param label    the row as it was configured
+         * @return this builder.
+         */
+        public Builder addVersioned(final String row, final VersionRange versions, final String label) {
+            versionedRows.add(row, versions, label);
+            return this;
+        }
+
+        /**
+         * Set the deny rows, which take precedence over every row of this
+         * list. Each allow exact row is resolved against them as the list is
+         * built, and candidates this list does not hold as an exact row are
+         * passed to the deny rows. Versioned deny rows are consulted through
+         * {@link AllowList#deniesVersion(String, VersionRange)}.
+         *
+         * @param rows the deny rows, folded in the same way as this list
+         * @return this builder.
+         */
+        public Builder deny(final AllowList rows) {
+            this.denied = rows == EMPTY ? null : rows;
+            return this;
+        }
+
+        /**
+         * Set how exact rows and candidates are folded before they are
+         * compared. Candidates are also normalized with the folder before
+         * being evaluated against any other rows, see
+         * {@link KeyFolder#PYTHON_PACKAGE_NAME}. Defaults to
+         * {@link KeyFolder#CASE_INSENSITIVE}.
+         *
+         * @param folder the folder
+         * @return this builder.
+         */
+        public Builder keyFolder(final KeyFolder folder) {
+            this.keyFolder = folder;
+            return this;
+        }
+
+        /**
+         * Add a glob row. See {@link GlobTrie} for the supported wildcards.
+         *
+         * @param row the glob
+         * @return this builder.
+         * @throws IllegalArgumentException if the glob is not supported.
+         */
+        public Builder addGlob(final String row) {
+            if (globRowSet.contains(row)) {
+                duplicateRowCount++;
+                return this;
+            }
+            globRows.add(row);
+            globRowSet.add(row);
+            globRowCount++;
+            return this;
+        }
+
+        /**
+         * Add the exact rows held in an index file. Indexes are checked before
+         * any pattern rows.
+         *
+         * @param index the index
+         * @return this builder.
+         */
+        public Builder addIndex(final BinaryAllowListIndex index) {
+            indexRows.add(index);
+            return this;
+        }
+
+        /**
+         * Add a row which is evaluated against candidates that are not exact
+         * matches.
+         *
+         * @param row the predicate for the row
+         * @return this builder.
+         */
+        public Builder addPattern(final Predicate<String> row) {
+            patternRows.add(row);
+            return this;
+        }
+
+        /**
+         * Add a regular expression row. Candidates match the row if the
+         * expression is found anywhere within them.
+         *
+         * @param row the compiled expression
+         * @return this builder.
+         */
+        public Builder addRegex(final Pattern row) {
+            regexRows.add(row);
+            return this;
+        }
+
+        /**
+         * Add a regular expression row which must match the whole candidate.
+         * These rows are checked against the literal prefix and minimum length
+         * of any match before the regex engine runs.
+         *
+         * @param row the compiled expression
+         * @return this builder.
+         */
+        public Builder addFullMatchRegex(final Pattern row) {
+            fullMatchRegexRows.add(row);
+            return this;
+        }
+
+        /**
+         * Set how regex rows are evaluated. Defaults to
+         * {@link RegexMode#COMBINED}.
+         *
+         * @param mode the mode
+         * @return this builder.
+         */
+        public Builder regexMode(final RegexMode mode) {
+            this.regexMode = mode;
+            return this;
+        }
+
+        /**
+         * Set how the exact index is evaluated. Defaults to
+         * {@link MatcherEngine#INTERPRETED}.
+         *
+         * @param engine the engine
+         * @return this builder.
+         */
+        public Builder matcherEngine(final MatcherEngine engine) {
+            this.matcherEngine = engine;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of characters the regex engine may read when
+         * evaluating a regex row against a candidate. A row exceeding the budget
+         * is reported and treated as not matching, unless
+         * {@link #exceededRegexRowsMatch(boolean)} is set. Defaults to
+         * {@value AllowList#DEFAULT_REGEX_STEP_BUDGET}.
+         *
+         * @param budget the step budget, zero or less to disable the guard
+         * @return this builder.
+         */
+        public Builder regexStepBudget(final long budget) {
+            this.regexStepBudget = budget;
+            return this;
+        }
+
+        /**
+         * Set if a regex row which exceeds its step budget on a candidate is
+         * treated as matching it. Lists of deny rows set this, so a candidate
+         * which drives a deny row over its budget is denied rather than left
+         * to the allow rows. Defaults to false.
+         *
+         * @param matches true to treat the row as matching
+         * @return this builder.
+         */
+        public Builder exceededRegexRowsMatch(final boolean matches) {
+            this.exceededRegexRowsMatch = matches;
+            return this;
+        }
+
+        /**
+         * Set the number of exact rows above which they are held in a compact
+         * automaton rather than a hash set. Defaults to
+         * {@value AllowList#DEFAULT_COMPACT_EXACT_ROW_THRESHOLD}.
+         *
+         * @param threshold the row count threshold
+         * @return this builder.
+         */
+        public Builder compactExactRowThreshold(final int threshold) {
+            this.compactExactRowThreshold = threshold;
+            return this;
+        }
+
+        /**
+         * Create the compiled allow-list.
+         *
+         * @return the allow-list.
+         */
+        public AllowList build() {
+            if (exactRows.isEmpty() && globRowCount == 0 && patternRows.isEmpty() && regexRows.isEmpty()
+                    && indexRows.isEmpty() && fullMatchRegexRows.isEmpty() && versionedRows.isEmpty()
+                    && denied == null) {
+                return EMPTY;
+            }
+            if (denied != null && !denied.keyFolder.equals(keyFolder)) {
+                throw new IllegalArgumentException("Deny rows must be folded in the same way as the allow rows");
+            }
+
+            final List<Pattern> findRows = distinct(regexRows);
+            final List<Pattern> fullMatchRows = distinct(fullMatchRegexRows);
+            final int subsumedRowCount = dropSubsumedRows(findRows, fullMatchRows);
+            final CompiledRows rows = new CompiledRows(keyFolder, regexMode, matcherEngine, regexStepBudget,
+                exceededRegexRowsMatch, new ArrayList<>(globRowSet), new ArrayList<>(indexRows), fullMatchRows,
+                findRows, new ArrayList<>(patternRows), versionedRows, denied);
+            final CompiledPatterns patterns = compilePatterns(rows, globRows.build());
+
+            /* Folded rows mapped to the first row folding to them */
+            final Map<String, String> foldedRows = new LinkedHashMap<>();
+            exactRows.forEach(row -> foldedRows.putIfAbsent(keyFolder.fold(row), row));
+            duplicateRowCount += exactRows.size() - foldedRows.size();
+            final int exactRowsBefore = foldedRows.size();
+            foldedRows.keySet().removeIf(row -> covers(keyFolder, patterns.globs, patterns.coveringRows, row));
+            logSummary(exactRowsBefore - foldedRows.size(), subsumedRowCount);
+
+            if (foldedRows.size() > compactExactRowThreshold) {
+                /* The deny rows are probed before the automaton */
+                rows.compactExactRows(ExactRowDawg.build(foldedRows.keySet()));
+                return assemble(rows, patterns);
+            }
+
+            final Map<String, Integer> exactRowPositions = new LinkedHashMap<>();
+            int overriddenRowCount = 0;
+            for (String row : foldedRows.keySet()) {
+                final int position = resolveDenied(row, exactRowPositions.size());
+                exactRowPositions.put(row, position);
+                overriddenRowCount += position == DENIED_ROW ? 1 : 0;
+            }
+            if (overriddenRowCount > 0) {
+                LOG.info("Deny rows override {} exact allow-list rows", overriddenRowCount);
+            }
+
+            rows.exactRows(new ArrayList<>(foldedRows.values()), exactRowPositions);
+            return assemble(rows, patterns);
+        }
+
+        /**
+         * Assemble a list from rows which have already been optimized.
+         */
+        private AllowList assemble(final CompiledRows rows) {
+            final GlobTrie.Builder globs = GlobTrie.builder();
+            rows.globRows().forEach(globs::add);
+            return assemble(rows, compilePatterns(rows, globs.build()));
+        }
+
+        private AllowList assemble(final CompiledRows rows, final CompiledPatterns patterns) {
+            final List<String> rowLabels = new ArrayList<>(rows.exactRowLabels());
+            rowLabels.addAll(patterns.attributionLabels);
+            final GeneratedExactRows generatedExactRows = matcherEngine == MatcherEngine.GENERATED
+                    && rows.compactExactRows() == null
+                ? GeneratedExactRows.generate(keyFolder, rows.exactRowPositions())
+                : null;
+            return new AllowList(keyFolder, FoldedKeyMap.of(keyFolder, rows.exactRowPositions()),
+                rows.compactExactRows(), patterns.globs, patterns.compiledPatterns, patterns.coveringRows, rowLabels,
+                patterns.attributionRows, rows.versionedRows().build(keyFolder), rows.denied(), generatedExactRows,
+                rows);
+        }
+
+        /**
+         * Compile the glob and pattern rows. Each glob and pattern row is also
+         * kept on its own, to credit its hits.
+         */
+        private CompiledPatterns compilePatterns(final CompiledRows rows, final GlobTrie globs) {
+            final CompiledPatterns patterns = new CompiledPatterns(globs);
+            for (String glob : rows.globRows()) {
+                patterns.attributionLabels.add(PredicateFactory.GLOB_PREFIX + glob);
+                patterns.attributionRows.add(GlobTrie.builder().add(glob).build()::test);
+            }
+
+            patterns.compiledPatterns.addAll(rows.indexRows());
+            rows.indexRows().forEach(row -> patterns.attributionLabels.add(PredicateFactory.INDEX_PREFIX + row.file()));
+            patterns.attributionRows.addAll(rows.indexRows());
+            for (Pattern row : rows.fullMatchRows()) {
+                final FullMatchRegex compiled = FullMatchRegex.compile(row, regexStepBudget, exceededRegexRowsMatch);
+                patterns.compiledPatterns.add(compiled);
+                patterns.attributionLabels.add(PredicateFactory.MATCH_PREFIX + row.pattern());
+                patterns.attributionRows.add(compiled);
+            }
+            patterns.compiledPatterns.addAll(compileRegexRows(rows.findRows()));
+            for (Pattern row : rows.findRows()) {
+                patterns.attributionLabels.add(PredicateFactory.REGEX_PREFIX + row.pattern());
+                patterns.attributionRows.add(GuardedRegex.of(row, regexStepBudget, exceededRegexRowsMatch));
+            }
+            patterns.coveringRows.addAll(isCaseStable(rows.findRows()) && isCaseStable(rows.fullMatchRows())
+                ? patterns.compiledPatterns
+                : rows.indexRows());
+            patterns.compiledPatterns.addAll(rows.patternRows());
+            rows.patternRows().forEach(row -> patterns.attributionLabels.add(String.valueOf(row)));
+            patterns.attributionRows.addAll(rows.patternRows());
+            return patterns;
+        }
+
+        /**
+         * Get the position to hold for an allow exact row, once the deny rows
+         * have been taken into account.
+         */
+        private int resolveDenied(final String foldedRow, final int position) {
+            if (denied == null) {
+                return position;
+            }
+            if (denied.containsExactRow(foldedRow) || denied.covers(foldedRow)) {
+                return DENIED_ROW;
+            }
+            return denied.isCaseStable(foldedRow) ? position : -2 - position;
+        }
+
+        /**
+         * Remove rows with the same expression and flags as an earlier row.
+         */
+        private List<Pattern> distinct(final List<Pattern> rows) {
+            final Map<String, Pattern> distinctRows = new LinkedHashMap<>();
+            rows.forEach(row -> distinctRows.putIfAbsent(row.flags() + "/" + row.pattern(), row));
+            duplicateRowCount += rows.size() - distinctRows.size();
+            return new ArrayList<>(distinctRows.values());
+        }
+
+        /**
+         * Remove regex rows which can only match candidates that a plain literal
+         * row, searched for anywhere in the candidate, already matches. A row
+         * is subsumed when the literal it requires contains the plain literal.
+         * Of several identical plain literals, the first is kept.
+         *
+         * @return the number of rows removed.
+         */
+        private int dropSubsumedRows(final List<Pattern> findRows, final List<Pattern> fullMatchRows) {
+            final List<String> plainLiterals = new ArrayList<>(findRows.size());
+            boolean anyPlainLiterals = false;
+            for (Pattern row : findRows) {
+                final String literal = row.flags() == Pattern.CASE_INSENSITIVE
+                    ? RegexLiteralIndex.plainLiteral(row.pattern())
+                    : null;
+                plainLiterals.add(literal);
+                anyPlainLiterals |= literal != null;
+            }
+            if (!anyPlainLiterals) {
+                return 0;
+            }
+
+            final int before = findRows.size() + fullMatchRows.size();
+            final List<Pattern> keptFindRows = new ArrayList<>();
+            for (int index = 0; index < findRows.size(); index++) {
+                if (!isSubsumed(findRows.get(index), plainLiterals, index)) {
+                    keptFindRows.add(findRows.get(index));
+                }
+            }
+            findRows.clear();
+            findRows.addAll(keptFindRows);
+            fullMatchRows.removeIf(row -> isSubsumed(row, plainLiterals, -1));
+            return before - findRows.size() - fullMatchRows.size();
+        }
+
+        private static boolean isSubsumed(final Pattern row, final List<String> plainLiterals, final int self) {
+            if ((row.flags() & ~Pattern.CASE_INSENSITIVE) != 0) {
+                return false;
+            }
+            final String plainLiteral = self >= 0 ? plainLiterals.get(self) : null;
+            final String literal = plainLiteral != null
+                ? plainLiteral
+                : RegexLiteralIndex.requiredLiteral(row.pattern());
+            if (literal == null) {
+                return false;
+            }
+            for (int index = 0; index < plainLiterals.size(); index++) {
+                final String other = plainLiterals.get(index);
+                if (index == self || other == null || !literal.contains(other)) {
+                    continue;
+                }
+                if (plainLiteral == null || other.length() < literal.length() || index < self) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Check if the rows match every case variant of a candidate they match,
+         * so that they can stand in for exact rows.
+         */
+        private boolean isCaseStable(final List<Pattern> rows) {
+            if (KeyFolder.PYTHON_PACKAGE_NAME.equals(keyFolder)) {
+                /* Candidates are folded before they reach the rows */
+                return true;
+            }
+            for (Pattern row : rows) {
+                if ((row.flags() & Pattern.CASE_INSENSITIVE) == 0 || INLINE_FLAGS.matcher(row.pattern()).find()
+                        || row.pattern().contains("\\p") || row.pattern().contains("\\P")) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void logSummary(final int coveredRowCount, final int subsumedRowCount) {
+            if (duplicateRowCount > 0 || coveredRowCount > 0 || subsumedRowCount > 0 || mergedRowCount > 0) {
+                LOG.info("Optimized allow-list: removed {} duplicate rows, {} exact rows covered by glob, index or "
+                    + "regex rows and {} regex rows subsumed by other regex rows, and merged {} regex rows sharing "
+                    + "a literal", duplicateRowCount, coveredRowCount, subsumedRowCount, mergedRowCount);
+            }
+        }
+
+        private List<Predicate<String>> compileRegexRows(final List<Pattern> regexRows) {
+            final List<Predicate<String>> compiled = new ArrayList<>();
+            if (RegexMode.INDIVIDUAL.equals(regexMode)) {
+                regexRows.forEach(row -> compiled.add(
+                    GuardedRegex.of(row, regexStepBudget, exceededRegexRowsMatch)));
+                return compiled;
+            }
+
+            /* Rows can only share a pattern when they were compiled with the same flags */
+            final Map<Integer, List<Pattern>> rowsByFlags = new LinkedHashMap<>();
+            regexRows.forEach(row -> rowsByFlags.computeIfAbsent(row.flags(), flags -> new ArrayList<>()).add(row));
+            rowsByFlags.forEach((flags, rows) -> compiled.addAll(compileRegexRows(rows, flags)));
+            return compiled;
+        }
+
+        /**
+         * Compile rows sharing the same flags. Rows with a required literal are
+         * placed behind a literal prefilter so only candidates containing the
+         * literal reach the regex engine, with rows requiring the same literal
+         * merged; the remainder are combined.
+         */
+        private List<Predicate<String>> compileRegexRows(final List<Pattern> rows, final int flags) {
+            final Map<String, List<Pattern>> rowsByLiteral = new LinkedHashMap<>();
+            final List<Pattern> otherRows = new ArrayList<>();
+
+            for (Pattern row : rows) {
+                final String literal = (flags & ~Pattern.CASE_INSENSITIVE) == 0
+                    ? RegexLiteralIndex.requiredLiteral(row.pattern())
+                    : null;
+                if (literal == null) {
+                    otherRows.add(row);
+                } else {
+                    rowsByLiteral.computeIfAbsent(literal, key -> new ArrayList<>()).add(row);
+                }
+            }
+
+            final List<Predicate<String>> indexedRows = new ArrayList<>();
+            final List<String> literals = new ArrayList<>();
+            rowsByLiteral.forEach((literal, literalRows) -> {
+                final List<Predicate<String>> merged = CombinedRegex.compile(literalRows, flags, regexStepBudget,
+                    exceededRegexRowsMatch);
+                if (merged.size() < literalRows.size()) {
+                    /* One alternation replaced several rows */
+                    mergedRowCount += literalRows.size() - merged.size() + 1;
+                }
+                merged.forEach(row -> {
+                    indexedRows.add(row);
+                    literals.add(literal);
+                });
+            });
+
+            final List<Predicate<String>> compiled = new ArrayList<>();
+            if (!indexedRows.isEmpty()) {
+                compiled.add(RegexLiteralIndex.build(indexedRows, literals));
+            }
+            compiled.addAll(CombinedRegex.compile(otherRows, flags, regexStepBudget, exceededRegexRowsMatch));
+            return compiled;
+        }
+    }
+
+    /**
+     * The glob and pattern rows of a list being assembled.
+     */
+    private static final class CompiledPatterns {
+
+        private final GlobTrie globs;
+
+        private final List<Predicate<String>> compiledPatterns = new ArrayList<>();
+
+        private final List<Predicate<String>> coveringRows = new ArrayList<>();
+
+        private final List<String> attributionLabels = new ArrayList<>();
+
+        private final List<Predicate<String>> attributionRows = new ArrayList<>();
+
+        private CompiledPatterns(final GlobTrie globs) {
+            this.globs = globs;
+        }
+    }
+}
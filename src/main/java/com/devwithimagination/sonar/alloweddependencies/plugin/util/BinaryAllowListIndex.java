@@ -0,0 +1,247 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * A precompiled index of exact allow-list rows, memory-mapped from a file.
+ *
+ * The file holds an open addressing hash table of case folded rows. Opening an
+ * index maps the file and checks each slot of the table points at a whole row
+ * entry, without reading the rows into memory, so the rows are held off the
+ * Java heap. Lookups hash and compare the candidate in place, without
+ * allocating.
+ *
+ * <p>
+ * File layout, all values big-endian:
+ * </p>
+ * <pre>
+ * int    magic
+ * int    format version
+ * int    row count
+ * int    slot count, a power of two
+ * int[]  slots, the offset of each row entry from the start of the file or 0
+ * entry* row entries: int hash, int length, char[length] folded row
+ * </pre>
+ */
+public final class BinaryAllowListIndex implements Predicate<String> {
+
+    /**
+     * Magic number at the start of every index file, "ADLX".
+     */
+    static final int MAGIC = 0x41444C58;
+
+    /**
+     * The current file format version.
+     */
+    static final int VERSION = 1;
+
+    private static final int HEADER_BYTES = 16;
+
+    private static final int FNV_OFFSET = 0x811C9DC5;
+
+    private static final int FNV_PRIME = 0x01000193;
+
+    private final Path file;
+
+    private final ByteBuffer buffer;
+
+    private final int size;
+
+    private final int slots;
+
+    private final int slotMask;
+
+    private BinaryAllowListIndex(final Path file, final ByteBuffer buffer) {
+        this.file = file;
+        this.buffer = buffer;
+        this.size = buffer.getInt(8);
+        this.slots = buffer.getInt(12);
+        this.slotMask = slots - 1;
+    }
+
+    /**
+     * Memory-map an index file.
+     *
+     * @param file the index file
+     * @return the index.
+     * @throws IOException              if the file cannot be read.
+     * @throws IllegalArgumentException if the file is not an index in a
+     *                                  supported format.
+     */
+    public static BinaryAllowListIndex open(final Path file) throws IOException {
+        final MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not an allow-list index: " + file);
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Unsupported allow-list index version " + buffer.getInt(4) + ": " + file);
+        }
+        final int size = buffer.getInt(8);
+        final int slots = buffer.getInt(12);
+
+        /* A table with no empty slot would never end the probe for a missing row */
+        if (slots <= 0 || Integer.bitCount(slots) != 1 || HEADER_BYTES + 4L * slots > buffer.capacity()
+                || size < 0 || size >= slots || !hasValidEntries(buffer, size, slots)) {
+            throw new IllegalArgumentException("Corrupt allow-list index: " + file);
+        }
+        return new BinaryAllowListIndex(file, buffer);
+    }
+
+    /**
+     * Check that each occupied slot points at a row entry which lies wholly
+     * after the slots and within the file, and that as many slots are
+     * occupied as there are rows.
+     */
+    private static boolean hasValidEntries(final ByteBuffer buffer, final int size, final int slots) {
+        final long entriesStart = HEADER_BYTES + 4L * slots;
+        final long capacity = buffer.capacity();
+        int occupied = 0;
+        for (int slot = 0; slot < slots; slot++) {
+            final int offset = buffer.getInt(HEADER_BYTES + 4 * slot);
+            if (offset == 0) {
+                continue;
+            }
+            if (offset < entriesStart || offset + 8L > capacity) {
+                return false;
+            }
+            final int length = buffer.getInt(offset + 4);
+            if (length < 0 || offset + 8L + 2L * length > capacity) {
+                return false;
+            }
+            occupied++;
+        }
+        return occupied == size;
+    }
+
+    /**
+     * Write an index file holding the supplied exact rows.
+     *
+     * @param rows the exact rows
+     * @param file the file to write
+     * @throws IOException if the file cannot be written.
+     */
+    public static void write(final Collection<String> rows, final Path file) throws IOException {
+
+        final Set<String> folded = new LinkedHashSet<>();
+        rows.forEach(row -> folded.add(fold(row)));
+
+        /* Keep the table at most half full so probe sequences stay short */
+        final int slots = Integer.highestOneBit(Math.max(1, folded.size()) * 2 - 1) << 1;
+        long length = HEADER_BYTES + 4L * slots;
+        for (String row : folded) {
+            length += 8L + 2L * row.length();
+        }
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Allow-list is too large for an index file: " + folded.size() + " rows");
+        }
+
+        final ByteBuffer buffer = ByteBuffer.allocate((int) length);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(8, folded.size());
+        buffer.putInt(12, slots);
+
+        int offset = HEADER_BYTES + 4 * slots;
+        for (String row : folded) {
+            final int hash = hash(row);
+            int slot = hash & (slots - 1);
+            while (buffer.getInt(HEADER_BYTES + 4 * slot) != 0) {
+                slot = (slot + 1) & (slots - 1);
+            }
+            buffer.putInt(HEADER_BYTES + 4 * slot, offset);
+            buffer.putInt(offset, hash);
+            buffer.putInt(offset + 4, row.length());
+            for (int index = 0; index < row.length(); index++) {
+                buffer.putChar(offset + 8 + 2 * index, row.charAt(index));
+            }
+            offset += 8 + 2 * row.length();
+        }
+
+        Files.write(file, buffer.array());
+    }
+
+    @Override
+    public boolean test(final String candidate) {
+        if (candidate == null || size == 0) {
+            return false;
+        }
+
+        final int hash = hash(candidate);
+        int slot = hash & slotMask;
+        for (int probes = 0; probes < slots; probes++) {
+            final int offset = buffer.getInt(HEADER_BYTES + 4 * slot);
+            if (offset == 0) {
+                return false;
+            }
+            if (buffer.getInt(offset) == hash && matches(offset, candidate)) {
+                return true;
+            }
+            slot = (slot + 1) & slotMask;
+        }
+        return false;
+    }
+
+    /**
+     * Get the number of rows held in the index.
+     *
+     * @return the row count.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the file the index was mapped from.
+     *
+     * @return the file.
+     */
+    public Path file() {
+        return file;
+    }
+
+    private boolean matches(final int offset, final String candidate) {
+        if (buffer.getInt(offset + 4) != candidate.length()) {
+            return false;
+        }
+        for (int index = 0; index < candidate.length(); index++) {
+            if (buffer.getChar(offset + 8 + 2 * index) != Character.toLowerCase(candidate.charAt(index))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * FNV-1a over the case folded characters of a value.
+     */
+    private static int hash(final String value) {
+        int hash = FNV_OFFSET;
+        for (int index = 0; index < value.length(); index++) {
+            hash ^= Character.toLowerCase(value.charAt(index));
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static String fold(final String row) {
+        final char[] chars = row.toCharArray();
+        for (int index = 0; index < chars.length; index++) {
+            chars[index] = Character.toLowerCase(chars[index]);
+        }
+        return new String(chars);
+    }
+}
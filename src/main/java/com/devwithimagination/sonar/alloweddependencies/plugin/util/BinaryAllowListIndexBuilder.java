@@ -0,0 +1,51 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.util;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * Compiles an allow-list in the plain text rule parameter format into a
+ * {@link BinaryAllowListIndex} file.
+ *
+ * Only exact rows can be held in an index. The rows are passed through the
+ * normalizer of the ecosystem the index is built for, so they are held the
+ * same way as the rows of a rule.
+ */
+public final class BinaryAllowListIndexBuilder {
+
+    private static final String[] UNSUPPORTED_PREFIXES = {
+        PredicateFactory.REGEX_PREFIX, PredicateFactory.GLOB_PREFIX, PredicateFactory.INDEX_PREFIX
+    };
+
+    private BinaryAllowListIndexBuilder() {
+
+    }
+
+    /**
+     * Compile an allow-list into an index file.
+     *
+     * @param deps       the newline separated allow-list
+     * @param normalizer normalizer applied to each row
+     * @param target     the index file to write
+     * @throws IOException              if the index cannot be written.
+     * @throws IllegalArgumentException if the allow-list contains rows which
+     *                                  are not exact rows.
+     */
+    public static void build(final String deps, final UnaryOperator<String> normalizer, final Path target)
+            throws IOException {
+
+        final List<String> rows = new ArrayList<>();
+        for (String row : AllowList.rows(deps)) {
+            for (String prefix : UNSUPPORTED_PREFIXES) {
+                if (row.startsWith(prefix)) {
+                    throw new IllegalArgumentException("Only exact rows can be written to an allow-list index: " + row);
+                }
+            }
+            rows.add(normalizer.apply(row));
+        }
+        BinaryAllowListIndex.write(rows, target);
+    }
+}
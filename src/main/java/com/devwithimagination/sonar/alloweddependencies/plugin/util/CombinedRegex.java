@@ -0,0 +1,137 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Compiles a set of regex allow-list rows into a single alternation so a
+ * candidate is checked with one matcher pass rather than one pass per row.
+ *
+ * Rows which cannot safely share a pattern with other rows (back references,
+ * named groups, quoting or comment mode) are kept as individual predicates.
+ *
+ * When a step budget is set and the combined pattern exhausts it, the rows are
+ * re-evaluated individually so the offending row can be identified, and given
+ * the verdict of a row exceeding its budget, see {@link GuardedRegex}.
+ */
+final class CombinedRegex {
+
+    /**
+     * Matches constructs whose meaning changes when a row is wrapped in a
+     * group and joined with other rows.
+     */
+    private static final Pattern NOT_COMBINABLE = Pattern.compile(
+        "\\\\[1-9]|\\\\k<|\\(\\?<[a-zA-Z]|\\\\Q|\\(\\?[a-zA-Z-]*x");
+
+    private CombinedRegex() {
+    }
+
+    /**
+     * Compile the supplied patterns.
+     *
+     * @param patterns the row patterns, all compiled with the same flags
+     * @param flags    the flags the row patterns were compiled with
+     * @param budget   the step budget for each evaluation, see
+     *                 {@link GuardedRegex}
+     * @return the predicates to evaluate, at most one for all combinable rows
+     *         plus one per row which could not be combined.
+     */
+    static List<Predicate<String>> compile(final List<Pattern> patterns, final int flags, final long budget) {
+        return compile(patterns, flags, budget, false);
+    }
+
+    /**
+     * Compile the supplied patterns.
+     *
+     * @param patterns        the row patterns, all compiled with the same flags
+     * @param flags           the flags the row patterns were compiled with
+     * @param budget          the step budget for each evaluation, see
+     *                        {@link GuardedRegex}
+     * @param exceededMatches true if a row matches a candidate which exceeds
+     *                        its budget, as deny rows do
+     * @return the predicates to evaluate, at most one for all combinable rows
+     *         plus one per row which could not be combined.
+     */
+    static List<Predicate<String>> compile(final List<Pattern> patterns, final int flags, final long budget,
+            final boolean exceededMatches) {
+
+        final List<Predicate<String>> predicates = new ArrayList<>();
+        final List<Pattern> combinable = new ArrayList<>();
+        for (Pattern pattern : patterns) {
+            if (NOT_COMBINABLE.matcher(pattern.pattern()).find()) {
+                predicates.add(GuardedRegex.of(pattern, budget, exceededMatches));
+            } else {
+                combinable.add(pattern);
+            }
+        }
+
+        if (combinable.size() == 1) {
+            predicates.add(0, GuardedRegex.of(combinable.get(0), budget, exceededMatches));
+        } else if (!combinable.isEmpty()) {
+            predicates.addAll(0, combine(combinable, flags, budget, exceededMatches));
+        }
+        return predicates;
+    }
+
+    private static List<Predicate<String>> combine(final List<Pattern> patterns, final int flags, final long budget,
+            final boolean exceededMatches) {
+
+        final List<Predicate<String>> individual = new ArrayList<>();
+        patterns.forEach(pattern -> individual.add(GuardedRegex.of(pattern, budget, exceededMatches)));
+
+        final Pattern combined = combinedPattern(patterns, flags);
+        if (combined == null) {
+            return individual;
+        }
+
+        final List<Predicate<String>> result = new ArrayList<>();
+        result.add(budget > 0 ? guarded(combined, budget, individual) : combined.asPredicate());
+        return result;
+    }
+
+    /**
+     * Join patterns into a single alternation, if they can safely share one.
+     *
+     * @param patterns the row patterns, all compiled with the same flags
+     * @param flags    the flags the row patterns were compiled with
+     * @return the combined pattern, or null if the rows must be evaluated
+     *         individually.
+     */
+    static Pattern combinedPattern(final List<Pattern> patterns, final int flags) {
+
+        final StringBuilder expression = new StringBuilder();
+        int expectedGroups = 0;
+        for (Pattern pattern : patterns) {
+            if (NOT_COMBINABLE.matcher(pattern.pattern()).find()) {
+                return null;
+            }
+            if (expression.length() > 0) {
+                expression.append('|');
+            }
+            expression.append("(?:").append(pattern.pattern()).append(')');
+            expectedGroups += pattern.matcher("").groupCount();
+        }
+
+        try {
+            final Pattern combined = Pattern.compile(expression.toString(), flags);
+            return combined.matcher("").groupCount() == expectedGroups ? combined : null;
+        } catch (PatternSyntaxException e) {
+            return null;
+        }
+    }
+
+    private static Predicate<String> guarded(final Pattern combined, final long budget,
+            final List<Predicate<String>> individual) {
+        return candidate -> {
+            try {
+                return GuardedRegex.find(combined, candidate, budget);
+            } catch (GuardedRegex.BudgetExceededException e) {
+                /* Each row gets its own budget, and the row exceeding it is reported */
+                return individual.stream().anyMatch(row -> row.test(candidate));
+            }
+        };
+    }
+}
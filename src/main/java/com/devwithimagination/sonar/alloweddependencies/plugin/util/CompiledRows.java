@@ -0,0 +1,324 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * The rows of an {@link AllowList} as they were left by compilation, once
+ * duplicate, covered and subsumed rows were dropped and exact rows were
+ * resolved against the deny rows.
+ *
+ * These are the inputs the matchers of the list are assembled from, so a list
+ * can be written out and restored without the rows being optimized, or the
+ * automaton of a very large list being built, again. Regex rows are held as
+ * their expressions, as compiled patterns cannot be shared across runs.
+ */
+final class CompiledRows {
+
+    private final KeyFolder keyFolder;
+
+    private final AllowList.RegexMode regexMode;
+
+    private final AllowList.MatcherEngine matcherEngine;
+
+    private final long regexStepBudget;
+
+    /**
+     * If a regex row which exceeds its budget matches, as deny rows do.
+     */
+    private final boolean exceededRegexRowsMatch;
+
+    private final List<String> globRows;
+
+    private final List<BinaryAllowListIndex> indexRows;
+
+    private final List<Pattern> fullMatchRows;
+
+    private final List<Pattern> findRows;
+
+    /**
+     * Rows added as arbitrary predicates, which cannot be written out.
+     */
+    private final List<Predicate<String>> patternRows;
+
+    private final VersionedRows.Builder versionedRows;
+
+    private final AllowList denied;
+
+    /**
+     * The exact rows in the form they were configured, by position.
+     */
+    private List<String> exactRowLabels = Collections.emptyList();
+
+    /**
+     * The folded exact rows and deny rows held in the hash index, mapped to
+     * the value held for them.
+     */
+    private Map<String, Integer> exactRowPositions = Collections.emptyMap();
+
+    private ExactRowDawg compactExactRows;
+
+    CompiledRows(final KeyFolder keyFolder, final AllowList.RegexMode regexMode,
+            final AllowList.MatcherEngine matcherEngine, final long regexStepBudget,
+            final boolean exceededRegexRowsMatch, final List<String> globRows,
+            final List<BinaryAllowListIndex> indexRows, final List<Pattern> fullMatchRows,
+            final List<Pattern> findRows, final List<Predicate<String>> patternRows,
+            final VersionedRows.Builder versionedRows, final AllowList denied) {
+        this.keyFolder = keyFolder;
+        this.regexMode = regexMode;
+        this.matcherEngine = matcherEngine;
+        this.regexStepBudget = regexStepBudget;
+        this.exceededRegexRowsMatch = exceededRegexRowsMatch;
+        this.globRows = globRows;
+        this.indexRows = indexRows;
+        this.fullMatchRows = fullMatchRows;
+        this.findRows = findRows;
+        this.patternRows = patternRows;
+        this.versionedRows = versionedRows;
+        this.denied = denied;
+    }
+
+    /**
+     * Set the exact rows held in the hash index.
+     *
+     * @param labels    the exact rows as they were configured, by position
+     * @param positions the folded exact rows, mapped to the value held for
+     *                  them
+     */
+    void exactRows(final List<String> labels, final Map<String, Integer> positions) {
+        this.exactRowLabels = labels;
+        this.exactRowPositions = positions;
+    }
+
+    /**
+     * Set the exact rows of a very large list.
+     *
+     * @param rows the automaton of allow exact rows
+     */
+    void compactExactRows(final ExactRowDawg rows) {
+        this.compactExactRows = rows;
+        this.exactRowPositions = Collections.emptyMap();
+    }
+
+    KeyFolder keyFolder() {
+        return keyFolder;
+    }
+
+    AllowList.RegexMode regexMode() {
+        return regexMode;
+    }
+
+    AllowList.MatcherEngine matcherEngine() {
+        return matcherEngine;
+    }
+
+    long regexStepBudget() {
+        return regexStepBudget;
+    }
+
+    boolean exceededRegexRowsMatch() {
+        return exceededRegexRowsMatch;
+    }
+
+    List<String> globRows() {
+        return globRows;
+    }
+
+    List<BinaryAllowListIndex> indexRows() {
+        return indexRows;
+    }
+
+    List<Pattern> fullMatchRows() {
+        return fullMatchRows;
+    }
+
+    List<Pattern> findRows() {
+        return findRows;
+    }
+
+    List<Predicate<String>> patternRows() {
+        return patternRows;
+    }
+
+    VersionedRows.Builder versionedRows() {
+        return versionedRows;
+    }
+
+    AllowList denied() {
+        return denied;
+    }
+
+    List<String> exactRowLabels() {
+        return exactRowLabels;
+    }
+
+    Map<String, Integer> exactRowPositions() {
+        return exactRowPositions;
+    }
+
+    ExactRowDawg compactExactRows() {
+        return compactExactRows;
+    }
+
+    /**
+     * Check if the rows can be written out. Rows added as arbitrary
+     * predicates cannot be.
+     *
+     * @return true if the rows can be written.
+     */
+    boolean isWritable() {
+        return patternRows.isEmpty() && (denied == null || denied.supportsSnapshot());
+    }
+
+    /**
+     * Write the rows, see {@link #read(DataInput)}. Index rows are written as
+     * the path, size and modification time of their file.
+     *
+     * @param out the output
+     * @throws IOException if the rows cannot be written.
+     * @throws IllegalStateException if the rows are not writable.
+     */
+    void write(final DataOutput out) throws IOException {
+        if (!isWritable()) {
+            throw new IllegalStateException("Allow-lists with predicate rows cannot be written");
+        }
+
+        out.writeBoolean(KeyFolder.PYTHON_PACKAGE_NAME.equals(keyFolder));
+        out.writeUTF(regexMode.name());
+        out.writeUTF(matcherEngine.name());
+        out.writeLong(regexStepBudget);
+        out.writeBoolean(exceededRegexRowsMatch);
+
+        writeStrings(out, globRows);
+        out.writeInt(indexRows.size());
+        for (BinaryAllowListIndex index : indexRows) {
+            out.writeUTF(index.file().toString());
+            out.writeLong(Files.size(index.file()));
+            out.writeLong(Files.getLastModifiedTime(index.file()).toMillis());
+        }
+        writePatterns(out, fullMatchRows);
+        writePatterns(out, findRows);
+        versionedRows.write(out);
+
+        writeStrings(out, exactRowLabels);
+        out.writeInt(exactRowPositions.size());
+        for (Map.Entry<String, Integer> entry : exactRowPositions.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeInt(entry.getValue());
+        }
+        out.writeBoolean(compactExactRows != null);
+        if (compactExactRows != null) {
+            compactExactRows.write(out);
+        }
+
+        out.writeBoolean(denied != null);
+        if (denied != null) {
+            denied.writeSnapshot(out);
+        }
+    }
+
+    /**
+     * Read rows written by {@link #write(DataOutput)}.
+     *
+     * @param in the input
+     * @return the rows.
+     * @throws IOException if the rows cannot be read, or an index file they
+     *                     name has changed since they were written.
+     */
+    static CompiledRows read(final DataInput in) throws IOException {
+        final KeyFolder keyFolder = in.readBoolean() ? KeyFolder.PYTHON_PACKAGE_NAME : KeyFolder.CASE_INSENSITIVE;
+        final AllowList.RegexMode regexMode = AllowList.RegexMode.valueOf(in.readUTF());
+        final AllowList.MatcherEngine matcherEngine = AllowList.MatcherEngine.valueOf(in.readUTF());
+        final long regexStepBudget = in.readLong();
+        final boolean exceededRegexRowsMatch = in.readBoolean();
+
+        final List<String> globRows = readStrings(in);
+        final int indexCount = in.readInt();
+        final List<BinaryAllowListIndex> indexRows = new ArrayList<>(indexCount);
+        for (int index = 0; index < indexCount; index++) {
+            indexRows.add(openIndex(Paths.get(in.readUTF()), in.readLong(), in.readLong()));
+        }
+        final List<Pattern> fullMatchRows = readPatterns(in);
+        final List<Pattern> findRows = readPatterns(in);
+        final VersionedRows.Builder versionedRows = VersionedRows.Builder.read(in);
+
+        final List<String> exactRowLabels = readStrings(in);
+        final int positionCount = in.readInt();
+        final Map<String, Integer> exactRowPositions = new LinkedHashMap<>();
+        for (int index = 0; index < positionCount; index++) {
+            exactRowPositions.put(in.readUTF(), in.readInt());
+        }
+        final ExactRowDawg compactExactRows = in.readBoolean() ? ExactRowDawg.read(in) : null;
+
+        final AllowList denied = in.readBoolean() ? AllowList.readSnapshot(in) : null;
+
+        final CompiledRows rows = new CompiledRows(keyFolder, regexMode, matcherEngine, regexStepBudget,
+            exceededRegexRowsMatch, globRows, indexRows, fullMatchRows, findRows, Collections.emptyList(),
+            versionedRows, denied);
+        if (compactExactRows != null) {
+            rows.compactExactRows(compactExactRows);
+        } else {
+            rows.exactRows(exactRowLabels, exactRowPositions);
+        }
+        return rows;
+    }
+
+    /**
+     * Open an index file, provided it has not changed since the rows were
+     * written. Exact rows the index covered were dropped, so a changed index
+     * may no longer allow them.
+     */
+    private static BinaryAllowListIndex openIndex(final Path file, final long size, final long lastModified)
+            throws IOException {
+        if (!Files.isRegularFile(file) || Files.size(file) != size
+                || Files.getLastModifiedTime(file).toMillis() != lastModified) {
+            throw new IOException("Allow-list index has changed: " + file);
+        }
+        return BinaryAllowListIndex.open(file);
+    }
+
+    private static void writeStrings(final DataOutput out, final List<String> values) throws IOException {
+        out.writeInt(values.size());
+        for (String value : values) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static List<String> readStrings(final DataInput in) throws IOException {
+        final int count = in.readInt();
+        final List<String> values = new ArrayList<>(count);
+        for (int index = 0; index < count; index++) {
+            values.add(in.readUTF());
+        }
+        return values;
+    }
+
+    private static void writePatterns(final DataOutput out, final List<Pattern> patterns) throws IOException {
+        out.writeInt(patterns.size());
+        for (Pattern pattern : patterns) {
+            out.writeUTF(pattern.pattern());
+            out.writeInt(pattern.flags());
+        }
+    }
+
+    private static List<Pattern> readPatterns(final DataInput in) throws IOException {
+        final int count = in.readInt();
+        final List<Pattern> patterns = new ArrayList<>(count);
+        for (int index = 0; index < count; index++) {
+            final String expression = in.readUTF();
+            patterns.add(Pattern.compile(expression, in.readInt()));
+        }
+        return patterns;
+    }
+}
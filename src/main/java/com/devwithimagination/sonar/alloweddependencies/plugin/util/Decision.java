@@ -0,0 +1,24 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.util;
+
+/**
+ * The outcome of classifying a dependency against an allow-list and the deny
+ * rows compiled into it.
+ */
+public enum Decision {
+
+    /**
+     * An allow row matches the dependency and no deny row does.
+     */
+    ALLOWED,
+
+    /**
+     * A deny row matches the dependency. Deny rows take precedence over every
+     * allow row.
+     */
+    DENIED,
+
+    /**
+     * Neither an allow row nor a deny row matches the dependency.
+     */
+    NOT_ALLOWED
+}
@@ -0,0 +1,97 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.util;
+
+/**
+ * A dependency name together with the forms allow-lists evaluate it in.
+ *
+ * The folded hash, folded key and canonical form of the name are computed the
+ * first time an allow-list asks for them and kept, so a key created once for
+ * a dependency occurrence can be passed to every rule, and to both the allow
+ * and deny rows of each, without folding the name again. The forms are kept
+ * for the last {@link KeyFolder} asked for, which in practice is the only one
+ * an ecosystem uses.
+ *
+ * Keys are not thread safe, and are meant to be used by the thread analysing
+ * the file the dependency was found in.
+ */
+public final class DependencyKey {
+
+    private final String name;
+
+    private KeyFolder folder;
+
+    private long foldedHash;
+
+    private String folded;
+
+    private String canonical;
+
+    private DependencyKey(final String name) {
+        this.name = name;
+    }
+
+    /**
+     * Create a key for a dependency name.
+     *
+     * @param name the name
+     * @return the key.
+     */
+    public static DependencyKey of(final String name) {
+        if (name == null) {
+            throw new IllegalArgumentException("Dependency name must not be null");
+        }
+        return new DependencyKey(name);
+    }
+
+    /**
+     * Get the name the key was created for.
+     *
+     * @return the name.
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Get the hash of the folded name, see {@link KeyFolder#foldedHash(String)}.
+     */
+    long foldedHash(final KeyFolder keyFolder) {
+        useFolder(keyFolder);
+        return foldedHash;
+    }
+
+    /**
+     * Get the folded name, see {@link KeyFolder#fold(String)}.
+     */
+    String folded(final KeyFolder keyFolder) {
+        useFolder(keyFolder);
+        if (folded == null) {
+            folded = keyFolder.fold(name);
+        }
+        return folded;
+    }
+
+    /**
+     * Get the canonical name, see {@link KeyFolder#canonical(String)}.
+     */
+    String canonical(final KeyFolder keyFolder) {
+        useFolder(keyFolder);
+        if (canonical == null) {
+            canonical = keyFolder.canonical(name);
+        }
+        return canonical;
+    }
+
+    private void useFolder(final KeyFolder keyFolder) {
+        if (folder != keyFolder) {
+            folder = keyFolder;
+            foldedHash = keyFolder.foldedHash(name);
+            folded = null;
+            canonical = null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
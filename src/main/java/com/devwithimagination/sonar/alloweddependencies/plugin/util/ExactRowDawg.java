@@ -0,0 +1,467 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * A minimal acyclic automaton (DAWG) of exact allow-list rows.
+ *
+ * Rows sharing a prefix or a suffix share states, so very large lists exported
+ * from artifact repositories take a fraction of the memory of a hash set of
+ * strings. The automaton is flattened into primitive arrays once built, and a
+ * lookup walks it one character at a time without allocating.
+ *
+ * Characters are folded individually with {@link Character#toLowerCase(char)}
+ * both when rows are added and when candidates are tested.
+ *
+ * Each transition also records how many rows sort before the rows reached
+ * through it, so a lookup can return the position of the row it found in the
+ * sorted list of rows, without the rows themselves being held.
+ */
+final class ExactRowDawg {
+
+    /**
+     * For each state, the index of its first transition. The transitions of a
+     * state run up to the first transition of the next state.
+     */
+    private final int[] firstTransition;
+
+    /**
+     * Transition labels, sorted within each state.
+     */
+    private final char[] labels;
+
+    /**
+     * Transition target states.
+     */
+    private final int[] targets;
+
+    /**
+     * For each transition, the number of rows which sort before the rows
+     * reached through it and after the rows before its source state.
+     */
+    private final int[] rowOffsets;
+
+    /**
+     * The states at which a row ends.
+     */
+    private final BitSet terminal;
+
+    private final int size;
+
+    private ExactRowDawg(final int[] firstTransition, final char[] labels, final int[] targets,
+            final int[] rowOffsets, final BitSet terminal, final int size) {
+        this.firstTransition = firstTransition;
+        this.labels = labels;
+        this.targets = targets;
+        this.rowOffsets = rowOffsets;
+        this.terminal = terminal;
+        this.size = size;
+    }
+
+    /**
+     * Build an automaton holding the supplied rows.
+     *
+     * @param rows the exact rows, in any order and possibly with duplicates
+     * @return the automaton.
+     */
+    static ExactRowDawg build(final Collection<String> rows) {
+
+        /* Incremental construction requires the folded rows in sorted order */
+        final String[] sorted = rows.stream()
+            .map(ExactRowDawg::fold)
+            .sorted()
+            .distinct()
+            .toArray(String[]::new);
+
+        final Map<State, State> register = new HashMap<>();
+        final List<State> path = new ArrayList<>();
+        path.add(new State());
+        String previous = "";
+
+        for (String row : sorted) {
+            final int common = commonPrefixLength(previous, row);
+            minimize(path, register, common);
+
+            for (int position = common; position < row.length(); position++) {
+                final State next = new State();
+                path.get(position).addChild(row.charAt(position), next);
+                path.add(next);
+            }
+            path.get(row.length()).terminal = true;
+            previous = row;
+        }
+        minimize(path, register, 0);
+
+        return freeze(path.get(0), sorted.length);
+    }
+
+    /**
+     * Test if a candidate is one of the rows.
+     *
+     * @param candidate the candidate
+     * @return true if the candidate matches a row, ignoring case.
+     */
+    boolean contains(final String candidate) {
+        return indexOf(candidate) >= 0;
+    }
+
+    /**
+     * Find the position of the row a candidate matches.
+     *
+     * @param candidate the candidate
+     * @return the position of the row in the sorted list of folded rows, or -1
+     *         if the candidate does not match a row.
+     */
+    int indexOf(final String candidate) {
+        int state = 0;
+        int row = 0;
+        for (int position = 0; position < candidate.length(); position++) {
+            final int from = firstTransition[state];
+            final int index = Arrays.binarySearch(labels, from, firstTransition[state + 1],
+                Character.toLowerCase(candidate.charAt(position)));
+            if (index < 0) {
+                return -1;
+            }
+            row += rowOffsets[index];
+            state = targets[index];
+        }
+        return terminal.get(state) ? row : -1;
+    }
+
+    /**
+     * Pass each folded row to a consumer, in the order of their positions.
+     *
+     * @param consumer the consumer
+     */
+    void forEachRow(final Consumer<String> consumer) {
+        forEachRow(0, new StringBuilder(), consumer);
+    }
+
+    private void forEachRow(final int state, final StringBuilder row, final Consumer<String> consumer) {
+        if (terminal.get(state)) {
+            consumer.accept(row.toString());
+        }
+        for (int index = firstTransition[state]; index < firstTransition[state + 1]; index++) {
+            row.append(labels[index]);
+            forEachRow(targets[index], row, consumer);
+            row.setLength(row.length() - 1);
+        }
+    }
+
+    /**
+     * Get the number of distinct rows held.
+     *
+     * @return the row count.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Get the number of states in the automaton.
+     *
+     * @return the state count.
+     */
+    int stateCount() {
+        return firstTransition.length - 1;
+    }
+
+    /**
+     * Write the flattened automaton, so it can be restored without being built
+     * again.
+     *
+     * @param out the output
+     * @throws IOException if the automaton cannot be written.
+     */
+    void write(final DataOutput out) throws IOException {
+        out.writeInt(size);
+        out.writeInt(firstTransition.length);
+        for (int value : firstTransition) {
+            out.writeInt(value);
+        }
+        out.writeInt(labels.length);
+        for (int index = 0; index < labels.length; index++) {
+            out.writeChar(labels[index]);
+            out.writeInt(targets[index]);
+            out.writeInt(rowOffsets[index]);
+        }
+        final long[] terminalWords = terminal.toLongArray();
+        out.writeInt(terminalWords.length);
+        for (long word : terminalWords) {
+            out.writeLong(word);
+        }
+    }
+
+    /**
+     * Read an automaton written by {@link #write(DataOutput)}.
+     *
+     * @param in the input
+     * @return the automaton.
+     * @throws IOException if the automaton cannot be read, or is not one
+     *                     {@link #write(DataOutput)} could have written.
+     */
+    static ExactRowDawg read(final DataInput in) throws IOException {
+        final int size = in.readInt();
+        final int[] firstTransition = new int[in.readInt()];
+        for (int index = 0; index < firstTransition.length; index++) {
+            firstTransition[index] = in.readInt();
+        }
+        final int transitions = in.readInt();
+        final char[] labels = new char[transitions];
+        final int[] targets = new int[transitions];
+        final int[] rowOffsets = new int[transitions];
+        for (int index = 0; index < transitions; index++) {
+            labels[index] = in.readChar();
+            targets[index] = in.readInt();
+            rowOffsets[index] = in.readInt();
+        }
+        final long[] terminalWords = new long[in.readInt()];
+        for (int index = 0; index < terminalWords.length; index++) {
+            terminalWords[index] = in.readLong();
+        }
+        final BitSet terminal = BitSet.valueOf(terminalWords);
+        if (!isConsistent(firstTransition, labels, targets, rowOffsets, terminal, size)) {
+            throw new IOException("Inconsistent exact row automaton");
+        }
+        return new ExactRowDawg(firstTransition, labels, targets, rowOffsets, terminal, size);
+    }
+
+    /**
+     * Check the invariants lookups rely on: the transitions of each state lie
+     * within the arrays and are sorted by label, every target is a state, the
+     * states form no cycle, and the row offsets count the rows below each
+     * transition, so every position found is less than the row count.
+     */
+    private static boolean isConsistent(final int[] firstTransition, final char[] labels, final int[] targets,
+            final int[] rowOffsets, final BitSet terminal, final int size) {
+        final int states = firstTransition.length - 1;
+        if (states < 1 || size < 0 || firstTransition[0] != 0 || firstTransition[states] != labels.length
+                || terminal.length() > states) {
+            return false;
+        }
+        final int[] incoming = new int[states];
+        for (int state = 0; state < states; state++) {
+            if (firstTransition[state + 1] < firstTransition[state]) {
+                return false;
+            }
+            for (int index = firstTransition[state]; index < firstTransition[state + 1]; index++) {
+                if (targets[index] < 0 || targets[index] >= states
+                        || (index > firstTransition[state] && labels[index - 1] >= labels[index])) {
+                    return false;
+                }
+                incoming[targets[index]]++;
+            }
+        }
+
+        /* Order the states so each comes before its targets, which fails if there is a cycle */
+        final int[] order = new int[states];
+        int ordered = 0;
+        for (int state = 0; state < states; state++) {
+            if (incoming[state] == 0) {
+                order[ordered++] = state;
+            }
+        }
+        for (int next = 0; next < ordered; next++) {
+            final int state = order[next];
+            for (int index = firstTransition[state]; index < firstTransition[state + 1]; index++) {
+                if (--incoming[targets[index]] == 0) {
+                    order[ordered++] = targets[index];
+                }
+            }
+        }
+        if (ordered != states) {
+            return false;
+        }
+
+        /* Count the rows below each state, targets first */
+        final long[] rows = new long[states];
+        for (int position = states - 1; position >= 0; position--) {
+            final int state = order[position];
+            long offset = terminal.get(state) ? 1 : 0;
+            for (int index = firstTransition[state]; index < firstTransition[state + 1]; index++) {
+                if (rowOffsets[index] != offset) {
+                    return false;
+                }
+                offset += rows[targets[index]];
+                if (offset > size) {
+                    return false;
+                }
+            }
+            rows[state] = offset;
+        }
+        return rows[0] == size;
+    }
+
+    private static String fold(final String row) {
+        final char[] chars = row.toCharArray();
+        for (int index = 0; index < chars.length; index++) {
+            chars[index] = Character.toLowerCase(chars[index]);
+        }
+        return new String(chars);
+    }
+
+    private static int commonPrefixLength(final String first, final String second) {
+        final int limit = Math.min(first.length(), second.length());
+        int length = 0;
+        while (length < limit && first.charAt(length) == second.charAt(length)) {
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * Replace the states on the path of the previous row below the supplied
+     * depth with equivalent registered states. Those states can no longer
+     * change, as rows arrive in sorted order.
+     */
+    private static void minimize(final List<State> path, final Map<State, State> register, final int depth) {
+        for (int position = path.size() - 1; position > depth; position--) {
+            final State state = path.get(position);
+            final State existing = register.putIfAbsent(state, state);
+            if (existing != null) {
+                path.get(position - 1).replaceLastChild(existing);
+            }
+            path.remove(position);
+        }
+    }
+
+    private static ExactRowDawg freeze(final State root, final int size) {
+
+        /* Number the states breadth first, with the root as state zero */
+        final Map<State, Integer> ids = new IdentityHashMap<>();
+        final List<State> states = new ArrayList<>();
+        final Deque<State> queue = new ArrayDeque<>();
+        ids.put(root, 0);
+        states.add(root);
+        queue.add(root);
+        int transitions = 0;
+        while (!queue.isEmpty()) {
+            final State state = queue.remove();
+            transitions += state.childCount;
+            for (int index = 0; index < state.childCount; index++) {
+                final State child = state.children[index];
+                if (!ids.containsKey(child)) {
+                    ids.put(child, states.size());
+                    states.add(child);
+                    queue.add(child);
+                }
+            }
+        }
+
+        final int[] firstTransition = new int[states.size() + 1];
+        final char[] labels = new char[transitions];
+        final int[] targets = new int[transitions];
+        final int[] rowOffsets = new int[transitions];
+        final BitSet terminal = new BitSet(states.size());
+        final Map<State, Integer> rowCounts = new IdentityHashMap<>();
+        int next = 0;
+        for (int id = 0; id < states.size(); id++) {
+            final State state = states.get(id);
+            firstTransition[id] = next;
+            terminal.set(id, state.terminal);
+
+            /* A row ending at this state sorts before every longer row through it */
+            int offset = state.terminal ? 1 : 0;
+            for (int index = 0; index < state.childCount; index++) {
+                labels[next] = state.labels[index];
+                targets[next] = ids.get(state.children[index]);
+                rowOffsets[next] = offset;
+                offset += rowCount(state.children[index], rowCounts);
+                next++;
+            }
+        }
+        firstTransition[states.size()] = next;
+
+        return new ExactRowDawg(firstTransition, labels, targets, rowOffsets, terminal, size);
+    }
+
+    /**
+     * Count the rows ending at or below a state. The recursion is no deeper
+     * than the longest row.
+     */
+    private static int rowCount(final State state, final Map<State, Integer> rowCounts) {
+        final Integer known = rowCounts.get(state);
+        if (known != null) {
+            return known;
+        }
+        int count = state.terminal ? 1 : 0;
+        for (int index = 0; index < state.childCount; index++) {
+            count += rowCount(state.children[index], rowCounts);
+        }
+        rowCounts.put(state, count);
+        return count;
+    }
+
+    /**
+     * A mutable state used while building. Once registered, states are
+     * compared by their terminal flag and their transitions to other registered
+     * states.
+     */
+    private static final class State {
+
+        private char[] labels = new char[1];
+
+        private State[] children = new State[1];
+
+        private int childCount;
+
+        private boolean terminal;
+
+        private void addChild(final char label, final State child) {
+            if (childCount == labels.length) {
+                labels = Arrays.copyOf(labels, childCount * 2);
+                children = Arrays.copyOf(children, childCount * 2);
+            }
+            labels[childCount] = label;
+            children[childCount] = child;
+            childCount++;
+        }
+
+        private void replaceLastChild(final State child) {
+            children[childCount - 1] = child;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof State)) {
+                return false;
+            }
+            final State other = (State) obj;
+            if (terminal != other.terminal || childCount != other.childCount) {
+                return false;
+            }
+            for (int index = 0; index < childCount; index++) {
+                if (labels[index] != other.labels[index] || children[index] != other.children[index]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = terminal ? 1 : 0;
+            for (int index = 0; index < childCount; index++) {
+                hash = 31 * hash + labels[index];
+                hash = 31 * hash + System.identityHashCode(children[index]);
+            }
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.util;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * An immutable hash map keyed on folded names.
+ *
+ * Keys are folded with a {@link KeyFolder} when the map is built. Lookups fold
+ * and hash the candidate in a single pass and then compare it against the
+ * stored keys character by character, so looking up an ASCII name is a single
+ * probe which allocates nothing. Slots are held in parallel arrays using open
+ * addressing.
+ *
+ * @param <V> the value type
+ */
+public final class FoldedKeyMap<V> {
+
+    private final KeyFolder folder;
+
+    private final String[] keys;
+
+    private final int[] hashes;
+
+    private final Object[] values;
+
+    private final int mask;
+
+    private final int size;
+
+    private FoldedKeyMap(final KeyFolder folder, final String[] keys, final int[] hashes, final Object[] values,
+            final int size) {
+        this.folder = folder;
+        this.keys = keys;
+        this.hashes = hashes;
+        this.values = values;
+        this.mask = keys.length - 1;
+        this.size = size;
+    }
+
+    /**
+     * Create a map from entries whose keys are folded as the map is built. If
+     * several keys fold to the same key, the last one wins.
+     *
+     * @param <V>     the value type
+     * @param folder  the folder for keys and candidates
+     * @param entries the entries, values must not be null
+     * @return the map.
+     */
+    public static <V> FoldedKeyMap<V> of(final KeyFolder folder, final Map<String, V> entries) {
+        /* Keep the table at most half full so probe sequences stay short */
+        final int capacity = Integer.highestOneBit(Math.max(2, entries.size() * 2 - 1)) << 1;
+        final String[] keys = new String[capacity];
+        final int[] hashes = new int[capacity];
+        final Object[] values = new Object[capacity];
+
+        int size = 0;
+        for (Map.Entry<String, V> entry : entries.entrySet()) {
+            final String key = folder.fold(entry.getKey());
+            final int hash = key.hashCode();
+            int slot = spread(hash) & (capacity - 1);
+            while (keys[slot] != null && !(hashes[slot] == hash && keys[slot].equals(key))) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            if (keys[slot] == null) {
+                size++;
+            }
+            keys[slot] = key;
+            hashes[slot] = hash;
+            values[slot] = entry.getValue();
+        }
+        return new FoldedKeyMap<>(folder, keys, hashes, values, size);
+    }
+
+    /**
+     * Create a map used as a set, with each key mapped to itself as given.
+     *
+     * @param folder the folder for keys and candidates
+     * @param keys   the keys
+     * @return the map.
+     */
+    public static FoldedKeyMap<String> ofKeys(final KeyFolder folder, final Collection<String> keys) {
+        final Map<String, String> entries = new LinkedHashMap<>();
+        keys.forEach(key -> entries.put(key, key));
+        return of(folder, entries);
+    }
+
+    /**
+     * Get the value stored for the key a candidate folds to.
+     *
+     * @param candidate the candidate, may be null
+     * @return the value, or null if there is no matching key.
+     */
+    public V get(final String candidate) {
+        if (candidate == null || size == 0) {
+            return null;
+        }
+
+        final long foldedHash = folder.foldedHash(candidate);
+        if (foldedHash == KeyFolder.NOT_ASCII) {
+            return getFolded(folder.fold(candidate));
+        }
+        return getAscii(candidate, (int) foldedHash);
+    }
+
+    /**
+     * Get the value stored for the key a dependency key folds to, reusing the
+     * folded forms the key already holds.
+     *
+     * @param key the key, may be null
+     * @return the value, or null if there is no matching key.
+     */
+    public V get(final DependencyKey key) {
+        if (key == null || size == 0) {
+            return null;
+        }
+
+        final long foldedHash = key.foldedHash(folder);
+        if (foldedHash == KeyFolder.NOT_ASCII) {
+            return getFolded(key.folded(folder));
+        }
+        return getAscii(key.name(), (int) foldedHash);
+    }
+
+    @SuppressWarnings("unchecked")
+    private V getAscii(final String candidate, final int hash) {
+        int slot = spread(hash) & mask;
+        while (keys[slot] != null) {
+            if (hashes[slot] == hash && folder.matches(candidate, keys[slot])) {
+                return (V) values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V getFolded(final String key) {
+        final int hash = key.hashCode();
+        int slot = spread(hash) & mask;
+        while (keys[slot] != null) {
+            if (hashes[slot] == hash && keys[slot].equals(key)) {
+                return (V) values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Check if a candidate folds to any of the keys.
+     *
+     * @param candidate the candidate, may be null
+     * @return true if there is a matching key.
+     */
+    public boolean containsKey(final String candidate) {
+        return get(candidate) != null;
+    }
+
+    /**
+     * Visit every entry, with keys in their folded form.
+     *
+     * @param action the action to run for each entry
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(final BiConsumer<String, V> action) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != null) {
+                action.accept(keys[slot], (V) values[slot]);
+            }
+        }
+    }
+
+    /**
+     * Get the number of distinct folded keys.
+     *
+     * @return the key count.
+     */
+    public int size() {
+        return size;
+    }
+
+    private static int spread(final int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
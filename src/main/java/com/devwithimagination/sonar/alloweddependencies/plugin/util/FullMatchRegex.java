@@ -0,0 +1,191 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.util;
+
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * A regex allow-list row which must match the whole candidate.
+ *
+ * Unlike a {@code regex:} row, which is searched for at every offset of the
+ * candidate, a full-match row is anchored at both ends. That lets the row be
+ * analysed up front for the literal prefix every match must start with and the
+ * minimum length of any match, so most candidates are rejected with a length
+ * check and a few character comparisons before the regex engine runs.
+ */
+final class FullMatchRegex implements Predicate<String> {
+
+    /**
+     * Zero width escapes, which do not consume a character.
+     */
+    private static final String ZERO_WIDTH_ESCAPES = "bBAGzZk";
+
+    private final Predicate<String> row;
+
+    private final String prefix;
+
+    private final boolean caseInsensitive;
+
+    private final int minimumLength;
+
+    private FullMatchRegex(final Predicate<String> row, final String prefix, final boolean caseInsensitive,
+            final int minimumLength) {
+        this.row = row;
+        this.prefix = prefix;
+        this.caseInsensitive = caseInsensitive;
+        this.minimumLength = minimumLength;
+    }
+
+    /**
+     * Create a full-match predicate for a row.
+     *
+     * @param pattern the row pattern
+     * @param budget  the step budget for each evaluation, see
+     *                {@link GuardedRegex}
+     * @return the predicate.
+     */
+    static FullMatchRegex compile(final Pattern pattern, final long budget) {
+        return compile(pattern, budget, false);
+    }
+
+    /**
+     * Create a full-match predicate for a row.
+     *
+     * @param pattern         the row pattern
+     * @param budget          the step budget for each evaluation, see
+     *                        {@link GuardedRegex}
+     * @param exceededMatches true if the row matches a candidate which exceeds
+     *                        the budget, as a deny row does
+     * @return the predicate.
+     */
+    static FullMatchRegex compile(final Pattern pattern, final long budget, final boolean exceededMatches) {
+        final Predicate<String> row = GuardedRegex.matching(pattern, budget, exceededMatches);
+        final String expression = pattern.pattern();
+
+        /* Only analyse expressions whose syntax the scan below understands */
+        if ((pattern.flags() & ~Pattern.CASE_INSENSITIVE) != 0 || expression.contains("\\Q")
+                || RegexLiteralIndex.UNSAFE_INLINE_FLAGS.matcher(expression).find()) {
+            return new FullMatchRegex(row, "", false, 0);
+        }
+
+        final boolean caseInsensitive = (pattern.flags() & Pattern.CASE_INSENSITIVE) != 0;
+        final StringBuilder prefix = new StringBuilder();
+        boolean prefixOpen = true;
+        long minimumLength = 0;
+        int position = 0;
+        while (position < expression.length()) {
+            final char c = expression.charAt(position);
+            boolean literal = false;
+            char value = c;
+            int atomLength = 1;
+
+            if (c == '|') {
+                /* A top level alternation means neither bound holds for every branch */
+                return new FullMatchRegex(row, "", false, 0);
+            } else if (c == '\\') {
+                if (position + 1 >= expression.length()) {
+                    return new FullMatchRegex(row, "", false, 0);
+                }
+                final char escaped = expression.charAt(position + 1);
+                if (Character.isLetterOrDigit(escaped)) {
+                    position = RegexLiteralIndex.skipEscape(expression, position);
+                    atomLength = ZERO_WIDTH_ESCAPES.indexOf(escaped) >= 0 || Character.isDigit(escaped) ? 0 : 1;
+                } else {
+                    literal = true;
+                    value = escaped;
+                    position += 2;
+                }
+            } else if (c == '[') {
+                position = RegexLiteralIndex.skipClass(expression, position);
+            } else if (c == '(') {
+                /* Groups may match nothing, so they only ever end the prefix */
+                position = RegexLiteralIndex.skipGroup(expression, position);
+                atomLength = 0;
+            } else if (c == '^' || c == '$') {
+                position++;
+                atomLength = 0;
+            } else if (c == '.') {
+                position++;
+            } else {
+                literal = true;
+                position++;
+            }
+
+            /* Apply any quantifier to the atom */
+            int repeats = 1;
+            final boolean quantified = position < expression.length()
+                && "*+?{".indexOf(expression.charAt(position)) >= 0;
+            if (quantified) {
+                final char quantifier = expression.charAt(position);
+                if (quantifier == '{') {
+                    final int close = expression.indexOf('}', position);
+                    if (close < 0) {
+                        return new FullMatchRegex(row, "", false, 0);
+                    }
+                    repeats = parseMinimumRepeats(expression.substring(position + 1, close));
+                    position = close + 1;
+                } else {
+                    repeats = quantifier == '+' ? 1 : 0;
+                    position++;
+                }
+                if (position < expression.length() && "?+".indexOf(expression.charAt(position)) >= 0) {
+                    /* Lazy or possessive forms have the same bounds */
+                    position++;
+                }
+            }
+            minimumLength += (long) atomLength * repeats;
+
+            if (prefixOpen) {
+                if (literal && repeats > 0) {
+                    prefix.append(caseInsensitive ? RegexLiteralIndex.foldAscii(value) : value);
+                }
+                /* A leading ^ is the only non-literal atom the prefix can continue past */
+                prefixOpen = !quantified && (literal || (c == '^' && prefix.length() == 0));
+            }
+        }
+
+        return new FullMatchRegex(row, prefix.toString(), caseInsensitive,
+            (int) Math.min(minimumLength, Integer.MAX_VALUE));
+    }
+
+    private static int parseMinimumRepeats(final String bounds) {
+        final int comma = bounds.indexOf(',');
+        final String minimum = comma < 0 ? bounds : bounds.substring(0, comma);
+        try {
+            return Integer.parseInt(minimum.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    @Override
+    public boolean test(final String candidate) {
+        if (candidate.length() < minimumLength) {
+            return false;
+        }
+        for (int index = 0; index < prefix.length(); index++) {
+            final char c = candidate.charAt(index);
+            if ((caseInsensitive ? RegexLiteralIndex.foldAscii(c) : c) != prefix.charAt(index)) {
+                return false;
+            }
+        }
+        return row.test(candidate);
+    }
+
+    /**
+     * Get the literal every match must start with.
+     *
+     * @return the prefix, case folded if the row is case-insensitive.
+     */
+    String prefix() {
+        return prefix;
+    }
+
+    /**
+     * Get the length every match must at least have.
+     *
+     * @return the minimum length.
+     */
+    int minimumLength() {
+        return minimumLength;
+    }
+}
@@ -0,0 +1,461 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The exact index of an allow-list compiled into a class of its own.
+ *
+ * The generated class holds a single method which switches on the folded hash
+ * of an ASCII candidate and compares it against the keys sharing that hash as
+ * constants, so the JIT sees the whole lookup as straight-line code with no
+ * table to load and no array to probe. Classes are written directly as
+ * bytecode, as the plugin ships no bytecode library, and are defined as hidden
+ * classes where the JVM supports them, so they are unloaded with the
+ * allow-list. Otherwise they are defined as ordinary classes in this package.
+ *
+ * Generation is optional and best effort: {@link #generate(KeyFolder, Map)}
+ * returns null when the index is too large for the JIT to compile the method,
+ * or when the class cannot be defined, and the allow-list keeps using its
+ * {@link FoldedKeyMap}. Candidates which are not ASCII are always looked up in
+ * the map.
+ */
+abstract class GeneratedExactRows {
+
+    /**
+     * Returned by {@link #rowOf(String, int)} when no key matches.
+     */
+    static final int NO_ROW = Integer.MIN_VALUE;
+
+    /**
+     * The most keys compiled into a class. Each key takes around twenty bytes
+     * of bytecode, and the JIT does not compile methods larger than 8000 bytes.
+     */
+    static final int MAX_KEYS = 256;
+
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(GeneratedExactRows.class);
+
+    private static final String BASE_CLASS = GeneratedExactRows.class.getName().replace('.', '/');
+
+    private static final String FOLDER_CLASS = KeyFolder.class.getName().replace('.', '/');
+
+    private static final AtomicLong CLASS_COUNTER = new AtomicLong();
+
+    /**
+     * Used by the generated class to compare candidates against its keys.
+     */
+    final KeyFolder folder;
+
+    GeneratedExactRows(final KeyFolder folder) {
+        this.folder = folder;
+    }
+
+    /**
+     * Get the value held for the key an ASCII candidate folds to.
+     *
+     * @param candidate the candidate, which must be ASCII
+     * @param hash      the folded hash of the candidate, see
+     *                  {@link KeyFolder#foldedHash(String)}
+     * @return the value, or {@link #NO_ROW} if no key matches.
+     */
+    abstract int rowOf(String candidate, int hash);
+
+    /**
+     * Generate a class holding the keys of an exact index.
+     *
+     * @param folder the folder the keys were folded with
+     * @param rows   the folded keys mapped to their values, which must not be
+     *               {@link #NO_ROW}
+     * @return the compiled index, or null if it could not be generated.
+     */
+    static GeneratedExactRows generate(final KeyFolder folder, final Map<String, Integer> rows) {
+        if (rows.isEmpty() || rows.size() > MAX_KEYS) {
+            return null;
+        }
+        for (int value : rows.values()) {
+            if (value < Short.MIN_VALUE || value > Short.MAX_VALUE) {
+                return null;
+            }
+        }
+
+        try {
+            final String className = BASE_CLASS + "$$Generated" + CLASS_COUNTER.incrementAndGet();
+            final Class<?> generated = define(new ClassWriter(className).write(rows));
+            return (GeneratedExactRows) generated.getDeclaredConstructor(KeyFolder.class).newInstance(folder);
+        } catch (ReflectiveOperationException | LinkageError | IOException | RuntimeException e) {
+            LOG.debug("Exact allow-list rows could not be compiled into a class, using the hash index", e);
+            return null;
+        }
+    }
+
+    /**
+     * Define a class in this package, as a hidden class where the JVM
+     * supports them.
+     */
+    private static Class<?> define(final byte[] bytes) throws ReflectiveOperationException {
+        final MethodHandles.Lookup lookup = MethodHandles.lookup();
+        final Class<?> optionType;
+        try {
+            optionType = Class.forName("java.lang.invoke.MethodHandles$Lookup$ClassOption");
+        } catch (ClassNotFoundException e) {
+            return lookup.defineClass(bytes);
+        }
+        final Method defineHiddenClass = MethodHandles.Lookup.class.getMethod("defineHiddenClass", byte[].class,
+            boolean.class, Array.newInstance(optionType, 0).getClass());
+        final Object hidden = defineHiddenClass.invoke(lookup, bytes, true, Array.newInstance(optionType, 0));
+        return ((MethodHandles.Lookup) hidden).lookupClass();
+    }
+
+    /**
+     * Writes the class file of a generated index.
+     */
+    private static final class ClassWriter {
+
+        private static final int ACC_PUBLIC = 0x0001;
+
+        private static final int ACC_FINAL = 0x0010;
+
+        private static final int ACC_SUPER = 0x0020;
+
+        private static final int CLASS_FILE_VERSION = 55;
+
+        private static final String ROW_OF_DESCRIPTOR = "(Ljava/lang/String;I)I";
+
+        private final String className;
+
+        private final ConstantPool constants = new ConstantPool();
+
+        private ClassWriter(final String className) {
+            this.className = className;
+        }
+
+        private byte[] write(final Map<String, Integer> rows) throws IOException {
+            final int thisClass = constants.classRef(className);
+            final int superClass = constants.classRef(BASE_CLASS);
+            final int codeName = constants.utf8("Code");
+            final int constructorName = constants.utf8("<init>");
+            final int constructorDescriptor = constants.utf8("(L" + FOLDER_CLASS + ";)V");
+            final int rowOfName = constants.utf8("rowOf");
+            final int rowOfDescriptor = constants.utf8(ROW_OF_DESCRIPTOR);
+            final byte[] constructor = constructor();
+            final byte[] rowOf = rowOf(rows);
+
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(CLASS_FILE_VERSION);
+            constants.write(out);
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(0);
+            out.writeShort(0);
+            out.writeShort(2);
+            writeMethod(out, constructorName, constructorDescriptor, codeName, constructor);
+            writeMethod(out, rowOfName, rowOfDescriptor, codeName, rowOf);
+            out.writeShort(0);
+            out.flush();
+            return bytes.toByteArray();
+        }
+
+        private byte[] constructor() {
+            final Code code = new Code(2, 2, constants.utf8("StackMapTable"));
+            code.op(0x2a);
+            code.op(0x2b);
+            code.opShort(0xb7, constants.methodRef(BASE_CLASS, "<init>", "(L" + FOLDER_CLASS + ";)V"));
+            code.op(0xb1);
+            return code.bytes();
+        }
+
+        /**
+         * Write a switch on the hash, and for each hash a comparison of the
+         * candidate against every key with that hash.
+         */
+        private byte[] rowOf(final Map<String, Integer> rows) {
+            final Map<Integer, List<Map.Entry<String, Integer>>> buckets = new TreeMap<>();
+            rows.entrySet().forEach(row -> buckets.computeIfAbsent(row.getKey().hashCode(),
+                hash -> new ArrayList<>()).add(row));
+
+            final int folderField = constants.fieldRef(BASE_CLASS, "folder", "L" + FOLDER_CLASS + ";");
+            final int matches = constants.methodRef(FOLDER_CLASS, "matches",
+                "(Ljava/lang/String;Ljava/lang/String;)Z");
+            final int noRow = constants.integer(NO_ROW);
+
+            final Code code = new Code(3, 3, constants.utf8("StackMapTable"));
+            code.op(0x1c);
+            final int switchStart = code.position();
+            code.op(0xab);
+            while (code.position() % 4 != 0) {
+                code.op(0);
+            }
+            final int defaultOffset = code.position();
+            code.int32(0);
+            code.int32(buckets.size());
+            final Map<Integer, Integer> caseOffsets = new LinkedHashMap<>();
+            for (int hash : buckets.keySet()) {
+                code.int32(hash);
+                caseOffsets.put(hash, code.position());
+                code.int32(0);
+            }
+
+            for (Map.Entry<Integer, List<Map.Entry<String, Integer>>> bucket : buckets.entrySet()) {
+                code.patchInt32(caseOffsets.get(bucket.getKey()), code.position() - switchStart);
+                code.frame();
+                for (Map.Entry<String, Integer> row : bucket.getValue()) {
+                    code.op(0x2a);
+                    code.opShort(0xb4, folderField);
+                    code.op(0x2b);
+                    code.opShort(0x13, constants.string(row.getKey()));
+                    code.opShort(0xb6, matches);
+                    final int branch = code.position();
+                    code.opShort(0x99, 0);
+                    code.opShort(0x11, row.getValue());
+                    code.op(0xac);
+                    code.patchInt16(branch + 1, code.position() - branch);
+                    code.frame();
+                }
+                code.opShort(0x13, noRow);
+                code.op(0xac);
+            }
+
+            code.patchInt32(defaultOffset, code.position() - switchStart);
+            code.frame();
+            code.opShort(0x13, noRow);
+            code.op(0xac);
+            return code.bytes();
+        }
+
+        private static void writeMethod(final DataOutputStream out, final int name, final int descriptor,
+                final int codeName, final byte[] code) throws IOException {
+            out.writeShort(ACC_PUBLIC);
+            out.writeShort(name);
+            out.writeShort(descriptor);
+            out.writeShort(1);
+            out.writeShort(codeName);
+            out.writeInt(code.length);
+            out.write(code);
+        }
+    }
+
+    /**
+     * The body of a Code attribute.
+     */
+    private static final class Code {
+
+        private final int maxStack;
+
+        private final int maxLocals;
+
+        private final int stackMapName;
+
+        private final ByteArrayOutputStream code = new ByteArrayOutputStream();
+
+        /**
+         * Branch offsets to fill in once their targets are known, as position,
+         * width and value.
+         */
+        private final List<int[]> patches = new ArrayList<>();
+
+        private final TreeSet<Integer> frames = new TreeSet<>();
+
+        private Code(final int maxStack, final int maxLocals, final int stackMapName) {
+            this.maxStack = maxStack;
+            this.maxLocals = maxLocals;
+            this.stackMapName = stackMapName;
+        }
+
+        private int position() {
+            return code.size();
+        }
+
+        private void op(final int opcode) {
+            code.write(opcode);
+        }
+
+        private void opShort(final int opcode, final int operand) {
+            code.write(opcode);
+            code.write(operand >> 8);
+            code.write(operand);
+        }
+
+        private void int32(final int value) {
+            code.write(value >> 24);
+            code.write(value >> 16);
+            code.write(value >> 8);
+            code.write(value);
+        }
+
+        private void patchInt32(final int position, final int value) {
+            patches.add(new int[] {position, 4, value});
+        }
+
+        private void patchInt16(final int position, final int value) {
+            patches.add(new int[] {position, 2, value});
+        }
+
+        /**
+         * Mark the current position as a branch target. Every target has the
+         * locals the method starts with and an empty stack.
+         */
+        private void frame() {
+            frames.add(position());
+        }
+
+        private byte[] bytes() {
+            final byte[] patched = code.toByteArray();
+            for (int[] patch : patches) {
+                for (int index = 0; index < patch[1]; index++) {
+                    patched[patch[0] + index] = (byte) (patch[2] >> (8 * (patch[1] - 1 - index)));
+                }
+            }
+
+            final ByteArrayOutputStream attribute = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(attribute)) {
+                out.writeShort(maxStack);
+                out.writeShort(maxLocals);
+                out.writeInt(patched.length);
+                out.write(patched);
+                out.writeShort(0);
+                if (frames.isEmpty()) {
+                    out.writeShort(0);
+                } else {
+                    out.writeShort(1);
+                    out.writeShort(stackMapName);
+                    final ByteArrayOutputStream table = new ByteArrayOutputStream();
+                    final DataOutputStream tableOut = new DataOutputStream(table);
+                    tableOut.writeShort(frames.size());
+                    int previous = -1;
+                    for (int frame : frames) {
+                        final int delta = frame - previous - 1;
+                        if (delta < 64) {
+                            tableOut.writeByte(delta);
+                        } else {
+                            tableOut.writeByte(251);
+                            tableOut.writeShort(delta);
+                        }
+                        previous = frame;
+                    }
+                    tableOut.flush();
+                    out.writeInt(table.size());
+                    out.write(table.toByteArray());
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return attribute.toByteArray();
+        }
+    }
+
+    /**
+     * The constant pool of a generated class, with each constant written once.
+     */
+    private static final class ConstantPool {
+
+        private final Map<String, Integer> indexes = new LinkedHashMap<>();
+
+        private final ByteArrayOutputStream entries = new ByteArrayOutputStream();
+
+        private final DataOutputStream out = new DataOutputStream(entries);
+
+        private int utf8(final String value) {
+            return add("U" + value, () -> {
+                out.writeByte(1);
+                out.writeUTF(value);
+            });
+        }
+
+        private int integer(final int value) {
+            return add("I" + value, () -> {
+                out.writeByte(3);
+                out.writeInt(value);
+            });
+        }
+
+        private int classRef(final String name) {
+            final int nameIndex = utf8(name);
+            return add("C" + name, () -> {
+                out.writeByte(7);
+                out.writeShort(nameIndex);
+            });
+        }
+
+        private int string(final String value) {
+            final int valueIndex = utf8(value);
+            return add("S" + value, () -> {
+                out.writeByte(8);
+                out.writeShort(valueIndex);
+            });
+        }
+
+        private int fieldRef(final String owner, final String name, final String descriptor) {
+            return memberRef(9, owner, name, descriptor);
+        }
+
+        private int methodRef(final String owner, final String name, final String descriptor) {
+            return memberRef(10, owner, name, descriptor);
+        }
+
+        private int memberRef(final int tag, final String owner, final String name, final String descriptor) {
+            final int ownerIndex = classRef(owner);
+            final int nameIndex = utf8(name);
+            final int descriptorIndex = utf8(descriptor);
+            final int nameAndType = add("N" + name + " " + descriptor, () -> {
+                out.writeByte(12);
+                out.writeShort(nameIndex);
+                out.writeShort(descriptorIndex);
+            });
+            return add(tag + owner + "." + name + " " + descriptor, () -> {
+                out.writeByte(tag);
+                out.writeShort(ownerIndex);
+                out.writeShort(nameAndType);
+            });
+        }
+
+        private int add(final String key, final Entry entry) {
+            final Integer existing = indexes.get(key);
+            if (existing != null) {
+                return existing;
+            }
+            try {
+                entry.write();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            final int index = indexes.size() + 1;
+            indexes.put(key, index);
+            return index;
+        }
+
+        private void write(final DataOutputStream target) throws IOException {
+            out.flush();
+            target.writeShort(indexes.size() + 1);
+            target.write(entries.toByteArray());
+        }
+
+        /**
+         * Writes a constant pool entry.
+         */
+        private interface Entry {
+
+            void write() throws IOException;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.util;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A trie of {@code glob:} allow-list rows.
+ *
+ * Coordinates are treated as segments separated by {@code .}, {@code /} or
+ * {@code :}. Within a glob, {@code *} matches any run of characters inside a
+ * single segment and a trailing {@code **} matches everything that follows.
+ * All other characters match themselves, ignoring case. Rows sharing a prefix
+ * share trie nodes, so a lookup costs a walk proportional to the length of the
+ * candidate rather than one evaluation per row.
+ */
+public final class GlobTrie {
+
+    private static final String SEPARATORS = ".:/";
+
+    private static final String ANY_REMAINDER = "**";
+
+    private final Node root;
+
+    private final int size;
+
+    private GlobTrie(final Node root, final int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Create a new builder for a trie.
+     *
+     * @return the builder.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Test if a candidate matches any of the globs in this trie.
+     *
+     * @param candidate the candidate
+     * @return true if a glob matches.
+     */
+    public boolean test(final CharSequence candidate) {
+        return candidate != null && size > 0 && matches(root, candidate, 0);
+    }
+
+    /**
+     * Get the number of globs held in this trie.
+     *
+     * @return the glob count.
+     */
+    public int size() {
+        return size;
+    }
+
+    private static boolean matches(final Node node, final CharSequence candidate, final int position) {
+        if (node.anyRemainder) {
+            return true;
+        }
+
+        if (position == candidate.length()) {
+            return node.terminal || (node.star != null && matches(node.star, candidate, position));
+        }
+
+        final Node child = node.child(fold(candidate.charAt(position)));
+        if (child != null && matches(child, candidate, position + 1)) {
+            return true;
+        }
+
+        if (node.star != null) {
+            /* A single star consumes zero or more characters up to the next separator */
+            for (int end = position; end <= candidate.length(); end++) {
+                if (matches(node.star, candidate, end)) {
+                    return true;
+                }
+                if (end < candidate.length() && isSeparator(candidate.charAt(end))) {
+                    break;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isSeparator(final char c) {
+        return SEPARATORS.indexOf(c) >= 0;
+    }
+
+    private static char fold(final char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    /**
+     * A node within the trie.
+     */
+    private static final class Node {
+
+        private final Map<Character, Node> children = new TreeMap<>();
+
+        private char[] labels = new char[0];
+
+        private Node[] targets = new Node[0];
+
+        private Node star;
+
+        private boolean terminal;
+
+        private boolean anyRemainder;
+
+        private Node child(final char c) {
+            /* Nodes rarely have many children, a linear scan avoids boxing the key */
+            for (int index = 0; index < labels.length; index++) {
+                if (labels[index] == c) {
+                    return targets[index];
+                }
+            }
+            return null;
+        }
+
+        private void freeze() {
+            labels = new char[children.size()];
+            targets = new Node[children.size()];
+            int index = 0;
+            for (Map.Entry<Character, Node> entry : children.entrySet()) {
+                labels[index] = entry.getKey();
+                targets[index] = entry.getValue();
+                entry.getValue().freeze();
+                index++;
+            }
+            if (star != null) {
+                star.freeze();
+            }
+        }
+    }
+
+    /**
+     * Builder for {@link GlobTrie} instances.
+     */
+    public static final class Builder {
+
+        private final Node root = new Node();
+
+        private int size;
+
+        private Builder() {
+        }
+
+        /**
+         * Add a glob to the trie.
+         *
+         * @param glob the glob, without any row prefix
+         * @return this builder.
+         * @throws IllegalArgumentException if {@code **} is used anywhere other
+         *                                  than at the end of the glob.
+         */
+        public Builder add(final String glob) {
+            final int anyRemainder = glob.indexOf(ANY_REMAINDER);
+            if (anyRemainder >= 0 && anyRemainder != glob.length() - ANY_REMAINDER.length()) {
+                throw new IllegalArgumentException("** is only supported at the end of a glob: " + glob);
+            }
+
+            final int literalEnd = anyRemainder >= 0 ? anyRemainder : glob.length();
+            Node node = root;
+            for (int position = 0; position < literalEnd; position++) {
+                final char c = glob.charAt(position);
+                if (c == '*') {
+                    if (node.star == null) {
+                        node.star = new Node();
+                    }
+                    node = node.star;
+                } else {
+                    node = node.children.computeIfAbsent(fold(c), key -> new Node());
+                }
+            }
+
+            if (anyRemainder >= 0) {
+                node.anyRemainder = true;
+            } else {
+                node.terminal = true;
+            }
+            size++;
+            return this;
+        }
+
+        /**
+         * Create the trie.
+         *
+         * @return the trie.
+         */
+        public GlobTrie build() {
+            root.freeze();
+            return new GlobTrie(root, size);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.util;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Evaluates a regex allow-list row with a cap on the work done per candidate.
+ *
+ * The candidate is handed to the regex engine through a {@link CharSequence}
+ * which counts every character read. Backtracking re-reads characters, so a
+ * catastrophic pattern exhausts the budget quickly and the evaluation is
+ * abandoned and the row reported, so a pathological row costs bounded time
+ * instead of stalling the analysis. An allow row is then treated as not
+ * matching, and a deny row as matching, so the row never lets a dependency
+ * through that it might have rejected.
+ */
+final class GuardedRegex implements Predicate<String> {
+
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(GuardedRegex.class);
+
+    private final Pattern pattern;
+
+    private final long budget;
+
+    /**
+     * If the pattern must match the whole candidate, rather than be found
+     * within it.
+     */
+    private final boolean fullMatch;
+
+    /**
+     * The verdict when the budget is exceeded, true for a deny row.
+     */
+    private final boolean exceededMatches;
+
+    /**
+     * If the row has already been reported as exceeding its budget.
+     */
+    private final AtomicBoolean reported = new AtomicBoolean();
+
+    private GuardedRegex(final Pattern pattern, final long budget, final boolean fullMatch,
+            final boolean exceededMatches) {
+        this.pattern = pattern;
+        this.budget = budget;
+        this.fullMatch = fullMatch;
+        this.exceededMatches = exceededMatches;
+    }
+
+    /**
+     * Create a predicate for a regex row.
+     *
+     * @param pattern the row pattern
+     * @param budget  the maximum number of characters the regex engine may read
+     *                per candidate, zero or less to evaluate without a budget
+     * @return the predicate.
+     */
+    static Predicate<String> of(final Pattern pattern, final long budget) {
+        return of(pattern, budget, false);
+    }
+
+    /**
+     * Create a predicate for a regex row.
+     *
+     * @param pattern         the row pattern
+     * @param budget          the maximum number of characters the regex
+     *                        engine may read per candidate, zero or less to
+     *                        evaluate without a budget
+     * @param exceededMatches true if the row matches a candidate which exceeds
+     *                        the budget, as a deny row does
+     * @return the predicate.
+     */
+    static Predicate<String> of(final Pattern pattern, final long budget, final boolean exceededMatches) {
+        return budget > 0 ? new GuardedRegex(pattern, budget, false, exceededMatches) : pattern.asPredicate();
+    }
+
+    /**
+     * Create a predicate for a regex row which must match the whole candidate.
+     *
+     * @param pattern the row pattern
+     * @param budget  the maximum number of characters the regex engine may read
+     *                per candidate, zero or less to evaluate without a budget
+     * @return the predicate.
+     */
+    static Predicate<String> matching(final Pattern pattern, final long budget) {
+        return matching(pattern, budget, false);
+    }
+
+    /**
+     * Create a predicate for a regex row which must match the whole candidate.
+     *
+     * @param pattern         the row pattern
+     * @param budget          the maximum number of characters the regex
+     *                        engine may read per candidate, zero or less to
+     *                        evaluate without a budget
+     * @param exceededMatches true if the row matches a candidate which exceeds
+     *                        the budget, as a deny row does
+     * @return the predicate.
+     */
+    static Predicate<String> matching(final Pattern pattern, final long budget, final boolean exceededMatches) {
+        return budget > 0 ? new GuardedRegex(pattern, budget, true, exceededMatches) : pattern.asMatchPredicate();
+    }
+
+    @Override
+    public boolean test(final String candidate) {
+        try {
+            return fullMatch ? matches(pattern, candidate, budget) : find(pattern, candidate, budget);
+        } catch (BudgetExceededException e) {
+            if (reported.compareAndSet(false, true)) {
+                LOG.warn("Allow-list regex row '{}' exceeded its budget of {} steps on '{}' and is treated as "
+                    + "{}. Simplify the expression to avoid backtracking.", pattern.pattern(), budget, candidate,
+                    exceededMatches ? "matching" : "not matching");
+            } else {
+                LOG.debug("Allow-list regex row '{}' exceeded its budget on '{}'", pattern.pattern(), candidate);
+            }
+            return exceededMatches;
+        }
+    }
+
+    /**
+     * Search for a pattern in a candidate within a budget.
+     *
+     * @param pattern   the pattern
+     * @param candidate the candidate
+     * @param budget    the maximum number of characters the regex engine may
+     *                  read
+     * @return true if the pattern was found.
+     * @throws BudgetExceededException if the budget was exhausted.
+     */
+    static boolean find(final Pattern pattern, final String candidate, final long budget) {
+        return pattern.matcher(new BudgetedSequence(candidate, new long[] {budget})).find();
+    }
+
+    /**
+     * Match a pattern against a whole candidate within a budget.
+     *
+     * @param pattern   the pattern
+     * @param candidate the candidate
+     * @param budget    the maximum number of characters the regex engine may
+     *                  read
+     * @return true if the pattern matched the whole candidate.
+     * @throws BudgetExceededException if the budget was exhausted.
+     */
+    static boolean matches(final Pattern pattern, final String candidate, final long budget) {
+        return pattern.matcher(new BudgetedSequence(candidate, new long[] {budget})).matches();
+    }
+
+    /**
+     * Thrown when the regex engine exhausts its budget. No stack trace is
+     * captured, as the exception is always handled.
+     */
+    static final class BudgetExceededException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private BudgetExceededException() {
+            super("Regex evaluation budget exceeded", null, false, false);
+        }
+    }
+
+    /**
+     * A view of a string which charges each character read against a shared
+     * budget.
+     */
+    private static final class BudgetedSequence implements CharSequence {
+
+        private final String value;
+
+        private final long[] remaining;
+
+        private BudgetedSequence(final String value, final long[] remaining) {
+            this.value = value;
+            this.remaining = remaining;
+        }
+
+        @Override
+        public int length() {
+            return value.length();
+        }
+
+        @Override
+        public char charAt(final int index) {
+            if (--remaining[0] < 0) {
+                throw new BudgetExceededException();
+            }
+            return value.charAt(index);
+        }
+
+        @Override
+        public CharSequence subSequence(final int start, final int end) {
+            return new BudgetedSequence(value.substring(start, end), remaining);
+        }
+
+        @Override
+        public String toString() {
+            return value;
+        }
+    }
+}
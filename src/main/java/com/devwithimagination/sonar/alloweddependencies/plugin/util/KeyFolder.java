@@ -0,0 +1,178 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.util;
+
+import java.util.Locale;
+
+/**
+ * Folds dependency names into the keys exact rows are stored under.
+ *
+ * ASCII names, which is almost every dependency name, are folded, hashed and
+ * compared against a stored key in a single pass over the characters without
+ * building an intermediate string. Names containing any other character take a
+ * slower path which folds them with {@link String#toLowerCase(Locale)}, so the
+ * result is always the same as folding the whole string.
+ */
+public final class KeyFolder {
+
+    /**
+     * Folds names ignoring case only.
+     */
+    public static final KeyFolder CASE_INSENSITIVE = new KeyFolder(false);
+
+    /**
+     * Folds Python package names using the PEP 503 normalization shape:
+     * surrounding whitespace is removed, case is ignored and every run of
+     * {@code -}, {@code _} and {@code .} is treated as a single {@code -}.
+     */
+    public static final KeyFolder PYTHON_PACKAGE_NAME = new KeyFolder(true);
+
+    private static final char PACKAGE_NAME_SEPARATOR = '-';
+
+    /**
+     * Returned by {@link #foldedHash(String)} for names which are not ASCII.
+     */
+    static final long NOT_ASCII = -1L;
+
+    /**
+     * If the folder trims and collapses separators in the same way as Python
+     * package names.
+     */
+    private final boolean packageName;
+
+    private KeyFolder(final boolean packageName) {
+        this.packageName = packageName;
+    }
+
+    /**
+     * Fold a name into its key.
+     *
+     * @param value the name
+     * @return the folded key.
+     */
+    public String fold(final String value) {
+        if (!packageName) {
+            /* toLowerCase returns the same instance when nothing changes, which is the common case */
+            return value.toLowerCase(Locale.ROOT);
+        }
+
+        final String lowered = value.trim().toLowerCase(Locale.ROOT);
+        final StringBuilder folded = new StringBuilder(lowered.length());
+        boolean inSeparatorRun = false;
+        for (int index = 0; index < lowered.length(); index++) {
+            final char c = lowered.charAt(index);
+            if (isPackageNameSeparator(c)) {
+                if (!inSeparatorRun) {
+                    folded.append(PACKAGE_NAME_SEPARATOR);
+                }
+                inSeparatorRun = true;
+            } else {
+                folded.append(c);
+                inSeparatorRun = false;
+            }
+        }
+        return folded.toString();
+    }
+
+    /**
+     * Get the form candidates take when they are evaluated against rows other
+     * than exact rows. Case is left alone, as those rows ignore case
+     * themselves, but Python package names are normalized so the rows can be
+     * written against the normalized form.
+     *
+     * @param candidate the candidate
+     * @return the candidate to evaluate.
+     */
+    String canonical(final String candidate) {
+        return packageName ? fold(candidate) : candidate;
+    }
+
+    /**
+     * Compute the hash of the folded key of an ASCII name without building the
+     * key. The hash is the same as {@link String#hashCode()} of the folded key.
+     *
+     * @param candidate the name
+     * @return the hash, or {@value #NOT_ASCII} if the name is not ASCII and
+     *         must be folded with {@link #fold(String)} instead.
+     */
+    long foldedHash(final String candidate) {
+        int start = 0;
+        int end = candidate.length();
+        if (packageName) {
+            while (start < end && candidate.charAt(start) <= ' ') {
+                start++;
+            }
+            while (end > start && candidate.charAt(end - 1) <= ' ') {
+                end--;
+            }
+        }
+
+        int hash = 0;
+        boolean inSeparatorRun = false;
+        for (int index = start; index < end; index++) {
+            final char c = candidate.charAt(index);
+            if (c > 0x7F) {
+                return NOT_ASCII;
+            }
+            if (packageName && isPackageNameSeparator(c)) {
+                if (!inSeparatorRun) {
+                    hash = 31 * hash + PACKAGE_NAME_SEPARATOR;
+                }
+                inSeparatorRun = true;
+            } else {
+                hash = 31 * hash + foldAscii(c);
+                inSeparatorRun = false;
+            }
+        }
+        return hash & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Check if an ASCII name folds to a key, without building its folded key.
+     *
+     * @param candidate the name, which must be ASCII
+     * @param key       the folded key
+     * @return true if the name folds to the key.
+     */
+    boolean matches(final String candidate, final String key) {
+        int start = 0;
+        int end = candidate.length();
+        if (packageName) {
+            while (start < end && candidate.charAt(start) <= ' ') {
+                start++;
+            }
+            while (end > start && candidate.charAt(end - 1) <= ' ') {
+                end--;
+            }
+        } else if (end != key.length()) {
+            return false;
+        }
+
+        int position = 0;
+        boolean inSeparatorRun = false;
+        for (int index = start; index < end; index++) {
+            final char c = candidate.charAt(index);
+            if (packageName && isPackageNameSeparator(c)) {
+                if (inSeparatorRun) {
+                    continue;
+                }
+                inSeparatorRun = true;
+                if (position >= key.length() || key.charAt(position++) != PACKAGE_NAME_SEPARATOR) {
+                    return false;
+                }
+            } else {
+                inSeparatorRun = false;
+                if (position >= key.length() || key.charAt(position++) != foldAscii(c)) {
+                    return false;
+                }
+            }
+        }
+        return position == key.length();
+    }
+
+    private static boolean isPackageNameSeparator(final char c) {
+        return c == '-' || c == '_' || c == '.';
+    }
+
+    private static char foldAscii(final char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+}
@@ -1,7 +1,11 @@
 package com.devwithimagination.sonar.alloweddependencies.plugin.util;
 
-import java.util.Arrays;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
 import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
@@ -13,52 +17,193 @@ import org.slf4j.LoggerFactory;
  */
 public class PredicateFactory {
 
-    private static final String REGEX_PREFIX = "regex:";
+    /**
+     * Prefix for regex rows which may match anywhere within the dependency.
+     */
+    public static final String REGEX_PREFIX = "regex:";
+
+    /**
+     * Prefix for glob rows, see {@link GlobTrie}.
+     */
+    public static final String GLOB_PREFIX = "glob:";
+
+    /**
+     * Prefix for regex rows which must match the whole dependency.
+     */
+    public static final String MATCH_PREFIX = "match:";
 
-    private static final String COMMENT_LINE_PREFIX = "#";
+    /**
+     * Prefix for rows naming a {@link BinaryAllowListIndex} file, relative to
+     * the project base directory.
+     */
+    public static final String INDEX_PREFIX = "index:";
+
+    /**
+     * Separates an exact row from the {@link VersionRange} of versions it
+     * allows, as in {@code lodash@[4.17.21,)}.
+     */
+    public static final char VERSION_SEPARATOR = '@';
 
     /**
      * Logger
      */
     private static final Logger LOG = LoggerFactory.getLogger(PredicateFactory.class);
 
+    /**
+     * The step budget for evaluating regex rows.
+     */
+    private final long regexStepBudget;
+
+    /**
+     * If {@value #REGEX_PREFIX} rows must match the whole dependency.
+     */
+    private final boolean regexFullMatch;
+
+    /**
+     * How the exact index of each allow-list is evaluated.
+     */
+    private final AllowList.MatcherEngine matcherEngine;
+
+    /**
+     * The directory relative {@value #INDEX_PREFIX} rows are resolved
+     * against, null for the directory the scanner was started in.
+     */
+    private final Path indexBaseDir;
+
+    /**
+     * Create a new factory using the default options.
+     */
+    public PredicateFactory() {
+        this(options());
+    }
+
+    /**
+     * Create a new factory.
+     *
+     * @param options the options for the allow-lists it creates, later
+     *                changes to them do not affect the factory.
+     */
+    public PredicateFactory(final Options options) {
+        this.regexStepBudget = options.regexStepBudget;
+        this.regexFullMatch = options.regexFullMatch;
+        this.matcherEngine = options.matcherEngine;
+        this.indexBaseDir = options.indexBaseDir;
+    }
+
+    /**
+     * Create the default options for a factory, to be changed as needed.
+     *
+     * @return the options.
+     */
+    public static Options options() {
+        return new Options();
+    }
+
     /**
      * Create a predicate that will match any of the dependencies.
      *
      * @param deps the newline seperated list of dependency items which are valid.
      *             If a row is prefixed with {@value #REGEX_PREFIX} then it will be
-     *             interpreted as a regular expression. Any line starting with '#'
-     *             will be ignored.
+     *             interpreted as a regular expression, if it is prefixed with
+     *             {@value #MATCH_PREFIX} it will be interpreted as a regular
+     *             expression which must match the whole dependency, and if it is
+     *             prefixed with {@value #GLOB_PREFIX} it will be interpreted as a
+     *             glob. Any line
+     *             starting with '#' will be ignored.
      * @return the created {@link Predicate}.
      */
     public Predicate<String> createPredicateForDependencyListString(final String deps) {
+        return createAllowList(deps, UnaryOperator.identity());
+    }
+
+    /**
+     * Create a compiled allow-list that will match any of the dependencies.
+     *
+     * @param deps            the newline seperated list of dependency items which
+     *                        are valid, in the same format as
+     *                        {@link #createPredicateForDependencyListString(String)}.
+     * @param exactNormalizer normalizer applied to exact rows before they are
+     *                        added to the index.
+     * @return the compiled {@link AllowList}.
+     */
+    public AllowList createAllowList(final String deps, final UnaryOperator<String> exactNormalizer) {
+        return createAllowList(deps, exactNormalizer, KeyFolder.CASE_INSENSITIVE);
+    }
+
+    /**
+     * Create a compiled allow-list that will match any of the dependencies.
+     *
+     * @param deps            the newline seperated list of dependency items which
+     *                        are valid, in the same format as
+     *                        {@link #createPredicateForDependencyListString(String)}.
+     * @param exactNormalizer normalizer applied to exact and glob rows before
+     *                        they are added to the allow-list.
+     * @param keyFolder       folder for exact rows and candidates, see
+     *                        {@link AllowList.Builder#keyFolder(KeyFolder)}.
+     * @return the compiled {@link AllowList}.
+     */
+    public AllowList createAllowList(final String deps, final UnaryOperator<String> exactNormalizer,
+            final KeyFolder keyFolder) {
+        return createAllowList(deps, null, exactNormalizer, keyFolder);
+    }
+
+    /**
+     * Create a compiled allow-list that will match any of the dependencies,
+     * with deny rows which take precedence over them. See
+     * {@link AllowList.Builder#deny(AllowList)}.
+     *
+     * @param deps            the newline seperated list of dependency items which
+     *                        are valid, in the same format as
+     *                        {@link #createPredicateForDependencyListString(String)}.
+     * @param deniedDeps      the newline seperated list of dependency items which
+     *                        are denied, in the same format, may be null.
+     * @param exactNormalizer normalizer applied to exact and glob rows before
+     *                        they are added to the allow-list.
+     * @param keyFolder       folder for exact rows and candidates, see
+     *                        {@link AllowList.Builder#keyFolder(KeyFolder)}.
+     * @return the compiled {@link AllowList}.
+     */
+    public AllowList createAllowList(final String deps, final String deniedDeps,
+            final UnaryOperator<String> exactNormalizer, final KeyFolder keyFolder) {
 
         LOG.info("Allowed dependencies: '{}'", deps);
 
-        if (deps == null) {
-            return (t -> false);
-        } else {
+        final AllowList.Builder builder = AllowList.builder().regexStepBudget(regexStepBudget).keyFolder(keyFolder)
+            .matcherEngine(matcherEngine);
+        for (String row : AllowList.rows(deps)) {
+            addRow(builder, row, exactNormalizer);
+        }
 
-            return Arrays.asList(deps.split("\\r?\\n"))
-                    .stream()
-                    .map(String::trim)
-                    .filter(v -> !v.isEmpty())
-                    .filter(v -> !v.startsWith(COMMENT_LINE_PREFIX))
-                    .sorted()
-                    .map(this::createPredicateForSingleDependencyRow)
-                    .reduce(x -> false, Predicate::or);
+        final List<String> deniedRows = AllowList.rows(deniedDeps);
+        if (!deniedRows.isEmpty()) {
+            LOG.info("Denied dependencies: '{}'", deniedDeps);
+            final AllowList.Builder deniedBuilder = AllowList.builder().regexStepBudget(regexStepBudget)
+                .exceededRegexRowsMatch(true).keyFolder(keyFolder).matcherEngine(matcherEngine);
+            deniedRows.forEach(row -> addRow(deniedBuilder, row, exactNormalizer));
+            builder.deny(deniedBuilder.build());
         }
+        return builder.build();
     }
 
     /**
-     * Create a predicate for a single dependency item.
+     * Add a single dependency row to the allow-list being built.
      *
-     * @param deps the newline seperated list of dependency items which are valid.
-     *             If a row is prefixed with {@value #REGEX_PREFIX} then it will be
-     *             interpreted as a regular expression.
-     * @return the created {@link Predicate}.
+     * @param builder         the builder to add the row to
+     * @param dep             the dependency row. If a row is prefixed with
+     *                        {@value #REGEX_PREFIX} then it will be interpreted as
+     *                        a regular expression, if it is prefixed with
+     *                        {@value #MATCH_PREFIX} it will be interpreted as a
+     *                        regular expression matching the whole dependency,
+     *                        if it is prefixed with {@value #GLOB_PREFIX} it
+     *                        will be interpreted as a glob, and if it is prefixed with
+     *                        {@value #INDEX_PREFIX} the remainder is the path
+     *                        of an index file holding exact rows, relative to
+     *                        the index base directory. Exact rows
+     *                        may end with {@value #VERSION_SEPARATOR} and a
+     *                        {@link VersionRange} to only allow those versions.
+     * @param exactNormalizer normalizer applied to exact rows.
      */
-    Predicate<String> createPredicateForSingleDependencyRow(final String dep) {
+    void addRow(final AllowList.Builder builder, final String dep, final UnaryOperator<String> exactNormalizer) {
 
         if (dep.startsWith(REGEX_PREFIX)) {
             /*
@@ -66,17 +211,204 @@ public class PredicateFactory {
              * insensitive flags
              */
             final String pattern = dep.substring(REGEX_PREFIX.length());
+            final Pattern compiled = compileRegex(pattern, "Invalid dependency allow-list regex: ");
+            if (regexFullMatch) {
+                builder.addFullMatchRegex(compiled);
+            } else {
+                builder.addRegex(compiled);
+            }
+        } else if (dep.startsWith(MATCH_PREFIX)) {
+            /* Anchored at both ends, so checked against the row's prefix and length first */
+            final String pattern = dep.substring(MATCH_PREFIX.length());
+            builder.addFullMatchRegex(compileRegex(pattern, "Invalid dependency allow-list regex: "));
+        } else if (dep.startsWith(GLOB_PREFIX)) {
+            /* Segment wildcards, these share a trie rather than using the regex engine */
+            final String glob = dep.substring(GLOB_PREFIX.length());
 
             try {
-                return Pattern.compile(pattern, Pattern.CASE_INSENSITIVE).asPredicate();
-            } catch (PatternSyntaxException e) {
-                throw new IllegalArgumentException("Invalid dependency allow-list regex: " + pattern, e);
+                builder.addGlob(exactNormalizer.apply(glob));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid dependency allow-list glob: " + glob, e);
             }
+        } else if (dep.startsWith(INDEX_PREFIX)) {
+            /* Precompiled exact rows, mapped from disk rather than parsed */
+            builder.addIndex(openIndex(dep.substring(INDEX_PREFIX.length()).trim(), indexBaseDir,
+                "Invalid dependency allow-list index: "));
         } else {
-            /* Exact string match */
-            return dep::equalsIgnoreCase;
+            final int rangeStart = versionRangeStart(dep, VERSION_SEPARATOR);
+            if (rangeStart > 0) {
+                /* Exact string match, only allowing some versions */
+                builder.addVersioned(exactNormalizer.apply(dep.substring(0, rangeStart)),
+                    parseVersionRange(dep.substring(rangeStart + 1), "Invalid dependency allow-list version range: "),
+                    dep);
+            } else {
+                /* Exact string match */
+                builder.addExact(exactNormalizer.apply(dep));
+            }
+        }
+
+    }
+
+    /**
+     * Compile a regex row. Rows are always case insensitive.
+     *
+     * @param pattern     the expression
+     * @param errorPrefix the message prefix used if the expression is invalid
+     * @return the compiled pattern.
+     * @throws IllegalArgumentException if the expression is invalid.
+     */
+    public static Pattern compileRegex(final String pattern, final String errorPrefix) {
+        try {
+            return Pattern.compile(pattern, Pattern.CASE_INSENSITIVE);
+        } catch (PatternSyntaxException e) {
+            throw new IllegalArgumentException(errorPrefix + pattern, e);
+        }
+    }
+
+    /**
+     * Find where the version range of an exact row starts.
+     *
+     * @param row       the row
+     * @param separator the character separating the name from the range
+     * @return the position of the separator which is followed by the opening
+     *         bracket of a range, or -1 if the row has no range.
+     */
+    public static int versionRangeStart(final String row, final char separator) {
+        int index = row.indexOf(separator);
+        while (index >= 0 && index < row.length() - 1) {
+            final char next = row.charAt(index + 1);
+            if (next == '[' || next == '(') {
+                return index;
+            }
+            index = row.indexOf(separator, index + 1);
+        }
+        return -1;
+    }
+
+    /**
+     * Parse the version range of an exact row.
+     *
+     * @param range       the range, in Maven notation
+     * @param errorPrefix the message prefix used if the range is invalid
+     * @return the range.
+     * @throws IllegalArgumentException if the range is invalid.
+     */
+    public static VersionRange parseVersionRange(final String range, final String errorPrefix) {
+        try {
+            return VersionRange.parse(range);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(errorPrefix + range, e);
         }
+    }
 
+    /**
+     * Memory-map an allow-list index file.
+     *
+     * @param path        the path of the file
+     * @param baseDir     the directory a relative path is resolved against,
+     *                    normally the project base directory, or null to
+     *                    resolve it against the directory the scanner was
+     *                    started in
+     * @param errorPrefix the message prefix used if the file cannot be opened
+     * @return the index.
+     * @throws IllegalArgumentException if the file cannot be opened.
+     */
+    public static BinaryAllowListIndex openIndex(final String path, final Path baseDir, final String errorPrefix) {
+        try {
+            final BinaryAllowListIndex index = BinaryAllowListIndex.open(
+                baseDir == null ? Paths.get(path) : baseDir.resolve(path));
+            LOG.info("Loaded {} rows from allow-list index {}", index.size(), path);
+            return index;
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalArgumentException(errorPrefix + path, e);
+        }
     }
 
+
+    /**
+     * Options for the allow-lists created by a {@link PredicateFactory}, or by
+     * the factories for other ecosystems which share its row syntax.
+     */
+    public static final class Options {
+
+        private long regexStepBudget = AllowList.DEFAULT_REGEX_STEP_BUDGET;
+
+        private boolean regexFullMatch;
+
+        private AllowList.MatcherEngine matcherEngine = AllowList.MatcherEngine.INTERPRETED;
+
+        private Path indexBaseDir;
+
+        private Options() {
+        }
+
+        /**
+         * Set the maximum number of characters the regex engine may read when
+         * evaluating a regex row against a candidate. Defaults to
+         * {@value AllowList#DEFAULT_REGEX_STEP_BUDGET}.
+         *
+         * @param budget the step budget, zero or less to disable the guard
+         * @return these options.
+         */
+        public Options regexStepBudget(final long budget) {
+            this.regexStepBudget = budget;
+            return this;
+        }
+
+        /**
+         * Set if {@value PredicateFactory#REGEX_PREFIX} rows must match the
+         * whole dependency, in the same way as
+         * {@value PredicateFactory#MATCH_PREFIX} rows, rather than be found
+         * anywhere within it. Defaults to false.
+         *
+         * @param fullMatch true to match the whole dependency
+         * @return these options.
+         */
+        public Options regexFullMatch(final boolean fullMatch) {
+            this.regexFullMatch = fullMatch;
+            return this;
+        }
+
+        /**
+         * Set how the exact index of each allow-list is evaluated. Defaults to
+         * {@link AllowList.MatcherEngine#INTERPRETED}.
+         *
+         * @param engine the matcher engine
+         * @return these options.
+         */
+        public Options matcherEngine(final AllowList.MatcherEngine engine) {
+            this.matcherEngine = engine;
+            return this;
+        }
+
+        /**
+         * Set the directory relative {@value PredicateFactory#INDEX_PREFIX}
+         * rows are resolved against, normally the project base directory.
+         * Defaults to null, resolving them against the directory the scanner
+         * was started in.
+         *
+         * @param baseDir the base directory, may be null
+         * @return these options.
+         */
+        public Options indexBaseDir(final Path baseDir) {
+            this.indexBaseDir = baseDir;
+            return this;
+        }
+
+        public long getRegexStepBudget() {
+            return regexStepBudget;
+        }
+
+        public boolean isRegexFullMatch() {
+            return regexFullMatch;
+        }
+
+        public AllowList.MatcherEngine getMatcherEngine() {
+            return matcherEngine;
+        }
+
+        public Path getIndexBaseDir() {
+            return indexBaseDir;
+        }
+    }
 }
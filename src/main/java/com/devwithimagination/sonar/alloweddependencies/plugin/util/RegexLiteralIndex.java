@@ -0,0 +1,390 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Prefilter for regex allow-list rows.
+ *
+ * Each indexed row has a literal which must occur in any string the row
+ * matches. The literals are held in an Aho-Corasick automaton so a single
+ * pass over a candidate finds the few rows worth running; every other row is
+ * skipped without invoking the regex engine.
+ */
+final class RegexLiteralIndex implements Predicate<String> {
+
+    /**
+     * The shortest literal worth indexing. Shorter literals occur in too many
+     * candidates to filter anything out.
+     */
+    private static final int MIN_LITERAL_LENGTH = 2;
+
+    /**
+     * Inline flags which change how the remainder of an expression is parsed or
+     * case folded, making literal extraction unreliable.
+     */
+    static final Pattern UNSAFE_INLINE_FLAGS = Pattern.compile("\\(\\?[a-zA-Z-]*[xuU]");
+
+    private static final int[] NO_OUTPUTS = new int[0];
+
+    private final List<Predicate<String>> rows;
+
+    private final char[][] labels;
+
+    private final int[][] targets;
+
+    private final int[] failure;
+
+    private final int[][] outputs;
+
+    private RegexLiteralIndex(final List<Predicate<String>> rows, final char[][] labels, final int[][] targets,
+            final int[] failure, final int[][] outputs) {
+        this.rows = rows;
+        this.labels = labels;
+        this.targets = targets;
+        this.failure = failure;
+        this.outputs = outputs;
+    }
+
+    /**
+     * Build an index for the supplied rows.
+     *
+     * @param rows     the row patterns
+     * @param literals the required literal for each row, as returned by
+     *                 {@link #requiredLiteral(String)}.
+     * @param budget   the step budget for each row evaluation, see
+     *                 {@link GuardedRegex}
+     * @return the index.
+     */
+    static RegexLiteralIndex build(final List<Pattern> rows, final List<String> literals, final long budget) {
+        final List<Predicate<String>> predicates = new ArrayList<>();
+        rows.forEach(row -> predicates.add(GuardedRegex.of(row, budget)));
+        return build(predicates, literals);
+    }
+
+    /**
+     * Build an index for the supplied rows. Several rows may share a literal.
+     *
+     * @param rows     the row predicates
+     * @param literals the required literal for each row, as returned by
+     *                 {@link #requiredLiteral(String)}.
+     * @return the index.
+     */
+    static RegexLiteralIndex build(final List<Predicate<String>> rows, final List<String> literals) {
+
+        /* Build the trie of literals */
+        final List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+        final List<List<Integer>> nodeOutputs = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        nodeOutputs.add(new ArrayList<>());
+
+        for (int row = 0; row < literals.size(); row++) {
+            int state = 0;
+            for (char c : literals.get(row).toCharArray()) {
+                Integer next = trie.get(state).get(c);
+                if (next == null) {
+                    next = trie.size();
+                    trie.add(new TreeMap<>());
+                    nodeOutputs.add(new ArrayList<>());
+                    trie.get(state).put(c, next);
+                }
+                state = next;
+            }
+            nodeOutputs.get(state).add(row);
+        }
+
+        /* Flatten the trie into sorted transition arrays */
+        final int size = trie.size();
+        final char[][] labels = new char[size][];
+        final int[][] targets = new int[size][];
+        for (int state = 0; state < size; state++) {
+            final Map<Character, Integer> transitions = trie.get(state);
+            labels[state] = new char[transitions.size()];
+            targets[state] = new int[transitions.size()];
+            int index = 0;
+            for (Map.Entry<Character, Integer> transition : transitions.entrySet()) {
+                labels[state][index] = transition.getKey();
+                targets[state][index] = transition.getValue();
+                index++;
+            }
+        }
+
+        /* Breadth first pass to compute the failure links and merged outputs */
+        final int[] failure = new int[size];
+        final Deque<Integer> queue = new ArrayDeque<>();
+        for (int target : targets[0]) {
+            queue.add(target);
+        }
+        while (!queue.isEmpty()) {
+            final int state = queue.remove();
+            for (int index = 0; index < labels[state].length; index++) {
+                final int child = targets[state][index];
+                int fallback = failure[state];
+                int next = transition(labels, targets, fallback, labels[state][index]);
+                while (fallback != 0 && next < 0) {
+                    fallback = failure[fallback];
+                    next = transition(labels, targets, fallback, labels[state][index]);
+                }
+                failure[child] = next < 0 || next == child ? 0 : next;
+                nodeOutputs.get(child).addAll(nodeOutputs.get(failure[child]));
+                queue.add(child);
+            }
+        }
+
+        final int[][] outputs = new int[size][];
+        for (int state = 0; state < size; state++) {
+            final List<Integer> stateOutputs = nodeOutputs.get(state);
+            outputs[state] = stateOutputs.isEmpty()
+                ? NO_OUTPUTS
+                : stateOutputs.stream().distinct().mapToInt(Integer::intValue).toArray();
+        }
+
+        return new RegexLiteralIndex(new ArrayList<>(rows), labels, targets, failure, outputs);
+    }
+
+    @Override
+    public boolean test(final String candidate) {
+        BitSet tested = null;
+        int state = 0;
+        for (int position = 0; position < candidate.length(); position++) {
+            final char c = foldAscii(candidate.charAt(position));
+            int next = transition(labels, targets, state, c);
+            while (state != 0 && next < 0) {
+                state = failure[state];
+                next = transition(labels, targets, state, c);
+            }
+            state = next < 0 ? 0 : next;
+
+            for (int row : outputs[state]) {
+                if (tested == null) {
+                    tested = new BitSet(rows.size());
+                }
+                if (!tested.get(row)) {
+                    tested.set(row);
+                    if (rows.get(row).test(candidate)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the number of rows held in the index.
+     *
+     * @return the row count.
+     */
+    int size() {
+        return rows.size();
+    }
+
+    private static int transition(final char[][] labels, final int[][] targets, final int state, final char c) {
+        final int index = Arrays.binarySearch(labels[state], c);
+        return index < 0 ? -1 : targets[state][index];
+    }
+
+    /**
+     * Fold a character the same way {@link Pattern#CASE_INSENSITIVE} does
+     * without {@link Pattern#UNICODE_CASE}, which only folds US-ASCII.
+     *
+     * @param c the character
+     * @return the folded character.
+     */
+    static char foldAscii(final char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    /**
+     * Extract the longest literal which must occur in any string matched by the
+     * supplied expression.
+     *
+     * @param expression the regular expression
+     * @return the case folded literal, or null if no literal of a useful length
+     *         is required.
+     */
+    static String requiredLiteral(final String expression) {
+
+        if (expression.contains("\\Q") || UNSAFE_INLINE_FLAGS.matcher(expression).find()) {
+            return null;
+        }
+
+        String best = "";
+        final StringBuilder run = new StringBuilder();
+        int position = 0;
+        while (position < expression.length()) {
+            final char c = expression.charAt(position);
+            boolean literal = false;
+            char value = c;
+
+            if (c == '|') {
+                /* A top level alternation means no single literal is required */
+                return null;
+            } else if (c == '\\') {
+                final char escaped = position + 1 < expression.length() ? expression.charAt(position + 1) : '\\';
+                if (Character.isLetterOrDigit(escaped)) {
+                    position = skipEscape(expression, position);
+                } else {
+                    literal = true;
+                    value = escaped;
+                    position += 2;
+                }
+            } else if (c == '[') {
+                position = skipClass(expression, position);
+            } else if (c == '(') {
+                position = skipGroup(expression, position);
+            } else if (c == '{') {
+                position = expression.indexOf('}', position) + 1;
+                if (position == 0) {
+                    return null;
+                }
+            } else if (".^$*+?}".indexOf(c) >= 0) {
+                position++;
+            } else {
+                literal = true;
+                position++;
+            }
+
+            /* A following quantifier either makes the atom optional or repeats it */
+            final boolean quantified = position < expression.length() && "*+?{".indexOf(expression.charAt(position)) >= 0;
+            final boolean optional = quantified && isOptionalQuantifier(expression, position);
+
+            if (literal && !optional) {
+                run.append(foldAscii(value));
+            }
+            if (!literal || quantified) {
+                if (run.length() > best.length()) {
+                    best = run.toString();
+                }
+                run.setLength(0);
+            }
+        }
+        if (run.length() > best.length()) {
+            best = run.toString();
+        }
+
+        return best.length() >= MIN_LITERAL_LENGTH ? best : null;
+    }
+
+    /**
+     * Get the literal an expression consists of, if it uses no other syntax.
+     *
+     * @param expression the regular expression
+     * @return the case folded literal, or null if the expression is not a plain
+     *         literal.
+     */
+    static String plainLiteral(final String expression) {
+        final StringBuilder literal = new StringBuilder(expression.length());
+        int position = 0;
+        while (position < expression.length()) {
+            final char c = expression.charAt(position);
+            if (c == '\\') {
+                if (position + 1 >= expression.length() || Character.isLetterOrDigit(expression.charAt(position + 1))) {
+                    return null;
+                }
+                literal.append(foldAscii(expression.charAt(position + 1)));
+                position += 2;
+            } else if ("[](){}.*+?^$|".indexOf(c) >= 0) {
+                return null;
+            } else {
+                literal.append(foldAscii(c));
+                position++;
+            }
+        }
+        return literal.length() == 0 ? null : literal.toString();
+    }
+
+    private static boolean isOptionalQuantifier(final String expression, final int position) {
+        final char quantifier = expression.charAt(position);
+        if (quantifier == '{') {
+            return position + 1 < expression.length() && expression.charAt(position + 1) == '0';
+        }
+        return quantifier != '+';
+    }
+
+    static int skipEscape(final String expression, final int position) {
+        final char escaped = expression.charAt(position + 1);
+        int next = position + 2;
+        switch (escaped) {
+            case 'x':
+                next = next < expression.length() && expression.charAt(next) == '{'
+                    ? expression.indexOf('}', next) + 1
+                    : next + 2;
+                break;
+            case 'u':
+                next += 4;
+                break;
+            case 'c':
+                next += 1;
+                break;
+            case 'p':
+            case 'P':
+            case 'N':
+                next = next < expression.length() && expression.charAt(next) == '{'
+                    ? expression.indexOf('}', next) + 1
+                    : next + 1;
+                break;
+            case 'k':
+                next = expression.indexOf('>', next) + 1;
+                break;
+            default:
+                while (Character.isDigit(escaped) && next < expression.length()
+                        && Character.isDigit(expression.charAt(next))) {
+                    next++;
+                }
+        }
+        return Math.min(Math.max(next, position + 2), expression.length());
+    }
+
+    static int skipClass(final String expression, final int start) {
+        int position = start + 1;
+        if (position < expression.length() && expression.charAt(position) == '^') {
+            position++;
+        }
+        if (position < expression.length() && expression.charAt(position) == ']') {
+            position++;
+        }
+        int depth = 1;
+        while (position < expression.length() && depth > 0) {
+            final char c = expression.charAt(position);
+            if (c == '\\') {
+                position++;
+            } else if (c == '[') {
+                depth++;
+            } else if (c == ']') {
+                depth--;
+            }
+            position++;
+        }
+        return position;
+    }
+
+    static int skipGroup(final String expression, final int start) {
+        int position = start + 1;
+        int depth = 1;
+        while (position < expression.length() && depth > 0) {
+            final char c = expression.charAt(position);
+            if (c == '\\') {
+                position += 2;
+                continue;
+            } else if (c == '[') {
+                position = skipClass(expression, position);
+                continue;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            }
+            position++;
+        }
+        return position;
+    }
+}
@@ -0,0 +1,60 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.util;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread safe hit counters for the rows of a compiled allow-list, with rows
+ * identified by their position.
+ *
+ * Each counter is a {@link LongAdder}, so threads crediting the same row do not
+ * contend on a single memory location. Counters are only created when a row
+ * first matches, so a row which never matches costs one empty array slot.
+ */
+public final class RowHitCounters {
+
+    private final AtomicReferenceArray<LongAdder> counters;
+
+    /**
+     * Create counters for a number of rows, all starting at zero.
+     *
+     * @param size the number of rows
+     */
+    public RowHitCounters(final int size) {
+        this.counters = new AtomicReferenceArray<>(size);
+    }
+
+    /**
+     * Credit a row with a match.
+     *
+     * @param row the position of the row
+     */
+    public void hit(final int row) {
+        LongAdder counter = counters.get(row);
+        if (counter == null) {
+            counters.compareAndSet(row, null, new LongAdder());
+            counter = counters.get(row);
+        }
+        counter.increment();
+    }
+
+    /**
+     * Get the number of matches credited to a row.
+     *
+     * @param row the position of the row
+     * @return the hit count.
+     */
+    public long hits(final int row) {
+        final LongAdder counter = counters.get(row);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /**
+     * Get the number of rows counted.
+     *
+     * @return the row count.
+     */
+    public int size() {
+        return counters.length();
+    }
+}
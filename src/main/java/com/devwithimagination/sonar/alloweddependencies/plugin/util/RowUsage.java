@@ -0,0 +1,26 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.util;
+
+import java.util.List;
+
+/**
+ * A compiled allow-list which records the rows that matched while it was in
+ * use, so rows which never match can be reported and pruned.
+ */
+public interface RowUsage {
+
+    /**
+     * Get the number of rows whose matches are recorded, after redundant rows
+     * were dropped when the list was compiled.
+     *
+     * @return the row count.
+     */
+    int rowCount();
+
+    /**
+     * Get the rows which have not matched any candidate since the list was
+     * compiled. Rows are listed in the form they were compiled in.
+     *
+     * @return the unused rows, never null.
+     */
+    List<String> unusedRows();
+}
@@ -0,0 +1,40 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Writes a compiled allow-list out and restores it, so a list compiled by one
+ * analysis can be reused by the next without being compiled again.
+ *
+ * @param <T> the type of the compiled matcher
+ */
+public interface SnapshotCodec<T> {
+
+    /**
+     * Check if a compiled matcher can be written out.
+     *
+     * @param compiled the compiled matcher
+     * @return true if the matcher can be written.
+     */
+    boolean supports(T compiled);
+
+    /**
+     * Write a compiled matcher.
+     *
+     * @param compiled the compiled matcher
+     * @param out      the output
+     * @throws IOException if the matcher cannot be written.
+     */
+    void write(T compiled, DataOutput out) throws IOException;
+
+    /**
+     * Restore a compiled matcher written by {@link #write(Object, DataOutput)}.
+     *
+     * @param in the input
+     * @return the compiled matcher.
+     * @throws IOException if the matcher cannot be read.
+     */
+    T read(DataInput in) throws IOException;
+}
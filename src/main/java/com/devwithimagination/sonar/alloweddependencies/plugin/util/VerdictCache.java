@@ -0,0 +1,245 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A bounded, thread safe cache of allow-list verdicts placed in front of a
+ * rule's predicate.
+ *
+ * Each verdict is the {@link Decision} for the dependency name, so an allowed,
+ * a denied and a not allowed name are all answered from the cache. A cache in
+ * front of an allow-list also classifies declarations with
+ * {@link #decide(DependencyKey, VersionRange)}, where only the versioned rows
+ * are evaluated on every call.
+ *
+ * Verdicts are keyed by the canonical form of the dependency name, the form
+ * every row of the allow-list evaluates, so names the list cannot tell apart
+ * share one entry. Once the cache holds its maximum number of entries new
+ * verdicts are no longer stored, so the cache keeps the keys seen first rather
+ * than paying for an eviction policy. Each entry reserves its slot before it
+ * is stored, so concurrent misses never take the cache past its maximum. A
+ * cache with a maximum size of zero delegates every call.
+ */
+public final class VerdictCache implements Predicate<String> {
+
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(VerdictCache.class);
+
+    private final String name;
+
+    private final Function<String, Decision> delegate;
+
+    private final Function<DependencyKey, Decision> keyDelegate;
+
+    /**
+     * The allow-list producing verdicts, null for a cache in front of a plain
+     * predicate.
+     */
+    private final AllowList allowList;
+
+    /**
+     * Folder giving the canonical form verdicts are keyed by.
+     */
+    private final KeyFolder keyFolder;
+
+    private final int maxSize;
+
+    private final Map<String, Decision> verdicts = new ConcurrentHashMap<>();
+
+    /**
+     * The number of entries stored or about to be stored.
+     */
+    private final AtomicInteger reserved = new AtomicInteger();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Create a new cache.
+     *
+     * @param name     the name used when logging statistics, typically the rule
+     *                 key
+     * @param delegate the predicate producing verdicts
+     * @param maxSize  the maximum number of verdicts to hold, zero to disable
+     *                 caching.
+     */
+    public VerdictCache(final String name, final Predicate<String> delegate, final int maxSize) {
+        this(name, candidate -> decision(delegate.test(candidate)), key -> decision(delegate.test(key.name())),
+            null, KeyFolder.CASE_INSENSITIVE, maxSize);
+    }
+
+    /**
+     * Create a new cache in front of an allow-list, which is passed the
+     * dependency keys given to {@link #test(DependencyKey)} on a miss.
+     *
+     * @param name     the name used when logging statistics, typically the rule
+     *                 key
+     * @param delegate the allow-list producing verdicts
+     * @param maxSize  the maximum number of verdicts to hold, zero to disable
+     *                 caching.
+     */
+    public VerdictCache(final String name, final AllowList delegate, final int maxSize) {
+        this(name, delegate::decide, delegate::decide, delegate, delegate.keyFolder(), maxSize);
+    }
+
+    private VerdictCache(final String name, final Function<String, Decision> delegate,
+            final Function<DependencyKey, Decision> keyDelegate, final AllowList allowList,
+            final KeyFolder keyFolder, final int maxSize) {
+        this.name = name;
+        this.delegate = delegate;
+        this.keyDelegate = keyDelegate;
+        this.allowList = allowList;
+        this.keyFolder = keyFolder;
+        this.maxSize = Math.max(0, maxSize);
+    }
+
+    private static Decision decision(final boolean allowed) {
+        return allowed ? Decision.ALLOWED : Decision.NOT_ALLOWED;
+    }
+
+    @Override
+    public boolean test(final String key) {
+        return decide(key) == Decision.ALLOWED;
+    }
+
+    /**
+     * Classify a dependency name, as {@link AllowList#decide(String)} does.
+     *
+     * @param key the dependency name, may be null
+     * @return the decision.
+     */
+    public Decision decide(final String key) {
+        if (maxSize == 0 || key == null) {
+            return delegate.apply(key);
+        }
+
+        final String canonical = keyFolder.canonical(key);
+        final Decision cached = verdicts.get(canonical);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+
+        misses.increment();
+        final Decision verdict = delegate.apply(key);
+        store(canonical, verdict);
+        return verdict;
+    }
+
+    /**
+     * Test a dependency key, see {@link #decide(DependencyKey)}.
+     *
+     * @param key the dependency key, may be null
+     * @return true if the dependency is allowed.
+     */
+    public boolean test(final DependencyKey key) {
+        return decide(key) == Decision.ALLOWED;
+    }
+
+    /**
+     * Classify a dependency key. Verdicts are shared with
+     * {@link #decide(String)}, keyed by the canonical form of the key, which
+     * the key keeps for every list it is passed to.
+     *
+     * @param key the dependency key, may be null
+     * @return the decision.
+     */
+    public Decision decide(final DependencyKey key) {
+        if (maxSize == 0 || key == null) {
+            return key != null ? keyDelegate.apply(key) : delegate.apply(null);
+        }
+
+        final String canonical = key.canonical(keyFolder);
+        final Decision cached = verdicts.get(canonical);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+
+        misses.increment();
+        final Decision verdict = keyDelegate.apply(key);
+        store(canonical, verdict);
+        return verdict;
+    }
+
+    /**
+     * Classify a declaration of a dependency key, as
+     * {@link AllowList#decide(DependencyKey, VersionRange)} does, taking the
+     * decision for the name from the cache. A cache in front of a plain
+     * predicate ignores the declared versions.
+     *
+     * @param key      the dependency key, may be null
+     * @param declared the versions the declaration admits, null if they are
+     *                 not known
+     * @return the decision.
+     */
+    public Decision decide(final DependencyKey key, final VersionRange declared) {
+        return allowList != null ? allowList.decide(key, declared, this::decide) : decide(key);
+    }
+
+    /**
+     * Store a verdict if a slot can be reserved for it. A slot reserved for a
+     * key another thread stored first is released again.
+     */
+    private void store(final String canonical, final Decision verdict) {
+        int current = reserved.get();
+        while (current < maxSize) {
+            if (reserved.compareAndSet(current, current + 1)) {
+                if (verdicts.putIfAbsent(canonical, verdict) != null) {
+                    reserved.decrementAndGet();
+                }
+                return;
+            }
+            current = reserved.get();
+        }
+    }
+
+    /**
+     * Get the number of lookups answered from the cache.
+     *
+     * @return the hit count.
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * Get the number of lookups which were passed to the delegate.
+     *
+     * @return the miss count.
+     */
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * Get the number of verdicts currently held.
+     *
+     * @return the entry count.
+     */
+    public int size() {
+        return verdicts.size();
+    }
+
+    /**
+     * Write the hit and miss counters to the scanner log, if caching is
+     * enabled.
+     */
+    public void logStatistics() {
+        if (maxSize > 0) {
+            LOG.info("Verdict cache for {}: {} hits, {} misses, {} of {} entries used",
+                name, hits(), misses(), size(), maxSize);
+        }
+    }
+}
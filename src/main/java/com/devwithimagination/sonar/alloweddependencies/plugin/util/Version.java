@@ -0,0 +1,235 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A dependency version which can be ordered against other versions.
+ *
+ * Versions are split into numeric and textual tokens at {@code .}, {@code -}
+ * and {@code _} and wherever digits and letters meet, and compared token by
+ * token. The ordering follows the shape shared by Maven, npm and Python
+ * versions, so one ordering serves every ecosystem:
+ * <ul>
+ * <li>numbers compare numerically, and a missing number counts as zero, so
+ * {@code 1.0} and {@code 1.0.0} are the same version;</li>
+ * <li>pre-release qualifiers such as {@code alpha}, {@code beta}, {@code rc} and
+ * {@code SNAPSHOT} sort before the release, and {@code sp} or {@code post}
+ * after it;</li>
+ * <li>any qualifier sorts before a number at the same position.</li>
+ * </ul>
+ * A leading {@code v} and build metadata after {@code +} are ignored.
+ */
+public final class Version implements Comparable<Version> {
+
+    /**
+     * The rank of the release itself, which is also the rank of a missing
+     * qualifier.
+     */
+    private static final int RELEASE_RANK = 6;
+
+    /**
+     * The rank of qualifiers which are not recognised, compared by their text.
+     */
+    private static final int UNKNOWN_RANK = 8;
+
+    private final String text;
+
+    /**
+     * The tokens with trailing tokens equivalent to a missing token removed.
+     * Numbers are held as {@link String} digits without leading zeros, and
+     * qualifiers as their canonical {@link Qualifier}.
+     */
+    private final List<Object> tokens;
+
+    private Version(final String text, final List<Object> tokens) {
+        this.text = text;
+        this.tokens = tokens;
+    }
+
+    /**
+     * Parse a version.
+     *
+     * @param text the version
+     * @return the version.
+     * @throws IllegalArgumentException if the version is blank.
+     */
+    public static Version parse(final String text) {
+        String value = text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+        final int metadata = value.indexOf('+');
+        if (metadata >= 0) {
+            value = value.substring(0, metadata);
+        }
+        if (value.length() > 1 && value.charAt(0) == 'v' && Character.isDigit(value.charAt(1))) {
+            value = value.substring(1);
+        }
+        if (value.isEmpty()) {
+            throw new IllegalArgumentException("Invalid version: '" + text + "'");
+        }
+
+        final List<Object> tokens = new ArrayList<>();
+        int start = 0;
+        while (start < value.length()) {
+            final char first = value.charAt(start);
+            if (!Character.isLetterOrDigit(first)) {
+                start++;
+                continue;
+            }
+            final boolean digits = Character.isDigit(first);
+            int end = start + 1;
+            while (end < value.length() && Character.isLetterOrDigit(value.charAt(end))
+                    && Character.isDigit(value.charAt(end)) == digits) {
+                end++;
+            }
+            final String token = value.substring(start, end);
+            tokens.add(digits ? stripLeadingZeros(token) : Qualifier.of(token));
+            start = end;
+        }
+
+        /* Trailing zeros and release qualifiers compare equal to nothing at all */
+        while (!tokens.isEmpty() && isMissingEquivalent(tokens.get(tokens.size() - 1))) {
+            tokens.remove(tokens.size() - 1);
+        }
+        return new Version(text.trim(), Collections.unmodifiableList(tokens));
+    }
+
+    private static String stripLeadingZeros(final String digits) {
+        int start = 0;
+        while (start < digits.length() - 1 && digits.charAt(start) == '0') {
+            start++;
+        }
+        return digits.substring(start);
+    }
+
+    private static boolean isMissingEquivalent(final Object token) {
+        return "0".equals(token) || (token instanceof Qualifier && ((Qualifier) token).rank == RELEASE_RANK);
+    }
+
+    @Override
+    public int compareTo(final Version other) {
+        final int length = Math.max(tokens.size(), other.tokens.size());
+        for (int index = 0; index < length; index++) {
+            final Object mine = index < tokens.size() ? tokens.get(index) : null;
+            final Object theirs = index < other.tokens.size() ? other.tokens.get(index) : null;
+            final int result = compareTokens(mine, theirs);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+
+    private static int compareTokens(final Object mine, final Object theirs) {
+        if (mine instanceof String && theirs instanceof String) {
+            return compareNumbers((String) mine, (String) theirs);
+        }
+        if (mine instanceof Qualifier && theirs instanceof Qualifier) {
+            return ((Qualifier) mine).compareTo((Qualifier) theirs);
+        }
+        if (mine == null) {
+            return -compareTokens(theirs, null);
+        }
+
+        /* Only one side is a number, or the other side is missing */
+        if (mine instanceof String) {
+            return theirs == null ? compareNumbers((String) mine, "0") : 1;
+        }
+        return theirs == null ? Integer.compare(((Qualifier) mine).rank, RELEASE_RANK) : -1;
+    }
+
+    private static int compareNumbers(final String mine, final String theirs) {
+        if (mine.length() != theirs.length()) {
+            return Integer.compare(mine.length(), theirs.length());
+        }
+        return mine.compareTo(theirs);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        return obj instanceof Version && tokens.equals(((Version) obj).tokens);
+    }
+
+    @Override
+    public int hashCode() {
+        return tokens.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+
+    /**
+     * A textual token, ranked against the release.
+     */
+    private static final class Qualifier implements Comparable<Qualifier> {
+
+        private final String text;
+
+        private final int rank;
+
+        private Qualifier(final String text, final int rank) {
+            this.text = text;
+            this.rank = rank;
+        }
+
+        private static Qualifier of(final String token) {
+            switch (token) {
+                case "dev":
+                    return new Qualifier("dev", 0);
+                case "a":
+                case "alpha":
+                    return new Qualifier("alpha", 1);
+                case "b":
+                case "beta":
+                    return new Qualifier("beta", 2);
+                case "m":
+                case "milestone":
+                    return new Qualifier("milestone", 3);
+                case "c":
+                case "rc":
+                case "cr":
+                case "pre":
+                case "preview":
+                    return new Qualifier("rc", 4);
+                case "snapshot":
+                    return new Qualifier("snapshot", 5);
+                case "ga":
+                case "final":
+                case "release":
+                    return new Qualifier("", RELEASE_RANK);
+                case "sp":
+                case "post":
+                case "r":
+                case "rev":
+                    return new Qualifier("post", 7);
+                default:
+                    return new Qualifier(token, UNKNOWN_RANK);
+            }
+        }
+
+        @Override
+        public int compareTo(final Qualifier other) {
+            final int result = Integer.compare(rank, other.rank);
+            return result != 0 ? result : text.compareTo(other.text);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            return obj instanceof Qualifier && rank == ((Qualifier) obj).rank && text.equals(((Qualifier) obj).text);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * rank + text.hashCode();
+        }
+    }
+}
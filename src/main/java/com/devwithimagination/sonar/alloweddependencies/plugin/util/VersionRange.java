@@ -0,0 +1,328 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * A set of versions, held as an index of disjoint intervals.
+ *
+ * Intervals are sorted by their lower bound and merged where they overlap or
+ * touch when the range is created, so testing a version, or checking that a
+ * declared range lies within the range, is a binary search however many
+ * intervals the range was built from.
+ *
+ * Ranges are written in Maven notation: {@code [1.0,2.0)} includes 1.0 and
+ * excludes 2.0, an empty bound is unbounded as in {@code [2.17.1,)}, a single
+ * version in brackets such as {@code [1.5]} is exactly that version, and
+ * intervals are joined with commas, as in {@code (,1.0],[1.2,)}.
+ */
+public final class VersionRange {
+
+    /**
+     * The range of every version.
+     */
+    public static final VersionRange ANY = new VersionRange(new Interval[] {
+        new Interval(null, false, null, false)});
+
+    private static final Comparator<Interval> BY_LOWER_BOUND = VersionRange::compareLower;
+
+    private final Interval[] intervals;
+
+    private VersionRange(final Interval[] intervals) {
+        this.intervals = intervals;
+    }
+
+    /**
+     * Create a range holding a single version.
+     *
+     * @param version the version
+     * @return the range.
+     */
+    public static VersionRange exactly(final Version version) {
+        return between(version, true, version, true);
+    }
+
+    /**
+     * Create a range holding a single interval.
+     *
+     * @param lower          the lower bound, null if unbounded
+     * @param lowerInclusive if the lower bound is in the range
+     * @param upper          the upper bound, null if unbounded
+     * @param upperInclusive if the upper bound is in the range
+     * @return the range, which is empty if the bounds are the wrong way round.
+     */
+    public static VersionRange between(final Version lower, final boolean lowerInclusive, final Version upper,
+            final boolean upperInclusive) {
+        return of(Collections.singletonList(new Interval(lower, lowerInclusive && lower != null, upper,
+            upperInclusive && upper != null)));
+    }
+
+    /**
+     * Parse a range in Maven notation.
+     *
+     * @param spec the range
+     * @return the range.
+     * @throws IllegalArgumentException if the range is not valid.
+     */
+    public static VersionRange parse(final String spec) {
+        final String value = spec.trim();
+        final List<Interval> parsed = new ArrayList<>();
+        int position = 0;
+        while (position < value.length()) {
+            final char open = value.charAt(position);
+            if (open != '[' && open != '(') {
+                throw new IllegalArgumentException("Invalid version range: '" + spec + "'");
+            }
+            int close = position + 1;
+            while (close < value.length() && value.charAt(close) != ']' && value.charAt(close) != ')') {
+                close++;
+            }
+            if (close == value.length()) {
+                throw new IllegalArgumentException("Invalid version range: '" + spec + "'");
+            }
+            parsed.add(parseInterval(spec, value.substring(position + 1, close).trim(), open == '[',
+                value.charAt(close) == ']'));
+
+            /* Intervals are separated by a comma */
+            position = close + 1;
+            if (position < value.length()) {
+                if (value.charAt(position) != ',' || position == value.length() - 1) {
+                    throw new IllegalArgumentException("Invalid version range: '" + spec + "'");
+                }
+                position++;
+            }
+        }
+        if (parsed.isEmpty()) {
+            throw new IllegalArgumentException("Invalid version range: '" + spec + "'");
+        }
+        return of(parsed);
+    }
+
+    private static Interval parseInterval(final String spec, final String bounds, final boolean lowerInclusive,
+            final boolean upperInclusive) {
+        final int comma = bounds.indexOf(',');
+        if (comma < 0) {
+            if (!lowerInclusive || !upperInclusive || bounds.isEmpty()) {
+                throw new IllegalArgumentException("Invalid version range: '" + spec + "'");
+            }
+            final Version version = Version.parse(bounds);
+            return new Interval(version, true, version, true);
+        }
+        final String lower = bounds.substring(0, comma).trim();
+        final String upper = bounds.substring(comma + 1).trim();
+        if (upper.indexOf(',') >= 0) {
+            throw new IllegalArgumentException("Invalid version range: '" + spec + "'");
+        }
+        return new Interval(lower.isEmpty() ? null : Version.parse(lower), lowerInclusive && !lower.isEmpty(),
+            upper.isEmpty() ? null : Version.parse(upper), upperInclusive && !upper.isEmpty());
+    }
+
+    /**
+     * Create a range from intervals in any order, dropping empty intervals and
+     * merging those which overlap or touch.
+     */
+    private static VersionRange of(final List<Interval> unsorted) {
+        final List<Interval> sorted = unsorted.stream()
+            .filter(interval -> !interval.isEmpty())
+            .sorted(BY_LOWER_BOUND)
+            .collect(Collectors.toList());
+
+        final List<Interval> merged = new ArrayList<>();
+        for (Interval interval : sorted) {
+            final Interval last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && touches(last, interval)) {
+                merged.set(merged.size() - 1, compareUpper(last, interval) >= 0 ? last
+                    : new Interval(last.lower, last.lowerInclusive, interval.upper, interval.upperInclusive));
+            } else {
+                merged.add(interval);
+            }
+        }
+        return new VersionRange(merged.toArray(new Interval[0]));
+    }
+
+    /**
+     * Check if an interval starting at or after another overlaps or touches it.
+     */
+    private static boolean touches(final Interval first, final Interval second) {
+        if (first.upper == null || second.lower == null) {
+            return true;
+        }
+        final int result = second.lower.compareTo(first.upper);
+        return result < 0 || (result == 0 && (first.upperInclusive || second.lowerInclusive));
+    }
+
+    /**
+     * Create the union of this range and another.
+     *
+     * @param other the other range
+     * @return the union.
+     */
+    public VersionRange union(final VersionRange other) {
+        return anyOf(Arrays.asList(this, other));
+    }
+
+    /**
+     * Create the union of several ranges.
+     *
+     * @param ranges the ranges
+     * @return the union.
+     */
+    public static VersionRange anyOf(final List<VersionRange> ranges) {
+        final List<Interval> all = new ArrayList<>();
+        ranges.forEach(range -> all.addAll(Arrays.asList(range.intervals)));
+        return of(all);
+    }
+
+    /**
+     * Create the intersection of this range and another.
+     *
+     * @param other the other range
+     * @return the intersection, which may be empty.
+     */
+    public VersionRange intersect(final VersionRange other) {
+        final List<Interval> overlaps = new ArrayList<>();
+        for (Interval mine : intervals) {
+            for (Interval theirs : other.intervals) {
+                final Interval lower = compareLower(mine, theirs) >= 0 ? mine : theirs;
+                final Interval upper = compareUpper(mine, theirs) <= 0 ? mine : theirs;
+                overlaps.add(new Interval(lower.lower, lower.lowerInclusive, upper.upper, upper.upperInclusive));
+            }
+        }
+        return of(overlaps);
+    }
+
+    /**
+     * Check if a version is in the range.
+     *
+     * @param version the version
+     * @return true if the version is in the range.
+     */
+    public boolean contains(final Version version) {
+        return containsInterval(new Interval(version, true, version, true));
+    }
+
+    /**
+     * Check if every version of a non-empty range is in this range.
+     *
+     * @param other the other range
+     * @return true if the other range is not empty and lies within this range.
+     */
+    public boolean containsAll(final VersionRange other) {
+        if (other.intervals.length == 0) {
+            return false;
+        }
+        for (Interval interval : other.intervals) {
+            if (!containsInterval(interval)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean containsInterval(final Interval interval) {
+        /* Find the last interval starting no later than the candidate, which is the only one that could hold it */
+        int low = 0;
+        int high = intervals.length - 1;
+        int found = -1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            if (compareLower(intervals[middle], interval) <= 0) {
+                found = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return found >= 0 && compareUpper(intervals[found], interval) >= 0;
+    }
+
+    /**
+     * Check if the range holds no versions.
+     *
+     * @return true if the range is empty.
+     */
+    public boolean isEmpty() {
+        return intervals.length == 0;
+    }
+
+    /**
+     * Get the number of disjoint intervals in the range.
+     *
+     * @return the interval count.
+     */
+    public int intervalCount() {
+        return intervals.length;
+    }
+
+    /**
+     * Compare lower bounds, with an unbounded lower bound first and an
+     * inclusive bound before an exclusive bound on the same version.
+     */
+    private static int compareLower(final Interval first, final Interval second) {
+        if (first.lower == null || second.lower == null) {
+            return Boolean.compare(first.lower != null, second.lower != null);
+        }
+        final int result = first.lower.compareTo(second.lower);
+        return result != 0 ? result : Boolean.compare(!first.lowerInclusive, !second.lowerInclusive);
+    }
+
+    /**
+     * Compare upper bounds, with an unbounded upper bound last and an
+     * exclusive bound before an inclusive bound on the same version.
+     */
+    private static int compareUpper(final Interval first, final Interval second) {
+        if (first.upper == null || second.upper == null) {
+            return Boolean.compare(first.upper == null, second.upper == null);
+        }
+        final int result = first.upper.compareTo(second.upper);
+        return result != 0 ? result : Boolean.compare(first.upperInclusive, second.upperInclusive);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.stream(intervals).map(Interval::toString).collect(Collectors.joining(","));
+    }
+
+    /**
+     * A single interval, with null bounds being unbounded.
+     */
+    private static final class Interval {
+
+        private final Version lower;
+
+        private final boolean lowerInclusive;
+
+        private final Version upper;
+
+        private final boolean upperInclusive;
+
+        private Interval(final Version lower, final boolean lowerInclusive, final Version upper,
+                final boolean upperInclusive) {
+            this.lower = lower;
+            this.lowerInclusive = lowerInclusive;
+            this.upper = upper;
+            this.upperInclusive = upperInclusive;
+        }
+
+        private boolean isEmpty() {
+            if (lower == null || upper == null) {
+                return false;
+            }
+            final int result = lower.compareTo(upper);
+            return result > 0 || (result == 0 && !(lowerInclusive && upperInclusive));
+        }
+
+        @Override
+        public String toString() {
+            if (lower != null && lower.equals(upper)) {
+                return "[" + lower + "]";
+            }
+            return (lowerInclusive ? "[" : "(") + (lower == null ? "" : lower) + ","
+                + (upper == null ? "" : upper) + (upperInclusive ? "]" : ")");
+        }
+    }
+}
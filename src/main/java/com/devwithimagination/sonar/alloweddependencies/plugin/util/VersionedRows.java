@@ -0,0 +1,303 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Exact allow-list rows which only allow some versions of a dependency, such as
+ * {@code org.apache.logging.log4j:log4j-core:[2.17.1,)}.
+ *
+ * The ranges of every row naming the same dependency are merged into one
+ * {@link VersionRange} when the rows are built, so checking a declared version
+ * is a single probe on the folded name followed by a binary search, however
+ * many ranges the list holds. A declared version is allowed when every version
+ * it admits lies within the allowed range, so an npm {@code ^2.17.1}
+ * declaration is only allowed if all of {@code [2.17.1,3)} is.
+ */
+public final class VersionedRows implements RowUsage {
+
+    private static final VersionedRows EMPTY = new VersionedRows(
+        FoldedKeyMap.of(KeyFolder.CASE_INSENSITIVE, Collections.emptyMap()), Collections.emptyList());
+
+    private final FoldedKeyMap<NameRows> rowsByName;
+
+    /**
+     * The rows as they were configured, by position.
+     */
+    private final List<String> rowLabels;
+
+    private final RowHitCounters rowHits;
+
+    private VersionedRows(final FoldedKeyMap<NameRows> rowsByName, final List<String> rowLabels) {
+        this.rowsByName = rowsByName;
+        this.rowLabels = rowLabels;
+        this.rowHits = new RowHitCounters(rowLabels.size());
+    }
+
+    /**
+     * Get an instance holding no rows.
+     *
+     * @return the empty rows.
+     */
+    public static VersionedRows empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Create a new builder.
+     *
+     * @return the builder.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Check if the rows allow every version of a dependency which a
+     * declaration admits.
+     *
+     * @param name     the dependency name
+     * @param declared the versions the declaration admits, null if they are
+     *                 not known
+     * @return true if a row names the dependency and its ranges hold all of the
+     *         declared versions.
+     */
+    public boolean allows(final String name, final VersionRange declared) {
+        return allows(name == null ? null : DependencyKey.of(name), declared);
+    }
+
+    /**
+     * Check if the rows allow every version of a dependency key which a
+     * declaration admits, see {@link #allows(String, VersionRange)}.
+     *
+     * @param key      the dependency key
+     * @param declared the versions the declaration admits, null if they are
+     *                 not known
+     * @return true if a row names the dependency and its ranges hold all of the
+     *         declared versions.
+     */
+    public boolean allows(final DependencyKey key, final VersionRange declared) {
+        if (declared == null || rowLabels.isEmpty()) {
+            return false;
+        }
+        final NameRows rows = rowsByName.get(key);
+        if (rows == null || !rows.versions.containsAll(declared)) {
+            return false;
+        }
+
+        /* Credit the rows the declaration falls in, usually just one */
+        for (int index = 0; index < rows.positions.length; index++) {
+            if (!rows.ranges[index].intersect(declared).isEmpty()) {
+                rowHits.hit(rows.positions[index]);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check if the rows name a dependency with a range sharing any version
+     * with a declaration of it. Every row which does is credited.
+     *
+     * @param name     the dependency name
+     * @param declared the versions the declaration admits, null if they are
+     *                 not known
+     * @return true if a row names the dependency and its range overlaps the
+     *         declared versions.
+     */
+    public boolean overlaps(final String name, final VersionRange declared) {
+        return overlaps(name == null ? null : DependencyKey.of(name), declared);
+    }
+
+    /**
+     * Check if the rows name a dependency key with a range sharing any version
+     * with a declaration of it, see {@link #overlaps(String, VersionRange)}.
+     *
+     * @param key      the dependency key
+     * @param declared the versions the declaration admits, null if they are
+     *                 not known
+     * @return true if a row names the dependency and its range overlaps the
+     *         declared versions.
+     */
+    public boolean overlaps(final DependencyKey key, final VersionRange declared) {
+        if (declared == null || rowLabels.isEmpty()) {
+            return false;
+        }
+        final NameRows rows = rowsByName.get(key);
+        if (rows == null) {
+            return false;
+        }
+
+        boolean overlaps = false;
+        for (int index = 0; index < rows.positions.length; index++) {
+            if (!rows.ranges[index].intersect(declared).isEmpty()) {
+                rowHits.hit(rows.positions[index]);
+                overlaps = true;
+            }
+        }
+        return overlaps;
+    }
+
+    /**
+     * Check if there are no rows.
+     *
+     * @return true if there are no rows.
+     */
+    public boolean isEmpty() {
+        return rowLabels.isEmpty();
+    }
+
+    @Override
+    public int rowCount() {
+        return rowLabels.size();
+    }
+
+    @Override
+    public List<String> unusedRows() {
+        final List<String> unused = new ArrayList<>();
+        for (int row = 0; row < rowLabels.size(); row++) {
+            if (rowHits.hits(row) == 0) {
+                unused.add(rowLabels.get(row));
+            }
+        }
+        return unused;
+    }
+
+    /**
+     * The rows naming one dependency, with their merged range.
+     */
+    private static final class NameRows {
+
+        private final VersionRange versions;
+
+        private final int[] positions;
+
+        private final VersionRange[] ranges;
+
+        private NameRows(final VersionRange versions, final int[] positions, final VersionRange[] ranges) {
+            this.versions = versions;
+            this.positions = positions;
+            this.ranges = ranges;
+        }
+    }
+
+    /**
+     * Builder for {@link VersionedRows} instances.
+     */
+    public static final class Builder {
+
+        private final Set<String> rowLabels = new LinkedHashSet<>();
+
+        private final List<String> names = new ArrayList<>();
+
+        private final List<VersionRange> ranges = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Add a row. Rows repeating an earlier row exactly are ignored.
+         *
+         * @param name     the dependency name
+         * @param versions the versions allowed
+         * @param label    the row as it was configured, used when reporting
+         *                 unused rows
+         * @return this builder.
+         */
+        public Builder add(final String name, final VersionRange versions, final String label) {
+            if (rowLabels.add(label)) {
+                names.add(name);
+                ranges.add(versions);
+            }
+            return this;
+        }
+
+        /**
+         * Check if no rows have been added.
+         *
+         * @return true if there are no rows.
+         */
+        public boolean isEmpty() {
+            return rowLabels.isEmpty();
+        }
+
+        /**
+         * Write the rows added so far, so they can be restored with
+         * {@link #read(DataInput)}.
+         *
+         * @param out the output
+         * @throws IOException if the rows cannot be written.
+         */
+        void write(final DataOutput out) throws IOException {
+            out.writeInt(names.size());
+            int position = 0;
+            for (String label : rowLabels) {
+                final VersionRange range = ranges.get(position);
+                out.writeUTF(names.get(position));
+                out.writeBoolean(range.isEmpty());
+                out.writeUTF(range.isEmpty() ? "" : range.toString());
+                out.writeUTF(label);
+                position++;
+            }
+        }
+
+        /**
+         * Read rows written by {@link #write(DataOutput)}.
+         *
+         * @param in the input
+         * @return a builder holding the rows.
+         * @throws IOException if the rows cannot be read.
+         */
+        static Builder read(final DataInput in) throws IOException {
+            final Builder builder = new Builder();
+            final int count = in.readInt();
+            for (int position = 0; position < count; position++) {
+                final String name = in.readUTF();
+                final boolean empty = in.readBoolean();
+                final String range = in.readUTF();
+                builder.add(name, empty ? VersionRange.anyOf(Collections.emptyList()) : VersionRange.parse(range),
+                    in.readUTF());
+            }
+            return builder;
+        }
+
+        /**
+         * Create the rows.
+         *
+         * @param folder the folder for names and candidates
+         * @return the rows.
+         */
+        public VersionedRows build(final KeyFolder folder) {
+            if (rowLabels.isEmpty()) {
+                return EMPTY;
+            }
+
+            final Map<String, List<Integer>> positionsByName = new LinkedHashMap<>();
+            for (int position = 0; position < names.size(); position++) {
+                positionsByName.computeIfAbsent(folder.fold(names.get(position)), key -> new ArrayList<>())
+                    .add(position);
+            }
+
+            final Map<String, NameRows> rowsByName = new LinkedHashMap<>();
+            positionsByName.forEach((name, positions) -> {
+                final VersionRange[] nameRanges = new VersionRange[positions.size()];
+                final int[] namePositions = new int[positions.size()];
+                for (int index = 0; index < positions.size(); index++) {
+                    namePositions[index] = positions.get(index);
+                    nameRanges[index] = ranges.get(positions.get(index));
+                }
+                rowsByName.put(name, new NameRows(VersionRange.anyOf(Arrays.asList(nameRanges)), namePositions,
+                    nameRanges));
+            });
+            return new VersionedRows(FoldedKeyMap.of(folder, rowsByName), new ArrayList<>(rowLabels));
+        }
+    }
+}
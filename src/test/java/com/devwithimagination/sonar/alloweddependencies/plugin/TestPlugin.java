@@ -54,7 +54,7 @@ class TestPlugin {
         plugin.define(context);
 
         /* Check the registered extensions & count */
-        assertEquals(6, context.getExtensions().size(), "Expected 6 extensions to be registered");
+        assertEquals(12, context.getExtensions().size(), "Expected 12 extensions to be registered");
         for (Object obj : context.getExtensions()) {
 
             if (obj instanceof Class) {
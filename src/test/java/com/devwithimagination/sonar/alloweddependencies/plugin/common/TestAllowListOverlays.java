@@ -0,0 +1,97 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.api.batch.sensor.internal.SensorContextTester;
+import org.sonar.api.config.internal.MapSettings;
+
+/**
+ * Test class for {@link AllowListOverlays}.
+ */
+class TestAllowListOverlays {
+
+    @TempDir
+    Path baseDir;
+
+    @Test
+    void overlaysAreChainedOutermostFirst() throws IOException {
+        write("", "lodash");
+        write("services/api", "express\n# a comment\n\nbody-parser");
+
+        final AllowListOverlays overlays = new AllowListOverlays(baseDir, "npm");
+
+        assertEquals("lodash", overlays.rowsFor(file("package.json")));
+        assertEquals("lodash\nexpress\nbody-parser", overlays.rowsFor(file("services/api/package.json")));
+        assertEquals("lodash\nexpress\nbody-parser", overlays.rowsFor(file("services/api/lib/package.json")));
+    }
+
+    @Test
+    void directoriesWithoutAnOverlayShareTheirParentsRows() throws IOException {
+        write("services", "express");
+
+        final AllowListOverlays overlays = new AllowListOverlays(baseDir, "npm");
+
+        assertSame(overlays.rowsFor(file("services/a/package.json")),
+            overlays.rowsFor(file("services/b/package.json")));
+        assertEquals("", overlays.rowsFor(file("web/package.json")));
+    }
+
+    @Test
+    void headingsSelectTheEcosystem() throws IOException {
+        write("", "shared\n[npm]\nlodash\n[ Maven ]\norg.slf4j:*\n[python]\nrequests");
+
+        assertEquals("shared\nlodash", new AllowListOverlays(baseDir, "npm").rowsFor(file("package.json")));
+        assertEquals("shared\norg.slf4j:*", new AllowListOverlays(baseDir, "maven").rowsFor(file("pom.xml")));
+        assertEquals("shared\nrequests",
+            new AllowListOverlays(baseDir, "python").rowsFor(file("pyproject.toml")));
+    }
+
+    @Test
+    void noneNeverAddsRows() throws IOException {
+        write("", "lodash");
+
+        assertEquals("", AllowListOverlays.none().rowsFor(file("package.json")));
+    }
+
+    @Test
+    void overlaysAreOnlyReadWhenEnabled() throws IOException {
+        write("", "lodash");
+        final SensorContextTester context = SensorContextTester.create(baseDir);
+
+        assertSame(AllowListOverlays.none(), AllowListOverlays.of(context, new MapSettings().asConfig(), "npm"));
+        assertSame(AllowListOverlays.none(), AllowListOverlays.of(context, null, "npm"));
+
+        final MapSettings settings = new MapSettings().setProperty(ScannerProperties.OVERLAYS_KEY, "true");
+        assertEquals("lodash", AllowListOverlays.of(context, settings.asConfig(), "npm").rowsFor(file("package.json")));
+    }
+
+    @Test
+    void overlayRowsAreAddedToTheRuleRows() {
+        assertEquals("lodash\nexpress", AllowListOverlays.merge("lodash", "express"));
+        assertEquals("express", AllowListOverlays.merge(null, "express"));
+        assertEquals("lodash", AllowListOverlays.merge("lodash", ""));
+        assertNull(AllowListOverlays.merge(null, ""));
+    }
+
+    private void write(final String directory, final String content) throws IOException {
+        final Path dir = baseDir.resolve(directory);
+        Files.createDirectories(dir);
+        Files.write(dir.resolve(AllowListOverlays.FILE_NAME), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private InputFile file(final String relativePath) {
+        return TestInputFileBuilder.create("my-test-project", baseDir.toFile(), baseDir.resolve(relativePath).toFile())
+            .build();
+    }
+}
@@ -0,0 +1,136 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.AllowList;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.KeyFolder;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.PredicateFactory;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for {@link AllowListRegistry}.
+ */
+class TestAllowListRegistry {
+
+    private final AtomicInteger compilations = new AtomicInteger();
+
+    private final Function<String, AllowList> compile = deps -> {
+        compilations.incrementAndGet();
+        return new PredicateFactory().createAllowList(deps, UnaryOperator.identity());
+    };
+
+    @Test
+    void identicalListsAreCompiledOnce() {
+        final AllowListRegistry registry = AllowListRegistry.withDefaults();
+
+        final AllowList first = registry.get(AllowList.class, "npm", "lodash\nreact", compile);
+        final AllowList second = registry.get(AllowList.class, "npm", "lodash\nreact", compile);
+
+        assertSame(first, second);
+        assertEquals(1, compilations.get());
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    void blankAndCommentRowsDoNotChangeTheFingerprint() {
+        final AllowListRegistry registry = AllowListRegistry.withDefaults();
+
+        final AllowList first = registry.get(AllowList.class, "npm", "lodash\nreact", compile);
+        final AllowList second = registry.get(AllowList.class, "npm", "# ui\n  lodash \n\nreact\n", compile);
+
+        assertSame(first, second);
+        assertEquals(1, compilations.get());
+    }
+
+    @Test
+    void listsAreOnlySharedForTheSameCompiler() {
+        final AllowListRegistry registry = AllowListRegistry.withDefaults();
+
+        final AllowList npm = registry.get(AllowList.class, "npm", "requests", compile);
+        final AllowList python = registry.get(AllowList.class, "python", "requests", compile);
+
+        assertNotSame(npm, python);
+        assertEquals(2, compilations.get());
+        assertEquals(2, registry.size());
+    }
+
+    @Test
+    void indexRowsAreOnlySharedWithinTheSameBaseDir() {
+        final AllowListRegistry registry = AllowListRegistry.withDefaults();
+        final Function<String, AllowList> count = deps -> {
+            compilations.incrementAndGet();
+            return AllowList.builder().build();
+        };
+
+        final AllowListRegistry first = registry.forAnalysis(AllowListSnapshots.none(), () -> Paths.get("first"));
+        first.get(AllowList.class, "npm", "index:npm.idx", count);
+        first.get(AllowList.class, "npm", "lodash", count);
+        final AllowListRegistry second = registry.forAnalysis(AllowListSnapshots.none(), () -> Paths.get("second"));
+        second.get(AllowList.class, "npm", "index:npm.idx", count);
+        second.get(AllowList.class, "npm", "lodash", count);
+
+        /* The list without an index row is shared, the one with it is compiled for each directory */
+        assertEquals(3, compilations.get());
+        assertEquals(3, registry.size());
+    }
+
+    @Test
+    void analysesShareListsWithoutChangingTheRegistry() {
+        final AllowListRegistry registry = AllowListRegistry.withDefaults();
+        final AllowListRegistry analysis = registry.forAnalysis(AllowListSnapshots.none(), () -> Paths.get("project"));
+
+        final AllowList compiled = analysis.get(AllowList.class, "npm", "lodash", compile);
+
+        assertSame(compiled, registry.get(AllowList.class, "npm", "lodash", compile));
+        assertEquals(1, compilations.get());
+        assertEquals(Paths.get("project"), analysis.baseDir());
+        assertNull(registry.baseDir());
+    }
+
+    @Test
+    void failedCompilationsAreNotCached() {
+        final AllowListRegistry registry = AllowListRegistry.withDefaults();
+
+        assertThrows(IllegalArgumentException.class,
+            () -> registry.get(AllowList.class, "npm", "regex:[", compile));
+        assertThrows(IllegalArgumentException.class,
+            () -> registry.get(AllowList.class, "npm", "regex:[", compile));
+
+        assertEquals(2, compilations.get());
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    void denyRowsArePartOfTheFingerprint() {
+        final AllowListRegistry registry = AllowListRegistry.withDefaults();
+        final BiFunction<String, String, AllowList> compileWithDenied = (deps, deniedDeps) -> {
+            compilations.incrementAndGet();
+            return new PredicateFactory().createAllowList(deps, deniedDeps, UnaryOperator.identity(),
+                KeyFolder.CASE_INSENSITIVE);
+        };
+
+        final AllowList allowOnly = registry.get(AllowList.class, "npm", "lodash", compile);
+        final AllowList blankDenied = registry.get(AllowList.class, "npm", "lodash", "# none\n", compileWithDenied);
+        final AllowList denied = registry.get(AllowList.class, "npm", "lodash", "left-pad", compileWithDenied);
+        final AllowList sameDenied = registry.get(AllowList.class, "npm", "lodash", " left-pad ",
+            compileWithDenied);
+        final AllowList swapped = registry.get(AllowList.class, "npm", "left-pad", "lodash", compileWithDenied);
+
+        assertSame(allowOnly, blankDenied);
+        assertSame(denied, sameDenied);
+        assertNotSame(allowOnly, denied);
+        assertNotSame(denied, swapped);
+        assertEquals(3, compilations.get());
+    }
+}
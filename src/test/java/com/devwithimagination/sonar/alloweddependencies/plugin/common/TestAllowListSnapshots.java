@@ -0,0 +1,288 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.common;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.AllowList;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.Decision;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.PredicateFactory;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.sonar.api.batch.sensor.cache.ReadCache;
+import org.sonar.api.batch.sensor.cache.WriteCache;
+import org.sonar.api.batch.sensor.internal.SensorContextTester;
+import org.sonar.api.config.internal.MapSettings;
+
+/**
+ * Test class for {@link AllowListSnapshots}.
+ */
+class TestAllowListSnapshots {
+
+    private static final String DEPS = "lodash\nglob:@types/*\nregex:^react-.*";
+
+    @TempDir
+    Path baseDir;
+
+    @TempDir
+    Path userHome;
+
+    private final AtomicInteger compilations = new AtomicInteger();
+
+    private final Function<String, AllowList> compile = deps -> {
+        compilations.incrementAndGet();
+        return new PredicateFactory().createAllowList(deps, UnaryOperator.identity());
+    };
+
+    @Test
+    void restoredListsAreNotCompiledAgain() {
+        final AllowListSnapshots snapshots = AllowListSnapshots.inDirectory(baseDir, key(1));
+
+        final AllowList compiled = registry(snapshots).get(AllowList.class, "npm", DEPS, compile,
+            AllowList.snapshotCodec());
+        final AllowList restored = registry(snapshots).get(AllowList.class, "npm", DEPS, compile,
+            AllowList.snapshotCodec());
+
+        assertEquals(1, compilations.get());
+        for (String candidate : new String[] {"LODASH", "@types/node", "react-dom", "express"}) {
+            assertEquals(compiled.decide(candidate), restored.decide(candidate), candidate);
+        }
+    }
+
+    @Test
+    void changedListsAreCompiledAgain() {
+        final AllowListSnapshots snapshots = AllowListSnapshots.inDirectory(baseDir, key(1));
+
+        registry(snapshots).get(AllowList.class, "npm", DEPS, compile, AllowList.snapshotCodec());
+        final AllowList changed = registry(snapshots).get(AllowList.class, "npm", DEPS + "\nexpress", compile,
+            AllowList.snapshotCodec());
+        registry(snapshots).get(AllowList.class, "python", DEPS, compile, AllowList.snapshotCodec());
+
+        assertEquals(3, compilations.get());
+        assertEquals(Decision.ALLOWED, changed.decide("express"));
+    }
+
+    @Test
+    void unreadableSnapshotsAreCompiledAgain() throws IOException {
+        final AllowListSnapshots snapshots = AllowListSnapshots.inDirectory(baseDir, key(1));
+        registry(snapshots).get(AllowList.class, "npm", DEPS, compile, AllowList.snapshotCodec());
+
+        final List<Path> files;
+        try (Stream<Path> listing = Files.list(baseDir)) {
+            files = listing.collect(Collectors.toList());
+        }
+        assertEquals(1, files.size());
+        Files.write(files.get(0), "not a snapshot".getBytes(StandardCharsets.UTF_8));
+
+        final AllowList recompiled = registry(snapshots).get(AllowList.class, "npm", DEPS, compile,
+            AllowList.snapshotCodec());
+
+        assertEquals(2, compilations.get());
+        assertTrue(recompiled.test("lodash"));
+    }
+
+    @Test
+    void listsWithoutACodecAreNotWritten() throws IOException {
+        registry(AllowListSnapshots.inDirectory(baseDir, key(1))).get(AllowList.class, "npm", DEPS, compile);
+
+        try (Stream<Path> listing = Files.list(baseDir)) {
+            assertEquals(0, listing.count());
+        }
+    }
+
+    @Test
+    void keysDependOnEveryPart() {
+        assertEquals(AllowListSnapshots.key("npm", "lodash"), AllowListSnapshots.key("npm", "lodash"));
+        assertNotEquals(AllowListSnapshots.key("npm", "lodash"), AllowListSnapshots.key("npmlodash"));
+        assertNotEquals(AllowListSnapshots.key("npm", "lodash"), AllowListSnapshots.key("npm", "react"));
+    }
+
+    @Test
+    void damagedSnapshotsAreCompiledAgain() throws IOException {
+        final AllowListSnapshots snapshots = AllowListSnapshots.inDirectory(baseDir, key(1));
+        registry(snapshots).get(AllowList.class, "npm", DEPS, compile, AllowList.snapshotCodec());
+
+        final Path file;
+        try (Stream<Path> listing = Files.list(baseDir)) {
+            file = listing.findFirst().orElseThrow(IllegalStateException::new);
+        }
+        final byte[] data = Files.readAllBytes(file);
+
+        /* A damaged payload, which is rewritten once compiled again */
+        data[data.length - 4] ^= 0x7f;
+        Files.write(file, data);
+        registry(snapshots).get(AllowList.class, "npm", DEPS, compile, AllowList.snapshotCodec());
+
+        /* A payload cut short */
+        Files.write(file, Arrays.copyOf(data, data.length - 8));
+        final AllowList recompiled = registry(snapshots).get(AllowList.class, "npm", DEPS, compile,
+            AllowList.snapshotCodec());
+
+        assertEquals(3, compilations.get());
+        assertTrue(recompiled.test("lodash"));
+    }
+
+    @Test
+    void snapshotsWrittenWithAnotherKeyAreNotRestored() {
+        registry(AllowListSnapshots.inDirectory(baseDir, key(2))).get(AllowList.class, "npm", DEPS, compile,
+            AllowList.snapshotCodec());
+
+        final AllowList recompiled = registry(AllowListSnapshots.inDirectory(baseDir, key(1))).get(
+            AllowList.class, "npm", DEPS, compile, AllowList.snapshotCodec());
+
+        assertEquals(2, compilations.get());
+        assertTrue(recompiled.test("lodash"));
+    }
+
+    @Test
+    void snapshotsMovedToAnotherListAreNotRestored() throws IOException {
+        final AllowListSnapshots snapshots = AllowListSnapshots.inDirectory(baseDir, key(1));
+        registry(snapshots).get(AllowList.class, "npm", "express", compile, AllowList.snapshotCodec());
+        final Path written;
+        try (Stream<Path> listing = Files.list(baseDir)) {
+            written = listing.findFirst().orElseThrow(IllegalStateException::new);
+        }
+        registry(snapshots).get(AllowList.class, "npm", DEPS, compile, AllowList.snapshotCodec());
+        final Path target;
+        try (Stream<Path> listing = Files.list(baseDir)) {
+            target = listing.filter(file -> !file.equals(written)).findFirst()
+                .orElseThrow(IllegalStateException::new);
+        }
+
+        /* The snapshot allowing express, in place of the one which does not */
+        Files.copy(written, target, StandardCopyOption.REPLACE_EXISTING);
+        final AllowList recompiled = registry(snapshots).get(AllowList.class, "npm", DEPS, compile,
+            AllowList.snapshotCodec());
+
+        assertEquals(3, compilations.get());
+        assertEquals(Decision.NOT_ALLOWED, recompiled.decide("express"));
+    }
+
+    @Test
+    void keysAreCreatedOnceAndKept() throws IOException {
+        final Path keyFile = userHome.resolve("allowed-dependencies").resolve("snapshot.key");
+
+        final byte[] created = AllowListSnapshots.readKey(keyFile);
+
+        assertEquals(AllowListSnapshots.KEY_BYTES, created.length);
+        assertArrayEquals(created, AllowListSnapshots.readKey(keyFile));
+    }
+
+    @Test
+    void keysInsideTheProjectAreNotUsed() throws IOException {
+        final Path keyFile = baseDir.resolve("snapshot.key");
+        Files.write(keyFile, key(1));
+
+        assertFalse(analysisCache(mock(ReadCache.class), mock(WriteCache.class), keyFile).isEnabled());
+    }
+
+    @Test
+    void malformedKeysDisableSnapshots() throws IOException {
+        final Path keyFile = userHome.resolve("snapshot.key");
+        Files.write(keyFile, "short".getBytes(StandardCharsets.UTF_8));
+
+        assertFalse(analysisCache(mock(ReadCache.class), mock(WriteCache.class), keyFile).isEnabled());
+    }
+
+    @Test
+    void snapshotsNeedTheAnalysisCache() {
+        final SensorContextTester context = SensorContextTester.create(baseDir);
+        context.fileSystem().setWorkDir(baseDir.resolve("work"));
+
+        assertFalse(AllowListSnapshots.of(context, null, userHome.resolve("snapshot.key")).isEnabled());
+    }
+
+    @Test
+    void snapshotsCanBeDisabled() {
+        final SensorContextTester context = SensorContextTester.create(baseDir);
+        final MapSettings settings = new MapSettings().setProperty(ScannerProperties.SNAPSHOTS_KEY, "false");
+
+        assertFalse(AllowListSnapshots.of(context, settings.asConfig()).isEnabled());
+    }
+
+    @Test
+    void projectsCannotChooseTheSnapshotDirectory() {
+        final SensorContextTester context = SensorContextTester.create(baseDir);
+        final Path directory = baseDir.resolve("snapshots");
+        final MapSettings settings = new MapSettings()
+            .setProperty("sonar.allowedDependencies.snapshotDirectory", directory.toString());
+
+        final AllowListSnapshots snapshots = AllowListSnapshots.of(context, settings.asConfig(),
+            userHome.resolve("snapshot.key"));
+        registry(snapshots).get(AllowList.class, "npm", DEPS, compile, AllowList.snapshotCodec());
+
+        assertFalse(snapshots.isEnabled());
+        assertFalse(Files.exists(directory));
+    }
+
+    @Test
+    void snapshotsAreCarriedThroughTheAnalysisCache() {
+        final ReadCache emptyCache = mock(ReadCache.class);
+        final WriteCache firstCache = mock(WriteCache.class);
+        registry(analysisCache(emptyCache, firstCache)).get(AllowList.class, "npm", DEPS, compile,
+            AllowList.snapshotCodec());
+
+        final ArgumentCaptor<String> key = ArgumentCaptor.forClass(String.class);
+        final ArgumentCaptor<byte[]> data = ArgumentCaptor.forClass(byte[].class);
+        verify(firstCache).write(key.capture(), data.capture());
+
+        final ReadCache previousCache = mock(ReadCache.class);
+        when(previousCache.contains(key.getValue())).thenReturn(true);
+        when(previousCache.read(key.getValue())).thenReturn(new ByteArrayInputStream(data.getValue()));
+        final WriteCache nextCache = mock(WriteCache.class);
+        final AllowList restored = registry(analysisCache(previousCache, nextCache)).get(AllowList.class, "npm",
+            DEPS, compile, AllowList.snapshotCodec());
+
+        assertEquals(1, compilations.get());
+        assertTrue(restored.test("@types/node"));
+        verify(nextCache).copyFromPrevious(key.getValue());
+        verify(nextCache, never()).write(anyString(), any(byte[].class));
+    }
+
+    private AllowListSnapshots analysisCache(final ReadCache previousCache, final WriteCache nextCache) {
+        return analysisCache(previousCache, nextCache, userHome.resolve("snapshot.key"));
+    }
+
+    private AllowListSnapshots analysisCache(final ReadCache previousCache, final WriteCache nextCache,
+            final Path keyFile) {
+        final SensorContextTester context = SensorContextTester.create(baseDir);
+        context.setCacheEnabled(true);
+        context.setPreviousCache(previousCache);
+        context.setNextCache(nextCache);
+        return AllowListSnapshots.of(context, null, keyFile);
+    }
+
+    private static byte[] key(final int seed) {
+        final byte[] key = new byte[AllowListSnapshots.KEY_BYTES];
+        Arrays.fill(key, (byte) seed);
+        return key;
+    }
+
+    private static AllowListRegistry registry(final AllowListSnapshots snapshots) {
+        return AllowListRegistry.withDefaults().forAnalysis(snapshots, () -> null);
+    }
+}
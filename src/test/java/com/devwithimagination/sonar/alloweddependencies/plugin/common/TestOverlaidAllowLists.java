@@ -0,0 +1,90 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.AllowList;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+
+/**
+ * Test class for {@link OverlaidAllowLists}.
+ */
+class TestOverlaidAllowLists {
+
+    private static final String RULE_ROWS = "lodash\nreact\nmoment";
+
+    @TempDir
+    Path baseDir;
+
+    private AllowListRegistry registry;
+
+    private OverlaidAllowLists<AllowList> allowLists;
+
+    @BeforeEach
+    void setup() throws IOException {
+        Files.createDirectories(baseDir.resolve("services"));
+        Files.write(baseDir.resolve("services").resolve(AllowListOverlays.FILE_NAME),
+            "express".getBytes(StandardCharsets.UTF_8));
+
+        registry = AllowListRegistry.withDefaults();
+        allowLists = new OverlaidAllowLists<>(compile(RULE_ROWS), new AllowListOverlays(baseDir, "npm"),
+            overlayRows -> compile(AllowListOverlays.merge(RULE_ROWS, overlayRows)));
+    }
+
+    @Test
+    void filesWithoutAnOverlayUseTheRuleList() {
+        assertSame(allowLists.base(), allowLists.forFile(file("package.json")));
+        assertFalse(allowLists.forFile(file("package.json")).test("express"));
+        assertEquals(0, allowLists.overlaidCount());
+    }
+
+    @Test
+    void eachOverlayChainIsCompiledOnce() {
+        final AllowList first = allowLists.forFile(file("services/a/package.json"));
+        final AllowList second = allowLists.forFile(file("services/b/package.json"));
+
+        assertSame(first, second);
+        assertEquals(1, allowLists.overlaidCount());
+        assertTrue(first.test("express"));
+        assertTrue(first.test("lodash"));
+    }
+
+    @Test
+    void rowsAreOnlyUnusedWhenUnusedInEveryList() {
+        allowLists.base().test("lodash");
+        allowLists.forFile(file("services/package.json")).test("react");
+        allowLists.forFile(file("services/package.json")).test("express");
+
+        assertEquals(Collections.singletonList("moment"), allowLists.rowUsage().unusedRows());
+        assertEquals(3, allowLists.rowUsage().rowCount());
+        assertEquals(Arrays.asList("react", "moment"), allowLists.base().unusedRows());
+    }
+
+    private AllowList compile(final String rows) {
+        return registry.get(AllowList.class, "test", rows, null,
+            (list, deniedList) -> {
+                final AllowList.Builder builder = AllowList.builder();
+                AllowList.rows(list).forEach(builder::addExact);
+                return builder.build();
+            });
+    }
+
+    private InputFile file(final String relativePath) {
+        return TestInputFileBuilder.create("my-test-project", baseDir.toFile(), baseDir.resolve(relativePath).toFile())
+            .build();
+    }
+}
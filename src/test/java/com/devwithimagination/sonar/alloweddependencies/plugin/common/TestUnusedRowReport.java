@@ -0,0 +1,60 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.AllowList;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonar.api.batch.sensor.internal.SensorContextTester;
+import org.sonar.api.rule.RuleKey;
+
+/**
+ * Test class for {@link UnusedRowReport}.
+ */
+class TestUnusedRowReport {
+
+    @TempDir
+    Path baseDir;
+
+    @Test
+    void unusedRowsAreWrittenPerRule() throws IOException {
+        final AllowList first = AllowList.builder().addExact("lodash").addExact("react").build();
+        final AllowList second = AllowList.builder().addGlob("@angular/*").build();
+        first.test("react");
+        second.test("@angular/core");
+
+        final SensorContextTester context = SensorContextTester.create(baseDir);
+        context.fileSystem().setWorkDir(baseDir.resolve("work"));
+        final Path report = new UnusedRowReport("npm")
+            .add(RuleKey.of("npm", "first"), first)
+            .add(RuleKey.of("npm", "second"), second)
+            .write(context);
+
+        assertEquals(baseDir.resolve("work").resolve(UnusedRowReport.fileName("npm")), report);
+        assertEquals(Arrays.asList(
+                "# Allow-list rows which did not match any dependency in this analysis",
+                "",
+                "# npm:first: 1 of 2 rows unused",
+                "lodash",
+                "",
+                "# npm:second: 0 of 1 rows unused"),
+            Files.readAllLines(report, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void reportIsSkippedWithoutAWorkingDirectory() {
+        final SensorContextTester context = SensorContextTester.create(baseDir);
+
+        assertNull(new UnusedRowReport("npm")
+            .add(RuleKey.of("npm", "first"), AllowList.builder().addExact("lodash").build())
+            .write(context));
+    }
+}
@@ -10,6 +10,7 @@ import static org.mockito.Mockito.when;
 import java.util.Collections;
 import java.util.stream.Stream;
 
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.AllowListRegistry;
 import com.devwithimagination.sonar.alloweddependencies.plugin.maven.rules.MavenRulesDefinition;
 import com.devwithimagination.sonar.alloweddependencies.plugin.maven.sensors.CreateIssuesOnMavenArtifactsSensor;
 import com.devwithimagination.sonar.alloweddependencies.plugin.npm.rules.NpmRulesDefinition;
@@ -99,15 +100,15 @@ class TestCommonSensorBehavior {
 
         return Stream.of(
             Arguments.of(
-                new CreateIssuesOnNPMDependenciesSensor(null),
+                new CreateIssuesOnNPMDependenciesSensor(null, AllowListRegistry.withDefaults()),
                 NpmRulesDefinition.NPM_DEPENDENCY_LANGUAGE,
                 NpmRulesDefinition.REPOSITORY_NPM),
             Arguments.of(
-                new CreateIssuesOnMavenArtifactsSensor(null),
+                new CreateIssuesOnMavenArtifactsSensor(null, AllowListRegistry.withDefaults()),
                 MavenRulesDefinition.MAVEN_DEPENDENCY_LANGUAGE,
                 MavenRulesDefinition.REPOSITORY_MAVEN),
             Arguments.of(
-                new CreateIssuesOnPythonDependenciesSensor(null),
+                new CreateIssuesOnPythonDependenciesSensor(null, AllowListRegistry.withDefaults()),
                 PythonRulesDefinition.PYTHON_DEPENDENCY_LANGUAGE,
                 PythonRulesDefinition.REPOSITORY_PYTHON)
         );
@@ -121,9 +122,9 @@ class TestCommonSensorBehavior {
     private static Stream<Arguments> provideExecuteNoRulesParameters() {
 
         return Stream.of(
-            Arguments.of(new CreateIssuesOnNPMDependenciesSensor(null)),
-            Arguments.of(new CreateIssuesOnMavenArtifactsSensor(null)),
-            Arguments.of(new CreateIssuesOnPythonDependenciesSensor(null))
+            Arguments.of(new CreateIssuesOnNPMDependenciesSensor(null, AllowListRegistry.withDefaults())),
+            Arguments.of(new CreateIssuesOnMavenArtifactsSensor(null, AllowListRegistry.withDefaults())),
+            Arguments.of(new CreateIssuesOnPythonDependenciesSensor(null, AllowListRegistry.withDefaults()))
         );
 
     }
@@ -11,10 +11,15 @@ import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.stream.Stream;
 
+import javax.xml.stream.XMLStreamException;
+
 import com.devwithimagination.sonar.alloweddependencies.plugin.maven.checks.AllowedMavenDependenciesCheck;
 import com.devwithimagination.sonar.alloweddependencies.plugin.maven.checks.AllowedMavenDependenciesCheckConfig;
+import com.devwithimagination.sonar.alloweddependencies.plugin.maven.checks.MavenDependencyRoutes;
+import com.devwithimagination.sonar.alloweddependencies.plugin.maven.checks.PomModel;
 import com.devwithimagination.sonar.alloweddependencies.plugin.maven.rules.MavenRulesDefinition;
 
 import org.junit.jupiter.params.ParameterizedTest;
@@ -29,14 +34,13 @@ import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.batch.sensor.internal.SensorStorage;
 import org.sonar.api.batch.sensor.issue.internal.DefaultIssue;
 import org.sonar.api.rule.RuleKey;
-import org.sonarsource.analyzer.commons.xml.XmlFile;
 
 class TestAllowedMavenDependenciesCheck {
 
     /**
-     * The file we will scan for tests.
+     * The model of the file we will scan for tests.
      */
-    private XmlFile inputFile;
+    private PomModel pom;
 
     /**
      * The sensor context used in the scan.
@@ -46,8 +50,9 @@ class TestAllowedMavenDependenciesCheck {
     /**
      * Setup any configuration between tests.
      * @throws IOException
+     * @throws XMLStreamException
      */
-    private void setup(final String filename) throws IOException {
+    private void setup(final String filename) throws IOException, XMLStreamException {
 
         /* Setup the test project location */
         final File moduleBaseDir = new File("src/test/resources/maven");
@@ -59,7 +64,7 @@ class TestAllowedMavenDependenciesCheck {
                 .setCharset(Charset.forName("UTF-8"))
                 .setContents(fileContents)
                 .build();
-        this.inputFile = XmlFile.create(testInputFile);
+        this.pom = PomModel.read(testInputFile);
 
 
 
@@ -80,7 +85,7 @@ class TestAllowedMavenDependenciesCheck {
      */
     @ParameterizedTest
     @MethodSource("provideNoViolationParameters")
-    void checkForNoViolations(final String fileName, final ActiveRule rule) throws IOException {
+    void checkForNoViolations(final String fileName, final ActiveRule rule) throws IOException, XMLStreamException {
 
         setup(fileName);
 
@@ -88,7 +93,7 @@ class TestAllowedMavenDependenciesCheck {
         final AllowedMavenDependenciesCheckConfig config = new AllowedMavenDependenciesCheckConfig(rule);
         final AllowedMavenDependenciesCheck check = new AllowedMavenDependenciesCheck(config);
 
-        check.scanFile(sensorContext, rule.ruleKey(), inputFile);
+        MavenDependencyRoutes.of(Collections.singletonList(check)).scanFile(sensorContext, pom);
 
         verify(sensorContext, never()).newIssue();
     }
@@ -102,14 +107,15 @@ class TestAllowedMavenDependenciesCheck {
      */
     @ParameterizedTest
     @MethodSource("provideViolationParameters")
-    void checkForViolations(final String filename, final ActiveRule rule, final int expectedIssues) throws IOException {
+    void checkForViolations(final String filename, final ActiveRule rule, final int expectedIssues)
+            throws IOException, XMLStreamException {
 
         setup(filename);
 
         /* Scan our test file, and confirm the right number of issues were raised */
         final AllowedMavenDependenciesCheckConfig config = new AllowedMavenDependenciesCheckConfig(rule);
         final AllowedMavenDependenciesCheck check = new AllowedMavenDependenciesCheck(config);
-        check.scanFile(sensorContext, rule.ruleKey(), inputFile);
+        MavenDependencyRoutes.of(Collections.singletonList(check)).scanFile(sensorContext, pom);
 
         verify(sensorContext, times(expectedIssues)).newIssue();
 
@@ -187,6 +193,32 @@ class TestAllowedMavenDependenciesCheck {
                 createNonTemplatedTestRule(MavenRulesDefinition.RULE_MAVEN_ALLOWED_MAIN,
                     "javax.cache:cache-api"),
                 2),
+            Arguments.of(
+                "pom.xml",
+                createNonTemplatedTestRule(MavenRulesDefinition.RULE_MAVEN_ALLOWED_MAIN,
+                    "javax.cache:cache-api:[1.0,2.0)"),
+                2),
+            Arguments.of(
+                "pom.xml",
+                createNonTemplatedTestRule(MavenRulesDefinition.RULE_MAVEN_ALLOWED_MAIN,
+                    "javax.cache:cache-api:[1.1,)"),
+                3),
+            Arguments.of(
+                /* Deny rows win over the regex row allowing everything */
+                "pom.xml",
+                createNonTemplatedTestRule(MavenRulesDefinition.RULE_MAVEN_ALLOWED_MAIN,
+                    "regex:.*", "javax.cache:cache-api"),
+                1),
+            Arguments.of(
+                "pom.xml",
+                createNonTemplatedTestRule(MavenRulesDefinition.RULE_MAVEN_ALLOWED_MAIN,
+                    "regex:.*", "javax.cache:cache-api:[1.0,2.0)"),
+                1),
+            Arguments.of(
+                "pom.xml",
+                createNonTemplatedTestRule(MavenRulesDefinition.RULE_MAVEN_ALLOWED_MAIN,
+                    "regex:.*", "javax.cache:cache-api:[2.0,)"),
+                0),
             Arguments.of(
                 "pom.xml",
                 createTemplatedTestRule(RuleKey.of(MavenRulesDefinition.REPOSITORY_MAVEN, "one-provided-deps"),
@@ -253,6 +285,28 @@ class TestAllowedMavenDependenciesCheck {
         return new DefaultActiveRules(Arrays.asList(rule)).find(ruleKey);
     }
 
+    /**
+     * Create an {@link ActiveRule} with the supplied configuration, including
+     * a deny-list.
+     *
+     * @param ruleKey the rule key
+     * @param allowedDeps the newline seperated allowed dependency string
+     * @param deniedDeps the newline seperated denied dependency string
+     *
+     * @return a rule configured with the expected values.
+     */
+    private static ActiveRule createNonTemplatedTestRule(final RuleKey ruleKey, final String allowedDeps,
+            final String deniedDeps) {
+
+        final NewActiveRule rule = new NewActiveRule.Builder()
+            .setRuleKey(ruleKey)
+            .setParam(MavenRulesDefinition.DEPS_PARAM_KEY, allowedDeps)
+            .setParam(MavenRulesDefinition.DENIED_DEPS_PARAM_KEY, deniedDeps)
+            .build();
+
+        return new DefaultActiveRules(Arrays.asList(rule)).find(ruleKey);
+    }
+
     /**
      * Create an {@link ActiveRule} with the supplied configuration. Rules created by this method will be set as created by
      * the templated rule, {@link MavenRulesDefinition#RULE_MAVEN_ALLOWED}.
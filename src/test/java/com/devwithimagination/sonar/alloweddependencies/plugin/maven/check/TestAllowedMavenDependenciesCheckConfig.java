@@ -4,12 +4,21 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
 
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.AllowListOverlays;
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.AllowListRegistry;
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.ScannerProperties;
 import com.devwithimagination.sonar.alloweddependencies.plugin.maven.checks.AllowedMavenDependenciesCheckConfig;
 import com.devwithimagination.sonar.alloweddependencies.plugin.maven.rules.MavenRulesDefinition;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
 import org.sonar.api.batch.rule.ActiveRule;
 import org.sonar.api.batch.rule.internal.DefaultActiveRules;
 import org.sonar.api.batch.rule.internal.NewActiveRule;
@@ -20,6 +29,8 @@ import org.sonar.api.rule.RuleKey;
  */
 class TestAllowedMavenDependenciesCheckConfig {
 
+    @TempDir
+    Path baseDir;
 
     /**
      * Check that the {@link MavenRulesDefinition#RULE_MAVEN_ALLOWED_MAIN} is parsed correctly.
@@ -80,6 +91,30 @@ class TestAllowedMavenDependenciesCheckConfig {
     }
 
 
+    /**
+     * Check that the verdict cache of each overlay chain is reported alongside
+     * the cache of the rule's own list.
+     */
+    @Test
+    void overlayVerdictCachesAreReported() throws IOException {
+
+        Files.createDirectories(baseDir.resolve("module"));
+        Files.write(baseDir.resolve("module").resolve(AllowListOverlays.FILE_NAME),
+            "org.slf4j:*".getBytes(StandardCharsets.UTF_8));
+        final ActiveRule rule = createTestRule(MavenRulesDefinition.RULE_MAVEN_ALLOWED_MAIN, "junit:junit");
+        final AllowedMavenDependenciesCheckConfig config = new AllowedMavenDependenciesCheckConfig(rule,
+            AllowListRegistry.withDefaults(), ScannerProperties.DEFAULT_VERDICT_CACHE_SIZE,
+            new AllowListOverlays(baseDir, "maven"));
+
+        assertEquals(Arrays.asList(config.getVerdictCache()), config.getVerdictCaches());
+
+        config.getAllowedDependenciesMatcher(TestInputFileBuilder.create("my-test-project", baseDir.toFile(),
+            baseDir.resolve("module/pom.xml").toFile()).build());
+
+        assertEquals(2, config.getVerdictCaches().size());
+        assertEquals(config.getVerdictCache(), config.getVerdictCaches().get(0));
+    }
+
     /**
      * Create a {@link ActiveRule} with the supplied configuration.
      *
@@ -12,8 +12,11 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.Arrays;
 
+import javax.xml.stream.XMLStreamException;
+
 import com.devwithimagination.sonar.alloweddependencies.plugin.maven.checks.AllowedMavenExtensionsCheck;
 import com.devwithimagination.sonar.alloweddependencies.plugin.maven.checks.AllowedMavenExtensionsCheckConfig;
+import com.devwithimagination.sonar.alloweddependencies.plugin.maven.checks.PomModel;
 import com.devwithimagination.sonar.alloweddependencies.plugin.maven.rules.MavenRulesDefinition;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
@@ -25,30 +28,30 @@ import org.sonar.api.batch.rule.internal.NewActiveRule;
 import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.batch.sensor.internal.SensorStorage;
 import org.sonar.api.batch.sensor.issue.internal.DefaultIssue;
-import org.sonarsource.analyzer.commons.xml.XmlFile;
 
 class TestAllowedMavenExtensionsCheck {
 
     @ParameterizedTest
     @ValueSource(strings = {"extensions/pom.xml", ".mvn/extensions.xml"})
-    void checksPomAndCoreExtensionDescriptors(final String file) throws IOException {
+    void checksPomAndCoreExtensionDescriptors(final String file) throws IOException, XMLStreamException {
         final SensorContext context = context();
         final ActiveRule rule = rule(String.join("\n", "# comment", "", "COM.EXAMPLE:APPROVED-EXTENSION"));
 
         new AllowedMavenExtensionsCheck(new AllowedMavenExtensionsCheckConfig(rule))
-            .scanFile(context, rule.ruleKey(), xml(file));
+            .scanFile(context, rule.ruleKey(), pom(file));
 
         verify(context, times(1)).newIssue();
     }
 
     @ParameterizedTest
     @ValueSource(strings = {"extensions/pom.xml", ".mvn/extensions.xml"})
-    void regexMatchesCanonicalCoordinateAndVersionsAreIgnored(final String file) throws IOException {
+    void regexMatchesCanonicalCoordinateAndVersionsAreIgnored(final String file)
+            throws IOException, XMLStreamException {
         final SensorContext context = context();
         final ActiveRule rule = rule("regex:(com|org)\\.example:.*-extension");
 
         new AllowedMavenExtensionsCheck(new AllowedMavenExtensionsCheckConfig(rule))
-            .scanFile(context, rule.ruleKey(), xml(file));
+            .scanFile(context, rule.ruleKey(), pom(file));
 
         verify(context, never()).newIssue();
     }
@@ -68,13 +71,13 @@ class TestAllowedMavenExtensionsCheck {
         return context;
     }
 
-    private static XmlFile xml(final String path) throws IOException {
+    private static PomModel pom(final String path) throws IOException, XMLStreamException {
         final File base = new File("src/test/resources/maven");
         final File file = new File(base, path);
         final InputFile input = TestInputFileBuilder.create(TestAllowedMavenExtensionsCheck.class.getName(), base, file)
             .setCharset(StandardCharsets.UTF_8)
             .setContents(Files.readString(file.toPath()))
             .build();
-        return XmlFile.create(input);
+        return PomModel.read(input);
     }
 }
@@ -12,8 +12,11 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.Arrays;
 
+import javax.xml.stream.XMLStreamException;
+
 import com.devwithimagination.sonar.alloweddependencies.plugin.maven.checks.AllowedMavenPluginsCheck;
 import com.devwithimagination.sonar.alloweddependencies.plugin.maven.checks.AllowedMavenPluginsCheckConfig;
+import com.devwithimagination.sonar.alloweddependencies.plugin.maven.checks.PomModel;
 import com.devwithimagination.sonar.alloweddependencies.plugin.maven.rules.MavenRulesDefinition;
 import org.junit.jupiter.api.Test;
 import org.sonar.api.batch.fs.InputFile;
@@ -24,12 +27,11 @@ import org.sonar.api.batch.rule.internal.NewActiveRule;
 import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.batch.sensor.internal.SensorStorage;
 import org.sonar.api.batch.sensor.issue.internal.DefaultIssue;
-import org.sonarsource.analyzer.commons.xml.XmlFile;
 
 class TestAllowedMavenPluginsCheck {
 
     @Test
-    void checksBuildProfileAndReportingPluginsButNotPluginManagement() throws IOException {
+    void checksBuildProfileAndReportingPluginsButNotPluginManagement() throws IOException, XMLStreamException {
         final SensorContext context = context();
         final ActiveRule rule = rule(String.join("\n",
             "# Maven's default plugin group may be omitted",
@@ -38,14 +40,14 @@ class TestAllowedMavenPluginsCheck {
             "regex:com\\.example\\.reporting:approved-.*"));
 
         new AllowedMavenPluginsCheck(new AllowedMavenPluginsCheckConfig(rule))
-            .scanFile(context, rule.ruleKey(), xml("plugins/pom.xml"));
+            .scanFile(context, rule.ruleKey(), pom("plugins/pom.xml"));
 
         // Four active forbidden declarations; both pluginManagement declarations are ignored.
         verify(context, times(4)).newIssue();
     }
 
     @Test
-    void canonicalCoordinatesAndVersionsDoNotAffectApproval() throws IOException {
+    void canonicalCoordinatesAndVersionsDoNotAffectApproval() throws IOException, XMLStreamException {
         final SensorContext context = context();
         final ActiveRule rule = rule(String.join("\n",
             "org.apache.maven.plugins:maven-compiler-plugin",
@@ -54,7 +56,7 @@ class TestAllowedMavenPluginsCheck {
             "regex:com\\.example\\.(ci|profile):forbidden-.*"));
 
         new AllowedMavenPluginsCheck(new AllowedMavenPluginsCheckConfig(rule))
-            .scanFile(context, rule.ruleKey(), xml("plugins/pom.xml"));
+            .scanFile(context, rule.ruleKey(), pom("plugins/pom.xml"));
 
         verify(context, never()).newIssue();
     }
@@ -74,13 +76,13 @@ class TestAllowedMavenPluginsCheck {
         return context;
     }
 
-    private static XmlFile xml(final String path) throws IOException {
+    private static PomModel pom(final String path) throws IOException, XMLStreamException {
         final File base = new File("src/test/resources/maven");
         final File file = new File(base, path);
         final InputFile input = TestInputFileBuilder.create(TestAllowedMavenPluginsCheck.class.getName(), base, file)
             .setCharset(StandardCharsets.UTF_8)
             .setContents(Files.readString(file.toPath()))
             .build();
-        return XmlFile.create(input);
+        return PomModel.read(input);
     }
 }
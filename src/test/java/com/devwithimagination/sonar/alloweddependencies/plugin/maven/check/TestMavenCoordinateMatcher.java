@@ -0,0 +1,232 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.maven.check;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+import com.devwithimagination.sonar.alloweddependencies.plugin.maven.checks.MavenCoordinateMatcher;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.Decision;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.Version;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.VersionRange;
+
+import org.junit.jupiter.api.Test;
+
+class TestMavenCoordinateMatcher {
+
+    @Test
+    void exactRowsMatchOnBothComponentsIgnoringCase() {
+        final MavenCoordinateMatcher matcher = MavenCoordinateMatcher.builder()
+            .addExact("org.junit:junit")
+            .addExact("org.junit:JUnit-BOM")
+            .build();
+
+        assertTrue(matcher.test("ORG.JUNIT", "junit"));
+        assertTrue(matcher.test("org.junit", "junit-bom"));
+        assertTrue(matcher.test("org.junit:junit"));
+        assertFalse(matcher.test("org.junit", "hamcrest"));
+        assertFalse(matcher.test("org.junit.jupiter", "junit"));
+    }
+
+    @Test
+    void groupWildcardRowsAllowEveryArtifactInTheGroup() {
+        final MavenCoordinateMatcher matcher = MavenCoordinateMatcher.builder()
+            .addExact("com.ourcorp:*")
+            .build();
+
+        assertTrue(matcher.test("com.ourcorp", "anything"));
+        assertTrue(matcher.test("com.ourcorp:other"));
+        assertFalse(matcher.test("com.ourcorp.sub", "anything"));
+    }
+
+    @Test
+    void globRowsMatchTheJoinedCoordinate() {
+        final MavenCoordinateMatcher matcher = MavenCoordinateMatcher.builder()
+            .addGlob("com.ourcorp.**")
+            .addGlob("org.apache.maven.plugins:maven-*-plugin")
+            .build();
+
+        assertTrue(matcher.test("com.ourcorp.platform", "core"));
+        assertTrue(matcher.test("org.apache.maven.plugins", "maven-jar-plugin"));
+        assertFalse(matcher.test("com.ourcorp", "core"));
+    }
+
+    @Test
+    void fallbackRowsMatchCanonicalCoordinate() {
+        final MavenCoordinateMatcher.Builder builder = MavenCoordinateMatcher.builder()
+            .addExact("not-a-coordinate");
+        builder.fallback().addRegex(Pattern.compile("^org\\.apache\\..*:commons-.*", Pattern.CASE_INSENSITIVE));
+        final MavenCoordinateMatcher matcher = builder.build();
+
+        assertTrue(matcher.test("org.apache.commons", "commons-lang3"));
+        assertTrue(matcher.test("not-a-coordinate"));
+        assertFalse(matcher.test("org.apache.commons", "lang"));
+    }
+
+    @Test
+    void missingComponentsUseTheLiteralNullCoordinate() {
+        final MavenCoordinateMatcher matcher = MavenCoordinateMatcher.builder()
+            .addExact("null:artifact")
+            .build();
+
+        assertTrue(matcher.test(null, "artifact"));
+        assertFalse(matcher.test("group", null));
+        assertFalse(matcher.test(null));
+    }
+
+    @Test
+    void exactRowsAllowedByOtherRowsAreDropped() {
+        final MavenCoordinateMatcher.Builder builder = MavenCoordinateMatcher.builder()
+            .addExact("com.ourcorp:*")
+            .addExact("com.ourcorp:core")
+            .addExact("org.apache.commons:commons-lang3")
+            .addExact("ORG.APACHE.COMMONS:COMMONS-LANG3")
+            .addExact("com.ourcorp.platform:api")
+            .addExact("org.junit:junit")
+            .addGlob("com.ourcorp.**");
+        builder.fallback().addRegex(Pattern.compile("^org\\.apache\\..*:commons-.*", Pattern.CASE_INSENSITIVE));
+        final MavenCoordinateMatcher matcher = builder.build();
+
+        assertEquals(2, matcher.exactRowCount());
+        assertTrue(matcher.test("com.ourcorp", "core"));
+        assertTrue(matcher.test("Org.Apache.Commons", "Commons-Lang3"));
+        assertTrue(matcher.test("com.ourcorp.platform", "api"));
+        assertTrue(matcher.test("org.junit", "junit"));
+        assertFalse(matcher.test("org.junit", "hamcrest"));
+    }
+
+    @Test
+    void rowsWhichNeverMatchAreReported() {
+        final MavenCoordinateMatcher.Builder builder = MavenCoordinateMatcher.builder()
+            .addExact("com.ourcorp:*")
+            .addExact("org.junit:junit")
+            .addExact("org.junit:JUnit")
+            .addExact("org.hamcrest:hamcrest")
+            .addGlob("org.apache.**")
+            .addGlob("io.netty:netty-*");
+        builder.fallback().addRegex(Pattern.compile("^com\\.google\\.", Pattern.CASE_INSENSITIVE));
+        final MavenCoordinateMatcher matcher = builder.build().withVerdictCache("rule", 10);
+
+        assertTrue(matcher.test("com.ourcorp", "core"));
+        assertTrue(matcher.test("ORG.JUNIT", "junit"));
+        assertTrue(matcher.test("io.netty", "netty-codec"));
+        assertFalse(matcher.test("net.acme", "core"));
+
+        assertEquals(6, matcher.rowCount());
+        assertEquals(Arrays.asList("org.hamcrest:hamcrest", "glob:org.apache.**", "regex:^com\\.google\\."),
+            matcher.unusedRows());
+    }
+
+    @Test
+    void versionedRowsAllowDeclaredVersionsInTheirRange() {
+        final MavenCoordinateMatcher.Builder builder = MavenCoordinateMatcher.builder();
+        builder.fallback().addVersioned("org.apache.logging.log4j:log4j-core", VersionRange.parse("[2.17.1,)"),
+            "org.apache.logging.log4j:log4j-core:[2.17.1,)");
+        final MavenCoordinateMatcher matcher = builder.build();
+
+        assertFalse(matcher.test("org.apache.logging.log4j", "log4j-core"));
+        assertTrue(matcher.allowsVersion("org.apache.logging.log4j", "log4j-core",
+            VersionRange.exactly(Version.parse("2.17.1"))));
+        assertFalse(matcher.allowsVersion("org.apache.logging.log4j", "log4j-core",
+            VersionRange.exactly(Version.parse("2.14.1"))));
+        assertFalse(matcher.allowsVersion("org.apache.logging.log4j", "log4j-core", VersionRange.parse("[2.0,)")));
+        assertFalse(matcher.allowsVersion("org.apache.logging.log4j", "log4j-api",
+            VersionRange.exactly(Version.parse("2.17.1"))));
+
+        assertEquals(1, matcher.rowCount());
+        assertTrue(matcher.unusedRows().isEmpty());
+    }
+
+    @Test
+    void denyRowsTakePrecedenceOverAllowRows() {
+        final MavenCoordinateMatcher.Builder denied = MavenCoordinateMatcher.builder()
+            .addExact("org.apache.commons:commons-collections")
+            .addExact("com.example.legacy:*")
+            .addGlob("org.springframework:spring-*-legacy");
+        denied.fallback().addRegex(Pattern.compile("-snapshot-only$", Pattern.CASE_INSENSITIVE));
+        final MavenCoordinateMatcher matcher = MavenCoordinateMatcher.builder()
+            .addExact("org.apache.commons:commons-collections")
+            .addExact("org.apache.commons:commons-lang3")
+            .addExact("com.example.legacy:*")
+            .addExact("com.example.legacy:widgets")
+            .addExact("org.springframework:*")
+            .denied(denied.build())
+            .build();
+
+        assertEquals(Decision.DENIED, matcher.decide("org.apache.commons", "COMMONS-COLLECTIONS"));
+        assertEquals(Decision.ALLOWED, matcher.decide("org.apache.commons", "commons-lang3"));
+        assertEquals(Decision.DENIED, matcher.decide("com.example.legacy", "widgets"));
+        assertEquals(Decision.DENIED, matcher.decide("com.example.legacy", "gadgets"));
+        assertEquals(Decision.ALLOWED, matcher.decide("org.springframework", "spring-core"));
+        assertEquals(Decision.DENIED, matcher.decide("org.springframework", "spring-web-legacy"));
+        assertEquals(Decision.DENIED, matcher.decide("org.springframework", "spring-snapshot-only"));
+        assertEquals(Decision.NOT_ALLOWED, matcher.decide("org.slf4j", "slf4j-api"));
+        assertEquals(Decision.DENIED, matcher.decide("org.apache.commons:commons-collections"));
+        assertFalse(matcher.test("com.example.legacy", "widgets"));
+
+        assertEquals(Arrays.asList("com.example.legacy:*", "org.apache.commons:commons-collections"),
+            matcher.unusedRows());
+    }
+
+    @Test
+    void denyRowsExceedingTheirBudgetDenyTheCoordinate() {
+        final MavenCoordinateMatcher.Builder denied = MavenCoordinateMatcher.builder();
+        denied.fallback().exceededRegexRowsMatch(true)
+            .addRegex(Pattern.compile("^(.*a){12}$", Pattern.CASE_INSENSITIVE));
+        final MavenCoordinateMatcher matcher = MavenCoordinateMatcher.builder()
+            .addExact("com.example:*")
+            .denied(denied.build())
+            .build();
+
+        assertEquals(Decision.DENIED, matcher.decide("com.example", "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa!"));
+        assertEquals(Decision.ALLOWED, matcher.decide("com.example", "widgets"));
+    }
+
+    @Test
+    void versionedDenyRowsDenyOverlappingDeclarations() {
+        final MavenCoordinateMatcher.Builder denied = MavenCoordinateMatcher.builder();
+        denied.fallback().addVersioned("org.apache.logging.log4j:log4j-core", VersionRange.parse("(,2.17.1)"),
+            "org.apache.logging.log4j:log4j-core:(,2.17.1)");
+        final MavenCoordinateMatcher matcher = MavenCoordinateMatcher.builder()
+            .addExact("org.apache.logging.log4j:*")
+            .denied(denied.build())
+            .build();
+
+        assertEquals(Decision.DENIED, matcher.decide("org.apache.logging.log4j", "log4j-core",
+            VersionRange.exactly(Version.parse("2.14.1"))));
+        assertEquals(Decision.ALLOWED, matcher.decide("org.apache.logging.log4j", "log4j-core",
+            VersionRange.exactly(Version.parse("2.17.1"))));
+        assertEquals(Decision.ALLOWED, matcher.decide("org.apache.logging.log4j", "log4j-core", null));
+    }
+
+    @Test
+    void snapshotsRestoreTheSameDecisions() throws IOException {
+        final MavenCoordinateMatcher.Builder builder = MavenCoordinateMatcher.builder()
+            .addExact("org.junit:junit")
+            .addExact("com.ourcorp:*")
+            .addGlob("org.apache.maven.plugins:maven-*-plugin")
+            .denied(MavenCoordinateMatcher.builder().addExact("com.ourcorp:legacy").build());
+        builder.fallback().addRegex(Pattern.compile("^org\\.apache\\..*:commons-.*", Pattern.CASE_INSENSITIVE));
+        final MavenCoordinateMatcher matcher = builder.build();
+
+        assertTrue(matcher.supportsSnapshot());
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        matcher.writeSnapshot(new DataOutputStream(bytes));
+        final MavenCoordinateMatcher restored = MavenCoordinateMatcher.readSnapshot(
+            new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        for (String coordinate : Arrays.asList("ORG.JUNIT:junit", "com.ourcorp:anything", "com.ourcorp:legacy",
+                "org.apache.maven.plugins:maven-jar-plugin", "org.apache.commons:commons-lang3",
+                "org.junit:hamcrest")) {
+            assertEquals(matcher.decide(coordinate), restored.decide(coordinate), coordinate);
+        }
+        assertEquals(Decision.DENIED, restored.decide("com.ourcorp", "legacy"));
+    }
+}
@@ -0,0 +1,138 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.maven.check;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import javax.xml.stream.XMLStreamException;
+
+import com.devwithimagination.sonar.alloweddependencies.plugin.maven.checks.AllowedMavenDependenciesCheck;
+import com.devwithimagination.sonar.alloweddependencies.plugin.maven.checks.AllowedMavenDependenciesCheckConfig;
+import com.devwithimagination.sonar.alloweddependencies.plugin.maven.checks.MavenDependencyRoutes;
+import com.devwithimagination.sonar.alloweddependencies.plugin.maven.checks.PomModel;
+import com.devwithimagination.sonar.alloweddependencies.plugin.maven.rules.MavenRulesDefinition;
+
+import org.junit.jupiter.api.Test;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.api.batch.rule.internal.DefaultActiveRules;
+import org.sonar.api.batch.rule.internal.NewActiveRule;
+import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.api.batch.sensor.internal.SensorStorage;
+import org.sonar.api.batch.sensor.issue.internal.DefaultIssue;
+import org.sonar.api.rule.RuleKey;
+
+/**
+ * Test class for {@link MavenDependencyRoutes}.
+ */
+class TestMavenDependencyRoutes {
+
+    private final AllowedMavenDependenciesCheck main = check(MavenRulesDefinition.RULE_MAVEN_ALLOWED_MAIN, null);
+
+    private final AllowedMavenDependenciesCheck test = check(MavenRulesDefinition.RULE_MAVEN_ALLOWED_TEST, null);
+
+    private final AllowedMavenDependenciesCheck any = check(
+        RuleKey.of(MavenRulesDefinition.REPOSITORY_MAVEN, "any-scope"), null);
+
+    private final AllowedMavenDependenciesCheck testAndSystem = check(
+        RuleKey.of(MavenRulesDefinition.REPOSITORY_MAVEN, "test-and-system"), "test, system");
+
+    @Test
+    void scopesAreRoutedToTheRulesNamingThem() {
+        final MavenDependencyRoutes routes = MavenDependencyRoutes.of(Arrays.asList(main, test, any, testAndSystem));
+
+        assertEquals(Arrays.asList(main, any), routes.route("compile"));
+        assertEquals(Arrays.asList(main, any), routes.route("runtime"));
+        assertEquals(Arrays.asList(test, any, testAndSystem), routes.route("test"));
+        assertEquals(Arrays.asList(any, testAndSystem), routes.route("system"));
+    }
+
+    @Test
+    void unknownScopesAreRoutedToUnrestrictedRules() {
+        final MavenDependencyRoutes routes = MavenDependencyRoutes.of(Arrays.asList(main, test, any));
+
+        assertEquals(Arrays.asList(any), routes.route("custom"));
+        assertEquals(Arrays.asList(), MavenDependencyRoutes.of(Arrays.asList(main)).route("custom"));
+    }
+
+    @Test
+    void rulesMayNameAnyNumberOfScopes() {
+        final List<String> scopes = IntStream.range(0, 100)
+            .mapToObj(index -> "scope-" + index)
+            .collect(Collectors.toList());
+        final AllowedMavenDependenciesCheck many = check(
+            RuleKey.of(MavenRulesDefinition.REPOSITORY_MAVEN, "many-scopes"), String.join(",", scopes));
+        final AllowedMavenDependenciesCheck last = check(
+            RuleKey.of(MavenRulesDefinition.REPOSITORY_MAVEN, "last-scope"), "scope-99");
+
+        final MavenDependencyRoutes routes = MavenDependencyRoutes.of(Arrays.asList(many, last, any));
+
+        assertEquals(Arrays.asList(many, any), routes.route("scope-0"));
+        assertEquals(Arrays.asList(many, last, any), routes.route("scope-99"));
+        assertEquals(Arrays.asList(any), routes.route("compile"));
+    }
+
+    @Test
+    void routedScanRaisesTheSameIssuesAsEachRuleAlone() throws IOException, XMLStreamException {
+        final List<AllowedMavenDependenciesCheck> checks = Arrays.asList(main, test, any, testAndSystem);
+        final PomModel pom = pom();
+
+        final SensorContext separate = context();
+        for (AllowedMavenDependenciesCheck check : checks) {
+            MavenDependencyRoutes.of(Collections.singletonList(check)).scanFile(separate, pom);
+        }
+
+        final SensorContext routed = context();
+        MavenDependencyRoutes.of(checks).scanFile(routed, pom);
+
+        assertEquals(3 + 13 + 17 + 13, issues(separate));
+        assertEquals(issues(separate), issues(routed));
+    }
+
+    private static long issues(final SensorContext context) {
+        return mockingDetails(context).getInvocations().stream()
+            .filter(invocation -> "newIssue".equals(invocation.getMethod().getName()))
+            .count();
+    }
+
+    private static SensorContext context() {
+        final SensorStorage sensorStorage = mock(SensorStorage.class);
+        final SensorContext context = mock(SensorContext.class);
+        when(context.newIssue()).then(i -> new DefaultIssue(null, sensorStorage));
+        return context;
+    }
+
+    private static PomModel pom() throws IOException, XMLStreamException {
+        final File base = new File("src/test/resources/maven");
+        final File file = new File(base, "pom.xml");
+        final InputFile input = TestInputFileBuilder.create(TestMavenDependencyRoutes.class.getName(), base, file)
+            .setCharset(StandardCharsets.UTF_8)
+            .setContents(Files.readString(file.toPath()))
+            .build();
+        return PomModel.read(input);
+    }
+
+    private static AllowedMavenDependenciesCheck check(final RuleKey ruleKey, final String scopes) {
+        final NewActiveRule.Builder rule = new NewActiveRule.Builder().setRuleKey(ruleKey);
+        if (!ruleKey.equals(MavenRulesDefinition.RULE_MAVEN_ALLOWED_MAIN)
+                && !ruleKey.equals(MavenRulesDefinition.RULE_MAVEN_ALLOWED_TEST)) {
+            rule.setTemplateRuleKey(MavenRulesDefinition.RULE_MAVEN_ALLOWED.rule());
+            if (scopes != null) {
+                rule.setParam(MavenRulesDefinition.SCOPES_PARAM_KEY, scopes);
+            }
+        }
+        return new AllowedMavenDependenciesCheck(new AllowedMavenDependenciesCheckConfig(
+            new DefaultActiveRules(Arrays.asList(rule.build())).find(ruleKey)));
+    }
+}
@@ -0,0 +1,123 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.maven.check;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.xml.stream.XMLStreamException;
+
+import com.devwithimagination.sonar.alloweddependencies.plugin.maven.checks.MavenDeclaration;
+import com.devwithimagination.sonar.alloweddependencies.plugin.maven.checks.MavenPomExtractor;
+
+import org.junit.jupiter.api.Test;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+
+/**
+ * Test class for {@link MavenPomExtractor}.
+ */
+class TestMavenPomExtractor {
+
+    @Test
+    void declarationsAreListedInDocumentOrderWithTheirLines() throws IOException, XMLStreamException {
+        final List<MavenDeclaration> declarations = MavenPomExtractor.extract(pom(
+            "<project xmlns=\"http://maven.apache.org/POM/4.0.0\">",
+            "  <build>",
+            "    <plugins>",
+            "      <plugin>",
+            "        <artifactId>maven-surefire-plugin</artifactId>",
+            "        <dependencies>",
+            "          <dependency><groupId>org.junit</groupId><artifactId>junit-bom</artifactId></dependency>",
+            "        </dependencies>",
+            "      </plugin>",
+            "    </plugins>",
+            "    <extensions>",
+            "      <extension><groupId>org.example</groupId><artifactId>wagon</artifactId></extension>",
+            "    </extensions>",
+            "  </build>",
+            "  <dependencies>",
+            "    <dependency>",
+            "      <groupId>junit</groupId>",
+            "      <artifactId>junit</artifactId>",
+            "    </dependency>",
+            "  </dependencies>",
+            "</project>"));
+
+        assertEquals(Arrays.asList(
+                "PLUGIN org.apache.maven.plugins:maven-surefire-plugin at line 4",
+                "DEPENDENCY org.junit:junit-bom at line 7",
+                "EXTENSION org.example:wagon at line 12",
+                "DEPENDENCY junit:junit at line 16"),
+            describe(declarations));
+    }
+
+    @Test
+    void managedPluginsAndNestedCoordinatesAreIgnored() throws IOException, XMLStreamException {
+        final List<MavenDeclaration> declarations = MavenPomExtractor.extract(pom(
+            "<project>",
+            "  <build>",
+            "    <pluginManagement>",
+            "      <plugins>",
+            "        <plugin><groupId>com.example</groupId><artifactId>managed</artifactId></plugin>",
+            "      </plugins>",
+            "    </pluginManagement>",
+            "  </build>",
+            "  <dependencies>",
+            "    <dependency>",
+            "      <groupId> com.example </groupId>",
+            "      <artifactId><![CDATA[first]]></artifactId>",
+            "      <artifactId>second</artifactId>",
+            "      <exclusions>",
+            "        <exclusion><groupId>org.other</groupId><artifactId>excluded</artifactId></exclusion>",
+            "      </exclusions>",
+            "    </dependency>",
+            "  </dependencies>",
+            "</project>"));
+
+        assertEquals(Arrays.asList("DEPENDENCY com.example:first at line 10"), describe(declarations));
+    }
+
+    @Test
+    void malformedFilesAreRejected() {
+        final InputFile pom = pom(
+            "<project>",
+            "  <dependencies>",
+            "    <dependency><artifactId>unclosed</dependency>",
+            "  </dependencies>",
+            "</project>");
+
+        assertThrows(XMLStreamException.class, () -> MavenPomExtractor.extract(pom));
+    }
+
+    @Test
+    void externalEntitiesAreNotResolved() {
+        final InputFile pom = pom(
+            "<?xml version=\"1.0\"?>",
+            "<!DOCTYPE project [<!ENTITY secret SYSTEM \"file:///etc/hostname\">]>",
+            "<project>",
+            "  <dependencies>",
+            "    <dependency><groupId>&secret;</groupId><artifactId>leak</artifactId></dependency>",
+            "  </dependencies>",
+            "</project>");
+
+        assertThrows(XMLStreamException.class, () -> MavenPomExtractor.extract(pom));
+    }
+
+    private static List<String> describe(final List<MavenDeclaration> declarations) {
+        return declarations.stream()
+            .map(MavenDeclaration::toString)
+            .collect(Collectors.toList());
+    }
+
+    private static InputFile pom(final String... lines) {
+        return TestInputFileBuilder.create("module", "pom.xml")
+            .setCharset(StandardCharsets.UTF_8)
+            .setContents(String.join("\n", lines))
+            .build();
+    }
+}
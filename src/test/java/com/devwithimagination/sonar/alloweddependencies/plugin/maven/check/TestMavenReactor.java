@@ -0,0 +1,196 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.maven.check;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.xml.stream.XMLStreamException;
+
+import com.devwithimagination.sonar.alloweddependencies.plugin.maven.checks.MavenDeclaration;
+import com.devwithimagination.sonar.alloweddependencies.plugin.maven.checks.MavenReactor;
+import com.devwithimagination.sonar.alloweddependencies.plugin.maven.checks.PomModel;
+
+import org.junit.jupiter.api.Test;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+
+/**
+ * Test class for {@link MavenReactor}.
+ */
+class TestMavenReactor {
+
+    private static final File BASE = new File("src/test/resources/maven/reactor");
+
+    @Test
+    void placeholdersAreResolvedFromTheProjectAndItsParents() throws IOException, XMLStreamException {
+        final PomModel pom = new MavenReactor().read(file("child/pom.xml"));
+
+        assertEquals(Arrays.asList(
+                "DEPENDENCY com.example.reactor:shared-api at line 17",
+                "DEPENDENCY junit:junit at line 22",
+                "DEPENDENCY com.example.reactor:${unknown.artifact} at line 28",
+                "DEPENDENCY com.example:${loop} at line 32"),
+            describe(pom.getDependencies()));
+    }
+
+    @Test
+    void managedVersionsAndScopesAreInheritedThroughModules() throws IOException, XMLStreamException {
+        final MavenReactor reactor = new MavenReactor();
+        reactor.index(Arrays.asList(file("pom.xml"), file("child/pom.xml"), file("detached/pom.xml")));
+
+        /* The detached module has no relativePath, so its parent is found as a module of the project */
+        final PomModel pom = reactor.read(file("detached/pom.xml"));
+
+        assertEquals(Arrays.asList(
+                "DEPENDENCY org.slf4j:slf4j-api at line 13 version=2.0.13 scope=compile",
+                "DEPENDENCY org.mockito:mockito-core at line 17 version=5.12.0 scope=test",
+                "DEPENDENCY com.example.reactor:reactor-child at line 21 version=1.0.0 scope=compile"),
+            pom.getDependencies().stream()
+                .map(dependency -> dependency + " version=" + dependency.getVersion()
+                    + " scope=" + dependency.getScope("compile"))
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void eachPomIsReadOnce() throws IOException, XMLStreamException {
+        final List<InputFile> files = Arrays.asList(
+            spy(file("child/pom.xml")), spy(file("detached/pom.xml")), spy(file("pom.xml")));
+        final MavenReactor reactor = new MavenReactor();
+        reactor.index(files);
+
+        for (InputFile file : files) {
+            reactor.read(file);
+        }
+
+        for (InputFile file : files) {
+            verify(file, times(1)).inputStream();
+        }
+    }
+
+    @Test
+    void parentsOutsideTheProjectAreNotRead() throws IOException, XMLStreamException {
+        final InputFile input = TestInputFileBuilder.create("module", "pom.xml")
+            .setCharset(StandardCharsets.UTF_8)
+            .setContents(String.join("\n",
+                "<project>",
+                "  <parent>",
+                "    <groupId>org.other</groupId><artifactId>elsewhere</artifactId><version>2.0</version>",
+                "  </parent>",
+                "  <artifactId>orphan</artifactId>",
+                "  <dependencies>",
+                "    <dependency><groupId>${project.groupId}</groupId><artifactId>${other}</artifactId></dependency>",
+                "  </dependencies>",
+                "</project>"))
+            .build();
+
+        assertEquals(Arrays.asList("DEPENDENCY org.other:${other} at line 7"),
+            describe(new MavenReactor().read(input).getDependencies()));
+    }
+
+    @Test
+    void onlyProjectDependenciesAreManaged() throws IOException, XMLStreamException {
+        final InputFile input = TestInputFileBuilder.create("module", "pom.xml")
+            .setCharset(StandardCharsets.UTF_8)
+            .setContents(String.join("\n",
+                "<project>",
+                "  <dependencyManagement><dependencies>",
+                "    <dependency><groupId>junit</groupId><artifactId>junit</artifactId><version>4.13</version>"
+                    + "<scope>test</scope></dependency>",
+                "  </dependencies></dependencyManagement>",
+                "  <dependencies>",
+                "    <dependency><groupId>junit</groupId><artifactId>junit</artifactId></dependency>",
+                "  </dependencies>",
+                "  <profiles><profile><dependencies>",
+                "    <dependency><groupId>junit</groupId><artifactId>junit</artifactId></dependency>",
+                "  </dependencies></profile></profiles>",
+                "  <build><plugins><plugin>",
+                "    <artifactId>maven-surefire-plugin</artifactId><version>3.2.5</version>",
+                "    <dependencies>",
+                "      <dependency><groupId>junit</groupId><artifactId>junit</artifactId></dependency>",
+                "    </dependencies>",
+                "  </plugin></plugins></build>",
+                "</project>"))
+            .build();
+
+        assertEquals(Arrays.asList(
+                "DEPENDENCY junit:junit at line 3 version=4.13 scope=test",
+                "DEPENDENCY junit:junit at line 6 version=4.13 scope=test",
+                "DEPENDENCY junit:junit at line 9 version=4.13 scope=test",
+                "DEPENDENCY junit:junit at line 14 version=null scope=compile"),
+            new MavenReactor().read(input).getDependencies().stream()
+                .map(dependency -> dependency + " version=" + dependency.getVersion()
+                    + " scope=" + dependency.getScope("compile"))
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void propertiesWhichDoubleEachOtherAreCapped() throws IOException, XMLStreamException {
+        final StringBuilder properties = new StringBuilder();
+        for (int i = 0; i < 30; i++) {
+            properties.append("<p").append(i).append(">${p").append(i + 1).append("}${p").append(i + 1)
+                .append("}</p").append(i).append('>');
+        }
+        properties.append("<p30>ab</p30>");
+        final InputFile input = TestInputFileBuilder.create("module", "pom.xml")
+            .setCharset(StandardCharsets.UTF_8)
+            .setContents(String.join("\n",
+                "<project>",
+                "  <properties>" + properties + "</properties>",
+                "  <dependencies>",
+                "    <dependency><groupId>com.example</groupId><artifactId>${p0}</artifactId></dependency>",
+                "    <dependency><groupId>com.example</groupId><artifactId>${p25}</artifactId></dependency>",
+                "  </dependencies>",
+                "</project>"))
+            .build();
+
+        final List<MavenDeclaration> dependencies = assertTimeoutPreemptively(Duration.ofSeconds(10),
+            () -> new MavenReactor().read(input).getDependencies());
+
+        /* Values within the cap are resolved in full, and placeholders which would pass it are left as written */
+        assertEquals("DEPENDENCY com.example:" + "ab".repeat(32) + " at line 5", dependencies.get(1).toString());
+        final String capped = dependencies.get(0).toString();
+        assertTrue(capped.length() < 4200 && capped.contains("${p"), capped);
+    }
+
+    @Test
+    void filesWithoutPlaceholdersAreUnchanged() throws IOException, XMLStreamException {
+        final InputFile input = TestInputFileBuilder.create("module", "pom.xml")
+            .setCharset(StandardCharsets.UTF_8)
+            .setContents(String.join("\n",
+                "<project>",
+                "  <dependencies>",
+                "    <dependency><groupId>junit</groupId><artifactId>junit</artifactId></dependency>",
+                "  </dependencies>",
+                "</project>"))
+            .build();
+
+        assertEquals(Arrays.asList("DEPENDENCY junit:junit at line 3"),
+            describe(new MavenReactor().read(input).getDependencies()));
+    }
+
+    private static List<String> describe(final List<MavenDeclaration> declarations) {
+        return declarations.stream()
+            .map(MavenDeclaration::toString)
+            .collect(Collectors.toList());
+    }
+
+    private static InputFile file(final String path) throws IOException {
+        final File file = new File(BASE, path);
+        return TestInputFileBuilder.create(TestMavenReactor.class.getName(), BASE, file)
+            .setCharset(StandardCharsets.UTF_8)
+            .setContents(Files.readString(file.toPath()))
+            .build();
+    }
+}
@@ -0,0 +1,90 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.maven.check;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.xml.stream.XMLStreamException;
+
+import com.devwithimagination.sonar.alloweddependencies.plugin.maven.checks.MavenDeclaration;
+import com.devwithimagination.sonar.alloweddependencies.plugin.maven.checks.PomModel;
+
+import org.junit.jupiter.api.Test;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+
+/**
+ * Test class for {@link PomModel}.
+ */
+class TestPomModel {
+
+    private static final String CONTENTS = String.join("\n",
+        "<project>",
+        "  <build>",
+        "    <plugins>",
+        "      <plugin><artifactId>maven-jar-plugin</artifactId></plugin>",
+        "    </plugins>",
+        "    <extensions>",
+        "      <extension><groupId>org.example</groupId><artifactId>wagon</artifactId></extension>",
+        "    </extensions>",
+        "  </build>",
+        "  <dependencies>",
+        "    <dependency><groupId>junit</groupId><artifactId>junit</artifactId></dependency>",
+        "    <dependency><groupId>org.slf4j</groupId><artifactId>slf4j-api</artifactId></dependency>",
+        "  </dependencies>",
+        "</project>");
+
+    @Test
+    void declarationsAreSplitByKind() throws IOException, XMLStreamException {
+        final PomModel pom = PomModel.read(file("pom.xml"));
+
+        assertEquals(Arrays.asList("DEPENDENCY junit:junit at line 11", "DEPENDENCY org.slf4j:slf4j-api at line 12"),
+            describe(pom.getDependencies()));
+        assertEquals(Arrays.asList("PLUGIN org.apache.maven.plugins:maven-jar-plugin at line 4"),
+            describe(pom.getPlugins()));
+        assertEquals(Arrays.asList("EXTENSION org.example:wagon at line 7"), describe(pom.getExtensions()));
+    }
+
+    @Test
+    void modelsCannotBeChanged() throws IOException, XMLStreamException {
+        final PomModel pom = PomModel.read(file("pom.xml"));
+
+        assertThrows(UnsupportedOperationException.class, () -> pom.getDependencies().clear());
+        assertThrows(UnsupportedOperationException.class, () -> pom.getPlugins().clear());
+    }
+
+    @Test
+    void fileKindsFollowTheFileName() throws IOException, XMLStreamException {
+        assertTrue(PomModel.read(file("pom.xml")).isPom());
+        assertTrue(PomModel.read(file(".flattened-pom.xml")).isPom());
+        assertTrue(PomModel.read(file("POM.XML")).isPom());
+
+        final PomModel extensions = PomModel.read(file("extensions.xml"));
+        assertFalse(extensions.isPom());
+        assertTrue(extensions.isExtensionsDescriptor());
+
+        final PomModel other = PomModel.read(file("not-pom.xml"));
+        assertFalse(other.isPom());
+        assertFalse(other.isExtensionsDescriptor());
+    }
+
+    private static List<String> describe(final List<MavenDeclaration> declarations) {
+        return declarations.stream()
+            .map(MavenDeclaration::toString)
+            .collect(Collectors.toList());
+    }
+
+    private static InputFile file(final String name) {
+        return TestInputFileBuilder.create("module", name)
+            .setCharset(StandardCharsets.UTF_8)
+            .setContents(CONTENTS)
+            .build();
+    }
+}
@@ -7,7 +7,10 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.Constants;
+
 import org.junit.jupiter.api.Test;
+import org.sonar.api.server.rule.RuleParamType;
 import org.sonar.api.server.rule.RulesDefinition.Context;
 import org.sonar.api.server.rule.RulesDefinition.Param;
 import org.sonar.api.server.rule.RulesDefinition.Repository;
@@ -55,9 +58,9 @@ public class TestMavenRulesDefinition {
 
         final Rule templateRule = templateRules.get(0);
         assertEquals(MavenRulesDefinition.RULE_MAVEN_ALLOWED.rule(), templateRule.key());
-        assertEquals(2, templateRule.params().size(), "Expecting two parameters");
+        assertEquals(4, templateRule.params().size(), "Expecting four parameters");
 
-        /* Check the other two rules, they should only have one parameter */
+        /* Check the other rules, they should only have the allow-list, deny-list and full match parameters */
         final List<Rule> nonTemplateRules = repository.rules()
             .stream()
             .filter(r -> !r.template())
@@ -72,7 +75,15 @@ public class TestMavenRulesDefinition {
                 "Expecting to find Maven plugins rule");
         assertTrue(nonTemplateRules.stream().anyMatch(r -> r.key().equals(MavenRulesDefinition.RULE_MAVEN_ALLOWED_EXTENSIONS.rule())),
                 "Expecting to find Maven extensions rule");
-        nonTemplateRules.forEach(r -> assertEquals(1, r.params().size(), "Expecting one parameter"));
+        nonTemplateRules.forEach(r -> assertEquals(r.param(MavenRulesDefinition.DEPS_PARAM_KEY) != null ? 3 : 2,
+            r.params().size(), "Expecting a deny-list parameter alongside dependency allow-lists"));
+
+        repository.rules().forEach(rule -> {
+            final Param fullMatchParam = rule.param(Constants.REGEX_FULL_MATCH_PARAM_KEY);
+            assertNotNull(fullMatchParam, "Expected full match parameter");
+            assertEquals(RuleParamType.BOOLEAN, fullMatchParam.type());
+            assertEquals("false", fullMatchParam.defaultValue());
+        });
 
         repository.rules().stream()
             .filter(rule -> !rule.key().equals(MavenRulesDefinition.RULE_MAVEN_ALLOWED_PLUGINS.rule()))
@@ -83,9 +94,18 @@ public class TestMavenRulesDefinition {
             assertEquals("Allowed Maven Dependencies", param.name());
             assertEquals(
                 "Newline separated list of <groupId>:<artifactId> dependency names. Exact matches are case-insensitive. " +
-                "Prefix a row with regex: to allow dependencies matching a regular expression. " +
+                "Use <groupId>:* to allow every artifact in a group. " +
+                "Prefix a row with glob: to use * and a trailing ** as wildcards, " +
+                "or with regex: to allow dependencies matching a regular expression. " +
+                "Prefix a row with match: for a regular expression which must match the whole name. " +
+                "Use index:<path> to load exact rows from a precompiled allow-list index file. " +
                 "Blank lines and rows starting with # are ignored.",
                 param.description());
+
+            final Param deniedParam = rule.param(MavenRulesDefinition.DENIED_DEPS_PARAM_KEY);
+            assertNotNull(deniedParam, "Expected dependency deny-list parameter");
+            assertEquals(Constants.DENY_LIST_PARAM_DESCRIPTION, deniedParam.description());
+            assertEquals(RuleParamType.TEXT, deniedParam.type());
             });
 
         final Rule pluginsRule = repository.rule(MavenRulesDefinition.RULE_MAVEN_ALLOWED_PLUGINS.rule());
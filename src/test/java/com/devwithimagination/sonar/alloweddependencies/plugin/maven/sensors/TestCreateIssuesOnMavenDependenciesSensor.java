@@ -9,6 +9,7 @@ import java.nio.file.Files;
 import java.util.Arrays;
 import java.util.List;
 
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.AllowListRegistry;
 import com.devwithimagination.sonar.alloweddependencies.plugin.maven.rules.MavenRulesDefinition;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -36,7 +37,7 @@ class TestCreateIssuesOnMavenArtifactsSensor {
     @BeforeEach
     void setup() {
         /* Create the sensor to test. We don't use the config so just pass null just now */
-        this.sensor = new CreateIssuesOnMavenArtifactsSensor(null);
+        this.sensor = new CreateIssuesOnMavenArtifactsSensor(null, AllowListRegistry.withDefaults());
     }
 
     /**
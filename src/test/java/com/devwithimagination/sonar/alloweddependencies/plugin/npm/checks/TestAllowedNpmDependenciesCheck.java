@@ -12,15 +12,23 @@ import static org.mockito.Mockito.when;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.stream.Stream;
 
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.AllowListOverlays;
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.AllowListRegistry;
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.ScannerProperties;
 import com.devwithimagination.sonar.alloweddependencies.plugin.npm.rules.NpmRulesDefinition;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.Decision;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -80,6 +88,7 @@ class TestAllowedNpmDependenciesCheck {
 
         return new TestInputFileBuilder(getClass().getName(), moduleBaseDir, basePath)
             .setCharset(Charset.forName("UTF-8"))
+            .setCharset(StandardCharsets.UTF_8)
             .setContents(contents)
             .build();
     }
@@ -217,6 +226,76 @@ class TestAllowedNpmDependenciesCheck {
 
     }
 
+    /**
+     * Test that dependencies matching a deny row are reported even when an
+     * allow row matches them, including when only some declared versions are
+     * denied.
+     */
+    @Test
+    void checkDeniedDependencies() {
+
+        final ActiveRule rule = createTestRule(NpmRulesDefinition.RULE_NPM_ALLOWED,
+            String.join("\n", "primeicons", "primeng", "rxjs", "tslib", "uuid"));
+        when(rule.param(NpmRulesDefinition.DENIED_DEPS_PARAM_KEY)).thenReturn(String.join("\n",
+            "PrimeNG",
+            "uuid@[8.4,)",
+            "rxjs@[7,)"));
+
+        final AllowedNpmDependenciesCheck check = new AllowedNpmDependenciesCheck(rule);
+        check.scanFile(inputFile, sensorContext);
+
+        /* primeng by name, and uuid as ^8.3.2 admits 8.4 */
+        verify(sensorContext, times(2)).newIssue();
+        assertEquals(Decision.DENIED, check.getAllowList().decide("primeng"));
+
+        /* The version check denies uuid before its row is consulted, so it is not credited either */
+        assertEquals(Arrays.asList("primeng", "uuid"), check.getAllowList().unusedRows());
+    }
+
+    /**
+     * Test that an overlay file extends the allow-list for the descriptors
+     * below it only.
+     */
+    @Test
+    void checkOverlaysExtendTheAllowListBelowThem(@TempDir final Path projectDir) throws IOException {
+
+        final String contents = inputFile.contents();
+        Files.createDirectories(projectDir.resolve("app"));
+        Files.write(projectDir.resolve("app").resolve(AllowListOverlays.FILE_NAME),
+            "[npm]\ntslib\nuuid".getBytes(StandardCharsets.UTF_8));
+        final InputFile rootFile = new TestInputFileBuilder(getClass().getName(), projectDir.toFile(),
+                projectDir.resolve("package.json").toFile())
+            .setCharset(StandardCharsets.UTF_8)
+            .setContents(contents)
+            .build();
+        final InputFile appFile = new TestInputFileBuilder(getClass().getName(), projectDir.toFile(),
+                projectDir.resolve("app/package.json").toFile())
+            .setCharset(StandardCharsets.UTF_8)
+            .setContents(contents)
+            .build();
+
+        final ActiveRule rule = createTestRule(NpmRulesDefinition.RULE_NPM_ALLOWED,
+            String.join("\n", "primeicons", "primeng", "rxjs", "tslib"));
+        final AllowedNpmDependenciesCheck check = new AllowedNpmDependenciesCheck(rule,
+            AllowListRegistry.withDefaults(), ScannerProperties.DEFAULT_VERDICT_CACHE_SIZE,
+            new AllowListOverlays(projectDir, "npm"));
+
+        /* Only uuid is reported for the root, nothing below the overlay */
+        check.scanFile(appFile, sensorContext);
+        verify(sensorContext, never()).newIssue();
+        check.scanFile(rootFile, sensorContext);
+        verify(sensorContext, times(1)).newIssue();
+
+        /* The rule's tslib row matched under the overlay, so it is in use */
+        assertEquals(Arrays.asList(), check.getRowUsage().unusedRows());
+
+        /* Files below the overlay have a verdict cache of their own */
+        check.scanFile(appFile, sensorContext);
+        assertEquals(2, check.getVerdictCaches().size());
+        assertTrue(check.getVerdictCaches().get(1).hits() > 0);
+        verify(sensorContext, times(1)).newIssue();
+    }
+
     /**
      * Create a mock {@link ActiveRule} with the supplied configuration.
      *
@@ -290,6 +369,14 @@ class TestAllowedNpmDependenciesCheck {
                     "rxjs",
                     "tslib",
                     "uuid")),
+            Arguments.of(
+                NpmRulesDefinition.RULE_NPM_ALLOWED,
+                String.join("\n",
+                    "primeicons@[4.1.0,5)",
+                    "primeng@[10,)",
+                    "rxjs",
+                    "tslib@[2,3)",
+                    "uuid@(,9)")),
             Arguments.of(
                 NpmRulesDefinition.RULE_NPM_ALLOWED_PEER,
                 String.join("\n",
@@ -318,6 +405,16 @@ class TestAllowedNpmDependenciesCheck {
                 NpmRulesDefinition.RULE_NPM_ALLOWED_DEV,
                 null,
                 4),
+            Arguments.of(
+                /* ^8.3.2 admits versions up to 9.0.0, and ^11.0.0 is not in the range at all */
+                NpmRulesDefinition.RULE_NPM_ALLOWED,
+                String.join("\n",
+                    "primeicons@[4.1.0,5)",
+                    "primeng@[12,)",
+                    "rxjs",
+                    "tslib",
+                    "uuid@[8,8.5)"),
+                2),
             Arguments.of(
                 NpmRulesDefinition.RULE_NPM_ALLOWED_DEV,
                 "",
@@ -0,0 +1,53 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.npm.checks;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.stream.Stream;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Test class for {@link NpmVersionRanges}.
+ */
+class TestNpmVersionRanges {
+
+    @ParameterizedTest
+    @MethodSource("provideRanges")
+    void rangesAreConverted(final String spec, final String expected) {
+        assertEquals(expected, NpmVersionRanges.toRange(spec).toString());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"latest", "file:../local", "git+https://example.com/repo.git", "npm:other@1.0.0",
+        "1.2.3.4", ">", "1.x-beta"})
+    void unsupportedRangesAreUnknown(final String spec) {
+        assertNull(NpmVersionRanges.toRange(spec));
+    }
+
+    private static Stream<Arguments> provideRanges() {
+        return Stream.of(
+            Arguments.of("4.17.21", "[4.17.21]"),
+            Arguments.of("=v4.17.21", "[4.17.21]"),
+            Arguments.of("^4.17.21", "[4.17.21,5.0.0)"),
+            Arguments.of("^0.2.3", "[0.2.3,0.3.0)"),
+            Arguments.of("^0.0.3", "[0.0.3]"),
+            Arguments.of("^0.x", "[0.0.0,1.0.0)"),
+            Arguments.of("~1.2.3", "[1.2.3,1.3.0)"),
+            Arguments.of("~1", "[1.0.0,2.0.0)"),
+            Arguments.of("2.x", "[2.0.0,3.0.0)"),
+            Arguments.of("1.2.*", "[1.2.0,1.3.0)"),
+            Arguments.of("*", "(,)"),
+            Arguments.of("", "(,)"),
+            Arguments.of(">=1.2.0 <2", "[1.2.0,2.0.0)"),
+            Arguments.of(">= 1.2.0 < 2", "[1.2.0,2.0.0)"),
+            Arguments.of(">1.2", "[1.3.0,)"),
+            Arguments.of("<=1.2", "(,1.3.0)"),
+            Arguments.of("1.2.3 - 2.3", "[1.2.3,2.4.0)"),
+            Arguments.of("^1.0.0 || ^3.0.0", "[1.0.0,2.0.0),[3.0.0,4.0.0)"),
+            Arguments.of("^1.2.0 || ^1.5.0", "[1.2.0,2.0.0)"));
+    }
+}
@@ -6,7 +6,10 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.Constants;
+
 import org.junit.jupiter.api.Test;
+import org.sonar.api.server.rule.RuleParamType;
 import org.sonar.api.server.rule.RulesDefinition.Context;
 import org.sonar.api.server.rule.RulesDefinition.Param;
 import org.sonar.api.server.rule.RulesDefinition.Repository;
@@ -59,9 +62,22 @@ class TestNpmRulesDefinition {
             assertEquals("Allowed NPM Dependencies", param.name());
             assertEquals(
                 "Newline separated list of dependency names. Exact matches are case-insensitive. " +
-                "Prefix a row with regex: to allow dependencies matching a regular expression. " +
+                "Prefix a row with glob: to use * and a trailing ** as wildcards, " +
+                "or with regex: to allow dependencies matching a regular expression. " +
+                "Prefix a row with match: for a regular expression which must match the whole name. " +
+                "Use index:<path> to load exact rows from a precompiled allow-list index file. " +
                 "Blank lines and rows starting with # are ignored.",
                 param.description());
+
+            final Param deniedParam = rule.param(NpmRulesDefinition.DENIED_DEPS_PARAM_KEY);
+            assertNotNull(deniedParam, "Expected dependency deny-list parameter");
+            assertEquals(Constants.DENY_LIST_PARAM_NAME, deniedParam.name());
+            assertEquals(RuleParamType.TEXT, deniedParam.type());
+
+            final Param fullMatchParam = rule.param(Constants.REGEX_FULL_MATCH_PARAM_KEY);
+            assertNotNull(fullMatchParam, "Expected full match parameter");
+            assertEquals(RuleParamType.BOOLEAN, fullMatchParam.type());
+            assertEquals("false", fullMatchParam.defaultValue());
         });
 
     }
@@ -9,6 +9,7 @@ import java.nio.file.Files;
 import java.util.Arrays;
 import java.util.List;
 
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.AllowListRegistry;
 import com.devwithimagination.sonar.alloweddependencies.plugin.npm.rules.NpmRulesDefinition;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -38,7 +39,7 @@ class TestCreateIssuesOnNPMDependenciesSensor {
     @BeforeEach
     void setup() {
         /* Create the sensor to test. We don't use the config so just pass null just now */
-        this.sensor = new CreateIssuesOnNPMDependenciesSensor(null);
+        this.sensor = new CreateIssuesOnNPMDependenciesSensor(null, AllowListRegistry.withDefaults());
     }
 
     /**
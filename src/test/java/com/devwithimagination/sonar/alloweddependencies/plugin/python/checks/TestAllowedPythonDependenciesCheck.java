@@ -11,6 +11,7 @@ import java.util.Arrays;
 
 import com.devwithimagination.sonar.alloweddependencies.plugin.common.DependencyOccurrence;
 import com.devwithimagination.sonar.alloweddependencies.plugin.python.rules.PythonRulesDefinition;
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.Decision;
 
 import org.junit.jupiter.api.Test;
 import org.sonar.api.batch.rule.ActiveRule;
@@ -36,6 +37,39 @@ class TestAllowedPythonDependenciesCheck {
         verify(context, never()).newIssue();
     }
 
+    @Test
+    void checkVersionedRows() {
+        final ActiveRule rule = createTestRule(PythonRulesDefinition.RULE_PYTHON_ALLOWED_MAIN, null,
+            "requests@[2.31,3)");
+        final AllowedPythonDependenciesCheck check = new AllowedPythonDependenciesCheck(rule);
+        final SensorContext context = mock(SensorContext.class);
+
+        check.scanDependency(new DependencyOccurrence("requests", null, 1, ">=2.31.0,<3"), context);
+        check.scanDependency(new DependencyOccurrence("Requests", null, 2, "~=2.32"), context);
+
+        verify(context, never()).newIssue();
+        assertTrue(check.getAllowList().unusedRows().isEmpty());
+    }
+
+    @Test
+    void checkDeniedRows() {
+        final ActiveRule rule = new DefaultActiveRules(Arrays.asList(new NewActiveRule.Builder()
+            .setRuleKey(PythonRulesDefinition.RULE_PYTHON_ALLOWED_MAIN)
+            .setParam(PythonRulesDefinition.DEPS_PARAM_KEY, "regex:.*")
+            .setParam(PythonRulesDefinition.DENIED_DEPS_PARAM_KEY, "Typing_Extensions\nurllib3@(,2)")
+            .build())).find(PythonRulesDefinition.RULE_PYTHON_ALLOWED_MAIN);
+        final AllowedPythonDependenciesCheck check = new AllowedPythonDependenciesCheck(rule);
+        final SensorContext context = mock(SensorContext.class);
+
+        check.scanDependency(new DependencyOccurrence("requests", null, 1), context);
+        check.scanDependency(new DependencyOccurrence("urllib3", null, 2, ">=2.0"), context);
+
+        verify(context, never()).newIssue();
+        assertEquals(Decision.DENIED, check.getAllowList().decide("typing-extensions"));
+        assertEquals(Decision.DENIED, check.getAllowList().decide("urllib3",
+            PythonVersionSpecifiers.toRange("<2.1")));
+    }
+
     @Test
     void checkDevRule() {
         final ActiveRule rule = createTestRule(PythonRulesDefinition.RULE_PYTHON_ALLOWED_DEV, null,
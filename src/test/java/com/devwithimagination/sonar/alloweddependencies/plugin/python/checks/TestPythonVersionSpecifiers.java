@@ -0,0 +1,43 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.python.checks;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.stream.Stream;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Test class for {@link PythonVersionSpecifiers}.
+ */
+class TestPythonVersionSpecifiers {
+
+    @ParameterizedTest
+    @MethodSource("provideSpecifiers")
+    void specifiersAreConverted(final String spec, final String expected) {
+        assertEquals(expected, PythonVersionSpecifiers.toRange(spec).toString());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"~=1", "2.0", ">=", "<2.*", "==1.x.*"})
+    void unsupportedSpecifiersAreUnknown(final String spec) {
+        assertNull(PythonVersionSpecifiers.toRange(spec));
+    }
+
+    private static Stream<Arguments> provideSpecifiers() {
+        return Stream.of(
+            Arguments.of("", "(,)"),
+            Arguments.of("==2.31.0", "[2.31.0]"),
+            Arguments.of("===2.31.0", "[2.31.0]"),
+            Arguments.of(">=2.0,<3", "[2.0,3)"),
+            Arguments.of(">2.0, <=3", "(2.0,3]"),
+            Arguments.of("~=1.4.2", "[1.4.2,1.5)"),
+            Arguments.of("~=2.2", "[2.2,3)"),
+            Arguments.of("==1.4.*", "[1.4,1.5)"),
+            Arguments.of(">=1.0,!=1.5", "[1.0,1.5),(1.5,)"),
+            Arguments.of("!=1.4.*", "(,1.4),[1.5,)"));
+    }
+}
@@ -24,6 +24,22 @@ class TestPythonRequirementNameParser {
             PythonRequirementNameParser.parseName("--editable git+https://example.com/repo.git#egg=editable-package").get());
     }
 
+    @Test
+    void parsesVersionSpecifiers() {
+        assertEquals(">=2.0,<3", PythonRequirementNameParser.parseVersionSpec("requests>=2.0,<3").get());
+        assertEquals(">=2", PythonRequirementNameParser.parseVersionSpec("urllib3[secure] >=2 ; python_version > '3'")
+            .get());
+        assertEquals("==1.0", PythonRequirementNameParser.parseVersionSpec("pkg (==1.0)").get());
+        assertEquals("==2.31.0",
+            PythonRequirementNameParser.parseVersionSpec("requests==2.31.0 --hash=sha256:abc").get());
+        assertEquals("", PythonRequirementNameParser.parseVersionSpec("requests  # latest").get());
+        assertTrue(PythonRequirementNameParser.parseVersionSpec("package @ https://example.com/package.tar.gz")
+            .isEmpty());
+        assertTrue(PythonRequirementNameParser.parseVersionSpec(
+            "-e git+https://example.com/repo.git#egg=editable-package").isEmpty());
+        assertTrue(PythonRequirementNameParser.parseVersionSpec(null).isEmpty());
+    }
+
     @Test
     void skipsOptionsAndUrlRequirementsWithoutEggName() {
         assertTrue(PythonRequirementNameParser.parseName(null).isEmpty());
@@ -8,6 +8,8 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.Constants;
+
 import org.junit.jupiter.api.Test;
 import org.sonar.api.server.rule.RuleParamType;
 import org.sonar.api.server.rule.RulesDefinition.Context;
@@ -48,11 +50,18 @@ class TestPythonRulesDefinition {
             assertTrue(depsParam.description().contains("regex:"));
             assertTrue(depsParam.description().contains("normalized"));
             assertEquals(RuleParamType.TEXT, depsParam.type());
+            assertTrue(depsParam.description().contains("match:"));
+
+            final Param fullMatchParam = rule.param(Constants.REGEX_FULL_MATCH_PARAM_KEY);
+            assertNotNull(fullMatchParam, "Expected full match parameter");
+            assertEquals(RuleParamType.BOOLEAN, fullMatchParam.type());
+            assertEquals("false", fullMatchParam.defaultValue());
         });
 
         final Rule templateRule = repository.rule(PythonRulesDefinition.RULE_PYTHON_ALLOWED.rule());
         assertTrue(templateRule.template());
-        assertEquals(3, templateRule.params().size());
+        assertEquals(5, templateRule.params().size());
+        assertNotNull(templateRule.param(PythonRulesDefinition.DENIED_DEPS_PARAM_KEY));
 
         final Param groupsParam = templateRule.param(PythonRulesDefinition.GROUPS_PARAM_KEY);
         assertNotNull(groupsParam);
@@ -9,6 +9,7 @@ import java.nio.file.Files;
 import java.util.Arrays;
 import java.util.List;
 
+import com.devwithimagination.sonar.alloweddependencies.plugin.common.AllowListRegistry;
 import com.devwithimagination.sonar.alloweddependencies.plugin.common.Constants;
 import com.devwithimagination.sonar.alloweddependencies.plugin.python.rules.PythonRulesDefinition;
 
@@ -29,7 +30,7 @@ class TestCreateIssuesOnPythonDependenciesSensor {
 
     @BeforeEach
     void setup() {
-        this.sensor = new CreateIssuesOnPythonDependenciesSensor(null);
+        this.sensor = new CreateIssuesOnPythonDependenciesSensor(null, AllowListRegistry.withDefaults());
     }
 
     @Test
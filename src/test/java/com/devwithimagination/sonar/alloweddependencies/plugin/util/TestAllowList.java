@@ -0,0 +1,375 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the compiled {@link AllowList}.
+ */
+class TestAllowList {
+
+    @Test
+    void exactRowsAreCaseInsensitive() {
+        final AllowList allowList = AllowList.builder()
+            .addExact("org.junit:JUnit")
+            .build();
+
+        assertTrue(allowList.test("ORG.JUNIT:junit"));
+        assertFalse(allowList.test("org.junit:junit-bom"));
+        assertFalse(allowList.test((String) null));
+    }
+
+    @Test
+    void patternRowsAreOnlyEvaluatedWhenNoExactRowMatches() {
+        final AtomicInteger evaluations = new AtomicInteger();
+        final AllowList allowList = AllowList.builder()
+            .addExact("a-dep")
+            .addPattern(candidate -> {
+                evaluations.incrementAndGet();
+                return candidate.startsWith("b");
+            })
+            .build();
+
+        assertTrue(allowList.test("a-dep"));
+        assertEquals(0, evaluations.get());
+
+        assertTrue(allowList.test("b-dep"));
+        assertFalse(allowList.test("c-dep"));
+        assertEquals(2, evaluations.get());
+    }
+
+    @Test
+    void duplicateExactRowsAreIndexedOnce() {
+        final AllowList.Builder builder = AllowList.builder();
+        IntStream.range(0, 12_000).forEach(index -> builder.addExact("group:artifact-" + index));
+        builder.addExact("GROUP:ARTIFACT-1");
+
+        final AllowList allowList = builder.build();
+
+        assertEquals(12_000, allowList.exactRowCount());
+        assertTrue(allowList.test("group:artifact-11999"));
+        assertFalse(allowList.test("group:artifact-12000"));
+    }
+
+    @Test
+    void emptyBuilderCreatesEmptyAllowList() {
+        assertSame(AllowList.empty(), AllowList.builder().build());
+        assertFalse(AllowList.empty().test("anything"));
+    }
+
+    @Test
+    void rowsIgnoresBlankAndCommentRows() {
+        assertEquals(Arrays.asList("a-dep", "regex:b.*"),
+            AllowList.rows("\n  a-dep  \r\n# comment\n\n regex:b.* ").stream().collect(Collectors.toList()));
+        assertTrue(AllowList.rows(null).isEmpty());
+    }
+
+    @Test
+    void exactRowsCoveredByOtherRowsAreDropped() {
+        final AllowList allowList = AllowList.builder()
+            .addExact("@angular/core")
+            .addExact("@angular/common")
+            .addExact("lodash")
+            .addExact("react")
+            .addGlob("@angular/*")
+            .addRegex(Pattern.compile("^lod", Pattern.CASE_INSENSITIVE))
+            .build();
+
+        assertEquals(1, allowList.exactRowCount());
+        assertTrue(allowList.test("@Angular/Core"));
+        assertTrue(allowList.test("LODASH"));
+        assertTrue(allowList.test("react"));
+        assertFalse(allowList.test("vue"));
+    }
+
+    @Test
+    void exactRowsAreKeptWhenRegexRowsMayBeCaseSensitive() {
+        final AllowList allowList = AllowList.builder()
+            .addExact("lodash")
+            .addRegex(Pattern.compile("(?-i)^lodash$", Pattern.CASE_INSENSITIVE))
+            .build();
+
+        assertEquals(1, allowList.exactRowCount());
+        assertTrue(allowList.test("LODASH"));
+    }
+
+    @Test
+    void subsumedAndDuplicateRegexRowsAreDropped() {
+        final AllowList allowList = AllowList.builder()
+            .regexMode(AllowList.RegexMode.INDIVIDUAL)
+            .addRegex(Pattern.compile("junit", Pattern.CASE_INSENSITIVE))
+            .addRegex(Pattern.compile("JUnit", Pattern.CASE_INSENSITIVE))
+            .addRegex(Pattern.compile("^org\\.junit\\..*", Pattern.CASE_INSENSITIVE))
+            .addRegex(Pattern.compile("junit", Pattern.CASE_INSENSITIVE))
+            .addRegex(Pattern.compile("^com\\.acme", Pattern.CASE_INSENSITIVE))
+            .addFullMatchRegex(Pattern.compile("junit-.*", Pattern.CASE_INSENSITIVE))
+            .addGlob("org.*")
+            .addGlob("org.*")
+            .build();
+
+        assertEquals(2, allowList.patternRowCount());
+        assertEquals(1, allowList.globRowCount());
+        assertTrue(allowList.test("org.junit.jupiter:junit-jupiter"));
+        assertTrue(allowList.test("com.acme:core"));
+        assertTrue(allowList.test("JUNIT-bom"));
+        assertFalse(allowList.test("net.acme:core"));
+    }
+
+    @Test
+    void regexRowsSharingALiteralStillMatchIndividually() {
+        final AllowList allowList = AllowList.builder()
+            .addRegex(Pattern.compile("^org\\.apache\\.commons:commons-.*", Pattern.CASE_INSENSITIVE))
+            .addRegex(Pattern.compile("^org\\.apache\\.commons:[a-z]+-io$", Pattern.CASE_INSENSITIVE))
+            .build();
+
+        assertEquals(1, allowList.patternRowCount());
+        assertTrue(allowList.test("org.apache.commons:commons-lang3"));
+        assertTrue(allowList.test("org.apache.commons:apache-io"));
+        assertFalse(allowList.test("org.apache.commons:lang3"));
+    }
+
+    @Test
+    void rowsWhichNeverMatchAreReported() {
+        final AllowList allowList = AllowList.builder()
+            .addExact("lodash")
+            .addExact("React")
+            .addExact("REACT")
+            .addGlob("@angular/*")
+            .addRegex(Pattern.compile("^org\\.apache\\.commons:commons-.*", Pattern.CASE_INSENSITIVE))
+            .addRegex(Pattern.compile("^org\\.apache\\.commons:[a-z]+-io$", Pattern.CASE_INSENSITIVE))
+            .addFullMatchRegex(Pattern.compile("svelte.*", Pattern.CASE_INSENSITIVE))
+            .build();
+
+        assertEquals(6, allowList.rowCount());
+        assertEquals(6, allowList.unusedRows().size());
+
+        assertTrue(allowList.test("react"));
+        assertTrue(allowList.test("@angular/core"));
+        assertTrue(allowList.test("org.apache.commons:apache-io"));
+        assertFalse(allowList.test("vue"));
+
+        assertEquals(Arrays.asList("lodash", "match:svelte.*", "regex:^org\\.apache\\.commons:commons-.*"),
+            allowList.unusedRows());
+    }
+
+    @Test
+    void compactExactRowsWhichNeverMatchAreReported() {
+        final AllowList allowList = AllowList.builder()
+            .compactExactRowThreshold(1)
+            .addExact("left-pad")
+            .addExact("Lodash")
+            .addExact("react")
+            .build();
+
+        assertTrue(allowList.hasCompactExactRows());
+        assertTrue(allowList.test("LODASH"));
+
+        assertEquals(3, allowList.rowCount());
+        assertEquals(Arrays.asList("left-pad", "react"), allowList.unusedRows());
+    }
+
+    @Test
+    void versionedRowsOnlyAllowDeclaredVersionsInTheirRange() {
+        final AllowList allowList = new PredicateFactory().createAllowList(String.join("\n",
+            "lodash@[4.17.21,5)",
+            "Lodash@[5.1,)",
+            "@angular/core@[15,17)",
+            "left-pad@[1.3]"), UnaryOperator.identity());
+
+        /* Versioned rows never allow a dependency by name alone */
+        assertFalse(allowList.test("lodash"));
+        assertTrue(allowList.allowsVersion("LODASH", VersionRange.exactly(Version.parse("4.17.21"))));
+        assertTrue(allowList.allowsVersion("lodash", VersionRange.parse("[5.2,6)")));
+        assertFalse(allowList.allowsVersion("lodash", VersionRange.parse("[4.17.21,6)")));
+        assertFalse(allowList.allowsVersion("lodash", VersionRange.exactly(Version.parse("4.17.20"))));
+        assertFalse(allowList.allowsVersion("lodash", null));
+        assertTrue(allowList.allowsVersion("@angular/core", VersionRange.exactly(Version.parse("16.2.0"))));
+
+        assertEquals(4, allowList.rowCount());
+        assertEquals(Arrays.asList("left-pad@[1.3]"), allowList.unusedRows());
+    }
+
+    @Test
+    void denyRowsTakePrecedenceOverAllowRows() {
+        final PredicateFactory factory = new PredicateFactory();
+        final AllowList allowList = factory.createAllowList(String.join("\n",
+            "lodash",
+            "left-pad",
+            "glob:@angular/*",
+            "regex:^react"), String.join("\n",
+            "Left-Pad",
+            "@angular/http",
+            "glob:react-dom*"), UnaryOperator.identity(), KeyFolder.CASE_INSENSITIVE);
+
+        assertTrue(allowList.hasDenyRows());
+        assertEquals(Decision.ALLOWED, allowList.decide("LODASH"));
+        assertEquals(Decision.DENIED, allowList.decide("left-pad"));
+        assertEquals(Decision.ALLOWED, allowList.decide("@angular/core"));
+        assertEquals(Decision.DENIED, allowList.decide("@Angular/HTTP"));
+        assertEquals(Decision.ALLOWED, allowList.decide("react"));
+        assertEquals(Decision.DENIED, allowList.decide("react-dom-server"));
+        assertEquals(Decision.NOT_ALLOWED, allowList.decide("moment"));
+        assertEquals(Decision.NOT_ALLOWED, allowList.decide((String) null));
+        assertFalse(allowList.test("left-pad"));
+
+        /* Deny rows are neither counted nor reported, but the allow rows they override are */
+        assertEquals(4, allowList.rowCount());
+        assertEquals(Arrays.asList("left-pad"), allowList.unusedRows());
+    }
+
+    @Test
+    void denyRowsMatchingOnlySomeCaseVariantsAreCheckedAtRuntime() {
+        final AllowList allowList = AllowList.builder()
+            .addExact("lodash")
+            .deny(AllowList.builder().addRegex(Pattern.compile("^LoDash$")).build())
+            .build();
+
+        assertEquals(Decision.DENIED, allowList.decide("LoDash"));
+        assertEquals(Decision.ALLOWED, allowList.decide("lodash"));
+        assertTrue(allowList.unusedRows().isEmpty());
+    }
+
+    @Test
+    void denyRowsApplyToCompactExactRows() {
+        final AllowList allowList = AllowList.builder()
+            .compactExactRowThreshold(1)
+            .addExact("lodash")
+            .addExact("left-pad")
+            .deny(AllowList.builder().addExact("LEFT-PAD").build())
+            .build();
+
+        assertTrue(allowList.hasCompactExactRows());
+        assertEquals(Decision.ALLOWED, allowList.decide("lodash"));
+        assertEquals(Decision.DENIED, allowList.decide("left-pad"));
+    }
+
+    @Test
+    void compactDenyRowsAreProbedInPlace() throws IOException {
+        final AllowList.Builder denied = AllowList.builder().compactExactRowThreshold(1);
+        for (int index = 0; index < 1000; index++) {
+            denied.addExact("denied-" + index);
+        }
+        denied.addExact("left-pad");
+        final AllowList allowList = AllowList.builder()
+            .addExact("lodash")
+            .addExact("left-pad")
+            .deny(denied.build())
+            .build();
+
+        for (AllowList list : Arrays.asList(allowList, roundTrip(allowList))) {
+            assertFalse(list.hasCompactExactRows());
+            assertEquals(Decision.ALLOWED, list.decide("LODASH"));
+            assertEquals(Decision.DENIED, list.decide("Left-Pad"));
+            assertEquals(Decision.DENIED, list.decide("DENIED-999"));
+            assertEquals(Decision.NOT_ALLOWED, list.decide("denied-1000"));
+        }
+        assertEquals(Arrays.asList("left-pad"), allowList.unusedRows());
+    }
+
+    @Test
+    void versionedDenyRowsDenyOverlappingDeclarations() {
+        final AllowList allowList = new PredicateFactory().createAllowList("log4j-core", "log4j-core@(,2.17.1)",
+            UnaryOperator.identity(), KeyFolder.CASE_INSENSITIVE);
+
+        assertEquals(Decision.ALLOWED, allowList.decide("log4j-core"));
+        assertEquals(Decision.ALLOWED, allowList.decide("log4j-core", VersionRange.exactly(Version.parse("2.17.1"))));
+        assertEquals(Decision.DENIED, allowList.decide("log4j-core", VersionRange.parse("[2.14,2.18)")));
+        assertEquals(Decision.ALLOWED, allowList.decide("log4j-core", null));
+    }
+
+    @Test
+    void denyRowsExceedingTheirBudgetDenyTheCandidate() throws IOException {
+        final AllowList allowList = new PredicateFactory().createAllowList("regex:.*", "regex:^(.*a){12}$",
+            UnaryOperator.identity(), KeyFolder.CASE_INSENSITIVE);
+        final String hostile = "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa!";
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            assertEquals(Decision.DENIED, allowList.decide(hostile));
+            assertEquals(Decision.DENIED, roundTrip(allowList).decide(hostile));
+        });
+        assertEquals(Decision.ALLOWED, allowList.decide("lodash"));
+    }
+
+    @Test
+    void denyRowsMustBeFoldedLikeTheAllowRows() {
+        final AllowList.Builder builder = AllowList.builder()
+            .addExact("requests")
+            .deny(AllowList.builder().keyFolder(KeyFolder.PYTHON_PACKAGE_NAME).addExact("urllib3").build());
+
+        assertThrows(IllegalArgumentException.class, builder::build);
+    }
+
+    @Test
+    void snapshotsRestoreTheSameDecisions() throws IOException {
+        final AllowList allowList = new PredicateFactory().createAllowList(
+            "lodash\nglob:@types/*\nregex:^react-.*\nmatch:vue\nmoment@[2.0,3.0)",
+            "left-pad\nregex:^evil", UnaryOperator.identity(), KeyFolder.CASE_INSENSITIVE);
+
+        assertTrue(allowList.supportsSnapshot());
+        final AllowList restored = roundTrip(allowList);
+
+        for (String candidate : Arrays.asList("LODASH", "@types/node", "react-dom", "vue", "vuex", "left-pad",
+                "evil-thing", "moment", "express")) {
+            assertEquals(allowList.decide(candidate), restored.decide(candidate), candidate);
+        }
+        assertEquals(Decision.ALLOWED, restored.decide("moment", VersionRange.exactly(Version.parse("2.29.4"))));
+        assertEquals(Decision.NOT_ALLOWED, restored.decide("moment", VersionRange.exactly(Version.parse("1.0"))));
+    }
+
+    @Test
+    void snapshotsRestoreCompactExactRows() throws IOException {
+        final AllowList restored = roundTrip(AllowList.builder()
+            .compactExactRowThreshold(2)
+            .addExact("lodash")
+            .addExact("react")
+            .addExact("left-pad")
+            .deny(AllowList.builder().addExact("left-pad").build())
+            .build());
+
+        assertTrue(restored.hasCompactExactRows());
+        assertEquals(Decision.ALLOWED, restored.decide("REACT"));
+        assertEquals(Decision.DENIED, restored.decide("left-pad"));
+        assertEquals(Decision.NOT_ALLOWED, restored.decide("express"));
+    }
+
+    @Test
+    void emptyListsRestoreAsTheEmptyList() throws IOException {
+        assertSame(AllowList.empty(), roundTrip(AllowList.empty()));
+    }
+
+    @Test
+    void predicateRowsCannotBeWrittenToSnapshots() {
+        final AllowList allowList = AllowList.builder()
+            .addPattern(name -> name.startsWith("internal-"))
+            .build();
+
+        assertFalse(allowList.supportsSnapshot());
+        assertThrows(IllegalStateException.class,
+            () -> allowList.writeSnapshot(new DataOutputStream(new ByteArrayOutputStream())));
+    }
+
+    private static AllowList roundTrip(final AllowList allowList) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        allowList.writeSnapshot(new DataOutputStream(bytes));
+        return AllowList.readSnapshot(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+}
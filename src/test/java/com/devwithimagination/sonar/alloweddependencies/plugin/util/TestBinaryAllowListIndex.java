@@ -0,0 +1,154 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+import com.devwithimagination.sonar.alloweddependencies.plugin.python.checks.PythonDependencyNameNormalizer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test class for {@link BinaryAllowListIndex} and
+ * {@link BinaryAllowListIndexBuilder}.
+ */
+class TestBinaryAllowListIndex {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void writtenRowsCanBeFound() throws IOException {
+        final List<String> rows = new ArrayList<>();
+        for (int index = 0; index < 5000; index++) {
+            rows.add("package-" + index);
+        }
+        rows.add("@OurCorp/UI");
+        final Path file = tempDir.resolve("allow-list.idx");
+
+        BinaryAllowListIndex.write(rows, file);
+        final BinaryAllowListIndex index = BinaryAllowListIndex.open(file);
+
+        assertEquals(5001, index.size());
+        assertTrue(index.test("package-0"));
+        assertTrue(index.test("PACKAGE-4999"));
+        assertTrue(index.test("@ourcorp/ui"));
+        assertFalse(index.test("package-5000"));
+        assertFalse(index.test("package-"));
+        assertFalse(index.test(null));
+    }
+
+    @Test
+    void emptyIndexMatchesNothing() throws IOException {
+        final Path file = tempDir.resolve("empty.idx");
+
+        BinaryAllowListIndex.write(new ArrayList<>(), file);
+
+        assertFalse(BinaryAllowListIndex.open(file).test("lodash"));
+    }
+
+    @Test
+    void otherFilesAreRejected() throws IOException {
+        final Path file = tempDir.resolve("allow-list.txt");
+        Files.write(file, "lodash\nreact\n".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(IllegalArgumentException.class, () -> BinaryAllowListIndex.open(file));
+    }
+
+    @Test
+    void fullTablesAreRejected() throws IOException {
+        final Path file = tempDir.resolve("full.idx");
+        BinaryAllowListIndex.write(Arrays.asList("lodash", "react"), file);
+
+        /* Claim every slot is a row, so a probe for a missing row could never end */
+        final ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        buffer.putInt(8, buffer.getInt(12));
+        Files.write(file, buffer.array());
+
+        final IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+            () -> BinaryAllowListIndex.open(file));
+        assertEquals("Corrupt allow-list index: " + file, exception.getMessage());
+    }
+
+    @Test
+    void slotsPointingOutsideTheFileAreRejected() throws IOException {
+        final Path file = tempDir.resolve("truncated.idx");
+        BinaryAllowListIndex.write(Arrays.asList("lodash", "react"), file);
+        final byte[] contents = Files.readAllBytes(file);
+
+        /* Drop the last character of the last row entry */
+        Files.write(file, Arrays.copyOf(contents, contents.length - 2));
+
+        final IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+            () -> BinaryAllowListIndex.open(file));
+        assertEquals("Corrupt allow-list index: " + file, exception.getMessage());
+    }
+
+    @Test
+    void indexRowsAreUsedByThePredicateFactory() throws IOException {
+        final Path file = tempDir.resolve("npm.idx");
+        BinaryAllowListIndexBuilder.build("# exported\nlodash\nreact\n", UnaryOperator.identity(), file);
+
+        final Predicate<String> predicate = new PredicateFactory()
+            .createPredicateForDependencyListString("index:" + file + "\nexpress");
+
+        assertTrue(predicate.test("lodash"));
+        assertTrue(predicate.test("React"));
+        assertTrue(predicate.test("express"));
+        assertFalse(predicate.test("vue"));
+    }
+
+    @Test
+    void relativeIndexRowsAreResolvedAgainstTheBaseDir() throws IOException {
+        BinaryAllowListIndexBuilder.build("lodash", UnaryOperator.identity(), tempDir.resolve("npm.idx"));
+
+        final Predicate<String> predicate = new PredicateFactory(PredicateFactory.options().indexBaseDir(tempDir))
+            .createPredicateForDependencyListString("index:npm.idx");
+
+        assertTrue(predicate.test("lodash"));
+        assertFalse(predicate.test("react"));
+    }
+
+    @Test
+    void missingIndexFilesAreReported() {
+        final Path file = tempDir.resolve("missing.idx");
+        final PredicateFactory factory = new PredicateFactory();
+
+        final IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+            () -> factory.createPredicateForDependencyListString("index:" + file));
+        assertEquals("Invalid dependency allow-list index: " + file, exception.getMessage());
+    }
+
+    @Test
+    void builderRejectsPatternRows() {
+        final Path file = tempDir.resolve("patterns.idx");
+
+        assertThrows(IllegalArgumentException.class,
+            () -> BinaryAllowListIndexBuilder.build("lodash\nregex:^@types/.*", UnaryOperator.identity(), file));
+    }
+
+    @Test
+    void builderAppliesTheNormalizer() throws IOException {
+        final Path file = tempDir.resolve("python.idx");
+
+        BinaryAllowListIndexBuilder.build(String.join("\n", Arrays.asList("Typing_Extensions", "zope.interface")),
+            PythonDependencyNameNormalizer::normalize, file);
+        final BinaryAllowListIndex index = BinaryAllowListIndex.open(file);
+
+        assertTrue(index.test("typing-extensions"));
+        assertTrue(index.test("zope-interface"));
+    }
+}
@@ -0,0 +1,78 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for {@link CombinedRegex}.
+ */
+class TestCombinedRegex {
+
+    @Test
+    void combinableRowsShareOneMatcher() {
+        final List<Predicate<String>> predicates = CombinedRegex.compile(Arrays.asList(
+            compile("^org\\.springframework\\..*"),
+            compile("^com\\.(acme|example)\\..*"),
+            compile("junit$")), Pattern.CASE_INSENSITIVE, AllowList.DEFAULT_REGEX_STEP_BUDGET);
+
+        assertEquals(1, predicates.size());
+        assertTrue(predicates.get(0).test("ORG.springframework.boot:spring-boot"));
+        assertTrue(predicates.get(0).test("com.example.lib:thing"));
+        assertTrue(predicates.get(0).test("org.junit:junit"));
+        assertFalse(predicates.get(0).test("org.apache:commons"));
+    }
+
+    @Test
+    void rowsWithBackReferencesAreKeptSeparate() {
+        final List<Predicate<String>> predicates = CombinedRegex.compile(Arrays.asList(
+            compile("^(a)\\1$"),
+            compile("^b$"),
+            compile("^c$")), Pattern.CASE_INSENSITIVE, AllowList.DEFAULT_REGEX_STEP_BUDGET);
+
+        assertEquals(2, predicates.size());
+        assertTrue(predicates.stream().anyMatch(predicate -> predicate.test("aa")));
+        assertTrue(predicates.stream().anyMatch(predicate -> predicate.test("c")));
+        assertFalse(predicates.stream().anyMatch(predicate -> predicate.test("ab")));
+    }
+
+    @Test
+    void inlineFlagsStayScopedToTheirRow() {
+        final List<Predicate<String>> predicates = CombinedRegex.compile(Arrays.asList(
+            compile("(?-i)^Exact$"),
+            compile("^other$")), Pattern.CASE_INSENSITIVE, AllowList.DEFAULT_REGEX_STEP_BUDGET);
+
+        assertEquals(1, predicates.size());
+        assertFalse(predicates.get(0).test("exact"));
+        assertTrue(predicates.get(0).test("OTHER"));
+    }
+
+    @Test
+    void allowListCombinesRegexRowsByDefault() {
+        final AllowList combined = AllowList.builder()
+            .addRegex(compile("^a.*"))
+            .addRegex(compile("^b.*"))
+            .build();
+        final AllowList individual = AllowList.builder()
+            .regexMode(AllowList.RegexMode.INDIVIDUAL)
+            .addRegex(compile("^a.*"))
+            .addRegex(compile("^b.*"))
+            .build();
+
+        assertEquals(1, combined.patternRowCount());
+        assertEquals(2, individual.patternRowCount());
+        assertTrue(combined.test("b-dep"));
+        assertTrue(individual.test("b-dep"));
+    }
+
+    private static Pattern compile(final String expression) {
+        return Pattern.compile(expression, Pattern.CASE_INSENSITIVE);
+    }
+}
@@ -0,0 +1,71 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for {@link DependencyKey}.
+ */
+class TestDependencyKey {
+
+    @Test
+    void testFormsMatchTheKeyFolder() {
+        final DependencyKey key = DependencyKey.of(" Requests__Extra ");
+
+        assertEquals(" Requests__Extra ", key.name());
+        assertEquals("requests-extra", key.folded(KeyFolder.PYTHON_PACKAGE_NAME));
+        assertEquals("requests-extra", key.canonical(KeyFolder.PYTHON_PACKAGE_NAME));
+        assertEquals("requests-extra".hashCode() & 0xFFFFFFFFL, key.foldedHash(KeyFolder.PYTHON_PACKAGE_NAME));
+
+        /* Asking for another folder replaces the forms */
+        assertEquals(" requests__extra ", key.folded(KeyFolder.CASE_INSENSITIVE));
+        assertEquals(" Requests__Extra ", key.canonical(KeyFolder.CASE_INSENSITIVE));
+    }
+
+    @Test
+    void testFormsAreComputedOnce() {
+        final DependencyKey key = DependencyKey.of("Flask.Login");
+
+        assertSame(key.canonical(KeyFolder.PYTHON_PACKAGE_NAME), key.canonical(KeyFolder.PYTHON_PACKAGE_NAME));
+        assertSame(key.folded(KeyFolder.PYTHON_PACKAGE_NAME), key.folded(KeyFolder.PYTHON_PACKAGE_NAME));
+    }
+
+    @Test
+    void testNonAsciiNamesAreFolded() {
+        final DependencyKey key = DependencyKey.of("Ünïcode-Lib");
+
+        assertEquals(KeyFolder.NOT_ASCII, key.foldedHash(KeyFolder.CASE_INSENSITIVE));
+        assertEquals("ünïcode-lib", FoldedKeyMap.ofKeys(KeyFolder.CASE_INSENSITIVE,
+            Collections.singletonList("ÜNÏCODE-LIB")).get(key).toLowerCase());
+    }
+
+    @Test
+    void testOneKeyIsSharedAcrossAllowLists() {
+        final AllowList exact = AllowList.builder()
+            .keyFolder(KeyFolder.PYTHON_PACKAGE_NAME)
+            .addExact("flask-login")
+            .build();
+        final AllowList globs = AllowList.builder()
+            .keyFolder(KeyFolder.PYTHON_PACKAGE_NAME)
+            .addGlob("flask-*")
+            .build();
+        final DependencyKey key = DependencyKey.of("Flask_Login");
+
+        assertTrue(exact.test(key));
+        assertTrue(globs.test(key));
+        assertFalse(AllowList.empty().test(key));
+        assertEquals(Decision.NOT_ALLOWED, exact.decide(DependencyKey.of("flask"), null));
+    }
+
+    @Test
+    void testNullNameIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> DependencyKey.of(null));
+    }
+}
@@ -0,0 +1,140 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * Test class for {@link ExactRowDawg}.
+ */
+class TestExactRowDawg {
+
+    private static final ExactRowDawg DAWG = ExactRowDawg.build(Arrays.asList(
+        "lodash", "lodash.merge", "lodash.get", "react", "react-dom", "preact", "@types/react", "Express"));
+
+    @ParameterizedTest
+    @MethodSource("provideTestArguments")
+    void testContains(final String candidate, final boolean expectedMatch) {
+        assertEquals(expectedMatch, DAWG.contains(candidate));
+    }
+
+    private static Stream<Arguments> provideTestArguments() {
+        return Stream.of(
+            Arguments.of("lodash", true),
+            Arguments.of("lodash.merge", true),
+            Arguments.of("LODASH.GET", true),
+            Arguments.of("express", true),
+            Arguments.of("@types/react", true),
+            Arguments.of("preact", true),
+            Arguments.of("react-dom", true),
+            Arguments.of("lodas", false),
+            Arguments.of("lodash.", false),
+            Arguments.of("lodash.mergex", false),
+            Arguments.of("dom", false),
+            Arguments.of("eact", false),
+            Arguments.of("", false)
+        );
+    }
+
+    @Test
+    void sharedSuffixesAreMerged() {
+        final List<String> rows = new ArrayList<>();
+        for (int index = 0; index < 1000; index++) {
+            rows.add("group" + index + "-common-suffix");
+        }
+        rows.add("group1-common-suffix");
+
+        final ExactRowDawg dawg = ExactRowDawg.build(rows);
+
+        assertEquals(1000, dawg.size());
+        assertTrue(dawg.contains("group999-common-suffix"));
+        assertFalse(dawg.contains("group1000-common-suffix"));
+        /* The shared "-common-suffix" chain is held once rather than per row */
+        assertTrue(dawg.stateCount() < 100, "Expected suffix states to be shared, got " + dawg.stateCount());
+    }
+
+    @Test
+    void allowListCompactsLargeExactLists() {
+        final AllowList.Builder builder = AllowList.builder().compactExactRowThreshold(2);
+        Arrays.asList("requests", "fastapi", "pydantic").forEach(builder::addExact);
+        final AllowList allowList = builder.addRegex(Pattern.compile("^types-")).build();
+
+        assertTrue(allowList.hasCompactExactRows());
+        assertEquals(3, allowList.exactRowCount());
+        assertTrue(allowList.test("FastAPI"));
+        assertTrue(allowList.test("types-requests"));
+        assertFalse(allowList.test("flask"));
+    }
+
+    @Test
+    void rowsArePositionedInSortedOrder() {
+        final List<String> sorted = Arrays.asList("@types/react", "express", "lodash", "lodash.get",
+            "lodash.merge", "preact", "react", "react-dom");
+
+        final List<String> rows = new ArrayList<>();
+        DAWG.forEachRow(rows::add);
+
+        assertEquals(sorted, rows);
+        for (int index = 0; index < sorted.size(); index++) {
+            assertEquals(index, DAWG.indexOf(sorted.get(index).toUpperCase()));
+        }
+        assertEquals(-1, DAWG.indexOf("lodash."));
+    }
+
+    @Test
+    void writtenAutomataAreRestored() throws IOException {
+        final ExactRowDawg restored = read(write(DAWG));
+
+        assertEquals(DAWG.size(), restored.size());
+        assertEquals(DAWG.indexOf("react-dom"), restored.indexOf("REACT-DOM"));
+        assertFalse(restored.contains("lodash."));
+    }
+
+    @Test
+    void inconsistentAutomataAreRejected() throws IOException {
+        final byte[] written = write(DAWG);
+        final ByteBuffer buffer = ByteBuffer.wrap(written);
+        final int states = buffer.getInt(4);
+
+        /* Point the first transition of the root at a state which does not exist */
+        final int firstTarget = 8 + 4 * states + 4 + 2;
+        buffer.putInt(firstTarget, states);
+        assertThrows(IOException.class, () -> read(written));
+
+        /* Point it back at the root, which makes a cycle */
+        buffer.putInt(firstTarget, 0);
+        assertThrows(IOException.class, () -> read(written));
+    }
+
+    private static byte[] write(final ExactRowDawg dawg) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            dawg.write(out);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static ExactRowDawg read(final byte[] written) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(written))) {
+            return ExactRowDawg.read(in);
+        }
+    }
+}
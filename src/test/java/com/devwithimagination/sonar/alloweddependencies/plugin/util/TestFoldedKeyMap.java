@@ -0,0 +1,81 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for {@link FoldedKeyMap}.
+ */
+class TestFoldedKeyMap {
+
+    @Test
+    void testLookupsFoldCase() {
+        final FoldedKeyMap<String> map = FoldedKeyMap.ofKeys(KeyFolder.CASE_INSENSITIVE,
+            Arrays.asList("lodash", "React", "@Angular/Core"));
+
+        assertEquals(3, map.size());
+        assertTrue(map.containsKey("LODASH"));
+        assertTrue(map.containsKey("react"));
+        assertTrue(map.containsKey("@angular/core"));
+        assertFalse(map.containsKey("lodash-es"));
+        assertFalse(map.containsKey(null));
+    }
+
+    @Test
+    void testKeysFoldingToTheSameKeyAreMerged() {
+        final Map<String, Integer> entries = new LinkedHashMap<>();
+        entries.put("Requests_Extra", 1);
+        entries.put("requests.extra", 2);
+
+        final FoldedKeyMap<Integer> map = FoldedKeyMap.of(KeyFolder.PYTHON_PACKAGE_NAME, entries);
+
+        assertEquals(1, map.size());
+        assertEquals(2, map.get(" REQUESTS-extra "));
+        assertNull(map.get("requests"));
+    }
+
+    @Test
+    void testNonAsciiCandidates() {
+        final FoldedKeyMap<String> map = FoldedKeyMap.ofKeys(KeyFolder.CASE_INSENSITIVE,
+            Arrays.asList("caf\u00e9", "kelvin"));
+
+        assertTrue(map.containsKey("CAF\u00c9"));
+        /* The Kelvin sign folds to an ASCII 'k' */
+        assertTrue(map.containsKey("\u212Aelvin"));
+    }
+
+    @Test
+    void testEmptyMap() {
+        final FoldedKeyMap<String> map = FoldedKeyMap.ofKeys(KeyFolder.CASE_INSENSITIVE, Collections.emptyList());
+
+        assertEquals(0, map.size());
+        assertFalse(map.containsKey("lodash"));
+    }
+
+    @Test
+    void testManyKeys() {
+        final List<String> keys = new ArrayList<>();
+        for (int index = 0; index < 5_000; index++) {
+            keys.add("Group" + index + ":Artifact" + index);
+        }
+
+        final FoldedKeyMap<String> map = FoldedKeyMap.ofKeys(KeyFolder.CASE_INSENSITIVE, keys);
+
+        assertEquals(keys.size(), map.size());
+        for (int index = 0; index < 5_000; index++) {
+            assertTrue(map.containsKey("group" + index + ":artifact" + index));
+        }
+        assertFalse(map.containsKey("group5000:artifact5000"));
+    }
+}
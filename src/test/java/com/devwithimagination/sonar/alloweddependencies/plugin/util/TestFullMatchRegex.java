@@ -0,0 +1,80 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * Test class for {@link FullMatchRegex}.
+ */
+class TestFullMatchRegex {
+
+    /**
+     * Test the literal prefix and minimum length found for a row.
+     *
+     * @param expression      the row expression
+     * @param expectedPrefix  the expected literal prefix, case folded
+     * @param expectedMinimum the expected minimum match length
+     */
+    @ParameterizedTest
+    @MethodSource("provideAnalysisArguments")
+    void testAnalysis(final String expression, final String expectedPrefix, final int expectedMinimum) {
+
+        final FullMatchRegex row = FullMatchRegex.compile(
+            Pattern.compile(expression, Pattern.CASE_INSENSITIVE), AllowList.DEFAULT_REGEX_STEP_BUDGET);
+
+        assertEquals(expectedPrefix, row.prefix());
+        assertEquals(expectedMinimum, row.minimumLength());
+    }
+
+    /**
+     * Test that the pre-checks never change the result of a full match.
+     *
+     * @param expression the row expression
+     * @param candidate  the candidate to test
+     */
+    @ParameterizedTest
+    @MethodSource("provideMatchArguments")
+    void testMatchesLikeTheRegexEngine(final String expression, final String candidate) {
+
+        final Pattern pattern = Pattern.compile(expression, Pattern.CASE_INSENSITIVE);
+        final FullMatchRegex row = FullMatchRegex.compile(pattern, AllowList.DEFAULT_REGEX_STEP_BUDGET);
+
+        assertEquals(pattern.matcher(candidate).matches(), row.test(candidate));
+    }
+
+    private static Stream<Arguments> provideAnalysisArguments() {
+        return Stream.of(
+            Arguments.of("org\\.junit\\..*", "org.junit.", 10),
+            Arguments.of("^ORG\\.Junit:[a-z]+$", "org.junit:", 11),
+            Arguments.of("com\\.acme-\\d{2,4}", "com.acme-", 11),
+            Arguments.of("ab?c", "a", 2),
+            Arguments.of("(org|com)\\.acme", "", 5),
+            Arguments.of("org\\.acme|com\\.acme", "", 0),
+            Arguments.of("\\Qorg.acme\\E", "", 0),
+            Arguments.of("(?x) org", "", 0)
+        );
+    }
+
+    private static Stream<Arguments> provideMatchArguments() {
+        return Stream.of(
+            Arguments.of("org\\.junit\\..*", "org.junit.jupiter:junit-jupiter"),
+            Arguments.of("org\\.junit\\..*", "ORG.JUNIT.jupiter:junit-jupiter"),
+            Arguments.of("org\\.junit\\..*", "com.org.junit.jupiter"),
+            Arguments.of("org\\.junit\\..*", "org.junit"),
+            Arguments.of("junit", "org.junit.jupiter:junit-jupiter"),
+            Arguments.of("ab?c", "ac"),
+            Arguments.of("ab?c", "abc"),
+            Arguments.of("ab?c", "abbc"),
+            Arguments.of("(org|com)\\.acme", "com.acme"),
+            Arguments.of("org\\.acme|com\\.acme", "com.acme"),
+            Arguments.of("com\\.acme-\\d{2,4}", "com.acme-1"),
+            Arguments.of("com\\.acme-\\d{2,4}", "com.acme-123")
+        );
+    }
+}
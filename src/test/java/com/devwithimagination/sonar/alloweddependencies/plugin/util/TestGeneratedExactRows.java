@@ -0,0 +1,116 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.devwithimagination.sonar.alloweddependencies.plugin.util.AllowList.MatcherEngine;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for {@link GeneratedExactRows}.
+ */
+class TestGeneratedExactRows {
+
+    @Test
+    void testKeysSharingAHashAreTold() {
+        /* "Aa" and "BB" have the same hash code */
+        final Map<String, Integer> rows = new LinkedHashMap<>();
+        rows.put("aa", 0);
+        rows.put("bb", 1);
+        rows.put("lodash", 2);
+        rows.put("denied", -1);
+        rows.put("case-variant", -4);
+
+        final GeneratedExactRows generated = GeneratedExactRows.generate(KeyFolder.CASE_INSENSITIVE, rows);
+
+        assertNotNull(generated);
+        assertEquals(0, rowOf(generated, KeyFolder.CASE_INSENSITIVE, "AA"));
+        assertEquals(1, rowOf(generated, KeyFolder.CASE_INSENSITIVE, "Bb"));
+        assertEquals(2, rowOf(generated, KeyFolder.CASE_INSENSITIVE, "LoDash"));
+        assertEquals(-1, rowOf(generated, KeyFolder.CASE_INSENSITIVE, "denied"));
+        assertEquals(-4, rowOf(generated, KeyFolder.CASE_INSENSITIVE, "Case-Variant"));
+        assertEquals(GeneratedExactRows.NO_ROW, rowOf(generated, KeyFolder.CASE_INSENSITIVE, "lodash-es"));
+        assertEquals(GeneratedExactRows.NO_ROW, rowOf(generated, KeyFolder.CASE_INSENSITIVE, ""));
+    }
+
+    @Test
+    void testPythonNamesAreFolded() {
+        final GeneratedExactRows generated = GeneratedExactRows.generate(KeyFolder.PYTHON_PACKAGE_NAME,
+            Collections.singletonMap("flask-login", 7));
+
+        assertNotNull(generated);
+        assertEquals(7, rowOf(generated, KeyFolder.PYTHON_PACKAGE_NAME, " Flask__Login "));
+        assertEquals(7, rowOf(generated, KeyFolder.PYTHON_PACKAGE_NAME, "flask.login"));
+        assertEquals(GeneratedExactRows.NO_ROW, rowOf(generated, KeyFolder.PYTHON_PACKAGE_NAME, "flasklogin"));
+    }
+
+    @Test
+    void testLargeIndexesAreNotGenerated() {
+        final Map<String, Integer> rows = new LinkedHashMap<>();
+        for (int row = 0; row <= GeneratedExactRows.MAX_KEYS; row++) {
+            rows.put("lib-" + row, row);
+        }
+
+        assertNull(GeneratedExactRows.generate(KeyFolder.CASE_INSENSITIVE, rows));
+        assertNull(GeneratedExactRows.generate(KeyFolder.CASE_INSENSITIVE, Collections.emptyMap()));
+        assertNull(GeneratedExactRows.generate(KeyFolder.CASE_INSENSITIVE,
+            Collections.singletonMap("lib", Short.MAX_VALUE + 1)));
+    }
+
+    @Test
+    void testGeneratedAllowListsDecideAsInterpretedOnes() {
+        final List<String> candidates = Arrays.asList("lodash", "LODASH", "react", "left-pad", "Ünïcode",
+            "ünïcode", "@angular/core", "@angular/common", "moment", "aa", "BB");
+        final AllowList generated = allowList(MatcherEngine.GENERATED);
+        final AllowList interpreted = allowList(MatcherEngine.INTERPRETED);
+
+        assertTrue(generated.hasGeneratedExactRows());
+        assertFalse(interpreted.hasGeneratedExactRows());
+        for (String candidate : candidates) {
+            assertEquals(interpreted.decide(candidate), generated.decide(candidate), candidate);
+        }
+        assertEquals(Decision.DENIED, generated.decide("moment"));
+        assertEquals(Decision.ALLOWED, generated.decide("ÜNÏCODE"));
+        assertEquals(interpreted.unusedRows(), generated.unusedRows());
+    }
+
+    @Test
+    void testCompactListsAreNotGenerated() {
+        final AllowList allowList = AllowList.builder()
+            .matcherEngine(MatcherEngine.GENERATED)
+            .compactExactRowThreshold(1)
+            .addExact("lodash")
+            .addExact("react")
+            .build();
+
+        assertFalse(allowList.hasGeneratedExactRows());
+        assertTrue(allowList.test("React"));
+    }
+
+    private static AllowList allowList(final MatcherEngine engine) {
+        final AllowList denied = AllowList.builder().addExact("moment").build();
+        return AllowList.builder()
+            .matcherEngine(engine)
+            .addExact("lodash")
+            .addExact("Aa")
+            .addExact("ünïcode")
+            .addExact("moment")
+            .addGlob("@angular/*")
+            .deny(denied)
+            .build();
+    }
+
+    private static int rowOf(final GeneratedExactRows generated, final KeyFolder folder, final String candidate) {
+        return generated.rowOf(candidate, (int) folder.foldedHash(candidate));
+    }
+}
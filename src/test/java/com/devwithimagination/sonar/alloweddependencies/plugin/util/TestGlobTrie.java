@@ -0,0 +1,76 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * Test class for {@link GlobTrie}.
+ */
+class TestGlobTrie {
+
+    @ParameterizedTest
+    @MethodSource("provideTestArguments")
+    void testGlobs(final String glob, final String candidate, final boolean expectedMatch) {
+        final GlobTrie trie = GlobTrie.builder().add(glob).build();
+
+        assertEquals(expectedMatch, trie.test(candidate));
+    }
+
+    @Test
+    void rowsSharingAPrefixAreAllMatched() {
+        final GlobTrie trie = GlobTrie.builder()
+            .add("com.ourcorp.**")
+            .add("com.ourcorp:*")
+            .add("com.other:lib-*")
+            .build();
+
+        assertEquals(3, trie.size());
+        assertEquals(true, trie.test("com.ourcorp:core"));
+        assertEquals(true, trie.test("com.ourcorp.web:ui"));
+        assertEquals(true, trie.test("com.other:lib-json"));
+        assertEquals(false, trie.test("com.other:json"));
+        assertEquals(false, trie.test(null));
+    }
+
+    @Test
+    void anyRemainderIsOnlySupportedAtTheEnd() {
+        assertThrows(IllegalArgumentException.class, () -> GlobTrie.builder().add("com.**.core"));
+    }
+
+    @Test
+    void globRowsAreSupportedByThePredicateFactory() {
+        final PredicateFactory factory = new PredicateFactory();
+
+        assertEquals(true, factory.createPredicateForDependencyListString("glob:@OurCorp/*").test("@ourcorp/ui"));
+
+        final IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+            () -> factory.createPredicateForDependencyListString("glob:**.core"));
+        assertEquals("Invalid dependency allow-list glob: **.core", exception.getMessage());
+    }
+
+    private static Stream<Arguments> provideTestArguments() {
+        return Stream.of(
+            Arguments.of("com.ourcorp.**", "com.ourcorp.platform:core", true),
+            Arguments.of("com.ourcorp.**", "com.ourcorp:core", false),
+            Arguments.of("com.ourcorp.**", "com.ourcorporate:core", false),
+            Arguments.of("com.ourcorp*:core", "com.ourcorporate:core", true),
+            Arguments.of("com.*.platform:*", "com.ourcorp.platform:core", true),
+            Arguments.of("com.*.platform:*", "com.ourcorp.web.platform:core", false),
+            Arguments.of("@ourcorp/*", "@OURCORP/ui-kit", true),
+            Arguments.of("@ourcorp/*", "@ourcorp/ui-kit/extra", false),
+            Arguments.of("@ourcorp/*", "@ourcorpx/ui-kit", false),
+            Arguments.of("types-*", "types-requests", true),
+            Arguments.of("org.apache.maven.plugins:maven-*-plugin", "org.apache.maven.plugins:maven-jar-plugin", true),
+            Arguments.of("org.apache.maven.plugins:maven-*-plugin", "org.apache.maven.plugins:maven-jar", false),
+            Arguments.of("exact", "exact", true),
+            Arguments.of("exact", "exactly", false)
+        );
+    }
+}
@@ -0,0 +1,69 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.util;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for {@link GuardedRegex}.
+ */
+class TestGuardedRegex {
+
+    /**
+     * A catastrophic backtracking expression, polynomial of a high degree on a
+     * run of 'a' characters which does not end in an 'a'.
+     */
+    private static final Pattern CATASTROPHIC = Pattern.compile("^(.*a){12}$", Pattern.CASE_INSENSITIVE);
+
+    private static final String HOSTILE_CANDIDATE = "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa!";
+
+    @Test
+    void wellBehavedRowsMatchWithinTheirBudget() {
+        final Predicate<String> row = GuardedRegex.of(Pattern.compile("^org\\.junit\\..*"), 1_000);
+
+        assertTrue(row.test("org.junit.jupiter:junit-jupiter"));
+        assertFalse(row.test("org.mockito:mockito-core"));
+    }
+
+    @Test
+    void pathologicalRowsAreTreatedAsNotMatching() {
+        final Predicate<String> row = GuardedRegex.of(CATASTROPHIC, AllowList.DEFAULT_REGEX_STEP_BUDGET);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> assertFalse(row.test(HOSTILE_CANDIDATE)));
+        assertTrue(row.test("aaaaaaaaaaaa"));
+    }
+
+    @Test
+    void pathologicalDenyRowsAreTreatedAsMatching() {
+        final Predicate<String> row = GuardedRegex.of(CATASTROPHIC, AllowList.DEFAULT_REGEX_STEP_BUDGET, true);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> assertTrue(row.test(HOSTILE_CANDIDATE)));
+        assertFalse(row.test("bbb"));
+    }
+
+    @Test
+    void findThrowsWhenTheBudgetIsExhausted() {
+        assertThrows(GuardedRegex.BudgetExceededException.class,
+            () -> GuardedRegex.find(CATASTROPHIC, HOSTILE_CANDIDATE, 10_000));
+    }
+
+    @Test
+    void combinedRowsFallBackToIndividualBudgets() {
+        final AllowList allowList = AllowList.builder()
+            .addRegex(CATASTROPHIC)
+            .addRegex(Pattern.compile("!$", Pattern.CASE_INSENSITIVE))
+            .addRegex(Pattern.compile("^b", Pattern.CASE_INSENSITIVE))
+            .build();
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> assertTrue(allowList.test(HOSTILE_CANDIDATE)));
+        assertTrue(allowList.test("bcd"));
+        assertFalse(allowList.test("cde"));
+    }
+}
@@ -0,0 +1,90 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Locale;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * Test class for {@link KeyFolder}.
+ */
+class TestKeyFolder {
+
+    /**
+     * Test that the single pass folding agrees with folding the whole string.
+     *
+     * @param name the name to fold
+     */
+    @ParameterizedTest
+    @MethodSource("provideNames")
+    void testCaseInsensitiveFolding(final String name) {
+        final KeyFolder folder = KeyFolder.CASE_INSENSITIVE;
+        final String expected = name.toLowerCase(Locale.ROOT);
+
+        assertEquals(expected, folder.fold(name));
+        assertSinglePassAgrees(folder, name, expected);
+    }
+
+    /**
+     * Test that Python package name folding agrees with the PEP 503 expression.
+     *
+     * @param name the name to fold
+     */
+    @ParameterizedTest
+    @MethodSource("provideNames")
+    void testPythonPackageNameFolding(final String name) {
+        final KeyFolder folder = KeyFolder.PYTHON_PACKAGE_NAME;
+        final String expected = name.trim().toLowerCase(Locale.ROOT).replaceAll("[-_.]+", "-");
+
+        assertEquals(expected, folder.fold(name));
+        assertSinglePassAgrees(folder, name, expected);
+    }
+
+    @Test
+    void testMismatchedKeysAreRejected() {
+        assertFalse(KeyFolder.CASE_INSENSITIVE.matches("lodash", "lodash-es"));
+        assertFalse(KeyFolder.CASE_INSENSITIVE.matches("lodash-es", "lodash"));
+        assertFalse(KeyFolder.PYTHON_PACKAGE_NAME.matches("requests", "requests-extra"));
+        assertFalse(KeyFolder.PYTHON_PACKAGE_NAME.matches("requests_extra", "requests"));
+        assertFalse(KeyFolder.PYTHON_PACKAGE_NAME.matches("requestsextra", "requests-extra"));
+    }
+
+    @Test
+    void testNonAsciiNamesTakeTheSlowPath() {
+        assertEquals(KeyFolder.NOT_ASCII, KeyFolder.CASE_INSENSITIVE.foldedHash("caf\u00c9"));
+        assertEquals(KeyFolder.NOT_ASCII, KeyFolder.PYTHON_PACKAGE_NAME.foldedHash("caf\u00c9"));
+    }
+
+    private static void assertSinglePassAgrees(final KeyFolder folder, final String name, final String expected) {
+        final long hash = folder.foldedHash(name);
+        if (hash == KeyFolder.NOT_ASCII) {
+            return;
+        }
+        assertEquals(expected.hashCode(), (int) hash);
+        assertTrue(folder.matches(name, expected));
+    }
+
+    private static Stream<String> provideNames() {
+        return Stream.of(
+            "lodash",
+            "Lodash",
+            "@Angular-ESLint/Builder",
+            "org.junit.jupiter:junit-jupiter",
+            "Requests_Extra",
+            "requests..extra",
+            "requests-_.extra",
+            "  Requests.Extra  ",
+            "-leading",
+            "trailing_",
+            "",
+            "   ",
+            "caf\u00c9-Package"
+        );
+    }
+}
@@ -120,15 +120,69 @@ class TestPredicateFactory {
                 "  regex:org\\.junit\\..*  ",
                 "org.junit.jupiter:junit-jupiter",
                 true
+            ),
+
+            /* Full match regex tests */
+            Arguments.of(
+                "match:org\\.junit\\..*",
+                "ORG.JUNIT.jupiter:junit-jupiter",
+                true
+            ),
+            Arguments.of(
+                "match:junit",
+                "org.junit.jupiter:junit-jupiter",
+                false
+            ),
+            Arguments.of(
+                "match:a-dep|b-dep",
+                "b-dep",
+                true
             )
         );
     }
 
+    /**
+     * Test the rule level option evaluating regex rows with full match
+     * semantics.
+     *
+     * @param allowedDeps   the newline seperated string of dependencies which are
+     *                      allowed.
+     * @param testDep       the dependency item to compare with the predicate
+     * @param expectedMatch the expected result in full match mode
+     */
+    @ParameterizedTest
+    @MethodSource("provideFullMatchArguments")
+    void testRegexFullMatchMode(final String allowedDeps, final String testDep, final boolean expectedMatch) {
+
+        final PredicateFactory factory = new PredicateFactory(PredicateFactory.options().regexFullMatch(true));
+
+        final Predicate<String> predicate = factory.createPredicateForDependencyListString(allowedDeps);
+
+        assertEquals(expectedMatch, predicate.test(testDep));
+    }
+
+    private static Stream<Arguments> provideFullMatchArguments() {
+        return Stream.of(
+            Arguments.of("regex:junit", "org.junit.jupiter:junit-jupiter", false),
+            Arguments.of("regex:org\\.junit\\..*", "org.junit.jupiter:junit-jupiter", true),
+            Arguments.of("regex:org\\.junit\\.jupiter", "org.junit.jupiter:junit-jupiter", false),
+            Arguments.of("a-dep\nregex:b-.*", "b-dep", true)
+        );
+    }
+
     private static Stream<Arguments> provideInvalidRegexArguments() {
         return Stream.of(
             Arguments.of(
                 "regex:[invalid",
                 "Invalid dependency allow-list regex: [invalid"
+            ),
+            Arguments.of(
+                "match:(unclosed",
+                "Invalid dependency allow-list regex: (unclosed"
+            ),
+            Arguments.of(
+                "lodash@[4.17.21",
+                "Invalid dependency allow-list version range: [4.17.21"
             )
         );
     }
@@ -0,0 +1,79 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * Test class for {@link RegexLiteralIndex}.
+ */
+class TestRegexLiteralIndex {
+
+    @ParameterizedTest
+    @MethodSource("provideLiteralArguments")
+    void requiredLiteralIsExtracted(final String expression, final String expectedLiteral) {
+        assertEquals(expectedLiteral, RegexLiteralIndex.requiredLiteral(expression));
+    }
+
+    @Test
+    void onlyRowsWhoseLiteralOccursAreRun() {
+        final List<Pattern> rows = new ArrayList<>();
+        final List<String> literals = new ArrayList<>();
+        for (String expression : new String[] {
+                "org\\.springframework\\..*", "@angular/.*", "^com\\.acme\\.[a-z]+:core$", "gular/(cdk|core)"}) {
+            rows.add(Pattern.compile(expression, Pattern.CASE_INSENSITIVE));
+            literals.add(RegexLiteralIndex.requiredLiteral(expression));
+        }
+
+        final RegexLiteralIndex index = RegexLiteralIndex.build(rows, literals, AllowList.DEFAULT_REGEX_STEP_BUDGET);
+
+        assertEquals(4, index.size());
+        assertTrue(index.test("ORG.SpringFramework.boot:spring-boot"));
+        assertTrue(index.test("@angular/core"));
+        assertTrue(index.test("com.acme.web:core"));
+        assertFalse(index.test("com.acme.web:core-extra"));
+        assertFalse(index.test("org.springframeworks"));
+        assertFalse(index.test("lodash"));
+    }
+
+    @Test
+    void allowListMixesIndexedAndCombinedRows() {
+        final AllowList allowList = AllowList.builder()
+            .addRegex(Pattern.compile("^org\\.junit\\..*", Pattern.CASE_INSENSITIVE))
+            .addRegex(Pattern.compile("^[a-z]$", Pattern.CASE_INSENSITIVE))
+            .build();
+
+        assertEquals(2, allowList.patternRowCount());
+        assertTrue(allowList.test("org.junit.jupiter:junit-jupiter"));
+        assertTrue(allowList.test("Z"));
+        assertFalse(allowList.test("org.junitx"));
+    }
+
+    private static Stream<Arguments> provideLiteralArguments() {
+        return Stream.of(
+            Arguments.of("org\\.springframework\\..*", "org.springframework."),
+            Arguments.of("regex\\.junit\\.*", "regex.junit"),
+            Arguments.of("^@Angular/.*$", "@angular/"),
+            Arguments.of("^com\\.[a-z]+\\.ourcorp:.*", ".ourcorp:"),
+            Arguments.of("^abc?d", "ab"),
+            Arguments.of("ab+cde", "cde"),
+            Arguments.of("x{2,3}yz", "yz"),
+            Arguments.of("\\x41\\x42cd", "cd"),
+            Arguments.of("(foo|bar)baz", "baz"),
+            Arguments.of("foo|bar", null),
+            Arguments.of("^[a-z]+$", null),
+            Arguments.of("\\Qorg.junit\\E", null),
+            Arguments.of("(?x) org \\. junit", null)
+        );
+    }
+}
@@ -0,0 +1,37 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for {@link RowHitCounters}.
+ */
+class TestRowHitCounters {
+
+    @Test
+    void hitsAreCountedPerRow() {
+        final RowHitCounters counters = new RowHitCounters(3);
+
+        counters.hit(0);
+        counters.hit(2);
+        counters.hit(2);
+
+        assertEquals(3, counters.size());
+        assertEquals(1, counters.hits(0));
+        assertEquals(0, counters.hits(1));
+        assertEquals(2, counters.hits(2));
+    }
+
+    @Test
+    void concurrentHitsAreNotLost() {
+        final RowHitCounters counters = new RowHitCounters(2);
+
+        IntStream.range(0, 10_000).parallel().forEach(index -> counters.hit(index % 2));
+
+        assertEquals(5_000, counters.hits(0));
+        assertEquals(5_000, counters.hits(1));
+    }
+}
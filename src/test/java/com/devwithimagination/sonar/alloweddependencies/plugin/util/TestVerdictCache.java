@@ -0,0 +1,163 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for {@link VerdictCache}.
+ */
+class TestVerdictCache {
+
+    @Test
+    void repeatedKeysAreAnsweredFromTheCache() {
+        final AtomicInteger calls = new AtomicInteger();
+        final Predicate<String> delegate = key -> {
+            calls.incrementAndGet();
+            return key.startsWith("allowed");
+        };
+        final VerdictCache cache = new VerdictCache("test", delegate, 10);
+
+        assertTrue(cache.test("allowed-lib"));
+        assertTrue(cache.test("allowed-lib"));
+        assertFalse(cache.test("other-lib"));
+        assertFalse(cache.test("other-lib"));
+
+        assertEquals(2, calls.get());
+        assertEquals(2, cache.hits());
+        assertEquals(2, cache.misses());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void newVerdictsAreNotStoredOnceFull() {
+        final AtomicInteger calls = new AtomicInteger();
+        final VerdictCache cache = new VerdictCache("test", key -> calls.incrementAndGet() > 0, 1);
+
+        cache.test("first");
+        cache.test("second");
+        cache.test("second");
+        cache.test("first");
+
+        assertEquals(1, cache.size());
+        assertEquals(3, calls.get());
+        assertEquals(1, cache.hits());
+    }
+
+    @Test
+    void zeroSizeDisablesTheCache() {
+        final AtomicInteger calls = new AtomicInteger();
+        final VerdictCache cache = new VerdictCache("test", key -> calls.incrementAndGet() > 0, 0);
+
+        cache.test("first");
+        cache.test("first");
+
+        assertEquals(2, calls.get());
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.hits());
+        assertEquals(0, cache.misses());
+    }
+
+    @Test
+    void nullKeysAreDelegated() {
+        final VerdictCache cache = new VerdictCache("test", key -> key == null, 10);
+
+        assertTrue(cache.test((String) null));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void dependencyKeysShareVerdictsWithNames() {
+        final AllowList allowList = AllowList.builder().addExact("lodash").build();
+        final VerdictCache cache = new VerdictCache("test", allowList, 10);
+
+        assertTrue(cache.test(DependencyKey.of("lodash")));
+        assertTrue(cache.test("lodash"));
+        assertFalse(cache.test(DependencyKey.of("left-pad")));
+        assertFalse(cache.test(DependencyKey.of("left-pad")));
+
+        assertEquals(2, cache.hits());
+        assertEquals(2, cache.misses());
+    }
+
+    @Test
+    void namesWithTheSameCanonicalFormShareAVerdict() {
+        final AllowList allowList = AllowList.builder().keyFolder(KeyFolder.PYTHON_PACKAGE_NAME)
+            .addExact("typing-extensions").build();
+        final VerdictCache cache = new VerdictCache("test", allowList, 10);
+
+        assertTrue(cache.test(DependencyKey.of("Typing_Extensions")));
+        assertTrue(cache.test(DependencyKey.of("typing.extensions")));
+        assertTrue(cache.test("typing-extensions"));
+
+        assertEquals(1, cache.size());
+        assertEquals(2, cache.hits());
+    }
+
+    @Test
+    void everyDecisionIsAnsweredFromTheCache() {
+        final AllowList allowList = new PredicateFactory().createAllowList("lodash", "left-pad",
+            UnaryOperator.identity(), KeyFolder.CASE_INSENSITIVE);
+        final VerdictCache cache = new VerdictCache("test", allowList, 10);
+
+        for (int round = 0; round < 2; round++) {
+            assertEquals(Decision.ALLOWED, cache.decide(DependencyKey.of("lodash")));
+            assertEquals(Decision.DENIED, cache.decide(DependencyKey.of("left-pad")));
+            assertEquals(Decision.NOT_ALLOWED, cache.decide(DependencyKey.of("express")));
+        }
+
+        assertEquals(3, cache.misses());
+        assertEquals(3, cache.hits());
+    }
+
+    @Test
+    void versionedRowsApplyToCachedDecisions() {
+        final AllowList allowList = new PredicateFactory().createAllowList("log4j-core\nmoment@[2.29,3)",
+            "log4j-core@(,2.17.1)", UnaryOperator.identity(), KeyFolder.CASE_INSENSITIVE);
+        final VerdictCache cache = new VerdictCache("test", allowList, 10);
+        final DependencyKey log4j = DependencyKey.of("log4j-core");
+        final DependencyKey moment = DependencyKey.of("moment");
+
+        assertEquals(Decision.ALLOWED, cache.decide(log4j, VersionRange.exactly(Version.parse("2.17.1"))));
+        assertEquals(Decision.DENIED, cache.decide(log4j, VersionRange.parse("[2.14,2.18)")));
+        assertEquals(Decision.ALLOWED, cache.decide(moment, VersionRange.exactly(Version.parse("2.29.4"))));
+        assertEquals(Decision.NOT_ALLOWED, cache.decide(moment, VersionRange.exactly(Version.parse("1.0"))));
+
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void concurrentMissesDoNotExceedTheMaximumSize() throws Exception {
+        final VerdictCache cache = new VerdictCache("test", key -> true, 100);
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<?>> tasks = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                final int offset = thread;
+                tasks.add(executor.submit(() -> {
+                    for (int index = 0; index < 1000; index++) {
+                        cache.test("lib-" + (index * 8 + offset) % 500);
+                    }
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(100, cache.size());
+    }
+}
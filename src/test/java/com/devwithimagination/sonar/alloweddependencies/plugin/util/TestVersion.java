@@ -0,0 +1,59 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * Test class for {@link Version}.
+ */
+class TestVersion {
+
+    @ParameterizedTest
+    @MethodSource("provideOrderedVersions")
+    void versionsAreOrdered(final String lower, final String higher) {
+        assertTrue(Version.parse(lower).compareTo(Version.parse(higher)) < 0, lower + " < " + higher);
+        assertTrue(Version.parse(higher).compareTo(Version.parse(lower)) > 0, higher + " > " + lower);
+    }
+
+    @Test
+    void equivalentVersionsAreEqual() {
+        assertEquals(Version.parse("1.0"), Version.parse("1.0.0"));
+        assertEquals(Version.parse("2.17.1"), Version.parse("v2.17.1+build.5"));
+        assertEquals(Version.parse("1.2.RELEASE"), Version.parse("1.2"));
+        assertEquals(Version.parse("1.0-SNAPSHOT"), Version.parse("1.0-snapshot"));
+        assertEquals(0, Version.parse("1.01").compareTo(Version.parse("1.1")));
+        assertEquals("v2.17.1+build.5", Version.parse("v2.17.1+build.5").toString());
+    }
+
+    @Test
+    void blankVersionsAreRejected() {
+        final IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+            () -> Version.parse(" "));
+
+        assertEquals("Invalid version: ' '", exception.getMessage());
+    }
+
+    private static Stream<Arguments> provideOrderedVersions() {
+        return Stream.of(
+            Arguments.of("1.9", "1.10"),
+            Arguments.of("2.17.0", "2.17.1"),
+            Arguments.of("1.0-alpha-1", "1.0-beta"),
+            Arguments.of("1.0.0-rc.1", "1.0.0"),
+            Arguments.of("1.0-SNAPSHOT", "1.0"),
+            Arguments.of("1.0rc1", "1.0-SNAPSHOT"),
+            Arguments.of("1.0.dev1", "1.0a1"),
+            Arguments.of("1.0", "1.0-sp1"),
+            Arguments.of("1.0", "1.0.post1"),
+            Arguments.of("1.0-jre", "1.0.1"),
+            Arguments.of("31.1-android", "31.1-jre"),
+            Arguments.of("9007199254740993", "9007199254740994"));
+    }
+}
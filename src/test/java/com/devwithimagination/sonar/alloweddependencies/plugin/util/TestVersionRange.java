@@ -0,0 +1,77 @@
+package com.devwithimagination.sonar.alloweddependencies.plugin.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for {@link VersionRange}.
+ */
+class TestVersionRange {
+
+    @Test
+    void boundsAreInclusiveOrExclusive() {
+        final VersionRange range = VersionRange.parse("[1.0,2.0)");
+
+        assertTrue(range.contains(Version.parse("1.0")));
+        assertTrue(range.contains(Version.parse("1.9.9")));
+        assertFalse(range.contains(Version.parse("2.0")));
+        assertFalse(range.contains(Version.parse("0.9")));
+        assertTrue(VersionRange.parse("[2.17.1,)").contains(Version.parse("3.0")));
+        assertTrue(VersionRange.parse("[1.5]").contains(Version.parse("1.5.0")));
+        assertFalse(VersionRange.parse("[1.5]").contains(Version.parse("1.5.1")));
+    }
+
+    @Test
+    void touchingIntervalsAreMerged() {
+        final VersionRange range = VersionRange.parse("[1.0,1.5),[1.5,2.0),[3.0,4.0],(,0.5]");
+
+        assertEquals(3, range.intervalCount());
+        assertEquals("(,0.5],[1.0,2.0),[3.0,4.0]", range.toString());
+        assertTrue(range.containsAll(VersionRange.parse("[1.2,1.8]")));
+        assertFalse(range.containsAll(VersionRange.parse("[1.2,3.0]")));
+        assertFalse(range.contains(Version.parse("2.5")));
+    }
+
+    @Test
+    void manyIntervalsAreSearched() {
+        final List<VersionRange> ranges = new ArrayList<>();
+        for (int major = 1000; major > 0; major--) {
+            ranges.add(VersionRange.parse("[" + major + ".0," + major + ".5)"));
+        }
+        final VersionRange range = VersionRange.anyOf(ranges);
+
+        assertEquals(1000, range.intervalCount());
+        assertTrue(range.contains(Version.parse("512.4")));
+        assertFalse(range.contains(Version.parse("512.5")));
+        assertTrue(range.containsAll(VersionRange.parse("[1.1,1.2],[999.0]")));
+        assertFalse(range.containsAll(VersionRange.parse("[1.1,2.1]")));
+    }
+
+    @Test
+    void rangesIntersect() {
+        final VersionRange range = VersionRange.parse("[1.0,3.0)").intersect(VersionRange.parse("(2.0,),(,1.5]"));
+
+        assertEquals("[1.0,1.5],(2.0,3.0)", range.toString());
+        assertTrue(VersionRange.parse("[1.0,2.0)").intersect(VersionRange.parse("[2.0,3.0)")).isEmpty());
+        assertFalse(VersionRange.ANY.containsAll(VersionRange.parse("[2.0,3.0)").intersect(
+            VersionRange.parse("[4.0,)"))));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "1.0", "[1.0", "(1.0)", "[1.0,2.0],", "[1.0,2.0,3.0]", "[1.0]x"})
+    void invalidRangesAreRejected(final String spec) {
+        final IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+            () -> VersionRange.parse(spec));
+
+        assertEquals("Invalid version range: '" + spec + "'", exception.getMessage());
+    }
+}